@@ -78,6 +78,12 @@ public class ConnectionFactoryImpl extends AbstractConnectionFactory
      */
     ConnectionPool pool = null;
 
+    /** Optional router for read-only work to replica DataSources. */
+    ReplicaDataSourceRouter replicaRouter = null;
+
+    /** Whether non-transactional reads are routed to a replica (when not explicitly marked as read-only). */
+    boolean replicaForNontransactionalReads = false;
+
     /**
      * Constructor.
      * @param storeMgr Store Manager
@@ -99,6 +105,7 @@ public class ConnectionFactoryImpl extends AbstractConnectionFactory
     @Override
     public void close()
     {
+        replicaRouter = null;
         if (pool != null)
         {
             // Close any DataNucleus-created connection pool
@@ -154,6 +161,58 @@ public class ConnectionFactoryImpl extends AbstractConnectionFactory
                 throw new NucleusUserException(Localiser.msg("047009", "non-transactional")).setFatal();
             }
         }
+
+        // Optional replicas for read-only work
+        replicaRouter = ReplicaDataSourceRouter.createReplicaRouter(storeMgr);
+        replicaForNontransactionalReads = storeMgr.getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_NONTRANSACTIONAL_READS);
+    }
+
+    /**
+     * Method to return whether a connection with the specified context and options should be obtained from a replica.
+     * This is the case when replicas are defined and the connection is for read-only work, namely
+     * <ul>
+     * <li>the options (e.g transaction options) include "datanucleus.rdbms.replica.readOnly" as true</li>
+     * <li>the ExecutionContext has the datastore as read-only</li>
+     * <li>the connection is non-transactional and non-transactional writes are not enabled, and
+     * "datanucleus.rdbms.replica.nontransactionalReads" is true (since a replica can lag the primary)</li>
+     * </ul>
+     * Connections without an ExecutionContext (schema, value generation etc) always use the primary.
+     * @param ec ExecutionContext
+     * @param options Options for creating the connection
+     * @return Whether to use a replica
+     */
+    protected boolean useReplicaForConnection(ExecutionContext ec, Map options)
+    {
+        if (replicaRouter == null || ec == null)
+        {
+            return false;
+        }
+        if (options != null && options.get(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_READ_ONLY) != null &&
+            Boolean.valueOf(options.get(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_READ_ONLY).toString()))
+        {
+            return true;
+        }
+        if (ec.getBooleanProperty(PropertyNames.PROPERTY_DATASTORE_READONLY))
+        {
+            return true;
+        }
+        return replicaForNontransactionalReads && !ec.getTransaction().isActive() && !ec.getTransaction().getNontransactionalWrite();
+    }
+
+    /**
+     * Method to mark the specified connection as being for read-only work, so it will be obtained from a replica
+     * (when replicas are defined). Only has effect if the connection hasn't yet obtained its underlying JDBC connection.
+     * The connection must not be used for any writes.
+     * @param mconn The managed connection
+     * @return Whether the connection will be obtained from a replica
+     */
+    public static boolean setUseReplicaForConnection(ManagedConnection mconn)
+    {
+        if (mconn instanceof ManagedConnectionImpl)
+        {
+            return ((ManagedConnectionImpl)mconn).setUseReplica();
+        }
+        return false;
     }
 
     /**
@@ -313,9 +372,13 @@ public class ConnectionFactoryImpl extends AbstractConnectionFactory
         int isolation;
         boolean needsCommitting = false;
 
+        /** Whether to obtain the JDBC connection from a replica (for read-only work). */
+        boolean useReplica = false;
+
         ManagedConnectionImpl(ExecutionContext ec, Map options)
         {
             this.ec = ec;
+            this.useReplica = useReplicaForConnection(ec, options);
             if (options != null && options.get(Transaction.TRANSACTION_ISOLATION_OPTION) != null)
             {
                 isolation = ((Number) options.get(Transaction.TRANSACTION_ISOLATION_OPTION)).intValue();
@@ -326,6 +389,15 @@ public class ConnectionFactoryImpl extends AbstractConnectionFactory
             }
         }
 
+        boolean setUseReplica()
+        {
+            if (this.conn == null && replicaRouter != null)
+            {
+                useReplica = true;
+            }
+            return useReplica;
+        }
+
         /**
          * Release this connection.
          * Releasing this connection will allow this managed connection to be used one or more times inside the same transaction. 
@@ -415,10 +487,25 @@ public class ConnectionFactoryImpl extends AbstractConnectionFactory
                     if (dba != null)
                     {
                         // Create Connection following DatastoreAdapter capabilities
-                        cnx = dataSource.getConnection();
+                        boolean fromReplica = false;
+                        if (useReplica && replicaRouter != null)
+                        {
+                            // Read-only work, so try a replica, falling back to the primary when none is usable
+                            cnx = replicaRouter.getConnection();
+                            fromReplica = (cnx != null);
+                        }
+                        if (cnx == null)
+                        {
+                            cnx = dataSource.getConnection();
+                        }
                         boolean succeeded = false;
                         try
                         {
+                            if (fromReplica)
+                            {
+                                // Replica connections are only ever used for reading
+                                readOnly = true;
+                            }
                             if (cnx.isReadOnly() != readOnly)
                             {
                                 NucleusLogger.CONNECTION.debug("Setting readonly=" + readOnly + " for connection: " + cnx.toString());
@@ -0,0 +1,217 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.JdbcType;
+import org.datanucleus.state.ObjectProvider;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.mapping.java.SerialisedMapping;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Manager for the lazy loading of LOB members.
+ * A member is a "lazy LOB" when it is in the default fetch group and is serialised, or is stored in a BLOB/CLOB/LONGVARBINARY
+ * (etc) column, and either the persistence property "datanucleus.rdbms.lazyLoadLobs" is set, or the member has the extension
+ * "lazy-load" set to true. Such members are not selected when retrieving objects via queries or SCO iterators (unless the fetch
+ * plan includes them through a group other than the default fetch group), so are left unloaded; objects
+ * retrieved this way are registered here as pending against their ExecutionContext.
+ * When a lazy LOB member of one of these objects is first accessed, the same member(s) of the other pending objects of
+ * that class are retrieved in the same SELECT, so that iterating through a list of such objects will not perform one
+ * SELECT per object.
+ */
+public class LazyLobManager implements StoreComponent
+{
+    /** Extension for a member to specify whether it is loaded lazily, overriding the persistence property. */
+    public static final String EXTENSION_LAZY_LOAD = "lazy-load";
+
+    protected final RDBMSStoreManager storeMgr;
+
+    /** Whether members that are LOBs are loaded lazily unless specified otherwise. */
+    protected final boolean lazyByDefault;
+
+    /** Cache of the lazy LOB member numbers, keyed by the class name. */
+    private final Map<String, int[]> lazyMembersByClass = new ConcurrentHashMap<>();
+
+    /** Objects with lazy LOB members not yet loaded. */
+    private final PendingObjectBatcher<Boolean> pendingObjects;
+
+    public LazyLobManager(RDBMSStoreManager storeMgr)
+    {
+        this.storeMgr = storeMgr;
+        this.lazyByDefault = storeMgr.getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_LAZY_LOAD_LOBS);
+        this.pendingObjects = new PendingObjectBatcher<>(storeMgr);
+    }
+
+    /**
+     * Method to release all pending objects.
+     */
+    public void close()
+    {
+        pendingObjects.clear();
+        lazyMembersByClass.clear();
+    }
+
+    /**
+     * Accessor for whether the specified member is to be loaded lazily, rather than being selected with the other members
+     * of its fetch plan.
+     * @param mmd Metadata for the member
+     * @param mapping Mapping for the member
+     * @return Whether it is a lazily loaded LOB
+     */
+    public boolean isLazyLob(AbstractMemberMetaData mmd, JavaTypeMapping mapping)
+    {
+        if (mmd == null || mapping == null || mmd.isPrimaryKey() || !mmd.isDefaultFetchGroup() || mapping.getNumberOfDatastoreMappings() == 0)
+        {
+            return false;
+        }
+
+        String lazyExt = mmd.getValueForExtension(EXTENSION_LAZY_LOAD);
+        if (lazyExt != null ? !Boolean.valueOf(lazyExt) : !lazyByDefault)
+        {
+            return false;
+        }
+
+        if (mmd.isSerialized() || mapping instanceof SerialisedMapping)
+        {
+            return true;
+        }
+        for (int i=0;i<mapping.getNumberOfDatastoreMappings();i++)
+        {
+            JdbcType jdbcType = mapping.getDatastoreMapping(i).getColumn().getJdbcType();
+            if (jdbcType == JdbcType.BLOB || jdbcType == JdbcType.CLOB || jdbcType == JdbcType.NCLOB ||
+                jdbcType == JdbcType.LONGVARBINARY || jdbcType == JdbcType.LONGVARCHAR || jdbcType == JdbcType.LONGNVARCHAR)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Accessor for the numbers of the members of the specified class that are lazy LOBs stored in the primary table of
+     * the class, and so can be retrieved in bulk.
+     * @param cmd Metadata for the class
+     * @param clr ClassLoader resolver
+     * @return The member numbers (empty if none)
+     */
+    public int[] getLazyLobMemberNumbers(AbstractClassMetaData cmd, ClassLoaderResolver clr)
+    {
+        int[] memberNumbers = lazyMembersByClass.get(cmd.getFullClassName());
+        if (memberNumbers == null)
+        {
+            List<Integer> lazyMembers = new ArrayList<>();
+            DatastoreClass table = storeMgr.getDatastoreClass(cmd.getFullClassName(), clr);
+            if (table != null && cmd.getFullClassName().equals(table.getType()) && cmd.getNonPKMemberPositions() != null)
+            {
+                int[] nonPkMemberNumbers = cmd.getNonPKMemberPositions();
+                for (int i=0;i<nonPkMemberNumbers.length;i++)
+                {
+                    AbstractMemberMetaData mmd = cmd.getMetaDataForManagedMemberAtAbsolutePosition(nonPkMemberNumbers[i]);
+                    JavaTypeMapping mapping = table.getMemberMapping(mmd);
+                    if (mapping != null && mapping.getTable() == table && isLazyLob(mmd, mapping))
+                    {
+                        lazyMembers.add(nonPkMemberNumbers[i]);
+                    }
+                }
+            }
+            memberNumbers = new int[lazyMembers.size()];
+            for (int i=0;i<memberNumbers.length;i++)
+            {
+                memberNumbers[i] = lazyMembers.get(i);
+            }
+            lazyMembersByClass.put(cmd.getFullClassName(), memberNumbers);
+        }
+        return memberNumbers;
+    }
+
+    /**
+     * Method to register an object that has just been retrieved, so that any of its lazy LOB members that are not loaded
+     * can be retrieved together with those of other objects of the same class.
+     * @param op ObjectProvider for the object
+     */
+    public void registerPendingObject(ObjectProvider op)
+    {
+        ExecutionContext ec = op.getExecutionContext();
+        int[] lobMemberNumbers = getLazyLobMemberNumbers(op.getClassMetaData(), ec.getClassLoaderResolver());
+        if (lobMemberNumbers.length == 0 || !PendingObjectBatcher.hasUnloadedMember(op, lobMemberNumbers))
+        {
+            return;
+        }
+        pendingObjects.register(op, Boolean.TRUE);
+    }
+
+    /**
+     * Method called when retrieving the specified members of an object. If any of these members are lazy LOBs then
+     * they are retrieved for this object together with the other pending objects of the same class, in a single SELECT.
+     * @param op ObjectProvider for the object being fetched
+     * @param table The table of the object
+     * @param mmds Metadata for the members being fetched
+     * @return Metadata for the members that still need fetching
+     */
+    public AbstractMemberMetaData[] fetchLazyLobMembers(ObjectProvider op, DatastoreClass table, AbstractMemberMetaData[] mmds)
+    {
+        ExecutionContext ec = op.getExecutionContext();
+        int[] lobMemberNumbers = getLazyLobMemberNumbers(op.getClassMetaData(), ec.getClassLoaderResolver());
+        if (lobMemberNumbers.length == 0 || mmds == null || !containsMember(mmds, lobMemberNumbers))
+        {
+            return mmds;
+        }
+
+        List<ObjectProvider> ops = pendingObjects.takeBatch(op, false, lobMemberNumbers);
+        if (ops.size() == 1)
+        {
+            // No other objects pending, so just fetch as normal
+            return mmds;
+        }
+
+        if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+        {
+            NucleusLogger.PERSISTENCE.debug(Localiser.msg("052224", ops.size(), op.getClassMetaData().getFullClassName()));
+        }
+        pendingObjects.fetchBatch(ops.toArray(new ObjectProvider[ops.size()]), table, lobMemberNumbers);
+
+        // Return the members that are still not loaded
+        return PendingObjectBatcher.getUnloadedMembers(op, mmds);
+    }
+
+    private static boolean containsMember(AbstractMemberMetaData[] mmds, int[] memberNumbers)
+    {
+        for (int i=0;i<mmds.length;i++)
+        {
+            for (int j=0;j<memberNumbers.length;j++)
+            {
+                if (mmds[i].getAbsoluteFieldNumber() == memberNumbers[j])
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,387 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.exceptions.NucleusObjectNotFoundException;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.ObjectProvider;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.mapping.java.PersistableMapping;
+import org.datanucleus.store.rdbms.request.LocateBulkRequest;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Holder for objects whose fetch is deferred so that it can be performed for many objects in one statement, for use by the
+ * managers that fetch in bulk (such as LazyLobManager).
+ * Objects are registered against their ExecutionContext and class, with a value for the manager, and when one of them is
+ * fetched the other objects of the same class (and value) are taken as a batch of at most {@link #MAX_BATCH_SIZE}.
+ * <p>
+ * The ExecutionContexts and objects are only weakly referenced, so that this does not hold on to objects released by the
+ * ExecutionContext. The objects of an ExecutionContext and class are only locked while registering or taking them, so
+ * different ExecutionContexts never contend, and when nothing is registered a fetch takes no lock at all.
+ * @param <V> Type of the value registered with each object
+ */
+public class PendingObjectBatcher<V>
+{
+    /** Maximum number of objects that are fetched in a single SELECT. */
+    public static final int MAX_BATCH_SIZE = 100;
+
+    protected final RDBMSStoreManager storeMgr;
+
+    /** Pending objects, keyed by the (weakly referenced) ExecutionContext and then by the class name. */
+    private final ConcurrentHashMap<ExecutionContextKey, ConcurrentHashMap<String, Map<ObjectProvider, V>>> pendingByEC = new ConcurrentHashMap<>();
+
+    /** Queue of the keys of ExecutionContexts that have been garbage collected. */
+    private final ReferenceQueue<ExecutionContext> releasedECs = new ReferenceQueue<>();
+
+    /**
+     * Key for an ExecutionContext, using its identity, and only weakly referencing it.
+     */
+    private static class ExecutionContextKey extends WeakReference<ExecutionContext>
+    {
+        final int hash;
+
+        ExecutionContextKey(ExecutionContext ec, ReferenceQueue<ExecutionContext> queue)
+        {
+            super(ec, queue);
+            this.hash = System.identityHashCode(ec);
+        }
+
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        public boolean equals(Object obj)
+        {
+            if (obj == this)
+            {
+                return true;
+            }
+            if (!(obj instanceof ExecutionContextKey))
+            {
+                return false;
+            }
+            Object ec = get();
+            return ec != null && ec == ((ExecutionContextKey)obj).get();
+        }
+    }
+
+    public PendingObjectBatcher(RDBMSStoreManager storeMgr)
+    {
+        this.storeMgr = storeMgr;
+    }
+
+    /**
+     * Method to release all pending objects.
+     */
+    public void clear()
+    {
+        pendingByEC.clear();
+    }
+
+    /**
+     * Accessor for whether there are no pending objects for any ExecutionContext.
+     * @return Whether empty
+     */
+    public boolean isEmpty()
+    {
+        return pendingByEC.isEmpty();
+    }
+
+    /**
+     * Method to register an object as pending, replacing any value it was registered with.
+     * @param op ObjectProvider for the object
+     * @param value The value for the object (not null)
+     */
+    public void register(ObjectProvider op, V value)
+    {
+        expungeReleasedECs();
+
+        ExecutionContextKey ecKey = new ExecutionContextKey(op.getExecutionContext(), releasedECs);
+        ConcurrentHashMap<String, Map<ObjectProvider, V>> pendingByClass = pendingByEC.get(ecKey);
+        if (pendingByClass == null)
+        {
+            pendingByClass = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, Map<ObjectProvider, V>> existing = pendingByEC.putIfAbsent(ecKey, pendingByClass);
+            if (existing != null)
+            {
+                pendingByClass = existing;
+            }
+        }
+
+        String className = op.getClassMetaData().getFullClassName();
+        Map<ObjectProvider, V> pendingOps = pendingByClass.get(className);
+        if (pendingOps == null)
+        {
+            pendingOps = new WeakHashMap<>();
+            Map<ObjectProvider, V> existing = pendingByClass.putIfAbsent(className, pendingOps);
+            if (existing != null)
+            {
+                pendingOps = existing;
+            }
+        }
+        synchronized (pendingOps)
+        {
+            pendingOps.put(op, value);
+        }
+    }
+
+    /**
+     * Accessor for the value that an object is registered with.
+     * @param op ObjectProvider for the object
+     * @return The value, or null if not pending
+     */
+    public V get(ObjectProvider op)
+    {
+        Map<ObjectProvider, V> pendingOps = getPendingObjects(op);
+        if (pendingOps == null)
+        {
+            return null;
+        }
+        synchronized (pendingOps)
+        {
+            return pendingOps.get(op);
+        }
+    }
+
+    /**
+     * Method to remove an object from the pending objects.
+     * @param op ObjectProvider for the object
+     * @return The value the object was registered with, or null if not pending
+     */
+    public V remove(ObjectProvider op)
+    {
+        Map<ObjectProvider, V> pendingOps = getPendingObjects(op);
+        if (pendingOps == null)
+        {
+            return null;
+        }
+        synchronized (pendingOps)
+        {
+            return pendingOps.remove(op);
+        }
+    }
+
+    /**
+     * Method to take the batch of objects to fetch together with the specified object, removing them from the pending objects.
+     * The batch contains the specified object, followed by the other pending objects of the same ExecutionContext and class
+     * that were registered with the same value (if the object was pending), are not deleted, and still need fetching.
+     * @param op ObjectProvider for the object being fetched
+     * @param pendingOnly Whether to only return a batch when the object being fetched was itself pending
+     * @param memberNumbers Numbers of the members of which one must be unloaded for an object to still need fetching
+     *     (null means the default fetch group members)
+     * @return The objects to fetch (starting with the object being fetched), or null if pendingOnly and the object wasn't pending
+     */
+    public List<ObjectProvider> takeBatch(ObjectProvider op, boolean pendingOnly, int[] memberNumbers)
+    {
+        List<ObjectProvider> ops = new ArrayList<>();
+        ops.add(op);
+        Map<ObjectProvider, V> pendingOps = getPendingObjects(op);
+        if (pendingOps == null)
+        {
+            return pendingOnly ? null : ops;
+        }
+
+        ExecutionContext ec = op.getExecutionContext();
+        AbstractClassMetaData cmd = op.getClassMetaData();
+        synchronized (pendingOps)
+        {
+            V value = pendingOps.remove(op);
+            if (value == null && pendingOnly)
+            {
+                return null;
+            }
+
+            Iterator<Map.Entry<ObjectProvider, V>> pendingIter = pendingOps.entrySet().iterator();
+            while (pendingIter.hasNext() && ops.size() < MAX_BATCH_SIZE)
+            {
+                Map.Entry<ObjectProvider, V> pendingEntry = pendingIter.next();
+                if (value != null && !value.equals(pendingEntry.getValue()))
+                {
+                    continue;
+                }
+                pendingIter.remove();
+                ObjectProvider pendingOp = pendingEntry.getKey();
+                if (pendingOp != null && pendingOp.getObject() != null && pendingOp.getExecutionContext() == ec &&
+                    pendingOp.getClassMetaData() == cmd && !pendingOp.getLifecycleState().isDeleted() && hasUnloadedMember(pendingOp, memberNumbers))
+                {
+                    ops.add(pendingOp);
+                }
+            }
+        }
+        return ops;
+    }
+
+    /**
+     * Method to fetch the specified members, and the rest of the fetch plan of the class, of a batch of objects of the same class,
+     * using a single SELECT per table of the class.
+     * @param ops The objects (all of the class)
+     * @param cmd Metadata for the class
+     * @param mmds Metadata for the members requested
+     * @param stopTable Table at which to stop when ascending the tables of the class (exclusive), or null for all tables
+     */
+    public void fetchBatch(ObjectProvider[] ops, AbstractClassMetaData cmd, AbstractMemberMetaData[] mmds, DatastoreClass stopTable)
+    {
+        ExecutionContext ec = ops[0].getExecutionContext();
+        int[] fpMemberNumbers = ec.getFetchPlan().getFetchPlanForClass(cmd).getMemberNumbers();
+        LazyLobManager lazyLobMgr = storeMgr.getComponent(LazyLobManager.class);
+        DatastoreClass table = storeMgr.getDatastoreClass(cmd.getFullClassName(), ec.getClassLoaderResolver());
+        while (table != null && table != stopTable)
+        {
+            List<Integer> memberNumbers = new ArrayList<>();
+            for (int i=0;i<mmds.length;i++)
+            {
+                addMemberIfInTable(table, mmds[i], lazyLobMgr, memberNumbers);
+            }
+            for (int i=0;i<fpMemberNumbers.length;i++)
+            {
+                addMemberIfInTable(table, cmd.getMetaDataForManagedMemberAtAbsolutePosition(fpMemberNumbers[i]), lazyLobMgr, memberNumbers);
+            }
+
+            if (!memberNumbers.isEmpty())
+            {
+                if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+                {
+                    NucleusLogger.PERSISTENCE.debug(Localiser.msg("052228", table, ops.length, cmd.getFullClassName()));
+                }
+                int[] memberNumbersToFetch = new int[memberNumbers.size()];
+                for (int i=0;i<memberNumbersToFetch.length;i++)
+                {
+                    memberNumbersToFetch[i] = memberNumbers.get(i);
+                }
+                fetchBatch(ops, table, memberNumbersToFetch);
+            }
+            table = table.getSuperDatastoreClass();
+        }
+    }
+
+    /**
+     * Method to fetch the specified members of a batch of objects from a table, using a single SELECT.
+     * @param ops The objects
+     * @param table The table
+     * @param memberNumbers Numbers of the members to fetch (all stored in the table)
+     */
+    public void fetchBatch(ObjectProvider[] ops, DatastoreClass table, int[] memberNumbers)
+    {
+        try
+        {
+            new LocateBulkRequest(table, memberNumbers).execute(ops);
+        }
+        catch (NucleusObjectNotFoundException nonfe)
+        {
+            // Some objects don't exist (or were deleted meanwhile); any unloaded members are left to the normal fetch
+        }
+    }
+
+    /**
+     * Convenience method to return the members that are not loaded for an object.
+     * @param op ObjectProvider for the object
+     * @param mmds Metadata for the members
+     * @return Metadata for those members not loaded
+     */
+    public static AbstractMemberMetaData[] getUnloadedMembers(ObjectProvider op, AbstractMemberMetaData[] mmds)
+    {
+        List<AbstractMemberMetaData> unloadedMmds = new ArrayList<>();
+        boolean[] loadedFlags = op.getLoadedFields();
+        for (int i=0;i<mmds.length;i++)
+        {
+            if (!loadedFlags[mmds[i].getAbsoluteFieldNumber()])
+            {
+                unloadedMmds.add(mmds[i]);
+            }
+        }
+        return unloadedMmds.toArray(new AbstractMemberMetaData[unloadedMmds.size()]);
+    }
+
+    /**
+     * Convenience method to return whether the object has any of the specified members not loaded, so would need fetching.
+     * @param op ObjectProvider for the object
+     * @param memberNumbers Numbers of the members, or null for the default fetch group members
+     * @return Whether any is not loaded
+     */
+    public static boolean hasUnloadedMember(ObjectProvider op, int[] memberNumbers)
+    {
+        boolean[] loadedFlags = op.getLoadedFields();
+        if (memberNumbers == null)
+        {
+            memberNumbers = op.getClassMetaData().getDFGMemberPositions();
+        }
+        for (int i=0;i<memberNumbers.length;i++)
+        {
+            if (!loadedFlags[memberNumbers[i]])
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<ObjectProvider, V> getPendingObjects(ObjectProvider op)
+    {
+        if (pendingByEC.isEmpty())
+        {
+            return null;
+        }
+        ConcurrentHashMap<String, Map<ObjectProvider, V>> pendingByClass = pendingByEC.get(new ExecutionContextKey(op.getExecutionContext(), null));
+        return pendingByClass != null ? pendingByClass.get(op.getClassMetaData().getFullClassName()) : null;
+    }
+
+    /**
+     * Method to remove the pending objects of ExecutionContexts that have been garbage collected.
+     */
+    private void expungeReleasedECs()
+    {
+        Object ecKey;
+        while ((ecKey = releasedECs.poll()) != null)
+        {
+            pendingByEC.remove(ecKey);
+        }
+    }
+
+    private static void addMemberIfInTable(DatastoreClass table, AbstractMemberMetaData mmd, LazyLobManager lazyLobMgr, List<Integer> memberNumbers)
+    {
+        if (mmd == null || mmd.isPrimaryKey() || memberNumbers.contains(mmd.getAbsoluteFieldNumber()))
+        {
+            return;
+        }
+        JavaTypeMapping mapping = table.getMemberMapping(mmd);
+        if (mapping != null && mapping.getTable() == table && mapping.includeInFetchStatement() && !lazyLobMgr.isLazyLob(mmd, mapping))
+        {
+            if (mapping instanceof PersistableMapping && mapping.getNumberOfDatastoreMappings() == 0)
+            {
+                // 1-1 with FK at other side, so not selectable from this table
+                return;
+            }
+            memberNumbers.add(mmd.getAbsoluteFieldNumber());
+        }
+    }
+}
@@ -20,11 +20,11 @@ package org.datanucleus.store.rdbms;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.ExecutionContext;
@@ -36,34 +36,46 @@ import org.datanucleus.metadata.AbstractClassMetaData;
 import org.datanucleus.metadata.AbstractMemberMetaData;
 import org.datanucleus.metadata.InheritanceStrategy;
 import org.datanucleus.metadata.RelationType;
+import org.datanucleus.metadata.VersionMetaData;
 import org.datanucleus.state.ObjectProvider;
 import org.datanucleus.store.AbstractPersistenceHandler;
 import org.datanucleus.store.StoreManager;
 import org.datanucleus.store.rdbms.fieldmanager.DynamicSchemaFieldManager;
+import org.datanucleus.store.rdbms.mapping.MappingCallbacks;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.request.BulkInsertRequest;
 import org.datanucleus.store.rdbms.request.DeleteRequest;
 import org.datanucleus.store.rdbms.request.FetchRequest;
 import org.datanucleus.store.rdbms.request.InsertRequest;
 import org.datanucleus.store.rdbms.request.LocateBulkRequest;
 import org.datanucleus.store.rdbms.request.LocateRequest;
 import org.datanucleus.store.rdbms.request.Request;
+import org.datanucleus.store.rdbms.request.RequestCache;
 import org.datanucleus.store.rdbms.request.RequestIdentifier;
 import org.datanucleus.store.rdbms.request.RequestType;
 import org.datanucleus.store.rdbms.request.UpdateRequest;
 import org.datanucleus.store.rdbms.table.ClassView;
 import org.datanucleus.store.rdbms.table.DatastoreClass;
 import org.datanucleus.store.rdbms.table.SecondaryDatastoreClass;
-import org.datanucleus.util.ConcurrentReferenceHashMap;
 import org.datanucleus.util.Localiser;
 import org.datanucleus.util.NucleusLogger;
-import org.datanucleus.util.ConcurrentReferenceHashMap.ReferenceType;
 
 /**
  * Handler for persistence for RDBMS datastores.
  */
 public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
 {
-    /** The cache of database requests. Access is synchronized on the map object itself. */
-    private Map<RequestIdentifier, Request> requestsByID = new ConcurrentReferenceHashMap<>(1, ReferenceType.STRONG, ReferenceType.SOFT);
+    /** The cache of database requests. */
+    private RequestCache requestCache;
+
+    /** Update mode where only the dirty members are included in the UPDATE statement. */
+    public static final String UPDATE_MODE_DIRTY_FIELDS = "dirty-fields";
+
+    /** Update mode where all updateable default-fetch-group members are included in the UPDATE statement. */
+    public static final String UPDATE_MODE_FULL_ROW = "full-row";
+
+    /** Cache of the members to update when using "full-row" update mode, keyed by the class name. */
+    private Map<String, int[]> fullRowUpdateMembersByClass = new ConcurrentHashMap<>();
 
     /**
      * Constructor.
@@ -72,6 +84,9 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
     public RDBMSPersistenceHandler(StoreManager storeMgr)
     {
         super(storeMgr);
+        requestCache = new RequestCache(storeMgr.getIntProperty(RDBMSPropertyNames.PROPERTY_RDBMS_REQUEST_CACHE_MAX_SIZE),
+            storeMgr.getIntProperty(RDBMSPropertyNames.PROPERTY_RDBMS_REQUEST_CACHE_MAX_MEMORY),
+            storeMgr.getStringProperty(RDBMSPropertyNames.PROPERTY_RDBMS_REQUEST_CACHE_EVICTION_POLICY));
     }
 
     /**
@@ -79,8 +94,13 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
      */
     public void close()
     {
-        requestsByID.clear();
-        requestsByID = null;
+        if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+        {
+            NucleusLogger.PERSISTENCE.debug(requestCache.toString());
+        }
+        requestCache.clear();
+        requestCache = null;
+        fullRowUpdateMembersByClass.clear();
     }
 
     private DatastoreClass getDatastoreClass(String className, ClassLoaderResolver clr)
@@ -90,14 +110,90 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
 
     // ------------------------------ Insert ----------------------------------
 
-    /* (non-Javadoc)
-     * @see org.datanucleus.store.AbstractPersistenceHandler#insertObjects(org.datanucleus.state.ObjectProvider[])
+    /**
+     * Inserts persistent objects into the database.
+     * When the persistence property "datanucleus.rdbms.bulkLoadThreshold" is set and at least that many objects of a type
+     * are being inserted, and the type can be bulk loaded (single table, no identity column, no relations, etc) then these
+     * objects are inserted together using a BulkInsertRequest. All other objects are inserted one at a time.
+     * Inserts delayed to flush (optimistic transactions, or manual flush mode) are only passed to this method as a group
+     * with the FlushReferential flush process, selected using the persistence property "datanucleus.rdbms.flushReferential".
+     * @param ops The ObjectProviders of the objects to be inserted.
+     * @throws NucleusDataStoreException when an error occurs in the datastore communication
      */
     @Override
     public void insertObjects(ObjectProvider... ops)
     {
-        // TODO Implement this in such a way as it process all objects of a type in one call (after checking hasRelations)
-        super.insertObjects(ops);
+        int bulkLoadThreshold = storeMgr.getIntProperty(RDBMSPropertyNames.PROPERTY_RDBMS_BULK_LOAD_THRESHOLD);
+        if (bulkLoadThreshold <= 0 || ops.length < bulkLoadThreshold)
+        {
+            super.insertObjects(ops);
+            return;
+        }
+
+        // Separate the objects of types that can be bulk loaded, grouping them by type
+        ClassLoaderResolver clr = ops[0].getExecutionContext().getClassLoaderResolver();
+        Map<String, List<ObjectProvider>> bulkOpsByType = new LinkedHashMap<>();
+        List<ObjectProvider> otherOps = new ArrayList<>();
+        for (ObjectProvider op : ops)
+        {
+            String className = op.getClassMetaData().getFullClassName();
+            List<ObjectProvider> bulkOps = bulkOpsByType.get(className);
+            if (bulkOps == null && !bulkOpsByType.containsKey(className))
+            {
+                DatastoreClass table = getDatastoreClass(className, clr);
+                if (table != null && !(table instanceof ClassView) && table.getSuperDatastoreClass() == null &&
+                    (table.getSecondaryDatastoreClasses() == null || table.getSecondaryDatastoreClasses().isEmpty()) &&
+                    ((InsertRequest)getInsertRequest(table, op.getClassMetaData(), clr)).getBulkLoadColumnNames() != null)
+                {
+                    bulkOps = new ArrayList<>();
+                }
+                bulkOpsByType.put(className, bulkOps);
+            }
+
+            if (bulkOps != null)
+            {
+                bulkOps.add(op);
+            }
+            else
+            {
+                otherOps.add(op);
+            }
+        }
+
+        // Insert the bulk loadable types first, since these have no relations but other objects can refer to them
+        for (List<ObjectProvider> bulkOps : bulkOpsByType.values())
+        {
+            if (bulkOps == null)
+            {
+                continue;
+            }
+            if (bulkOps.size() < bulkLoadThreshold)
+            {
+                otherOps.addAll(bulkOps);
+                continue;
+            }
+
+            ObjectProvider firstOp = bulkOps.get(0);
+            ExecutionContext ec = firstOp.getExecutionContext();
+            for (ObjectProvider op : bulkOps)
+            {
+                assertReadOnlyForUpdateOfObject(op);
+                checkForSchemaUpdatesForFieldsOfObject(op, op.getLoadedFieldNumbers());
+                if (ec.getStatistics() != null)
+                {
+                    ec.getStatistics().incrementInsertCount();
+                }
+            }
+
+            DatastoreClass table = getDatastoreClass(firstOp.getClassMetaData().getFullClassName(), clr);
+            InsertRequest insertReq = (InsertRequest)getInsertRequest(table, firstOp.getClassMetaData(), clr);
+            new BulkInsertRequest(table, insertReq).execute(bulkOps.toArray(new ObjectProvider[bulkOps.size()]));
+        }
+
+        if (!otherOps.isEmpty())
+        {
+            super.insertObjects(otherOps.toArray(new ObjectProvider[otherOps.size()]));
+        }
     }
 
     /**
@@ -184,11 +280,11 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
     private Request getInsertRequest(DatastoreClass table, AbstractClassMetaData cmd, ClassLoaderResolver clr)
     {
         RequestIdentifier reqID = new RequestIdentifier(table, null, RequestType.INSERT, cmd.getFullClassName());
-        Request req = requestsByID.get(reqID);
+        Request req = requestCache.get(reqID);
         if (req == null)
         {
             req = new InsertRequest(table, cmd, clr);
-            requestsByID.put(reqID, req);
+            requestCache.put(reqID, req);
         }
         return req;
     }
@@ -311,7 +407,37 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
                 ec.getStatistics().incrementFetchCount();
             }
 
+            // Count any use of a relation path left hollow by an earlier fetch, regenerating the requests if it is now to be prefetched
+            String prefetchClassName = ((RDBMSStoreManager)storeMgr).getComponent(RelationPrefetchManager.class).recordFetch(op);
+            if (prefetchClassName != null)
+            {
+                requestCache.removeRequestsForClass(prefetchClassName);
+            }
+
             DatastoreClass table = getDatastoreClass(op.getClassMetaData().getFullClassName(), clr);
+            if (mmds != null)
+            {
+                // Resolve any object referenced by query results together with the other pending objects of the same type
+                mmds = ((RDBMSStoreManager)storeMgr).getComponent(ReferenceFetchManager.class).fetchReferencedObjects(op, mmds);
+                if (mmds.length == 0)
+                {
+                    return;
+                }
+
+                // Retrieve any subclass members not selected by a two-phase polymorphic query together with those of other pending objects
+                mmds = ((RDBMSStoreManager)storeMgr).getComponent(SubclassMemberFetchManager.class).fetchSubclassMembers(op, mmds);
+                if (mmds.length == 0)
+                {
+                    return;
+                }
+
+                // Retrieve any lazy LOB members together with those of other pending objects
+                mmds = ((RDBMSStoreManager)storeMgr).getComponent(LazyLobManager.class).fetchLazyLobMembers(op, table, mmds);
+                if (mmds.length == 0)
+                {
+                    return;
+                }
+            }
             Request req = getFetchRequest(table, mmds, op.getClassMetaData(), clr);
             req.execute(op);
         }
@@ -329,11 +455,11 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
     private Request getFetchRequest(DatastoreClass table, AbstractMemberMetaData[] mmds, AbstractClassMetaData cmd, ClassLoaderResolver clr)
     {
         RequestIdentifier reqID = new RequestIdentifier(table, mmds, RequestType.FETCH, cmd.getFullClassName());
-        Request req = requestsByID.get(reqID);
+        Request req = requestCache.get(reqID);
         if (req == null)
         {
             req = new FetchRequest(table, mmds, cmd, clr);
-            requestsByID.put(reqID, req);
+            requestCache.put(reqID, req);
         }
         return req;
     }
@@ -362,12 +488,22 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
         AbstractMemberMetaData[] mmds = null;
         if (fieldNumbers != null && fieldNumbers.length > 0)
         {
-            // Convert the field numbers for this class into their metadata for the table
             ExecutionContext ec = op.getExecutionContext();
-            mmds = new AbstractMemberMetaData[fieldNumbers.length];
+            ClassLoaderResolver clr = ec.getClassLoaderResolver();
+            DatastoreClass dc = getDatastoreClass(op.getObject().getClass().getName(), clr);
+
+            // Widen the dirty fields to the full row if the class is using that update mode
+            int[] updateFieldNumbers = fieldNumbers;
+            if (UPDATE_MODE_FULL_ROW.equalsIgnoreCase(getUpdateMode(op.getClassMetaData())))
+            {
+                updateFieldNumbers = getFullRowMemberNumbersToUpdate(op, dc, fieldNumbers);
+            }
+
+            // Convert the field numbers for this class into their metadata for the table
+            mmds = new AbstractMemberMetaData[updateFieldNumbers.length];
             for (int i=0;i<mmds.length;i++)
             {
-                mmds[i] = op.getClassMetaData().getMetaDataForManagedMemberAtAbsolutePosition(fieldNumbers[i]);
+                mmds[i] = op.getClassMetaData().getMetaDataForManagedMemberAtAbsolutePosition(updateFieldNumbers[i]);
             }
 
             if (ec.getStatistics() != null)
@@ -375,12 +511,104 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
                 ec.getStatistics().incrementUpdateCount();
             }
 
-            ClassLoaderResolver clr = ec.getClassLoaderResolver();
-            DatastoreClass dc = getDatastoreClass(op.getObject().getClass().getName(), clr);
             updateObjectInTable(dc, op, clr, mmds);
         }
     }
 
+    /**
+     * Accessor for the update mode to use for objects of the specified class.
+     * The class can specify the extension "update-mode", otherwise the persistence property 
+     * "datanucleus.rdbms.updateMode" is used.
+     * @param cmd Metadata for the class
+     * @return The update mode ("dirty-fields" or "full-row")
+     */
+    protected String getUpdateMode(AbstractClassMetaData cmd)
+    {
+        if (cmd.hasExtension("update-mode"))
+        {
+            return cmd.getValueForExtension("update-mode");
+        }
+        String updateMode = storeMgr.getStringProperty(RDBMSPropertyNames.PROPERTY_RDBMS_UPDATE_MODE);
+        return updateMode != null ? updateMode : UPDATE_MODE_DIRTY_FIELDS;
+    }
+
+    /**
+     * Convenience method to return the member numbers to update for an object using "full-row" update mode.
+     * This is all members that are stored in columns of the table(s) of this class, excluding the primary key, the version
+     * and members that need their own processing on update (collections, maps etc), so that every object of the class 
+     * gets the same UPDATE statement text per table whichever members are dirty, and so updates of different objects can
+     * be batched (see "datanucleus.rdbms.batchUpdates"). If any of these members is not loaded then only the dirty members
+     * are updated, since fetching the others would cost a SELECT per object and would write back values that could since
+     * have been changed by another transaction.
+     * @param op ObjectProvider of the object being updated
+     * @param dc Table of the class of the object
+     * @param dirtyFieldNumbers The (dirty) member numbers requested to be updated
+     * @return The member numbers to update
+     */
+    private int[] getFullRowMemberNumbersToUpdate(ObjectProvider op, DatastoreClass dc, int[] dirtyFieldNumbers)
+    {
+        AbstractClassMetaData cmd = op.getClassMetaData();
+        int[] fullRowMemberNumbers = fullRowUpdateMembersByClass.get(cmd.getFullClassName());
+        if (fullRowMemberNumbers == null)
+        {
+            List<Integer> memberNumberList = new ArrayList<>();
+            VersionMetaData vermd = cmd.getVersionMetaDataForClass();
+            String versionMemberName = vermd != null ? vermd.getFieldName() : null;
+            int[] memberNumbers = cmd.getAllMemberPositions();
+            for (int i=0;i<memberNumbers.length;i++)
+            {
+                AbstractMemberMetaData mmd = cmd.getMetaDataForManagedMemberAtAbsolutePosition(memberNumbers[i]);
+                if (mmd.isPrimaryKey() || mmd.getName().equals(versionMemberName))
+                {
+                    continue;
+                }
+                JavaTypeMapping m = dc.getMemberMapping(mmd);
+                if (m != null && !(m instanceof MappingCallbacks) && m.includeInUpdateStatement() && m.getNumberOfDatastoreMappings() > 0)
+                {
+                    memberNumberList.add(memberNumbers[i]);
+                }
+            }
+            fullRowMemberNumbers = new int[memberNumberList.size()];
+            for (int i=0;i<fullRowMemberNumbers.length;i++)
+            {
+                fullRowMemberNumbers[i] = memberNumberList.get(i);
+            }
+            fullRowUpdateMembersByClass.put(cmd.getFullClassName(), fullRowMemberNumbers);
+        }
+
+        // Include the dirty members plus the full-row members, in member order
+        boolean[] loadedFlags = op.getLoadedFields();
+        boolean[] updateFlags = new boolean[loadedFlags.length];
+        for (int i=0;i<fullRowMemberNumbers.length;i++)
+        {
+            if (!loadedFlags[fullRowMemberNumbers[i]])
+            {
+                // Not all of the row is loaded, so just update the dirty members
+                return dirtyFieldNumbers;
+            }
+            updateFlags[fullRowMemberNumbers[i]] = true;
+        }
+        for (int i=0;i<dirtyFieldNumbers.length;i++)
+        {
+            updateFlags[dirtyFieldNumbers[i]] = true;
+        }
+
+        List<Integer> memberNumberList = new ArrayList<>();
+        for (int i=0;i<updateFlags.length;i++)
+        {
+            if (updateFlags[i])
+            {
+                memberNumberList.add(i);
+            }
+        }
+        int[] updateMemberNumbers = new int[memberNumberList.size()];
+        for (int i=0;i<updateMemberNumbers.length;i++)
+        {
+            updateMemberNumbers[i] = memberNumberList.get(i);
+        }
+        return updateMemberNumbers;
+    }
+
     /**
      * Convenience method to handle the update into the various tables that this object is persisted into.
      * @param table The table to process
@@ -430,11 +658,11 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
     private Request getUpdateRequest(DatastoreClass table, AbstractMemberMetaData[] mmds, AbstractClassMetaData cmd, ClassLoaderResolver clr)
     {
         RequestIdentifier reqID = new RequestIdentifier(table, mmds, RequestType.UPDATE, cmd.getFullClassName());
-        Request req = requestsByID.get(reqID);
+        Request req = requestCache.get(reqID);
         if (req == null)
         {
             req = new UpdateRequest(table, mmds, cmd, clr);
-            requestsByID.put(reqID, req);
+            requestCache.put(reqID, req);
         }
         return req;
     }
@@ -512,11 +740,11 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
     private Request getDeleteRequest(DatastoreClass table, AbstractClassMetaData acmd, ClassLoaderResolver clr)
     {
         RequestIdentifier reqID = new RequestIdentifier(table, null, RequestType.DELETE, acmd.getFullClassName());
-        Request req = requestsByID.get(reqID);
+        Request req = requestCache.get(reqID);
         if (req == null)
         {
             req = new DeleteRequest(table, acmd, clr);
-            requestsByID.put(reqID, req);
+            requestCache.put(reqID, req);
         }
         return req;
     }
@@ -583,11 +811,11 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
     private Request getLocateRequest(DatastoreClass table, String className)
     {
         RequestIdentifier reqID = new RequestIdentifier(table, null, RequestType.LOCATE, className);
-        Request req = requestsByID.get(reqID);
+        Request req = requestCache.get(reqID);
         if (req == null)
         {
             req = new LocateRequest(table);
-            requestsByID.put(reqID, req);
+            requestCache.put(reqID, req);
         }
         return req;
     }
@@ -625,10 +853,8 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
      */
     public void removeAllRequests()
     {
-        synchronized (requestsByID)
-        {
-            requestsByID.clear();
-        }
+        requestCache.clear();
+        fullRowUpdateMembersByClass.clear();
     }
 
     /**
@@ -638,18 +864,59 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
      */
     public void removeRequestsForTable(DatastoreClass table)
     {
-        synchronized(requestsByID)
+        requestCache.removeRequestsForTable(table);
+    }
+
+    /**
+     * Accessor for the cache of requests, providing access to its hit/miss/eviction/rebuild counters.
+     * @return The request cache
+     */
+    public RequestCache getRequestCache()
+    {
+        return requestCache;
+    }
+
+    /**
+     * Method to create the requests used by the most common operations on the specified classes, so that these are not
+     * generated on first use. Creates the requests to fetch the default fetch group of each class, and to locate objects of each class.
+     * @param cmds Metadata for the classes
+     * @param clr ClassLoader resolver
+     */
+    public void prewarmRequests(Collection<AbstractClassMetaData> cmds, ClassLoaderResolver clr)
+    {
+        int numRequests = requestCache.size();
+        for (AbstractClassMetaData cmd : cmds)
         {
-            // Synchronise on the "requestsById" set since while it is "synchronised itself, all iterators needs this sync
-            Set<RequestIdentifier> keySet = new HashSet(requestsByID.keySet());
-            for (RequestIdentifier reqId : keySet)
+            DatastoreClass table = getDatastoreClass(cmd.getFullClassName(), clr);
+            if (table == null)
             {
-                if (reqId.getTable() == table)
+                continue;
+            }
+
+            int[] dfgMemberNumbers = cmd.getDFGMemberPositions();
+            List<AbstractMemberMetaData> dfgMmds = new ArrayList<>();
+            for (int i=0;i<dfgMemberNumbers.length;i++)
+            {
+                AbstractMemberMetaData mmd = cmd.getMetaDataForManagedMemberAtAbsolutePosition(dfgMemberNumbers[i]);
+                if (!mmd.isPrimaryKey())
                 {
-                    requestsByID.remove(reqId);
+                    dfgMmds.add(mmd);
                 }
             }
+            try
+            {
+                if (!dfgMmds.isEmpty())
+                {
+                    getFetchRequest(table, dfgMmds.toArray(new AbstractMemberMetaData[dfgMmds.size()]), cmd, clr);
+                }
+                getLocateRequest(table, cmd.getFullClassName());
+            }
+            catch (NucleusException ne)
+            {
+                NucleusLogger.PERSISTENCE.warn("Unable to pre-warm the requests for class " + cmd.getFullClassName() + " : " + ne.getMessage());
+            }
         }
+        NucleusLogger.PERSISTENCE.debug("Pre-warmed " + (requestCache.size() - numRequests) + " requests for the managed classes");
     }
 
     /**
@@ -667,7 +934,7 @@ public class RDBMSPersistenceHandler extends AbstractPersistenceHandler
             sm.provideFields(fieldNumbers, dynamicSchemaFM);
             if (dynamicSchemaFM.hasPerformedSchemaUpdates())
             {
-                requestsByID.clear();
+                requestCache.clear();
             }
         }
     }
@@ -38,6 +38,10 @@ public class RDBMSPropertyNames
     public static final String PROPERTY_RDBMS_COLUMN_DEFAULT_WHEN_NULL = "datanucleus.rdbms.useColumnDefaultWhenNull";
     public static final String PROPERTY_RDBMS_PERSIST_EMPTY_STRING_AS_NULL = "datanucleus.rdbms.persistEmptyStringAsNull";
     public static final String PROPERTY_RDBMS_CHECK_EXISTS_TABLES_VIEWS = "datanucleus.rdbms.checkExistTablesOrViews";
+    public static final String PROPERTY_RDBMS_SCHEMA_VALIDATION_THREADS = "datanucleus.rdbms.schema.validationThreads";
+    public static final String PROPERTY_RDBMS_SCHEMA_DEFER_CLASS_INITIALISATION = "datanucleus.rdbms.schema.deferClassInitialisation";
+    public static final String PROPERTY_RDBMS_SCHEMA_SNAPSHOT_FILE = "datanucleus.rdbms.schema.snapshotFile";
+    public static final String PROPERTY_RDBMS_SCHEMA_SNAPSHOT_VERSION_QUERY = "datanucleus.rdbms.schema.snapshotVersionQuery";
     public static final String PROPERTY_RDBMS_SCHEMA_TABLE_NAME = "datanucleus.rdbms.schemaTable.tableName";
     public static final String PROPERTY_RDBMS_CONNECTION_PROVIDER_NAME = "datanucleus.rdbms.connectionProviderName";
     public static final String PROPERTY_RDBMS_CONNECTION_PROVIDER_FAIL_ON_ERROR = "datanucleus.rdbms.connectionProviderFailOnError";
@@ -50,11 +54,43 @@ public class RDBMSPropertyNames
     public static final String PROPERTY_RDBMS_QUERY_FETCH_DIRECTION = "datanucleus.rdbms.query.fetchDirection";
     public static final String PROPERTY_RDBMS_QUERY_RESULT_SET_TYPE = "datanucleus.rdbms.query.resultSetType";
     public static final String PROPERTY_RDBMS_QUERY_RESULT_SET_CONCURRENCY = "datanucleus.rdbms.query.resultSetConcurrency";
+    public static final String PROPERTY_RDBMS_QUERY_COLLECTION_PARAMETER_AS_ARRAY = "datanucleus.rdbms.query.collectionParameterAsArray";
+    public static final String PROPERTY_RDBMS_QUERY_BULK_EVICT_AFFECTED_ONLY = "datanucleus.rdbms.query.bulkEvictAffectedOnly";
+    public static final String PROPERTY_RDBMS_QUERY_POLYMORPHIC_TWO_PHASE = "datanucleus.rdbms.query.polymorphicTwoPhase";
+    public static final String PROPERTY_RDBMS_QUERY_RESOLVE_REFERENCES_IN_BULK = "datanucleus.rdbms.query.resolveReferencesInBulk";
+    public static final String PROPERTY_RDBMS_QUERY_ASYNC_THREADS = "datanucleus.rdbms.query.asyncThreads";
+    public static final String PROPERTY_RDBMS_QUERY_ASYNC_VIRTUAL_THREADS = "datanucleus.rdbms.query.asyncVirtualThreads";
+    public static final String PROPERTY_RDBMS_QUERY_ASYNC_QUEUE_SIZE = "datanucleus.rdbms.query.asyncQueueSize";
+    public static final String PROPERTY_RDBMS_VIRTUAL_THREADS_AUDIT_PINNING = "datanucleus.rdbms.virtualThreads.auditPinning";
+    public static final String PROPERTY_RDBMS_QUERY_READ_ONLY_PROJECTION = "datanucleus.rdbms.query.readOnlyProjection";
     public static final String PROPERTY_RDBMS_FETCH_UNLOADED_AUTO = "datanucleus.rdbms.fetchUnloadedAutomatically";
+    public static final String PROPERTY_RDBMS_LAZY_LOAD_LOBS = "datanucleus.rdbms.lazyLoadLobs";
+    public static final String PROPERTY_RDBMS_RELATION_PREFETCH = "datanucleus.rdbms.relationPrefetch";
+    public static final String PROPERTY_RDBMS_RELATION_PREFETCH_THRESHOLD = "datanucleus.rdbms.relationPrefetch.threshold";
+    public static final String PROPERTY_RDBMS_RELATION_PREFETCH_MAX_DEPTH = "datanucleus.rdbms.relationPrefetch.maxDepth";
 
     public static final String PROPERTY_RDBMS_SQL_TABLE_NAMING_STRATEGY = "datanucleus.rdbms.sqlTableNamingStrategy";
     public static final String PROPERTY_RDBMS_STATEMENT_LOGGING = "datanucleus.rdbms.statementLogging";
     public static final String PROPERTY_RDBMS_STATEMENT_BATCH_LIMIT = "datanucleus.rdbms.statementBatchLimit";
+    public static final String PROPERTY_RDBMS_BULK_LOAD_THRESHOLD = "datanucleus.rdbms.bulkLoadThreshold";
+    public static final String PROPERTY_RDBMS_FLUSH_REFERENTIAL = "datanucleus.rdbms.flushReferential";
+    public static final String PROPERTY_RDBMS_UPDATE_MODE = "datanucleus.rdbms.updateMode";
+    public static final String PROPERTY_RDBMS_BATCH_UPDATES = "datanucleus.rdbms.batchUpdates";
+    public static final String PROPERTY_RDBMS_REQUEST_CACHE_MAX_SIZE = "datanucleus.rdbms.requestCache.maxSize";
+    public static final String PROPERTY_RDBMS_REQUEST_CACHE_MAX_MEMORY = "datanucleus.rdbms.requestCache.maxMemory";
+    public static final String PROPERTY_RDBMS_REQUEST_CACHE_EVICTION_POLICY = "datanucleus.rdbms.requestCache.evictionPolicy";
+    public static final String PROPERTY_RDBMS_REQUEST_CACHE_PREWARM = "datanucleus.rdbms.requestCache.prewarm";
+
+    public static final String PROPERTY_RDBMS_REPLICA_CONNECTION_FACTORIES = "datanucleus.rdbms.replica.connectionFactories";
+    public static final String PROPERTY_RDBMS_REPLICA_CONNECTION_FACTORY_NAMES = "datanucleus.rdbms.replica.connectionFactoryNames";
+    public static final String PROPERTY_RDBMS_REPLICA_CONNECTION_URLS = "datanucleus.rdbms.replica.connectionURLs";
+    public static final String PROPERTY_RDBMS_REPLICA_LAG_QUERY = "datanucleus.rdbms.replica.lagQuery";
+    public static final String PROPERTY_RDBMS_REPLICA_MAX_LAG_SECONDS = "datanucleus.rdbms.replica.maxLagSeconds";
+    public static final String PROPERTY_RDBMS_REPLICA_CHECK_INTERVAL = "datanucleus.rdbms.replica.checkInterval";
+    /** Transaction option / query extension marking work as read-only, so it can be routed to a replica. */
+    public static final String PROPERTY_RDBMS_REPLICA_READ_ONLY = "datanucleus.rdbms.replica.readOnly";
+    /** Whether to route all non-transactional reads to a replica, rather than only work marked as read-only. */
+    public static final String PROPERTY_RDBMS_REPLICA_NONTRANSACTIONAL_READS = "datanucleus.rdbms.replica.nontransactionalReads";
 
     // TODO Likely these should move to core plugin
     public static final String PROPERTY_CONNECTION_POOL_MAX_CONNECTIONS = "datanucleus.connectionPool.maxConnections";
@@ -19,6 +19,7 @@ package org.datanucleus.store.rdbms;
 
 import org.datanucleus.properties.PropertyValidator;
 import org.datanucleus.store.rdbms.query.RDBMSQueryUtils;
+import org.datanucleus.store.rdbms.request.RequestCache;
 
 /**
  * Validator for persistence properties used by RDBMS.
@@ -124,6 +125,30 @@ public class RDBMSPropertyValidator implements PropertyValidator
                 }
             }
         }
+        else if (name.equalsIgnoreCase(RDBMSPropertyNames.PROPERTY_RDBMS_UPDATE_MODE))
+        {
+            if (value instanceof String)
+            {
+                String strVal = (String)value;
+                if (strVal.equalsIgnoreCase(RDBMSPersistenceHandler.UPDATE_MODE_DIRTY_FIELDS) ||
+                    strVal.equalsIgnoreCase(RDBMSPersistenceHandler.UPDATE_MODE_FULL_ROW))
+                {
+                    return true;
+                }
+            }
+        }
+        else if (name.equalsIgnoreCase(RDBMSPropertyNames.PROPERTY_RDBMS_REQUEST_CACHE_EVICTION_POLICY))
+        {
+            if (value instanceof String)
+            {
+                String strVal = (String)value;
+                if (strVal.equalsIgnoreCase(RequestCache.EVICTION_POLICY_LRU) ||
+                    strVal.equalsIgnoreCase(RequestCache.EVICTION_POLICY_LFU))
+                {
+                    return true;
+                }
+            }
+        }
         else if (name.equalsIgnoreCase(RDBMSPropertyNames.PROPERTY_RDBMS_STATEMENT_LOGGING))
         {
             if (value instanceof String)
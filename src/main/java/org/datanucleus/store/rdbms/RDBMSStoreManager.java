@@ -59,6 +59,8 @@ import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -68,8 +70,19 @@ import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.datanucleus.ClassConstants;
@@ -131,6 +144,7 @@ import org.datanucleus.store.rdbms.mapping.java.CollectionMapping;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
 import org.datanucleus.store.rdbms.mapping.java.MapMapping;
 import org.datanucleus.store.rdbms.mapping.java.PersistableMapping;
+import org.datanucleus.store.rdbms.query.AsyncQueryExecutor;
 import org.datanucleus.store.rdbms.query.JDOQLQuery;
 import org.datanucleus.store.rdbms.query.JPQLQuery;
 import org.datanucleus.store.rdbms.query.SQLQuery;
@@ -207,6 +221,9 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
 
     public static final String METADATA_NONDURABLE_REQUIRES_TABLE = "requires-table";
 
+    /** Number of locks used for obtaining values from ValueGenerators. */
+    private static final int VALUE_GENERATOR_LOCK_COUNT = 32;
+
     /** Adapter for the datastore being used. */
     protected DatastoreAdapter dba;
 
@@ -234,9 +251,25 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
      */
     protected ReadWriteLock schemaLock = new ReentrantReadWriteLock();
 
+    /**
+     * Locks held while obtaining a value from a ValueGenerator, the generator using the lock at (identity hash % number of locks).
+     * Used rather than synchronizing on the generator since obtaining a value can involve JDBC calls, and a monitor held during
+     * these would pin a virtual thread to its carrier thread. A fixed set of locks so nothing is retained per generator.
+     */
+    private final Lock[] valueGeneratorLocks = new Lock[VALUE_GENERATOR_LOCK_COUNT];
+
     /** Controller for SQL executed on this store. */
     private SQLController sqlController = null;
 
+    /** Components holding state for the lifetime of this store, keyed by their type. Only added to when constructing. */
+    private final Map<Class<? extends StoreComponent>, StoreComponent> components = new LinkedHashMap<>();
+
+    /** Executor for validating tables in parallel, created when first needed. */
+    private ThreadPoolExecutor schemaValidationExecutor = null;
+
+    /** Audit of virtual threads pinned while in DataNucleus code, when enabled. */
+    private VirtualThreadPinningAudit virtualThreadPinningAudit = null;
+
     /** Factory for expressions using the generic query SQL mechanism. */
     protected SQLExpressionFactory expressionFactory;
 
@@ -250,6 +283,9 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
      */
     private ClassAdder classAdder = null;
 
+    /** Names of classes registered for management whose initialisation is deferred until their first use. */
+    private final Set<String> deferredClassNames = ConcurrentHashMap.newKeySet();
+
     /** Writer for use when this RDBMSManager is configured to write DDL. */
     private Writer ddlWriter = null;
 
@@ -279,8 +315,35 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
     {
         super("rdbms", clr, ctx, props);
 
+        for (int i=0;i<VALUE_GENERATOR_LOCK_COUNT;i++)
+        {
+            valueGeneratorLocks[i] = new ReentrantLock();
+        }
         persistenceHandler = new RDBMSPersistenceHandler(this);
-        flushProcess = new FlushOrdered(); // TODO Change this to FlushReferential when we have it complete
+        addComponent(new LazyLobManager(this));
+        addComponent(new SubclassMemberFetchManager(this));
+        addComponent(new RelationPrefetchManager(this));
+        addComponent(new ReferenceFetchManager(this));
+        addComponent(new AsyncQueryExecutor(this));
+        if (getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_VIRTUAL_THREADS_AUDIT_PINNING))
+        {
+            VirtualThreadPinningAudit audit = new VirtualThreadPinningAudit();
+            if (audit.start())
+            {
+                virtualThreadPinningAudit = audit;
+            }
+        }
+        if (getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_FLUSH_REFERENTIAL))
+        {
+            // Flush the objects without relations first, as a group via insertObjects (so they can be bulk loaded).
+            // Opt-in since the statements are then not in the order of the operations, which matters with triggers, or
+            // when a unique value is removed from one object and given to another (or deleted and re-inserted) in the flush
+            flushProcess = new FlushReferential();
+        }
+        else
+        {
+            flushProcess = new FlushOrdered(); // TODO Change this to FlushReferential when we have it complete
+        }
         schemaHandler = new RDBMSSchemaHandler(this);
 
         // Retrieve the Database Adapter for this datastore
@@ -378,8 +441,17 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
                 // Initialise the Schema
                 initialiseSchema(conn, clr);
 
+                // Initialise use of any snapshot of schema information
+                ((RDBMSSchemaHandler)schemaHandler).initialiseSnapshot(conn);
+
                 // Log the configuration of the RDBMS
                 logConfiguration();
+
+                if (getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_REQUEST_CACHE_PREWARM))
+                {
+                    // Generate the common requests for the classes managed at startup
+                    prewarmRequests(clr);
+                }
             }
             catch (Exception e)
             {
@@ -605,6 +677,16 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
             return null;
         }
 
+        if (!deferredClassNames.isEmpty())
+        {
+            // Initialise this class if deferred, and any deferred subclasses (which may be deferred after this class was managed)
+            String[] classNames = getClassNamesWithDeferredSubclasses(className);
+            if (classNames.length > 1 || deferredClassNames.contains(className))
+            {
+                manageClassesNow(clr, classNames);
+            }
+        }
+
         schemaLock.readLock().lock();
         try
         {
@@ -644,8 +726,8 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
         boolean classKnown = false;
         if (toBeAdded)
         {
-            // Add the class to our supported list
-            manageClasses(clr, className);
+            // Add the class to our supported list (together with any subclasses whose initialisation was deferred)
+            manageClassesNow(clr, className);
 
             // Retry
             schemaLock.readLock().lock();
@@ -681,6 +763,23 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
      * @return The corresponding table, or 'null'
      */
     public DatastoreClass getDatastoreClass(DatastoreIdentifier name)
+    {
+        DatastoreClass ct = findDatastoreClass(name);
+        if (ct == null && !deferredClassNames.isEmpty())
+        {
+            // The table may be for a class whose initialisation was deferred, so initialise those and retry
+            manageClassesNow(getNucleusContext().getClassLoaderResolver(null), deferredClassNames.toArray(new String[deferredClassNames.size()]));
+            ct = findDatastoreClass(name);
+        }
+        return ct;
+    }
+
+    /**
+     * Convenience method to find the datastore table having the given identifier amongst the managed classes.
+     * @param name The identifier name of the table.
+     * @return The corresponding table, or 'null'
+     */
+    private DatastoreClass findDatastoreClass(DatastoreIdentifier name)
     {
         schemaLock.readLock().lock();
         try
@@ -741,7 +840,7 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
                 {
                     if (!storeDataMgr.managesClass(subclasses[i]))
                     {
-                        manageClasses(clr, subclasses[i]);
+                        manageClassesNow(clr, subclasses[i]);
                     }
                 }
             }
@@ -1366,11 +1465,55 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
      */
     public synchronized void close()
     {
+        if (schemaHandler != null)
+        {
+            ((RDBMSSchemaHandler)schemaHandler).saveSnapshot();
+        }
+        for (StoreComponent component : components.values())
+        {
+            component.close();
+        }
+        if (schemaValidationExecutor != null)
+        {
+            schemaValidationExecutor.shutdownNow();
+            schemaValidationExecutor = null;
+        }
+        if (virtualThreadPinningAudit != null)
+        {
+            virtualThreadPinningAudit.close();
+            virtualThreadPinningAudit = null;
+        }
         dba = null;
         super.close();
         classAdder = null;
     }
 
+    /**
+     * Accessor for the executor used to validate tables in parallel, with up to "datanucleus.rdbms.schema.validationThreads"
+     * daemon threads. The threads are not retained when idle, and the executor is shut down when this store manager is closed.
+     * @return The executor
+     */
+    protected synchronized ExecutorService getSchemaValidationExecutor()
+    {
+        if (schemaValidationExecutor == null)
+        {
+            int numThreads = Math.max(1, getIntProperty(RDBMSPropertyNames.PROPERTY_RDBMS_SCHEMA_VALIDATION_THREADS));
+            ThreadFactory threadFactory = new ThreadFactory()
+            {
+                final AtomicInteger threadNumber = new AtomicInteger();
+                public Thread newThread(Runnable r)
+                {
+                    Thread thread = new Thread(r, "DataNucleus-SchemaValidation-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+            schemaValidationExecutor = new ThreadPoolExecutor(numThreads, numThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+            schemaValidationExecutor.allowCoreThreadTimeOut(true);
+        }
+        return schemaValidationExecutor;
+    }
+
     /**
      * Method to return a datastore sequence for this datastore matching the passed sequence MetaData.
      * @param ec execution context
@@ -1426,6 +1569,52 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
         return sqlController;
     }
 
+    /**
+     * Method to generate the requests for fetching the default fetch group, and locating objects, for all classes currently
+     * managed, so they are not generated on first use.
+     * @param clr ClassLoader resolver
+     */
+    public void prewarmRequests(ClassLoaderResolver clr)
+    {
+        List<AbstractClassMetaData> cmds = new ArrayList<>();
+        for (StoreData sd : storeDataMgr.getManagedStoreData())
+        {
+            if (sd.isFCO() && sd.getTable() instanceof DatastoreClass)
+            {
+                cmds.add((AbstractClassMetaData)sd.getMetaData());
+            }
+        }
+        ((RDBMSPersistenceHandler)persistenceHandler).prewarmRequests(cmds, clr);
+    }
+
+    /**
+     * Method to register a component of this store, to be closed when the store is closed.
+     * @param component The component
+     */
+    private void addComponent(StoreComponent component)
+    {
+        components.put(component.getClass(), component);
+    }
+
+    /**
+     * Accessor for the component of this store of the specified type.
+     * @param componentType Type of the component
+     * @return The component, or null if this store has no component of that type
+     */
+    public <T extends StoreComponent> T getComponent(Class<T> componentType)
+    {
+        return componentType.cast(components.get(componentType));
+    }
+
+    /**
+     * Accessor for the audit of virtual threads pinned while in DataNucleus code.
+     * @return The audit, or null if not enabled (or not supported by this JVM)
+     */
+    public VirtualThreadPinningAudit getVirtualThreadPinningAudit()
+    {
+        return virtualThreadPinningAudit;
+    }
+
     /**
      * Accessor for the SQL expression factory to use when generating SQL statements.
      * @return SQL expression factory
@@ -1520,6 +1709,7 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
     private void clearSchemaData()
     {
         deregisterAllStoreData();
+        deferredClassNames.clear();
 
         // Clear and reinitialise the schemaHandler
         schemaHandler.clear();
@@ -1627,15 +1817,87 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
      * Method to add several persistable classes to the store manager's set of supported classes.
      * This will create any necessary database objects (tables, views, constraints, indexes etc). 
      * This will also cause the addition of any related classes.
+     * When the persistence property "datanucleus.rdbms.schema.deferClassInitialisation" is set, a request to manage 
+     * multiple classes (such as happens at startup) simply registers the classes, and each is initialised on its first use.
      * @param clr The ClassLoaderResolver
      * @param classNames Name of the class(es) to be added.
      */
     public void manageClasses(ClassLoaderResolver clr, String... classNames)
+    {
+        if (classNames != null && classNames.length > 1 && classAdder == null && ddlWriter == null &&
+            getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_SCHEMA_DEFER_CLASS_INITIALISATION))
+        {
+            List<String> namesToDefer = new ArrayList<>();
+            for (int i=0;i<classNames.length;i++)
+            {
+                if (!managesClass(classNames[i]) && deferredClassNames.add(classNames[i]))
+                {
+                    namesToDefer.add(classNames[i]);
+                }
+            }
+            if (!namesToDefer.isEmpty() && NucleusLogger.DATASTORE_SCHEMA.isDebugEnabled())
+            {
+                NucleusLogger.DATASTORE_SCHEMA.debug(Localiser.msg("050059", "" + namesToDefer.size(), StringUtils.collectionToString(namesToDefer)));
+            }
+            return;
+        }
+
+        manageClassesNow(clr, classNames);
+    }
+
+    /**
+     * Convenience method to return the names of the specified classes together with the names of any of their subclasses
+     * whose initialisation has been deferred, so that these are initialised with them.
+     * @param classNames Names of the classes
+     * @return The class names
+     */
+    private String[] getClassNamesWithDeferredSubclasses(String... classNames)
+    {
+        if (deferredClassNames.isEmpty())
+        {
+            return classNames;
+        }
+
+        Set<String> names = new LinkedHashSet<>();
+        for (int i=0;i<classNames.length;i++)
+        {
+            names.add(classNames[i]);
+            String[] subclasses = getMetaDataManager().getSubclassesForClass(classNames[i], true);
+            if (subclasses != null)
+            {
+                for (int j=0;j<subclasses.length;j++)
+                {
+                    if (deferredClassNames.contains(subclasses[j]))
+                    {
+                        names.add(subclasses[j]);
+                    }
+                }
+            }
+        }
+        return names.size() == classNames.length ? classNames : names.toArray(new String[names.size()]);
+    }
+
+    /**
+     * Method to add several persistable classes to the store manager's set of supported classes, creating/validating
+     * the necessary database objects now.
+     * @param clr The ClassLoaderResolver
+     * @param classNames Name of the class(es) to be added.
+     */
+    private void manageClassesNow(ClassLoaderResolver clr, String... classNames)
     {
         if (classNames == null || classNames.length == 0)
         {
             return;
         }
+        if (!deferredClassNames.isEmpty())
+        {
+            // Initialise any deferred subclasses with their superclass
+            classNames = getClassNamesWithDeferredSubclasses(classNames);
+            for (int i=0;i<classNames.length;i++)
+            {
+                deferredClassNames.remove(classNames[i]);
+            }
+        }
 
         boolean allManaged = true;
         for (int i=0;i<classNames.length;i++)
@@ -1670,6 +1932,9 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
             }
 
             new ClassAdder(classNames, null).execute(clr);
+
+            // Save any schema information retrieved while adding the classes
+            ((RDBMSSchemaHandler)schemaHandler).saveSnapshot();
         }
         finally
         {
@@ -2002,7 +2267,9 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
     protected Object getNextValueForValueGenerator(ValueGenerator generator, final ExecutionContext ec)
     {
         Object oid = null;
-        synchronized (generator)
+        Lock generatorLock = valueGeneratorLocks[(System.identityHashCode(generator) & 0x7FFFFFFF) % VALUE_GENERATOR_LOCK_COUNT];
+        generatorLock.lock();
+        try
         {
             // Get the next value for this generator for this ExecutionContext
             // Note : this is synchronised since we dont want to risk handing out this generator
@@ -2058,6 +2325,10 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
             }
             oid = generator.next();
         }
+        finally
+        {
+            generatorLock.unlock();
+        }
         return oid;
     }
 
@@ -2885,6 +3156,9 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
         /** Whether to check if table/view exists */
         private final boolean checkExistTablesOrViews;
 
+        /** Number of threads to use when only validating the tables. */
+        private final int validationThreads;
+
         /** tracks the SchemaData currrently being added - used to rollback the AutoStart added classes **/
         private Set<RDBMSStoreData> schemaDataAdded = new HashSet();
 
@@ -2904,6 +3178,7 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
             this.classNames = classNames;
 
             checkExistTablesOrViews = RDBMSStoreManager.this.getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_CHECK_EXISTS_TABLES_VIEWS);
+            validationThreads = RDBMSStoreManager.this.getIntProperty(RDBMSPropertyNames.PROPERTY_RDBMS_SCHEMA_VALIDATION_THREADS);
         }
 
         /**
@@ -3390,6 +3665,14 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
         private List[] performTablesValidation(List<Table> tablesToValidate, ClassLoaderResolver clr) 
         throws SQLException
         {
+            if (validationThreads > 1 && tablesToValidate.size() > 1 && ddlWriter == null &&
+                !rdbmsMgr.getSchemaHandler().isAutoCreateTables() && !rdbmsMgr.getSchemaHandler().isAutoCreateColumns() &&
+                !rdbmsMgr.getSchemaHandler().isAutoCreateConstraints())
+            {
+                // Only validating, so the work is read-only and can be spread across threads
+                return performTablesValidationInParallel(tablesToValidate, clr);
+            }
+
             List autoCreateErrors = new ArrayList();
             List<Table> tableConstraintsCreated = new ArrayList();
             List<Table> tablesCreated = new ArrayList();
@@ -3550,6 +3833,161 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
             return new List[] { tablesCreated, tableConstraintsCreated, autoCreateErrors };
         }
 
+        /**
+         * Validate tables using a pool of threads, each using its own connection. This is only used when tables are
+         * being validated and nothing is being auto-created, so all datastore access is read-only.
+         * The column info for all tables is loaded up front, with one DatabaseMetaData.getColumns() call per catalog/schema.
+         * Constraints are validated afterwards on this thread, since working out the expected foreign keys looks up the
+         * tables of related classes, which needs the schema lock that this thread holds for writing.
+         * @param tablesToValidate list of TableImpl to validate
+         * @param clr the ClassLoaderResolver
+         * @return an array of List where index == 0 has a list of the tables created, index == 1 has a list of the contraints created, index == 2 has a list of the auto creation errors 
+         * @throws SQLException When an error occurs in validation
+         */
+        private List[] performTablesValidationInParallel(List<Table> tablesToValidate, final ClassLoaderResolver clr)
+        throws SQLException
+        {
+            int numThreads = Math.min(validationThreads, tablesToValidate.size());
+            if (NucleusLogger.DATASTORE_SCHEMA.isDebugEnabled())
+            {
+                NucleusLogger.DATASTORE_SCHEMA.debug(Localiser.msg("050058", "" + tablesToValidate.size(), "" + numThreads));
+            }
+
+            ((RDBMSSchemaHandler)rdbmsMgr.getSchemaHandler()).loadColumnInfoForTables(getCurrentConnection(), tablesToValidate);
+
+            // Share the tables across the threads
+            List<List<TableImpl>> tablesForThreads = new ArrayList<>(numThreads);
+            for (int i=0;i<numThreads;i++)
+            {
+                tablesForThreads.add(new ArrayList<TableImpl>());
+            }
+            for (int i=0;i<tablesToValidate.size();i++)
+            {
+                tablesForThreads.get(i % numThreads).add((TableImpl)tablesToValidate.get(i));
+            }
+
+            final List autoCreateErrors = Collections.synchronizedList(new ArrayList());
+            ExecutorService executor = getSchemaValidationExecutor();
+            List<Future<Void>> futures = new ArrayList<>(numThreads);
+            try
+            {
+                for (final List<TableImpl> tables : tablesForThreads)
+                {
+                    futures.add(executor.submit(new Callable<Void>()
+                    {
+                        public Void call() throws SQLException
+                        {
+                            validateTablesWithOwnConnection(tables, autoCreateErrors);
+                            return null;
+                        }
+                    }));
+                }
+
+                for (Future<Void> future : futures)
+                {
+                    try
+                    {
+                        future.get();
+                    }
+                    catch (InterruptedException ie)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new NucleusDataStoreException(Localiser.msg("050060"), ie);
+                    }
+                    catch (ExecutionException ee)
+                    {
+                        Throwable cause = ee.getCause();
+                        if (cause instanceof SQLException)
+                        {
+                            throw (SQLException)cause;
+                        }
+                        else if (cause instanceof RuntimeException)
+                        {
+                            throw (RuntimeException)cause;
+                        }
+                        throw new NucleusDataStoreException(cause.getMessage(), cause);
+                    }
+                }
+            }
+            finally
+            {
+                // Cancel any validation still running (after an error), since the executor is shared
+                for (Future<Void> future : futures)
+                {
+                    future.cancel(true);
+                }
+
+                // Discard any cached column info used to validate the tables
+                for (Table t : tablesToValidate)
+                {
+                    invalidateColumnInfoForTable(t);
+                }
+            }
+
+            if (rdbmsMgr.getSchemaHandler().isValidateConstraints())
+            {
+                for (Table t : tablesToValidate)
+                {
+                    ((TableImpl)t).validateConstraints(getCurrentConnection(), false, autoCreateErrors, clr);
+                }
+            }
+
+            return new List[] { new ArrayList(), new ArrayList(), new ArrayList(autoCreateErrors) };
+        }
+
+        /**
+         * Validate the supplied tables (but not their constraints), using a new connection. Nothing is auto-created.
+         * @param tables The tables to validate
+         * @param autoCreateErrors List to add any validation errors to
+         * @throws SQLException When an error occurs in validation
+         */
+        private void validateTablesWithOwnConnection(List<TableImpl> tables, List autoCreateErrors)
+        throws SQLException
+        {
+            String initInfo = getStringProperty(RDBMSPropertyNames.PROPERTY_RDBMS_INIT_COLUMN_INFO);
+            ManagedConnection validateMconn = rdbmsMgr.getConnectionManager().getConnection(TransactionIsolation.NONE);
+            try
+            {
+                Connection conn = (Connection) validateMconn.getConnection();
+                for (TableImpl t : tables)
+                {
+                    boolean columnsValidated = false;
+                    boolean columnsInitialised = false;
+                    if (checkExistTablesOrViews)
+                    {
+                        t.exists(conn, false);
+                        if (t.isInitializedModified())
+                        {
+                            t.validateColumns(conn, false, false, autoCreateErrors);
+                            columnsValidated = true;
+                        }
+                    }
+
+                    if (rdbmsMgr.getSchemaHandler().isValidateTables() && !columnsValidated)
+                    {
+                        t.validate(conn, rdbmsMgr.getSchemaHandler().isValidateColumns(), false, autoCreateErrors);
+                        columnsInitialised = rdbmsMgr.getSchemaHandler().isValidateColumns();
+                    }
+
+                    if (!columnsInitialised)
+                    {
+                        if (initInfo.equalsIgnoreCase("PK"))
+                        {
+                            t.initializeColumnInfoForPrimaryKeyColumns(conn);
+                        }
+                        else if (initInfo.equalsIgnoreCase("ALL"))
+                        {
+                            t.initializeColumnInfoFromDatastore(conn);
+                        }
+                    }
+                }
+            }
+            finally
+            {
+                validateMconn.release();
+            }
+        }
+
         /**
          * Check if duplicated tables are in the list.
          * @param newTables the list of DatastoreContainerObject
@@ -4266,7 +4704,7 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
                     // Generate the tables/constraints for these classes (so we know the tables to delete)
                     // TODO This will add CREATE to the DDL, need to be able to omit this
                     String[] classNameArray = classNames.toArray(new String[classNames.size()]);
-                    manageClasses(clr, classNameArray); // Add them to mgr first
+                    manageClassesNow(clr, classNameArray); // Add them to mgr first
 
                     // Delete the tables of the required classes
                     DeleteTablesSchemaTransaction deleteTablesTxn = new DeleteTablesSchemaTransaction(this, Connection.TRANSACTION_READ_COMMITTED, storeDataMgr);
@@ -4332,7 +4770,7 @@ public class RDBMSStoreManager extends AbstractStoreManager implements BackedSCO
         if (classNames != null && !classNames.isEmpty())
         {
             // Validate the tables/constraints
-            manageClasses(nucleusContext.getClassLoaderResolver(null), classNames.toArray(new String[classNames.size()])); // Validates since we have the flags set
+            manageClassesNow(nucleusContext.getClassLoaderResolver(null), classNames.toArray(new String[classNames.size()])); // Validates since we have the flags set
         }
         else
         {
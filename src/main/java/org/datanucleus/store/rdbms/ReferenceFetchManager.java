@@ -0,0 +1,185 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.RelationType;
+import org.datanucleus.state.ObjectProvider;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Manager for the bulk resolution of the objects referenced by 1-1/N-1 relations of query results.
+ * When the persistence property "datanucleus.rdbms.query.resolveReferencesInBulk" is set, each object retrieved by a query
+ * is checked for 1-1/N-1 relations whose related object was only created as hollow (from the FK); these related objects
+ * are registered here as pending against their ExecutionContext. When one of them is first fetched, the fetch plan
+ * members of all pending objects of the same class are retrieved in the same SELECT (one per table of the class), so that
+ * navigating the same relation of a list of query results will not perform one SELECT per distinct related object.
+ * The objects resolved this way are themselves checked for hollow related objects, so chains of references are also
+ * resolved in bulk. The 1-1/N-1 members of each class are determined once, so checking a result row only looks at those
+ * members, and does nothing for a class without any.
+ */
+public class ReferenceFetchManager implements StoreComponent
+{
+    protected final RDBMSStoreManager storeMgr;
+
+    /** Whether references of query results are resolved in bulk. */
+    protected final boolean enabled;
+
+    /** Hollow related objects not yet resolved. */
+    private final PendingObjectBatcher<Boolean> pendingObjects;
+
+    /** Absolute numbers of the 1-1/N-1 members (not embedded or serialised) of each class, keyed by the class name. */
+    private final Map<String, int[]> relationMemberNumbersByClass = new ConcurrentHashMap<>();
+
+    public ReferenceFetchManager(RDBMSStoreManager storeMgr)
+    {
+        this.storeMgr = storeMgr;
+        this.enabled = storeMgr.getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_RESOLVE_REFERENCES_IN_BULK);
+        this.pendingObjects = new PendingObjectBatcher<>(storeMgr);
+    }
+
+    /**
+     * Method to release all pending objects.
+     */
+    public void close()
+    {
+        pendingObjects.clear();
+        relationMemberNumbersByClass.clear();
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Method to register the hollow objects referenced by the loaded 1-1/N-1 relations of an object just retrieved,
+     * so that they can be resolved together when first fetched.
+     * @param op ObjectProvider for the object retrieved
+     */
+    public void registerReferencedObjects(ObjectProvider op)
+    {
+        if (!enabled)
+        {
+            return;
+        }
+
+        ExecutionContext ec = op.getExecutionContext();
+        int[] memberNumbers = getRelationMemberNumbers(op.getClassMetaData(), ec.getClassLoaderResolver());
+        if (memberNumbers.length == 0)
+        {
+            return;
+        }
+
+        boolean[] loadedFlags = op.getLoadedFields();
+        for (int i=0;i<memberNumbers.length;i++)
+        {
+            if (!loadedFlags[memberNumbers[i]])
+            {
+                continue;
+            }
+
+            Object value = op.provideField(memberNumbers[i]);
+            ObjectProvider relatedOP = (value != null) ? ec.findObjectProvider(value) : null;
+            if (relatedOP != null && !relatedOP.getLifecycleState().isDeleted() && PendingObjectBatcher.hasUnloadedMember(relatedOP, null))
+            {
+                pendingObjects.register(relatedOP, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * Method called when retrieving the specified members of an object. If the object is pending then the requested
+     * members and the fetch plan members of its class are retrieved for this object together with the other pending
+     * objects of the same class, using a single SELECT per table.
+     * @param op ObjectProvider for the object being fetched
+     * @param mmds Metadata for the members being fetched
+     * @return Metadata for the members that still need fetching
+     */
+    public AbstractMemberMetaData[] fetchReferencedObjects(ObjectProvider op, AbstractMemberMetaData[] mmds)
+    {
+        if (!enabled || mmds == null)
+        {
+            return mmds;
+        }
+
+        List<ObjectProvider> ops = pendingObjects.takeBatch(op, true, null);
+        if (ops == null || ops.size() == 1)
+        {
+            // No other objects to resolve, so leave to the normal fetch
+            return mmds;
+        }
+
+        AbstractClassMetaData cmd = op.getClassMetaData();
+        if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+        {
+            NucleusLogger.PERSISTENCE.debug(Localiser.msg("052227", ops.size(), cmd.getFullClassName()));
+        }
+        ObjectProvider[] opsToFetch = ops.toArray(new ObjectProvider[ops.size()]);
+        pendingObjects.fetchBatch(opsToFetch, cmd, mmds, null);
+
+        // Register any objects referenced by those just resolved, so chains of references are also resolved in bulk
+        for (int i=0;i<opsToFetch.length;i++)
+        {
+            registerReferencedObjects(opsToFetch[i]);
+        }
+
+        // Return the members that are still not loaded
+        return PendingObjectBatcher.getUnloadedMembers(op, mmds);
+    }
+
+    /**
+     * Accessor for the absolute numbers of the 1-1/N-1 members of a class whose related object can be left hollow.
+     * @param cmd Metadata for the class
+     * @param clr ClassLoader resolver
+     * @return The member numbers (empty if none)
+     */
+    private int[] getRelationMemberNumbers(AbstractClassMetaData cmd, ClassLoaderResolver clr)
+    {
+        int[] relationMemberNumbers = relationMemberNumbersByClass.get(cmd.getFullClassName());
+        if (relationMemberNumbers == null)
+        {
+            List<Integer> memberNumbers = new ArrayList<>();
+            int[] allMemberNumbers = cmd.getAllMemberPositions();
+            for (int i=0;i<allMemberNumbers.length;i++)
+            {
+                AbstractMemberMetaData mmd = cmd.getMetaDataForManagedMemberAtAbsolutePosition(allMemberNumbers[i]);
+                if (RelationType.isRelationSingleValued(mmd.getRelationType(clr)) && !mmd.isEmbedded() && !mmd.isSerialized())
+                {
+                    memberNumbers.add(allMemberNumbers[i]);
+                }
+            }
+            relationMemberNumbers = new int[memberNumbers.size()];
+            for (int i=0;i<relationMemberNumbers.length;i++)
+            {
+                relationMemberNumbers[i] = memberNumbers.get(i);
+            }
+            relationMemberNumbersByClass.put(cmd.getFullClassName(), relationMemberNumbers);
+        }
+        return relationMemberNumbers;
+    }
+}
@@ -0,0 +1,317 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.RelationType;
+import org.datanucleus.state.ObjectProvider;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Manager for adaptive prefetch of chains of 1-1/N-1 relations.
+ * When the persistence property "datanucleus.rdbms.relationPrefetch" is set, each FetchRequest reports the related objects
+ * that it loaded, and the objects reached from them (via 1-1/N-1 relations) that were left hollow are recorded here against
+ * the relation path from the fetched class (e.g "b.c" for a fetch of A loading A.b, and B.c being hollow).
+ * If a recorded object is later fetched then the path is counted as used, and once a path has been used the number of
+ * times defined by "datanucleus.rdbms.relationPrefetch.threshold" it is added to the prefetch paths of the class. Subsequent
+ * FetchRequests for that class then join along the path and load those objects in the same SELECT, so navigating
+ * <pre>a.getB().getC().getD()</pre> collapses to a single statement.
+ * The overhead is bounded; paths are at most "datanucleus.rdbms.relationPrefetch.maxDepth" relations long and each class
+ * has at most {@link #MAX_PATHS_PER_CLASS} prefetch paths. The uses of at most {@link #MAX_COUNTED_PATHS_PER_CLASS} candidate
+ * paths are counted for a class, and the counts are halved every {@link #DECAY_INTERVAL} uses, so a path that is only used
+ * occasionally over a long period is never prefetched.
+ */
+public class RelationPrefetchManager implements StoreComponent
+{
+    /** Maximum number of prefetch paths for a class. */
+    public static final int MAX_PATHS_PER_CLASS = 8;
+
+    /** Maximum number of candidate paths of a class whose uses are counted. */
+    public static final int MAX_COUNTED_PATHS_PER_CLASS = 64;
+
+    /** Number of uses of the candidate paths of a class after which their counts are halved. */
+    public static final int DECAY_INTERVAL = 1000;
+
+    protected final RDBMSStoreManager storeMgr;
+
+    /** Whether adaptive prefetch is enabled. */
+    protected final boolean enabled;
+
+    /** Number of uses of a path before it is prefetched. */
+    protected final int threshold;
+
+    /** Maximum number of relations in a prefetch path. */
+    protected final int maxDepth;
+
+    /** Prefetch paths (dot-separated member names), keyed by the class name. */
+    private final Map<String, Set<String>> pathsByClass = new ConcurrentHashMap<>();
+
+    /** Number of uses of each candidate path, keyed by the class name and then the path. */
+    private final Map<String, PathUseCounts> useCountsByClass = new ConcurrentHashMap<>();
+
+    /** Hollow objects reached by a fetch, with the class fetched and the path used to reach them. */
+    private final PendingObjectBatcher<String[]> reachedObjects;
+
+    public RelationPrefetchManager(RDBMSStoreManager storeMgr)
+    {
+        this.storeMgr = storeMgr;
+        this.enabled = storeMgr.getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_RELATION_PREFETCH);
+        this.threshold = Math.max(1, storeMgr.getIntProperty(RDBMSPropertyNames.PROPERTY_RDBMS_RELATION_PREFETCH_THRESHOLD));
+        this.maxDepth = storeMgr.getIntProperty(RDBMSPropertyNames.PROPERTY_RDBMS_RELATION_PREFETCH_MAX_DEPTH);
+        this.reachedObjects = new PendingObjectBatcher<>(storeMgr);
+    }
+
+    /**
+     * Method to release all recorded information.
+     */
+    public void close()
+    {
+        reachedObjects.clear();
+        pathsByClass.clear();
+        useCountsByClass.clear();
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Accessor for the relation paths to prefetch when fetching objects of the specified class.
+     * @param cmd Metadata for the class
+     * @return The paths, as arrays of member names (empty if none)
+     */
+    public List<String[]> getPrefetchPaths(AbstractClassMetaData cmd)
+    {
+        List<String[]> paths = new ArrayList<>();
+        Set<String> classPaths = enabled ? pathsByClass.get(cmd.getFullClassName()) : null;
+        if (classPaths != null)
+        {
+            for (String path : classPaths)
+            {
+                paths.add(path.split("\\."));
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Method called after a FetchRequest has loaded the specified relation paths of an object. Records any objects reached
+     * by 1-1/N-1 relations from the last object of each path, so that if they are later fetched the path can be prefetched.
+     * @param op ObjectProvider for the object fetched
+     * @param loadedPaths The relation paths (arrays of member names) that were loaded by the fetch
+     */
+    public void registerReachedObjects(ObjectProvider op, Collection<String[]> loadedPaths)
+    {
+        if (!enabled || loadedPaths == null || loadedPaths.isEmpty())
+        {
+            return;
+        }
+
+        ExecutionContext ec = op.getExecutionContext();
+        ClassLoaderResolver clr = ec.getClassLoaderResolver();
+        String className = op.getClassMetaData().getFullClassName();
+        for (String[] path : loadedPaths)
+        {
+            if (path.length >= maxDepth)
+            {
+                continue;
+            }
+
+            // Navigate the path to the last loaded object
+            ObjectProvider pathOP = op;
+            for (int i=0;i<path.length && pathOP != null;i++)
+            {
+                pathOP = getRelatedObjectProvider(pathOP, pathOP.getClassMetaData().getMetaDataForMember(path[i]), clr);
+            }
+            if (pathOP == null)
+            {
+                continue;
+            }
+
+            // Record any related objects of the last object, with the path to reach them
+            String pathPrefix = String.join(".", path) + ".";
+            AbstractClassMetaData pathCmd = pathOP.getClassMetaData();
+            int[] memberNumbers = pathCmd.getAllMemberPositions();
+            for (int i=0;i<memberNumbers.length;i++)
+            {
+                AbstractMemberMetaData mmd = pathCmd.getMetaDataForManagedMemberAtAbsolutePosition(memberNumbers[i]);
+                ObjectProvider relatedOP = getRelatedObjectProvider(pathOP, mmd, clr);
+                if (relatedOP != null && PendingObjectBatcher.hasUnloadedMember(relatedOP, null))
+                {
+                    reachedObjects.register(relatedOP, new String[] {className, pathPrefix + mmd.getName()});
+                }
+            }
+        }
+    }
+
+    /**
+     * Method called when an object is about to be fetched. If the object was reached via a relation path from a fetch of
+     * another class then the use of that path is counted, and once it reaches the threshold it is added to the prefetch
+     * paths for that class.
+     * @param op ObjectProvider for the object being fetched
+     * @return Name of the class whose prefetch paths were changed (requiring its requests to be regenerated), otherwise null
+     */
+    public String recordFetch(ObjectProvider op)
+    {
+        if (!enabled)
+        {
+            return null;
+        }
+
+        String[] classAndPath = reachedObjects.remove(op);
+        if (classAndPath == null)
+        {
+            return null;
+        }
+
+        String className = classAndPath[0];
+        String path = classAndPath[1];
+        PathUseCounts useCounts = useCountsByClass.get(className);
+        if (useCounts == null)
+        {
+            useCountsByClass.putIfAbsent(className, new PathUseCounts(Math.max(DECAY_INTERVAL, 2 * threshold)));
+            useCounts = useCountsByClass.get(className);
+        }
+        if (!useCounts.recordUse(path, threshold))
+        {
+            return null;
+        }
+
+        Set<String> classPaths = pathsByClass.get(className);
+        if (classPaths == null)
+        {
+            pathsByClass.putIfAbsent(className, ConcurrentHashMap.<String>newKeySet());
+            classPaths = pathsByClass.get(className);
+        }
+        if (classPaths.size() >= MAX_PATHS_PER_CLASS || !classPaths.add(path))
+        {
+            return null;
+        }
+        if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+        {
+            NucleusLogger.PERSISTENCE.debug(Localiser.msg("052226", path, className, threshold));
+        }
+        return className;
+    }
+
+    /**
+     * Use counts of the candidate prefetch paths of a class. The number of paths counted is bounded, and the counts are halved
+     * after the specified number of uses, dropping those that reach zero. A path is no longer counted once it reaches the threshold.
+     */
+    static class PathUseCounts
+    {
+        private final int decayInterval;
+
+        private final Map<String, Integer> countsByPath = new HashMap<>();
+
+        private int usesSinceDecay = 0;
+
+        PathUseCounts(int decayInterval)
+        {
+            this.decayInterval = decayInterval;
+        }
+
+        /**
+         * Method to count a use of the specified path.
+         * @param path The path
+         * @param threshold Number of uses of a path before it is prefetched
+         * @return Whether the path has now reached the threshold
+         */
+        synchronized boolean recordUse(String path, int threshold)
+        {
+            if (++usesSinceDecay >= decayInterval)
+            {
+                decay();
+            }
+
+            Integer count = countsByPath.get(path);
+            if (count == null && countsByPath.size() >= MAX_COUNTED_PATHS_PER_CLASS)
+            {
+                // Too many paths being counted, so ignore this one until some decay away
+                return false;
+            }
+            int newCount = (count != null ? count.intValue() : 0) + 1;
+            if (newCount >= threshold)
+            {
+                countsByPath.remove(path);
+                return true;
+            }
+            countsByPath.put(path, newCount);
+            return false;
+        }
+
+        synchronized int getUseCount(String path)
+        {
+            Integer count = countsByPath.get(path);
+            return count != null ? count.intValue() : 0;
+        }
+
+        synchronized int getNumberOfPaths()
+        {
+            return countsByPath.size();
+        }
+
+        private void decay()
+        {
+            usesSinceDecay = 0;
+            Iterator<Map.Entry<String, Integer>> entryIter = countsByPath.entrySet().iterator();
+            while (entryIter.hasNext())
+            {
+                Map.Entry<String, Integer> entry = entryIter.next();
+                int count = entry.getValue().intValue() / 2;
+                if (count == 0)
+                {
+                    entryIter.remove();
+                }
+                else
+                {
+                    entry.setValue(count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Convenience method to return the ObjectProvider of the object related via the specified member, if the member
+     * is a loaded 1-1/N-1 relation and the related object is persistent.
+     */
+    private static ObjectProvider getRelatedObjectProvider(ObjectProvider op, AbstractMemberMetaData mmd, ClassLoaderResolver clr)
+    {
+        if (mmd == null || !RelationType.isRelationSingleValued(mmd.getRelationType(clr)) || mmd.isEmbedded() || mmd.isSerialized() ||
+            !op.isFieldLoaded(mmd.getAbsoluteFieldNumber()))
+        {
+            return null;
+        }
+        Object value = op.provideField(mmd.getAbsoluteFieldNumber());
+        return value != null ? op.getExecutionContext().findObjectProvider(value) : null;
+    }
+}
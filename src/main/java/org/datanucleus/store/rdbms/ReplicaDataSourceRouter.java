@@ -0,0 +1,324 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+
+import org.datanucleus.exceptions.ConnectionFactoryNotFoundException;
+import org.datanucleus.exceptions.UnsupportedConnectionFactoryException;
+import org.datanucleus.store.StoreManager;
+import org.datanucleus.store.rdbms.connectionpool.AbstractConnectionPoolFactory;
+import org.datanucleus.store.rdbms.connectionpool.DefaultConnectionPoolFactory.DriverManagerDataSource;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+import org.datanucleus.util.StringUtils;
+
+/**
+ * Router for read-only work across a set of replica DataSources.
+ * The replicas are defined using any of the following persistence properties
+ * <ul>
+ * <li><b>datanucleus.rdbms.replica.connectionFactories</b> : DataSource, or Collection of DataSources</li>
+ * <li><b>datanucleus.rdbms.replica.connectionFactoryNames</b> : comma-separated JNDI names of DataSources</li>
+ * <li><b>datanucleus.rdbms.replica.connectionURLs</b> : comma-separated JDBC URLs, using the driver, user and password of
+ * the primary datastore. These connections are not pooled, so a pooled DataSource is preferable.</li>
+ * </ul>
+ * Connections are handed out round-robin across the replicas. A replica that fails to provide a connection, or that
+ * is found to be lagging behind the primary by more than <i>datanucleus.rdbms.replica.maxLagSeconds</i> (as reported by
+ * the SQL in <i>datanucleus.rdbms.replica.lagQuery</i>), is skipped until the next check, which happens at most once every
+ * <i>datanucleus.rdbms.replica.checkInterval</i> milliseconds. When no replica is usable the caller falls back to the primary.
+ */
+public class ReplicaDataSourceRouter
+{
+    /** The replicas that we route to. */
+    private final Replica[] replicas;
+
+    /** Counter for round-robin selection of the replica. */
+    private final AtomicInteger nextReplica = new AtomicInteger(0);
+
+    /** SQL returning the lag of a replica (in seconds), or null if not checking. */
+    private final String lagQuery;
+
+    /** Maximum lag (in seconds) before a replica is considered stale. */
+    private final int maxLagSeconds;
+
+    /** Interval (ms) between lag checks, and time that a failed replica is ignored for. */
+    private final long checkInterval;
+
+    /**
+     * Representation of a replica and its current state.
+     */
+    static class Replica
+    {
+        final DataSource dataSource;
+        final String name;
+
+        /** Time (ms) until which this replica is not to be used (due to failure or staleness). */
+        volatile long unusableUntil = 0;
+
+        /** Time (ms) that this replica was last checked for lag. */
+        volatile long lastLagCheck = 0;
+
+        Replica(DataSource ds, String name)
+        {
+            this.dataSource = ds;
+            this.name = name;
+        }
+
+        public String toString()
+        {
+            return "Replica[" + name + "]";
+        }
+    }
+
+    /**
+     * Constructor for a router for the specified replica DataSources.
+     * @param dataSources The replica DataSources
+     * @param names Names for the replicas (for logging)
+     * @param lagQuery SQL to return the lag of a replica in seconds (optional)
+     * @param maxLagSeconds Max lag in seconds (only used when the lagQuery is specified, and this is positive)
+     * @param checkInterval Interval in ms between checks
+     */
+    public ReplicaDataSourceRouter(List<DataSource> dataSources, List<String> names, String lagQuery, int maxLagSeconds, long checkInterval)
+    {
+        this.replicas = new Replica[dataSources.size()];
+        for (int i=0;i<replicas.length;i++)
+        {
+            replicas[i] = new Replica(dataSources.get(i), names.get(i));
+        }
+        this.lagQuery = StringUtils.isWhitespace(lagQuery) ? null : lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Convenience method to create a router for the replicas defined in the persistence properties of this store.
+     * @param storeMgr Store Manager
+     * @return The router, or null if no replicas are defined
+     */
+    public static ReplicaDataSourceRouter createReplicaRouter(StoreManager storeMgr)
+    {
+        List<DataSource> dataSources = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        Object connFactories = storeMgr.getProperty(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_CONNECTION_FACTORIES);
+        if (connFactories instanceof DataSource)
+        {
+            dataSources.add((DataSource)connFactories);
+            names.add(StringUtils.toJVMIDString(connFactories));
+        }
+        else if (connFactories instanceof Collection)
+        {
+            for (Object connFactory : (Collection)connFactories)
+            {
+                if (!(connFactory instanceof DataSource))
+                {
+                    throw new UnsupportedConnectionFactoryException(connFactory);
+                }
+                dataSources.add((DataSource)connFactory);
+                names.add(StringUtils.toJVMIDString(connFactory));
+            }
+        }
+        else if (connFactories != null)
+        {
+            throw new UnsupportedConnectionFactoryException(connFactories);
+        }
+
+        String connJNDIs = storeMgr.getStringProperty(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_CONNECTION_FACTORY_NAMES);
+        if (!StringUtils.isWhitespace(connJNDIs))
+        {
+            String[] jndiNames = StringUtils.split(connJNDIs, ",");
+            for (int i=0;i<jndiNames.length;i++)
+            {
+                String jndiName = jndiNames[i].trim();
+                try
+                {
+                    Object obj = new InitialContext().lookup(jndiName);
+                    if (!(obj instanceof DataSource))
+                    {
+                        throw new UnsupportedConnectionFactoryException(obj);
+                    }
+                    dataSources.add((DataSource)obj);
+                    names.add("JNDI[" + jndiName + "]");
+                }
+                catch (NamingException e)
+                {
+                    throw new ConnectionFactoryNotFoundException(jndiName, e);
+                }
+            }
+        }
+
+        String connURLs = storeMgr.getStringProperty(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_CONNECTION_URLS);
+        if (!StringUtils.isWhitespace(connURLs))
+        {
+            String[] urls = StringUtils.split(connURLs, ",");
+            for (int i=0;i<urls.length;i++)
+            {
+                String url = urls[i].trim();
+                dataSources.add(new DriverManagerDataSource(storeMgr.getConnectionDriverName(), url,
+                    storeMgr.getConnectionUserName(), storeMgr.getConnectionPassword(),
+                    storeMgr.getNucleusContext().getClassLoaderResolver(null), AbstractConnectionPoolFactory.getPropertiesForDriver(storeMgr)));
+                names.add(url);
+            }
+        }
+
+        if (dataSources.isEmpty())
+        {
+            return null;
+        }
+
+        String lagQuery = storeMgr.getStringProperty(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_LAG_QUERY);
+        int maxLagSeconds = storeMgr.getIntProperty(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_MAX_LAG_SECONDS);
+        int checkInterval = storeMgr.getIntProperty(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_CHECK_INTERVAL);
+        if (NucleusLogger.CONNECTION.isDebugEnabled())
+        {
+            NucleusLogger.CONNECTION.debug(Localiser.msg("047011", StringUtils.collectionToString(names)));
+        }
+        return new ReplicaDataSourceRouter(dataSources, names, lagQuery, maxLagSeconds, checkInterval);
+    }
+
+    /**
+     * Accessor for the number of replicas being routed to.
+     * @return Number of replicas
+     */
+    public int getNumberOfReplicas()
+    {
+        return replicas.length;
+    }
+
+    /**
+     * Method to return a connection to one of the replicas, load-balancing across the usable replicas.
+     * @return The connection, or null if no replica is currently usable (so the caller should use the primary)
+     */
+    public Connection getConnection()
+    {
+        long now = System.currentTimeMillis();
+        int start = (nextReplica.getAndIncrement() & Integer.MAX_VALUE) % replicas.length;
+        for (int i=0;i<replicas.length;i++)
+        {
+            Replica replica = replicas[(start + i) % replicas.length];
+            if (replica.unusableUntil > now)
+            {
+                continue;
+            }
+
+            Connection conn = null;
+            try
+            {
+                conn = replica.dataSource.getConnection();
+            }
+            catch (SQLException sqle)
+            {
+                NucleusLogger.CONNECTION.warn(Localiser.msg("047012", replica, sqle.getMessage()));
+                replica.unusableUntil = now + checkInterval;
+                continue;
+            }
+
+            if (conn != null && isStale(replica, conn, now))
+            {
+                closeQuietly(conn);
+                replica.unusableUntil = now + checkInterval;
+                continue;
+            }
+            if (conn != null)
+            {
+                return conn;
+            }
+        }
+
+        if (NucleusLogger.CONNECTION.isDebugEnabled())
+        {
+            NucleusLogger.CONNECTION.debug(Localiser.msg("047014"));
+        }
+        return null;
+    }
+
+    /**
+     * Convenience method to check whether a replica is lagging too far behind the primary.
+     * The check is only performed if a lag query and max lag are defined, and only once per check interval.
+     * @param replica The replica
+     * @param conn Connection to the replica
+     * @param now Current time (ms)
+     * @return Whether the replica is stale
+     */
+    private boolean isStale(Replica replica, Connection conn, long now)
+    {
+        if (lagQuery == null || maxLagSeconds < 0 || now - replica.lastLagCheck < checkInterval)
+        {
+            return false;
+        }
+
+        replica.lastLagCheck = now;
+        try
+        {
+            PreparedStatement ps = conn.prepareStatement(lagQuery);
+            try
+            {
+                ResultSet rs = ps.executeQuery();
+                try
+                {
+                    if (rs.next())
+                    {
+                        double lag = rs.getDouble(1);
+                        if (!rs.wasNull() && lag > maxLagSeconds)
+                        {
+                            NucleusLogger.CONNECTION.warn(Localiser.msg("047013", replica, "" + lag, "" + maxLagSeconds));
+                            return true;
+                        }
+                    }
+                }
+                finally
+                {
+                    rs.close();
+                }
+            }
+            finally
+            {
+                ps.close();
+            }
+        }
+        catch (SQLException sqle)
+        {
+            NucleusLogger.CONNECTION.warn(Localiser.msg("047012", replica, sqle.getMessage()));
+            return true;
+        }
+        return false;
+    }
+
+    private static void closeQuietly(Connection conn)
+    {
+        try
+        {
+            conn.close();
+        }
+        catch (SQLException sqle)
+        {
+            // Ignore
+        }
+    }
+}
@@ -17,13 +17,18 @@ Contributors:
 **********************************************************************/
 package org.datanucleus.store.rdbms;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.datanucleus.ExecutionContext;
 import org.datanucleus.exceptions.NucleusDataStoreException;
@@ -99,6 +104,12 @@ public class SQLController
     protected boolean jdbcStatements = false;
     protected boolean paramValuesInBrackets = true;
 
+    /** Number of batched statements that have been executed. */
+    protected AtomicLong numberOfBatches = new AtomicLong(0);
+
+    /** Total number of statements that have been executed as part of batches. */
+    protected AtomicLong numberOfBatchedStatements = new AtomicLong(0);
+
     /**
      * State of a connection.
      * Maintains an update statement in "wait" state. Stores the statement, the text,
@@ -130,6 +141,9 @@ public class SQLController
     /** Map of the ConnectionStatementState keyed by the Connection */
     Map<ManagedConnection, ConnectionStatementState> connectionStatements = new ConcurrentHashMap();
 
+    /** Resources (e.g streams of parameter values) to close once the statement has executed, keyed by the statement. */
+    Map<PreparedStatement, List<Closeable>> statementResources = new ConcurrentHashMap<>();
+
     /**
      * Constructor.
      * @param supportsBatching Whether batching is to be supported.
@@ -162,6 +176,26 @@ public class SQLController
         }
     }
 
+    /**
+     * Accessor for the number of batched statements that have been executed by this controller.
+     * @return The number of batches executed
+     */
+    public long getNumberOfBatches()
+    {
+        return numberOfBatches.get();
+    }
+
+    /**
+     * Accessor for the total number of statements that have been executed as part of batches by this controller.
+     * Dividing this by the number of batches gives the average batch length, which is useful for seeing the effect of
+     * options such as "datanucleus.rdbms.updateMode".
+     * @return The number of statements executed in batches
+     */
+    public long getNumberOfBatchedStatements()
+    {
+        return numberOfBatchedStatements.get();
+    }
+
     /**
      * Convenience method to create a new PreparedStatement for an update.
      * @param conn The Connection to use for the statement
@@ -424,7 +458,15 @@ public class SQLController
             }
         }
 
-        int ind = ps.executeUpdate();
+        int ind;
+        try
+        {
+            ind = ps.executeUpdate();
+        }
+        finally
+        {
+            closeStatementResources(ps);
+        }
         if (ec != null && ec.getStatistics() != null)
         {
             // Add to statistics
@@ -478,7 +520,15 @@ public class SQLController
             }
         }
 
-        boolean flag = ps.execute();
+        boolean flag;
+        try
+        {
+            flag = ps.execute();
+        }
+        finally
+        {
+            closeStatementResources(ps);
+        }
         if (ec != null && ec.getStatistics() != null)
         {
             // Add to statistics
@@ -542,7 +592,15 @@ public class SQLController
             }
         }
 
-        ResultSet rs = ps.executeQuery();
+        ResultSet rs;
+        try
+        {
+            rs = ps.executeQuery();
+        }
+        finally
+        {
+            closeStatementResources(ps);
+        }
         if (ec != null && ec.getStatistics() != null)
         {
             // Add to statistics
@@ -579,6 +637,7 @@ public class SQLController
                 // Do nothing
             }
         }
+        closeStatementResources(ps);
     }
 
     /**
@@ -600,6 +659,7 @@ public class SQLController
         }
         else
         {
+            closeStatementResources(ps);
             try 
             {
                 if (NucleusLogger.DATASTORE.isDebugEnabled())
@@ -664,13 +724,28 @@ public class SQLController
             }
         }
 
-        int[] ind = state.stmt.executeBatch();
+        int[] ind;
+        try
+        {
+            ind = state.stmt.executeBatch();
+        }
+        finally
+        {
+            closeStatementResources(state.stmt);
+        }
         state.stmt.clearBatch();
 
+        long numBatches = numberOfBatches.incrementAndGet();
+        long numBatchedStmts = numberOfBatchedStatements.addAndGet(state.batchSize);
         if (NucleusLogger.DATASTORE.isDebugEnabled())
         {
             NucleusLogger.DATASTORE.debug(Localiser.msg("045001",""+(System.currentTimeMillis() - startTime), StringUtils.intArrayToString(ind), StringUtils.toJVMIDString(state.stmt)));
         }
+        if (NucleusLogger.DATASTORE_PERSIST.isDebugEnabled())
+        {
+            NucleusLogger.DATASTORE_PERSIST.debug(Localiser.msg("052105", state.stmtText, "" + state.batchSize, "" + numBatches, 
+                "" + ((double)numBatchedStmts / numBatches)));
+        }
 
         // Remove the current connection statement
         removeConnectionStatementState(conn);
@@ -684,6 +759,51 @@ public class SQLController
         return ind;
     }
 
+    /**
+     * Method to register a resource used by a parameter of the statement (e.g the stream of a large value), to be closed
+     * once the statement has executed (including any batch it is part of), or when the statement is closed.
+     * @param ps The statement
+     * @param resource The resource
+     */
+    public void registerStatementResource(PreparedStatement ps, Closeable resource)
+    {
+        // A statement is only populated by one thread at a time
+        List<Closeable> resources = statementResources.get(ps);
+        if (resources == null)
+        {
+            resources = new ArrayList<>();
+            statementResources.put(ps, resources);
+        }
+        resources.add(resource);
+    }
+
+    /**
+     * Convenience method to close any resources registered against the statement.
+     * @param ps The statement
+     */
+    protected void closeStatementResources(PreparedStatement ps)
+    {
+        if (statementResources.isEmpty())
+        {
+            return;
+        }
+        List<Closeable> resources = statementResources.remove(ps);
+        if (resources != null)
+        {
+            for (Closeable resource : resources)
+            {
+                try
+                {
+                    resource.close();
+                }
+                catch (IOException ioe)
+                {
+                    NucleusLogger.DATASTORE.debug("Exception closing resource of statement " + StringUtils.toJVMIDString(ps) + " : " + ioe.getMessage());
+                }
+            }
+        }
+    }
+
     /**
      * Convenience method to remove the state for this connection.
      * This is typically called when a Connection is closed.
@@ -728,6 +848,7 @@ public class SQLController
                     {
                         // Remove the current connection statement
                         removeConnectionStatementState(conn);
+                        closeStatementResources(state.stmt);
     
                         // Close the statement if it is registered for closing after processing
                         if (state.closeStatementOnProcess)
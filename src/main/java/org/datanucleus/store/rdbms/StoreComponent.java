@@ -0,0 +1,31 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+/**
+ * Component of an RDBMSStoreManager that holds state for the lifetime of the store, such as objects pending a bulk fetch.
+ * Components are registered with the store manager when it is created, retrieved using
+ * {@link RDBMSStoreManager#getComponent(Class)}, and closed when the store manager is closed.
+ */
+public interface StoreComponent
+{
+    /**
+     * Method to release any resources held by this component.
+     */
+    void close();
+}
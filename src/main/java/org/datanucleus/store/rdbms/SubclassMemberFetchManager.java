@@ -0,0 +1,120 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.util.List;
+
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.ObjectProvider;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Manager for the bulk fetching of the members of subclasses of a query candidate.
+ * When a query of a candidate with subclasses in "new-table" is performed in two phases (see
+ * {@link org.datanucleus.store.rdbms.sql.TypeIndicatorStatementGenerator}) only the members stored in the candidate
+ * table (and its supertables) are selected, together with the type of each object; objects of subclasses retrieved
+ * this way are registered here as pending against their ExecutionContext, together with the candidate table.
+ * When an unloaded member of one of these objects is first accessed, the fetch plan members of that class stored in
+ * each of the subclass tables are retrieved for all pending objects of that class, with one SELECT per table.
+ */
+public class SubclassMemberFetchManager implements StoreComponent
+{
+    protected final RDBMSStoreManager storeMgr;
+
+    /**
+     * Whether any object has been registered as pending, so that fetches don't check for pending objects when no query is
+     * performed in two phases. Set from the persistence property, or when an object is first registered by a query that
+     * enables two phases using an extension.
+     */
+    private volatile boolean enabled;
+
+    /** Objects with subclass members not yet loaded, with the candidate table of the query that retrieved the object. */
+    private final PendingObjectBatcher<DatastoreClass> pendingObjects;
+
+    public SubclassMemberFetchManager(RDBMSStoreManager storeMgr)
+    {
+        this.storeMgr = storeMgr;
+        this.enabled = storeMgr.getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_POLYMORPHIC_TWO_PHASE);
+        this.pendingObjects = new PendingObjectBatcher<>(storeMgr);
+    }
+
+    /**
+     * Method to release all pending objects.
+     */
+    public void close()
+    {
+        pendingObjects.clear();
+    }
+
+    /**
+     * Method to register an object that has just been retrieved by a query of the specified candidate table, so that its
+     * members stored in subclass tables can be retrieved together with those of other objects of the same class.
+     * @param op ObjectProvider for the object
+     * @param candidateTable Table of the query candidate
+     */
+    public void registerPendingObject(ObjectProvider op, DatastoreClass candidateTable)
+    {
+        if (candidateTable == null || op.getClassMetaData().getFullClassName().equals(candidateTable.getType()))
+        {
+            return;
+        }
+
+        enabled = true;
+        pendingObjects.register(op, candidateTable);
+    }
+
+    /**
+     * Method called when retrieving the specified members of an object. If the object is pending then the fetch plan
+     * members of its class stored in the subclass tables are retrieved for this object together with the other pending
+     * objects of the same class, using a single SELECT per table.
+     * @param op ObjectProvider for the object being fetched
+     * @param mmds Metadata for the members being fetched
+     * @return Metadata for the members that still need fetching
+     */
+    public AbstractMemberMetaData[] fetchSubclassMembers(ObjectProvider op, AbstractMemberMetaData[] mmds)
+    {
+        if (!enabled || mmds == null)
+        {
+            return mmds;
+        }
+
+        DatastoreClass candidateTable = pendingObjects.get(op);
+        if (candidateTable == null)
+        {
+            return mmds;
+        }
+        List<ObjectProvider> ops = pendingObjects.takeBatch(op, true, null);
+        if (ops == null)
+        {
+            return mmds;
+        }
+
+        AbstractClassMetaData cmd = op.getClassMetaData();
+        if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+        {
+            NucleusLogger.PERSISTENCE.debug(Localiser.msg("052225", ops.size(), cmd.getFullClassName()));
+        }
+        pendingObjects.fetchBatch(ops.toArray(new ObjectProvider[ops.size()]), cmd, mmds, candidateTable);
+
+        // Return the members that are still not loaded
+        return PendingObjectBatcher.getUnloadedMembers(op, mmds);
+    }
+}
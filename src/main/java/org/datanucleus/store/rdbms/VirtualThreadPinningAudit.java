@@ -0,0 +1,176 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Audit of virtual threads being pinned to their carrier thread while in DataNucleus code, typically due to a monitor being held
+ * during a blocking (JDBC) call. Enabled by the persistence property "datanucleus.rdbms.virtualThreads.auditPinning".
+ * Listens to the JFR event "jdk.VirtualThreadPinned" (so requires a JVM with virtual threads), and for each event with a
+ * DataNucleus frame in its stack logs a warning (once per location) and increments the count of pinned events.
+ * The JFR API is invoked by reflection since it is not available in the JDK this is compiled against.
+ */
+public class VirtualThreadPinningAudit
+{
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final String DATANUCLEUS_PACKAGE_PREFIX = "org.datanucleus.";
+
+    /** Maximum number of frames of the stack included in the warning. */
+    private static final int MAX_FRAMES_LOGGED = 20;
+
+    private final AtomicLong numberOfPinnedEvents = new AtomicLong();
+
+    /** Locations (first DataNucleus frame) already logged. */
+    private final Set<String> loggedLocations = ConcurrentHashMap.newKeySet();
+
+    /** The JFR RecordingStream, while started. */
+    private AutoCloseable recordingStream = null;
+
+    /**
+     * Method to start the audit.
+     * @return Whether it was started (false if the JVM doesn't support it)
+     */
+    public synchronized boolean start()
+    {
+        if (recordingStream != null)
+        {
+            return true;
+        }
+        try
+        {
+            Class streamCls = Class.forName("jdk.jfr.consumer.RecordingStream");
+            Object stream = streamCls.getConstructor().newInstance();
+            Object settings = streamCls.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+            Class settingsCls = Class.forName("jdk.jfr.EventSettings");
+            settingsCls.getMethod("withStackTrace").invoke(settings);
+            settingsCls.getMethod("withThreshold", Duration.class).invoke(settings, Duration.ZERO);
+            streamCls.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT, new Consumer<Object>()
+            {
+                public void accept(Object event)
+                {
+                    pinned(event);
+                }
+            });
+            streamCls.getMethod("startAsync").invoke(stream);
+            recordingStream = (AutoCloseable)stream;
+            NucleusLogger.DATASTORE.info(Localiser.msg("047015"));
+            return true;
+        }
+        catch (Exception | LinkageError e)
+        {
+            NucleusLogger.DATASTORE.warn(Localiser.msg("047016", e));
+            return false;
+        }
+    }
+
+    /**
+     * Method to stop the audit.
+     */
+    public synchronized void close()
+    {
+        if (recordingStream != null)
+        {
+            try
+            {
+                recordingStream.close();
+            }
+            catch (Exception e)
+            {
+                // Ignore
+            }
+            recordingStream = null;
+        }
+    }
+
+    /**
+     * Accessor for the number of pinned events with a DataNucleus frame in their stack, since the audit was started.
+     * @return The number of pinned events
+     */
+    public long getNumberOfPinnedEvents()
+    {
+        return numberOfPinnedEvents.get();
+    }
+
+    /**
+     * Method to process a pinned event.
+     * @param event The jdk.jfr.consumer.RecordedEvent
+     */
+    private void pinned(Object event)
+    {
+        try
+        {
+            Object stackTrace = invoke(event, "getStackTrace");
+            if (stackTrace == null)
+            {
+                return;
+            }
+            List frames = (List)invoke(stackTrace, "getFrames");
+            String location = null;
+            StringBuilder stack = new StringBuilder();
+            for (int i=0;i<frames.size();i++)
+            {
+                Object method = invoke(frames.get(i), "getMethod");
+                String className = (String)invoke(invoke(method, "getType"), "getName");
+                String frame = className + "." + invoke(method, "getName") + ":" + invoke(frames.get(i), "getLineNumber");
+                if (location == null && className.startsWith(DATANUCLEUS_PACKAGE_PREFIX))
+                {
+                    location = frame;
+                }
+                if (i < MAX_FRAMES_LOGGED)
+                {
+                    stack.append("\n    at ").append(frame);
+                }
+            }
+            if (location == null)
+            {
+                // Pinned outside of DataNucleus
+                return;
+            }
+
+            numberOfPinnedEvents.incrementAndGet();
+            if (loggedLocations.add(location))
+            {
+                Duration duration = (Duration)invoke(event, "getDuration");
+                NucleusLogger.DATASTORE.warn(Localiser.msg("047017", "" + duration.toMillis(), location, stack.toString()));
+            }
+        }
+        catch (Exception e)
+        {
+            NucleusLogger.DATASTORE.debug("Unable to process " + PINNED_EVENT + " event : " + e.getMessage());
+        }
+    }
+
+    private static Object invoke(Object target, String methodName)
+    throws Exception
+    {
+        Method method = target.getClass().getMethod(methodName);
+        method.setAccessible(true);
+        return method.invoke(target);
+    }
+}
@@ -972,6 +972,16 @@ public class BaseDatastoreAdapter implements DatastoreAdapter
         return 9999;
     }
 
+    /**
+     * Accessor for the maximum number of parameters that can be bound in a single statement in this datastore.
+     * Defaults to 1000, which is also the maximum number of values in an IN list for Oracle.
+     * @return Max number of parameters in a statement
+     */
+    public int getMaxParametersPerStatement()
+    {
+        return 1000;
+    }
+
     /**
      * Iterator for the reserved words constructed from the method
      * DataBaseMetaData.getSQLKeywords + standard SQL reserved words
@@ -1108,6 +1118,16 @@ public class BaseDatastoreAdapter implements DatastoreAdapter
         return null;
     }
 
+    /**
+     * The option to specify in "SELECT ... FROM TABLE ... WITH (option)" to lock instances while skipping
+     * any rows that are locked by other transactions. Null if not supported.
+     * @return The option to specify with "SELECT ... FROM TABLE ... WITH (option)"
+     **/
+    public String getSelectWithLockSkipLockedOption()
+    {
+        return null;
+    }
+
     /**
      * Method returning the text to append to the end of the SELECT to perform the equivalent of "SELECT ... FOR UPDATE" (on some RDBMS). 
      * This method means that we can have different text with some datastores (e.g Derby).
@@ -1163,6 +1183,65 @@ public class BaseDatastoreAdapter implements DatastoreAdapter
         return true;
     }
 
+    /**
+     * Accessor for the pattern of an expression testing whether a value is contained in an SQL ARRAY parameter.
+     * This implementation returns null (not supported), so override in database-specific subclass as required.
+     * @return The pattern, or null if not supported
+     */
+    public String getArrayContainsPattern()
+    {
+        return null;
+    }
+
+    /**
+     * Method to insert rows into a table using a datastore-specific bulk loading mechanism.
+     * This implementation returns false (not supported), so override in database-specific subclass as required.
+     * @param conn The Connection
+     * @param tableName Name of the table
+     * @param columnNames Names of the columns, in the order of the values of each row
+     * @param rows The values of the rows
+     * @return Whether the rows were loaded
+     * @throws SQLException if an error occurs loading the rows
+     */
+    public boolean bulkLoad(Connection conn, String tableName, String[] columnNames, List<Object[]> rows)
+    throws SQLException
+    {
+        return false;
+    }
+
+    /**
+     * Convenience method to obtain the JDBC driver implementation of a Connection/Statement as a driver-specific
+     * interface, for use of driver extensions. The JDBC driver is not a dependency so the interface is loaded using
+     * the class loader of the Connection/Statement, and should be used via reflection.
+     * @param wrapper The Connection/Statement (possibly wrapped by a connection pool)
+     * @param interfaceName Name of the driver-specific interface
+     * @return The object implementing the interface, or null if not available
+     */
+    protected static Object unwrapAs(java.sql.Wrapper wrapper, String interfaceName)
+    {
+        ClassLoader[] loaders = new ClassLoader[] {wrapper.getClass().getClassLoader(), Thread.currentThread().getContextClassLoader()};
+        for (int i=0;i<loaders.length;i++)
+        {
+            try
+            {
+                Class cls = Class.forName(interfaceName, false, loaders[i]);
+                if (cls.isInstance(wrapper))
+                {
+                    return wrapper;
+                }
+                else if (wrapper.isWrapperFor(cls))
+                {
+                    return wrapper.unwrap(cls);
+                }
+            }
+            catch (ClassNotFoundException | LinkageError | SQLException e)
+            {
+                // Not available with this class loader
+            }
+        }
+        return null;
+    }
+
     // ---------------------------- AutoIncrement Support ----------------------
 
     /**
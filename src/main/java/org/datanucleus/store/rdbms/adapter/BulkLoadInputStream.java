@@ -0,0 +1,110 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.adapter;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Stream of the data of rows for a bulk load, in UTF-8. Each row is only rendered (using {@link #appendRow(StringBuilder, Object[])})
+ * when the driver reads up to it, so the data of all rows is never held in memory at once.
+ */
+abstract class BulkLoadInputStream extends InputStream
+{
+    private final Iterator<Object[]> rowIter;
+
+    private final StringBuilder rowText = new StringBuilder();
+
+    /** Bytes of the current row. */
+    private byte[] rowBytes = new byte[0];
+
+    /** Position of the next byte in the current row. */
+    private int rowPosition = 0;
+
+    /**
+     * Constructor.
+     * @param rows The values of the rows
+     */
+    BulkLoadInputStream(List<Object[]> rows)
+    {
+        this.rowIter = rows.iterator();
+    }
+
+    /**
+     * Method to append the data for a row, including its terminator.
+     * @param str The data to append to
+     * @param row Values of the row
+     */
+    protected abstract void appendRow(StringBuilder str, Object[] row);
+
+    /**
+     * Method to make the next row current, when the current row has been read.
+     * @return Whether there is data to read
+     */
+    private boolean nextRowIfRequired()
+    {
+        while (rowPosition >= rowBytes.length)
+        {
+            if (!rowIter.hasNext())
+            {
+                return false;
+            }
+            rowText.setLength(0);
+            appendRow(rowText, rowIter.next());
+            rowBytes = rowText.toString().getBytes(StandardCharsets.UTF_8);
+            rowPosition = 0;
+        }
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.InputStream#read()
+     */
+    @Override
+    public int read()
+    {
+        if (!nextRowIfRequired())
+        {
+            return -1;
+        }
+        return rowBytes[rowPosition++] & 0xFF;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.InputStream#read(byte[], int, int)
+     */
+    @Override
+    public int read(byte[] b, int off, int len)
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        int numRead = 0;
+        while (numRead < len && nextRowIfRequired())
+        {
+            int num = Math.min(len - numRead, rowBytes.length - rowPosition);
+            System.arraycopy(rowBytes, rowPosition, b, off + numRead, num);
+            rowPosition += num;
+            numRead += num;
+        }
+        return (numRead == 0) ? -1 : numRead;
+    }
+}
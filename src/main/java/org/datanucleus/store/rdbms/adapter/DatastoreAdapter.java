@@ -24,6 +24,7 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -167,6 +168,9 @@ public interface DatastoreAdapter
     public static final String UPDATE_STATEMENT_ALLOW_TABLE_ALIAS_IN_SET_CLAUSE = "UpdateStmtAllowTableAliasInSet";
     public static final String UPDATE_DELETE_STATEMENT_ALLOW_TABLE_ALIAS_IN_WHERE_CLAUSE = "UpdateDeleteStmtAllowTableAliasInWhere";
 
+    /** Whether UPDATE/DELETE statements can return columns of the affected rows using "RETURNING {columns}". */
+    public static final String UPDATE_DELETE_STATEMENT_RETURNING = "UpdateDeleteStmtReturning";
+
     /** Whether the GROUP BY has to include all primary expressions selected. */
     public static final String GROUP_BY_REQUIRES_ALL_SELECT_PRIMARIES = "GroupByIncludesAllSelectPrimaries";
 
@@ -192,6 +196,11 @@ public interface DatastoreAdapter
      */
     public static final String STATEMENT_BATCHING = "StatementBatching";
 
+    /**
+     * Whether this datastore supports INSERT of multiple rows in one statement, using "VALUES (?,?),(?,?)".
+     */
+    public static final String MULTI_ROW_INSERT = "MultiRowInsert";
+
     /**
      * Whether this datastore supports the use of "CHECK" in CREATE TABLE statements (DDL).
      */
@@ -314,6 +323,9 @@ public interface DatastoreAdapter
     /** Whether this datastore supports SELECT ... FOR UPDATE NOWAIT. */
     public static final String SELECT_FOR_UPDATE_NOWAIT = "SelectForUpdateNoWait";
 
+    /** Whether this datastore supports SELECT ... FOR UPDATE SKIP LOCKED (or equivalent lock option to skip locked rows). */
+    public static final String SELECT_FOR_UPDATE_SKIP_LOCKED = "SelectForUpdateSkipLocked";
+
     /**
      * Whether the lock option (when doing SELECT FOR UPDATE) is to be placed after the FROM.
      */
@@ -562,6 +574,13 @@ public interface DatastoreAdapter
      */
     int getMaxIndexes();
 
+    /**
+     * Accessor for the maximum number of parameters that can be bound in a single statement in this datastore
+     * (also limiting the values of a parameterised IN list).
+     * @return Max number of parameters in a statement
+     */
+    int getMaxParametersPerStatement();
+
     /**
      * Whether the datastore will support setting the query fetch size to the supplied value.
      * @param size The value to set to
@@ -862,6 +881,14 @@ public interface DatastoreAdapter
      **/
     String getSelectWithLockOption();
 
+    /**
+     * The option to specify in "SELECT ... FROM TABLE ... WITH (option)" to lock instances while skipping
+     * (rather than waiting for) any rows that are locked by other transactions.
+     * Null if not supported.
+     * @return The option to specify with "SELECT ... FROM TABLE ... WITH (option)"
+     **/
+    String getSelectWithLockSkipLockedOption();
+
     /**
      * The function to creates a unique value of type uniqueidentifier.
      * @return The function. e.g. "SELECT NEWID()"
@@ -967,6 +994,29 @@ public interface DatastoreAdapter
      */
     boolean validToSelectMappingInStatement(SelectStatement stmt, JavaTypeMapping m);
 
+    /**
+     * Accessor for the pattern of an expression testing whether a value is contained in an SQL ARRAY parameter. This is
+     * used when a collection parameter is bound as a single ARRAY (created using Connection.createArrayOf) rather than as
+     * one parameter per element. In the pattern "{0}" is replaced by the value expression and "{1}" by the parameter.
+     * @return The pattern, or null if not supported
+     */
+    String getArrayContainsPattern();
+
+    /**
+     * Method to insert rows into a table using a bulk loading mechanism specific to this datastore and its JDBC driver,
+     * for example PostgreSQL "COPY ... FROM STDIN". The values of each row are those that would otherwise be set on the
+     * parameters of an INSERT, so are String, Number, Boolean, Character, byte[], java.sql date/time types, or null.
+     * @param conn The Connection
+     * @param tableName Name of the table
+     * @param columnNames Names of the columns, in the order of the values of each row
+     * @param rows The values of the rows
+     * @return Whether the rows were loaded. When false (not supported by this datastore or driver, or for the types of
+     *     values) nothing has been written, and the rows should be inserted using INSERT statements
+     * @throws SQLException if an error occurs loading the rows
+     */
+    boolean bulkLoad(Connection conn, String tableName, String[] columnNames, List<Object[]> rows)
+    throws SQLException;
+
     /**
      * return whether this exception represents a cancelled statement.
      * @param sqle the exception
@@ -76,6 +76,7 @@ public class H2Adapter extends BaseDatastoreAdapter
         }
 
         supportedOptions.add(PRIMARYKEY_IN_CREATE_STATEMENTS);
+        supportedOptions.add(MULTI_ROW_INSERT);
         supportedOptions.add(LOCK_WITH_SELECT_FOR_UPDATE);
         supportedOptions.add(IDENTITY_COLUMNS);
         supportedOptions.add(CHECK_IN_END_CREATE_STATEMENTS);
@@ -213,6 +214,15 @@ public class H2Adapter extends BaseDatastoreAdapter
         }
     }
 
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.rdbms.adapter.BaseDatastoreAdapter#getArrayContainsPattern()
+     */
+    @Override
+    public String getArrayContainsPattern()
+    {
+        return "ARRAY_CONTAINS({1}, {0})";
+    }
+
     /**
      * Accessor for the Schema Name for this datastore.
      * @param conn Connection to the datastore
@@ -491,6 +501,7 @@ public class H2Adapter extends BaseDatastoreAdapter
         registerDatastoreMapping(byte[].class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BinaryRDBMSMapping.class, JDBCType.BINARY, "BINARY", false);
 
         registerDatastoreMapping(java.io.File.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BinaryStreamRDBMSMapping.class, JDBCType.LONGVARBINARY, "LONGVARBINARY", true);
+        registerDatastoreMapping(java.io.File.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BlobRDBMSMapping.class, JDBCType.BLOB, "BLOB", false);
 
         registerDatastoreMapping(DatastoreId.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BigIntRDBMSMapping.class, JDBCType.BIGINT, "BIGINT", true);
         registerDatastoreMapping(DatastoreId.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.IntegerRDBMSMapping.class, JDBCType.INTEGER, "INTEGER", false);
@@ -71,6 +71,10 @@ public class HSQLAdapter extends BaseDatastoreAdapter
             supportedOptions.remove(STATEMENT_BATCHING);
             supportedOptions.remove(GET_GENERATED_KEYS_STATEMENT);
         }
+        else
+        {
+            supportedOptions.add(MULTI_ROW_INSERT);
+        }
         supportedOptions.remove(DEFERRED_CONSTRAINTS);
         supportedOptions.remove(CHECK_IN_CREATE_STATEMENTS);
         supportedOptions.remove(AUTO_INCREMENT_KEYS_NULL_SPECIFICATION);
@@ -317,6 +321,15 @@ public class HSQLAdapter extends BaseDatastoreAdapter
         }
     }
 
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.rdbms.adapter.BaseDatastoreAdapter#getArrayContainsPattern()
+     */
+    @Override
+    public String getArrayContainsPattern()
+    {
+        return "{0} IN(UNNEST({1}))";
+    }
+
     public SQLTypeInfo newSQLTypeInfo(ResultSet rs)
     {
         return new org.datanucleus.store.rdbms.adapter.HSQLTypeInfo(rs);
@@ -638,6 +651,7 @@ public class HSQLAdapter extends BaseDatastoreAdapter
         registerDatastoreMapping(byte[].class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BinaryRDBMSMapping.class, JDBCType.BINARY, "BINARY", false);
 
         registerDatastoreMapping(java.io.File.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BinaryStreamRDBMSMapping.class, JDBCType.LONGVARBINARY, "LONGVARBINARY", true);
+        registerDatastoreMapping(java.io.File.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BlobRDBMSMapping.class, JDBCType.BLOB, "BLOB", false);
 
         registerDatastoreMapping(DatastoreId.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BigIntRDBMSMapping.class, JDBCType.BIGINT, "BIGINT", true);
         registerDatastoreMapping(DatastoreId.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.IntegerRDBMSMapping.class, JDBCType.INTEGER, "INTEGER", false);
@@ -20,12 +20,18 @@ Contributors:
 **********************************************************************/
 package org.datanucleus.store.rdbms.adapter;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.JDBCType;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
 import java.sql.Types;
+import java.util.List;
 import java.util.Properties;
 
 import org.datanucleus.ClassLoaderResolver;
@@ -45,6 +51,7 @@ import org.datanucleus.store.rdbms.table.Column;
 import org.datanucleus.store.rdbms.table.Table;
 import org.datanucleus.store.rdbms.table.TableImpl;
 import org.datanucleus.store.schema.StoreSchemaHandler;
+import org.datanucleus.util.Localiser;
 import org.datanucleus.util.StringUtils;
 
 /**
@@ -105,6 +112,7 @@ public class MySQLAdapter extends BaseDatastoreAdapter
         supportedOptions.remove(DEFERRED_CONSTRAINTS);
         supportedOptions.remove(DEFAULT_BEFORE_NULL_IN_COLUMN_OPTIONS);
         supportedOptions.add(PRIMARYKEY_IN_CREATE_STATEMENTS);
+        supportedOptions.add(MULTI_ROW_INSERT);
         if (datastoreMajorVersion < 5 && (datastoreMajorVersion < 4 || datastoreMinorVersion < 1))
         {
             // Support starts at MySQL 4.1
@@ -127,6 +135,12 @@ public class MySQLAdapter extends BaseDatastoreAdapter
         supportedOptions.add(CREATE_INDEXES_BEFORE_FOREIGN_KEYS);
         supportedOptions.add(IDENTITY_COLUMNS);
         supportedOptions.add(LOCK_WITH_SELECT_FOR_UPDATE);
+        if (datastoreMajorVersion >= 8 && datastoreProductVersion != null && datastoreProductVersion.toLowerCase().indexOf("mariadb") < 0)
+        {
+            // MySQL 8.0+ supports NOWAIT and SKIP LOCKED (MariaDB uses different version numbering)
+            supportedOptions.add(SELECT_FOR_UPDATE_NOWAIT);
+            supportedOptions.add(SELECT_FOR_UPDATE_SKIP_LOCKED);
+        }
         supportedOptions.add(STORED_PROCEDURES);
         supportedOptions.add(ORDERBY_NULLS_USING_ISNULL);
 
@@ -452,6 +466,161 @@ public class MySQLAdapter extends BaseDatastoreAdapter
         return super.getSQLOperationClass(operationName);
     }
 
+    /**
+     * Method to insert rows into a table using "LOAD DATA LOCAL INFILE", with the data provided from memory using the
+     * MySQL Connector/J "setLocalInfileInputStream" extension. The connection has to allow this, using the Connector/J
+     * property "allowLoadLocalInfile". The rows are rendered as the driver reads them, rather than all up front.
+     * Since a LOCAL load skips rows with a duplicate key and converts invalid values with only a warning, the load fails
+     * if the number of rows loaded differs from the number of rows, or if there are any warnings.
+     * @param conn The Connection
+     * @param tableName Name of the table
+     * @param columnNames Names of the columns, in the order of the values of each row
+     * @param rows The values of the rows
+     * @return Whether the rows were loaded
+     * @throws SQLException if an error occurs loading the rows
+     */
+    @Override
+    public boolean bulkLoad(Connection conn, String tableName, String[] columnNames, List<Object[]> rows)
+    throws SQLException
+    {
+        for (Object[] row : rows)
+        {
+            for (int i=0;i<row.length;i++)
+            {
+                if (!isLoadDataValueSupported(row[i]))
+                {
+                    return false;
+                }
+            }
+        }
+
+        Statement stmt = conn.createStatement();
+        try
+        {
+            Object mysqlStmt = unwrapAs(stmt, "com.mysql.cj.jdbc.JdbcStatement"); // Connector/J 6+
+            if (mysqlStmt == null)
+            {
+                mysqlStmt = unwrapAs(stmt, "com.mysql.jdbc.Statement");
+                if (mysqlStmt == null)
+                {
+                    return false;
+                }
+            }
+            // Provide the data in the default format of LOAD DATA (tab separated, with backslash escapes)
+            InputStream loadData = new BulkLoadInputStream(rows)
+            {
+                protected void appendRow(StringBuilder str, Object[] row)
+                {
+                    for (int i=0;i<row.length;i++)
+                    {
+                        if (i > 0)
+                        {
+                            str.append('\t');
+                        }
+                        appendLoadDataValue(str, row[i]);
+                    }
+                    str.append('\n');
+                }
+            };
+            try
+            {
+                mysqlStmt.getClass().getMethod("setLocalInfileInputStream", InputStream.class).invoke(mysqlStmt, loadData);
+            }
+            catch (ReflectiveOperationException e)
+            {
+                // Extension not available with this version of the driver
+                return false;
+            }
+
+            StringBuilder loadStmt = new StringBuilder("LOAD DATA LOCAL INFILE 'datanucleus-bulk-load' INTO TABLE ");
+            loadStmt.append(tableName).append(" CHARACTER SET utf8mb4 (");
+            for (int i=0;i<columnNames.length;i++)
+            {
+                loadStmt.append(i > 0 ? "," : "").append(columnNames[i]);
+            }
+            loadStmt.append(")");
+            stmt.execute(loadStmt.toString());
+
+            int numLoaded = stmt.getUpdateCount();
+            SQLWarning warning = stmt.getWarnings();
+            if (numLoaded != rows.size() || warning != null)
+            {
+                throw new SQLException(Localiser.msg("052232", "" + rows.size(), tableName, "" + numLoaded,
+                    (warning != null) ? warning.getMessage() : ""), warning);
+            }
+        }
+        finally
+        {
+            stmt.close();
+        }
+        return true;
+    }
+
+    /**
+     * Convenience method to return whether a value can be represented in the default format of LOAD DATA.
+     * @param value The value
+     * @return Whether the value is of a type that can be represented
+     */
+    private static boolean isLoadDataValueSupported(Object value)
+    {
+        return value == null || value instanceof String || value instanceof Character || value instanceof Number || value instanceof Boolean ||
+            value instanceof java.sql.Timestamp || value instanceof java.sql.Date || value instanceof java.sql.Time;
+    }
+
+    /**
+     * Convenience method to append a value in the default format of LOAD DATA. A null is represented by "\N".
+     * @param str The data to append to
+     * @param value The value, of a type accepted by isLoadDataValueSupported
+     */
+    private static void appendLoadDataValue(StringBuilder str, Object value)
+    {
+        if (value == null)
+        {
+            str.append("\\N");
+        }
+        else if (value instanceof String || value instanceof Character)
+        {
+            String strValue = value.toString();
+            for (int i=0;i<strValue.length();i++)
+            {
+                char c = strValue.charAt(i);
+                switch (c)
+                {
+                    case '\\':
+                        str.append("\\\\");
+                        break;
+                    case '\t':
+                        str.append("\\t");
+                        break;
+                    case '\n':
+                        str.append("\\n");
+                        break;
+                    case '\r':
+                        str.append("\\r");
+                        break;
+                    case '\0':
+                        str.append("\\0");
+                        break;
+                    default:
+                        str.append(c);
+                }
+            }
+        }
+        else if (value instanceof Boolean)
+        {
+            str.append(((Boolean)value).booleanValue() ? '1' : '0');
+        }
+        else if (value instanceof BigDecimal)
+        {
+            str.append(((BigDecimal)value).toPlainString());
+        }
+        else
+        {
+            // Number, Timestamp, Date, Time
+            str.append(value);
+        }
+    }
+
     /* (non-Javadoc)
      * @see org.datanucleus.store.rdbms.adapter.BaseDatastoreAdapter#getSQLMethodClass(java.lang.String, java.lang.String)
      */
@@ -590,6 +759,7 @@ public class MySQLAdapter extends BaseDatastoreAdapter
         registerDatastoreMapping(byte[].class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BinaryRDBMSMapping.class, JDBCType.BINARY, "BINARY", false);
 
         registerDatastoreMapping(java.io.File.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BinaryStreamRDBMSMapping.class, JDBCType.LONGVARBINARY, "LONGVARBINARY", true);
+        registerDatastoreMapping(java.io.File.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BlobRDBMSMapping.class, JDBCType.BLOB, "BLOB", false);
 
         registerDatastoreMapping(DatastoreId.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BigIntRDBMSMapping.class, JDBCType.BIGINT, "BIGINT", true);
         registerDatastoreMapping(DatastoreId.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.IntegerRDBMSMapping.class, JDBCType.INTEGER, "INTEGER", false);
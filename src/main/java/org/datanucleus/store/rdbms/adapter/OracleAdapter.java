@@ -153,6 +153,11 @@ public class OracleAdapter extends BaseDatastoreAdapter
 
         supportedOptions.add(LOCK_WITH_SELECT_FOR_UPDATE);
         supportedOptions.add(SELECT_FOR_UPDATE_NOWAIT);
+        if (datastoreMajorVersion >= 11)
+        {
+            // Oracle 11g+ supports SKIP LOCKED
+            supportedOptions.add(SELECT_FOR_UPDATE_SKIP_LOCKED);
+        }
         supportedOptions.add(SEQUENCES);
         supportedOptions.add(NULL_EQUALS_EMPTY_STRING);
         supportedOptions.add(ANALYSIS_METHODS);
@@ -21,6 +21,8 @@ Contributors:
 **********************************************************************/
 package org.datanucleus.store.rdbms.adapter;
 
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.Connection;
@@ -30,6 +32,11 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -61,6 +68,9 @@ public class PostgreSQLAdapter extends BaseDatastoreAdapter
     /** List of Postgresql keywords that aren't in SQL92, SQL99 */
     public static final String POSTGRESQL_RESERVED_WORDS =
         "ALL,ANALYSE,ANALYZE,DO,FREEZE,ILIKE,ISNULL,OFFSET,PLACING,VERBOSE";
+
+    /** Format of the local date-time part of a Timestamp in COPY data. */
+    private static final DateTimeFormatter COPY_TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSSSSS");
         
     protected Map<String, String> psqlTypes;
 
@@ -90,7 +100,18 @@ public class PostgreSQLAdapter extends BaseDatastoreAdapter
 
         supportedOptions.add(LOCK_WITH_SELECT_FOR_UPDATE);
         supportedOptions.add(SELECT_FOR_UPDATE_NOWAIT);
+        if (datastoreMajorVersion > 9 || (datastoreMajorVersion == 9 && datastoreMinorVersion >= 5))
+        {
+            // PostgreSQL 9.5+ supports SKIP LOCKED
+            supportedOptions.add(SELECT_FOR_UPDATE_SKIP_LOCKED);
+        }
         supportedOptions.add(PRIMARYKEY_IN_CREATE_STATEMENTS);
+        supportedOptions.add(MULTI_ROW_INSERT);
+        if (datastoreMajorVersion > 8 || (datastoreMajorVersion == 8 && datastoreMinorVersion >= 2))
+        {
+            // PostgreSQL 8.2+ supports UPDATE/DELETE ... RETURNING
+            supportedOptions.add(UPDATE_DELETE_STATEMENT_RETURNING);
+        }
         supportedOptions.add(SEQUENCES);
         supportedOptions.add(IDENTITY_COLUMNS);
         supportedOptions.add(ORDERBY_NULLS_DIRECTIVES);
@@ -166,6 +187,15 @@ public class PostgreSQLAdapter extends BaseDatastoreAdapter
         return "postgresql";
     }
 
+    /**
+     * Accessor for the maximum number of parameters in a statement. The protocol allows up to 32767.
+     * @return Max number of parameters in a statement
+     */
+    public int getMaxParametersPerStatement()
+    {
+        return 32767;
+    }
+
     public SQLTypeInfo newSQLTypeInfo(ResultSet rs)
     {
         SQLTypeInfo info = new PostgreSQLTypeInfo(rs);
@@ -607,6 +637,166 @@ public class PostgreSQLAdapter extends BaseDatastoreAdapter
         return str.toString();
     }
 
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.rdbms.adapter.BaseDatastoreAdapter#getArrayContainsPattern()
+     */
+    @Override
+    public String getArrayContainsPattern()
+    {
+        return "{0} = ANY({1})";
+    }
+
+    /**
+     * Method to insert rows into a table using "COPY ... FROM STDIN" with the PostgreSQL JDBC driver CopyManager API,
+     * passing the rows in CSV format. The rows are rendered as the driver reads them, rather than all up front.
+     * @param conn The Connection
+     * @param tableName Name of the table
+     * @param columnNames Names of the columns, in the order of the values of each row
+     * @param rows The values of the rows
+     * @return Whether the rows were loaded
+     * @throws SQLException if an error occurs loading the rows
+     */
+    @Override
+    public boolean bulkLoad(Connection conn, String tableName, String[] columnNames, List<Object[]> rows)
+    throws SQLException
+    {
+        Object pgConn = unwrapAs(conn, "org.postgresql.PGConnection");
+        if (pgConn == null)
+        {
+            return false;
+        }
+
+        for (Object[] row : rows)
+        {
+            for (int i=0;i<row.length;i++)
+            {
+                if (!isCopyValueSupported(row[i]))
+                {
+                    return false;
+                }
+            }
+        }
+
+        StringBuilder copyStmt = new StringBuilder("COPY ").append(tableName).append(" (");
+        for (int i=0;i<columnNames.length;i++)
+        {
+            copyStmt.append(i > 0 ? "," : "").append(columnNames[i]);
+        }
+        copyStmt.append(") FROM STDIN WITH CSV");
+
+        Object copyMgr = null;
+        try
+        {
+            copyMgr = pgConn.getClass().getMethod("getCopyAPI").invoke(pgConn);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            // CopyManager API not available with this version of the driver
+            return false;
+        }
+
+        try
+        {
+            InputStream copyData = new BulkLoadInputStream(rows)
+            {
+                protected void appendRow(StringBuilder str, Object[] row)
+                {
+                    for (int i=0;i<row.length;i++)
+                    {
+                        if (i > 0)
+                        {
+                            str.append(',');
+                        }
+                        appendCopyValue(str, row[i]);
+                    }
+                    str.append('\n');
+                }
+            };
+            copyMgr.getClass().getMethod("copyIn", String.class, InputStream.class).invoke(copyMgr, copyStmt.toString(), copyData);
+        }
+        catch (InvocationTargetException e)
+        {
+            if (e.getCause() instanceof SQLException)
+            {
+                throw (SQLException)e.getCause();
+            }
+            throw new SQLException(e.getCause());
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new SQLException(e);
+        }
+        return true;
+    }
+
+    /**
+     * Convenience method to return whether a value can be represented in the CSV format of COPY.
+     * @param value The value
+     * @return Whether the value is of a type that can be represented
+     */
+    private static boolean isCopyValueSupported(Object value)
+    {
+        return value == null || value instanceof String || value instanceof Character || value instanceof Number || value instanceof Boolean ||
+            value instanceof java.sql.Timestamp || value instanceof java.sql.Date || value instanceof java.sql.Time || value instanceof byte[];
+    }
+
+    /**
+     * Convenience method to append a value in the CSV format of COPY. A null is represented by an unquoted empty value,
+     * and strings are always quoted (so that an empty string is distinct from null). A Timestamp is written with the offset
+     * of the JVM timezone for that instant, as the driver does when binding it, so it is the same instant for a timestamptz
+     * column and the same local time for a timestamp column.
+     * @param str The COPY data to append to
+     * @param value The value, of a type accepted by isCopyValueSupported
+     */
+    private static void appendCopyValue(StringBuilder str, Object value)
+    {
+        if (value == null)
+        {
+            return;
+        }
+        else if (value instanceof String || value instanceof Character)
+        {
+            String strValue = value.toString();
+            str.append('"');
+            for (int i=0;i<strValue.length();i++)
+            {
+                char c = strValue.charAt(i);
+                if (c == '"')
+                {
+                    str.append('"');
+                }
+                str.append(c);
+            }
+            str.append('"');
+        }
+        else if (value instanceof BigDecimal)
+        {
+            str.append(((BigDecimal)value).toPlainString());
+        }
+        else if (value instanceof java.sql.Timestamp)
+        {
+            java.sql.Timestamp ts = (java.sql.Timestamp)value;
+            LocalDateTime localTime = ts.toLocalDateTime();
+            ZoneOffset offset = ZoneId.systemDefault().getRules().getOffset(localTime);
+            str.append(COPY_TIMESTAMP_FORMAT.format(localTime)).append(offset.getId().equals("Z") ? "+00:00" : offset.getId());
+        }
+        else if (value instanceof byte[])
+        {
+            // bytea in hex format
+            byte[] bytes = (byte[])value;
+            str.append("\\x");
+            for (int i=0;i<bytes.length;i++)
+            {
+                str.append(Character.forDigit((bytes[i] >> 4) & 0xF, 16)).append(Character.forDigit(bytes[i] & 0xF, 16));
+            }
+        }
+        else
+        {
+            // Number, Boolean, Date, Time
+            str.append(value);
+        }
+    }
+
     /**
      * The character for escaping patterns.
      * @return Escape character(s)
@@ -821,6 +1011,7 @@ public class PostgreSQLAdapter extends BaseDatastoreAdapter
         registerDatastoreMapping(byte[].class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BlobRDBMSMapping.class, JDBCType.BLOB, "BLOB", false);
 
         registerDatastoreMapping(java.io.File.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BinaryStreamRDBMSMapping.class, JDBCType.LONGVARBINARY, "LONGVARBINARY", true);
+        registerDatastoreMapping(java.io.File.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BlobRDBMSMapping.class, JDBCType.BLOB, "BLOB", false);
 
         registerDatastoreMapping(DatastoreId.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BigIntRDBMSMapping.class, JDBCType.BIGINT, "BIGINT", true);
         registerDatastoreMapping(DatastoreId.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.IntegerRDBMSMapping.class, JDBCType.INTEGER, "INTEGER", false);
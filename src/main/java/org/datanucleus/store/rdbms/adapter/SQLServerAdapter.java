@@ -114,6 +114,7 @@ public class SQLServerAdapter extends BaseDatastoreAdapter
         supportedOptions.add(IDENTITY_COLUMNS);
         supportedOptions.add(LOCK_OPTION_PLACED_AFTER_FROM);
         supportedOptions.add(LOCK_OPTION_PLACED_WITHIN_JOIN);
+        supportedOptions.add(SELECT_FOR_UPDATE_SKIP_LOCKED); // Using READPAST table hint
         supportedOptions.add(ANALYSIS_METHODS);
         supportedOptions.add(STORED_PROCEDURES);
         supportedOptions.add(ORDERBY_NULLS_USING_CASE_NULL);
@@ -127,6 +128,11 @@ public class SQLServerAdapter extends BaseDatastoreAdapter
         supportedOptions.remove(FK_UPDATE_ACTION_RESTRICT);
         supportedOptions.remove(FK_UPDATE_ACTION_NULL);
 
+        if (datastoreMajorVersion >= 10)
+        {
+            // SQLServer 2008+ supports "INSERT ... VALUES (...),(...)"
+            supportedOptions.add(MULTI_ROW_INSERT);
+        }
         if (datastoreMajorVersion >= 11)
         {
             // SQLServer 2012+ support these features
@@ -190,6 +196,15 @@ public class SQLServerAdapter extends BaseDatastoreAdapter
         return "sqlserver";
     }
 
+    /**
+     * Accessor for the maximum number of parameters in a statement. SQL Server supports up to 2100.
+     * @return Max number of parameters in a statement
+     */
+    public int getMaxParametersPerStatement()
+    {
+        return 2100;
+    }
+
     /**
      * Accessor for the catalog name.
      * @param conn The Connection to use
@@ -453,6 +468,11 @@ public class SQLServerAdapter extends BaseDatastoreAdapter
         return "(UPDLOCK, ROWLOCK)";
     }
 
+    public String getSelectWithLockSkipLockedOption()
+    {
+        return "(UPDLOCK, ROWLOCK, READPAST)";
+    }
+
     /**
      * Method to return if it is valid to select the specified mapping for the specified statement
      * for this datastore adapter. Sometimes, dependent on the type of the column(s), and what other
@@ -779,6 +799,7 @@ public class SQLServerAdapter extends BaseDatastoreAdapter
         registerDatastoreMapping(byte[].class.getName(), org.datanucleus.store.rdbms.mapping.datastore.LongVarBinaryRDBMSMapping.class, JDBCType.LONGVARBINARY, "LONGVARBINARY", false);
 
         registerDatastoreMapping(java.io.File.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BinaryStreamRDBMSMapping.class, JDBCType.LONGVARBINARY, "LONGVARBINARY", true);
+        registerDatastoreMapping(java.io.File.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BlobRDBMSMapping.class, JDBCType.BLOB, "BLOB", false);
 
         registerDatastoreMapping(DatastoreId.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BigIntRDBMSMapping.class, JDBCType.BIGINT, "BIGINT", true);
         registerDatastoreMapping(DatastoreId.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.NumericRDBMSMapping.class, JDBCType.NUMERIC, "NUMERIC", false);
@@ -83,6 +83,13 @@ public class SQLiteAdapter extends BaseDatastoreAdapter
         return "sqlite";
     }
 
+    @Override
+    public int getMaxParametersPerStatement()
+    {
+        // SQLITE_MAX_VARIABLE_NUMBER defaults to 999
+        return 999;
+    }
+
     @Override
     public void initialiseTypes(StoreSchemaHandler handler, ManagedConnection mconn)
     {
@@ -481,6 +488,7 @@ public class SQLiteAdapter extends BaseDatastoreAdapter
         registerDatastoreMapping(byte[].class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BinaryRDBMSMapping.class, JDBCType.BINARY, "BINARY", false);
 
         registerDatastoreMapping(java.io.File.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BinaryStreamRDBMSMapping.class, JDBCType.LONGVARBINARY, "LONGVARBINARY", true);
+        registerDatastoreMapping(java.io.File.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BlobRDBMSMapping.class, JDBCType.BLOB, "BLOB", false);
 
         registerDatastoreMapping(DatastoreId.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.BigIntRDBMSMapping.class, JDBCType.BIGINT, "BIGINT", true);
         registerDatastoreMapping(DatastoreId.class.getName(), org.datanucleus.store.rdbms.mapping.datastore.IntegerRDBMSMapping.class, JDBCType.INTEGER, "INTEGER", false);
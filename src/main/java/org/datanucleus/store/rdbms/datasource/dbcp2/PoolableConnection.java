@@ -22,6 +22,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.InstanceNotFoundException;
@@ -79,6 +81,9 @@ public class PoolableConnection extends DelegatingConnection<Connection>
      */
     private final Collection<String> _disconnectionSqlCodes;
 
+    /** Lock used when closing (returning to the pool). */
+    private final Lock closeLock = new ReentrantLock();
+
     /** Whether or not to fast fail validation after fatal connection errors */
     private final boolean _fastFailValidation;
 
@@ -157,9 +162,20 @@ public class PoolableConnection extends DelegatingConnection<Connection>
 
     /**
      * Returns me to my pool.
+     * Uses a {@link ReentrantLock} rather than a monitor since this performs JDBC calls (validation/rollback on return),
+     * and a monitor held across blocking I/O pins a virtual thread to its carrier.
      */
      @Override
-    public synchronized void close() throws SQLException {
+    public void close() throws SQLException {
+        closeLock.lock();
+        try {
+            returnToPool();
+        } finally {
+            closeLock.unlock();
+        }
+    }
+
+    private void returnToPool() throws SQLException {
         if (isClosedInternal()) {
             // already closed
             return;
@@ -22,6 +22,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.datanucleus.store.rdbms.datasource.dbcp2.pool2.KeyedObjectPool;
 import org.datanucleus.store.rdbms.datasource.dbcp2.pool2.KeyedPooledObjectFactory;
@@ -51,6 +53,9 @@ public class PoolingConnection extends DelegatingConnection<Connection>
     /** Pool of {@link PreparedStatement}s. and {@link CallableStatement}s */
     private KeyedObjectPool<PStmtKey,DelegatingPreparedStatement> _pstmtPool = null;
 
+    /** Lock used when closing, rather than a monitor that would pin a virtual thread during the JDBC close. */
+    private final Lock closeLock = new ReentrantLock();
+
     /**
      * Constructor.
      * @param c the underlying {@link Connection}.
@@ -72,7 +77,8 @@ public class PoolingConnection extends DelegatingConnection<Connection>
      * connection.
      */
     @Override
-    public synchronized void close() throws SQLException {
+    public void close() throws SQLException {
+        closeLock.lock();
         try {
             if (null != _pstmtPool) {
                 KeyedObjectPool<PStmtKey,DelegatingPreparedStatement> oldpool = _pstmtPool;
@@ -90,6 +96,7 @@ public class PoolingConnection extends DelegatingConnection<Connection>
                 getDelegateInternal().close();
             } finally {
                 setClosedInternal(true);
+                closeLock.unlock();
             }
         }
     }
@@ -19,21 +19,35 @@ Contributors:
 package org.datanucleus.store.rdbms.mapping.datastore;
 
 import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.sql.Blob;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 
 import javax.imageio.ImageIO;
 
+import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.ClassNameConstants;
 import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.store.rdbms.mapping.java.FileMapping;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.mapping.java.SerialisedMapping;
 import org.datanucleus.store.rdbms.mapping.java.TypeConverterMapping;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
 import org.datanucleus.store.rdbms.table.Column;
@@ -46,12 +60,17 @@ import org.datanucleus.util.TypeConversionHelper;
  * A large binary column can be treated in two ways in terms of storage and retrieval.
  * <ul>
  * <li>Serialise the field into the large binary using ObjectOutputStream, and deserialise
- * it back using ObjectInputStream - i.e Java serialisation</li>
+ * it back using ObjectInputStream - i.e Java serialisation (or the {@link ValueSerialiser} specified for the member)</li>
  * <li>Store the field using a byte[] stream, and retrieve it in the same way.</li>
  * </ul>
+ * Serialised fields and File fields are streamed to/from the column (see {@link #isStreamedValue()}), so that a large value
+ * is not materialised as a byte[] (a File field is spooled to a local file using the {@link StreamableSpooler}).
  */
 public abstract class AbstractLargeBinaryRDBMSMapping extends AbstractDatastoreMapping
 {
+    /** Serialiser for serialised values, determined when first needed. */
+    private ValueSerialiser serialiser = null;
+
     /**
      * Constructor.
      * @param mapping Java type mapping
@@ -107,12 +126,15 @@ public abstract class AbstractLargeBinaryRDBMSMapping extends AbstractDatastoreM
                 if (getJavaTypeMapping().isSerialised())
                 {
                     // Serialised field so just perform basic Java serialisation for retrieval
-                    if (!(value instanceof Serializable))
-                    {
-                        throw new NucleusDataStoreException(Localiser.msg("055005", value.getClass().getName()));
-                    }
-                    BlobImpl b = new BlobImpl(value);
-                    ps.setBytes(param, b.getBytes(0, (int) b.length()));
+                    setSerialisedValue(ps, param, value);
+                }
+                else if (value instanceof File)
+                {
+                    // Stream the contents of the file, closing the stream once the statement has executed
+                    File file = (File) value;
+                    InputStream is = new FileInputStream(file);
+                    storeMgr.getSQLController().registerStatementResource(ps, is);
+                    ps.setBinaryStream(param, is, file.length());
                 }
                 else if (value instanceof boolean[])
                 {
@@ -221,12 +243,7 @@ public abstract class AbstractLargeBinaryRDBMSMapping extends AbstractDatastoreM
                 else
                 {
                     // Fall back to just perform Java serialisation for storage
-                    if (!(value instanceof Serializable))
-                    {
-                        throw new NucleusDataStoreException(Localiser.msg("055005", value.getClass().getName()));
-                    }
-                    BlobImpl b = new BlobImpl(value);
-                    ps.setBytes(param, b.getBytes(0, (int) b.length()));
+                    setSerialisedValue(ps, param, value);
                 }
             }
             catch (Exception e)
@@ -236,7 +253,250 @@ public abstract class AbstractLargeBinaryRDBMSMapping extends AbstractDatastoreM
         }
     }
 
-    protected Object getObjectForBytes(byte[] bytes, int param)
+    /**
+     * Convenience method to store a value using Java serialisation (or the serialiser of the member). The value is
+     * serialised into a {@link SerialisationSpool}, so a large value is held in a spool file rather than on the heap,
+     * and is passed to the driver as a stream which is closed once the statement has executed.
+     * @param ps The PreparedStatement
+     * @param param Parameter position in the statement
+     * @param value The value to store
+     * @throws IOException if an error occurs serialising the value
+     * @throws SQLException if an error occurs setting the parameter
+     */
+    protected void setSerialisedValue(PreparedStatement ps, int param, Object value) throws IOException, SQLException
+    {
+        if (!(value instanceof Serializable))
+        {
+            throw new NucleusDataStoreException(Localiser.msg("055005", value.getClass().getName()));
+        }
+
+        SerialisationSpool spool = new SerialisationSpool();
+        boolean serialised = false;
+        try
+        {
+            getValueSerialiser().serialise(value, spool);
+            serialised = true;
+        }
+        finally
+        {
+            spool.close();
+            if (!serialised)
+            {
+                spool.delete();
+            }
+        }
+        InputStream is = spool.getInputStream();
+        storeMgr.getSQLController().registerStatementResource(ps, is);
+        ps.setBinaryStream(param, is, spool.length());
+    }
+
+    /**
+     * Accessor for the serialiser to use for serialised values of this column. This is Java serialisation unless the member
+     * specifies the extension "serialiser" (see {@link ValueSerialiser}).
+     * @return The serialiser
+     */
+    protected ValueSerialiser getValueSerialiser()
+    {
+        if (serialiser == null)
+        {
+            ValueSerialiser ser = JavaValueSerialiser.INSTANCE;
+            AbstractMemberMetaData mmd = getJavaTypeMapping().getMemberMetaData();
+            String serialiserName = mmd != null ? mmd.getValueForExtension("serialiser") : null;
+            if (serialiserName != null)
+            {
+                if (serialiserName.equalsIgnoreCase("compact"))
+                {
+                    ser = new CompactValueSerialiser(false);
+                }
+                else if (serialiserName.equalsIgnoreCase("compact-compressed"))
+                {
+                    ser = new CompactValueSerialiser(true);
+                }
+                else if (!serialiserName.equalsIgnoreCase("java"))
+                {
+                    try
+                    {
+                        ser = (ValueSerialiser) storeMgr.getNucleusContext().getClassLoaderResolver(null).classForName(serialiserName).getDeclaredConstructor().newInstance();
+                    }
+                    catch (Exception e)
+                    {
+                        throw new NucleusUserException(Localiser.msg("055009", serialiserName, mmd.getFullFieldName(), e.getMessage()), e);
+                    }
+                }
+            }
+            serialiser = ser;
+        }
+        return serialiser;
+    }
+
+    /**
+     * Output for a serialised value. Up to {@link #MAX_BUFFER_SIZE} bytes are held in a buffer, and beyond that the value is
+     * written to a spool file (in the directory of the {@link StreamableSpooler}), which is deleted when the stream over it is closed.
+     */
+    private static class SerialisationSpool extends OutputStream
+    {
+        private static final int MAX_BUFFER_SIZE = 64 * 1024;
+
+        private byte[] buffer = new byte[8192];
+
+        private long length = 0;
+
+        private File spoolFile = null;
+
+        private OutputStream spoolOutput = null;
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            write(new byte[] {(byte)b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            if (spoolOutput == null && length + len > MAX_BUFFER_SIZE)
+            {
+                // Too large to hold in memory so move to a spool file
+                spoolFile = File.createTempFile("datanucleus.serialised-", ".bin", StreamableSpooler.instance().getSpoolDirectory());
+                spoolFile.deleteOnExit();
+                spoolOutput = new BufferedOutputStream(new FileOutputStream(spoolFile));
+                spoolOutput.write(buffer, 0, (int)length);
+                buffer = null;
+            }
+
+            if (spoolOutput != null)
+            {
+                spoolOutput.write(b, off, len);
+            }
+            else
+            {
+                if (length + len > buffer.length)
+                {
+                    buffer = Arrays.copyOf(buffer, Math.min(MAX_BUFFER_SIZE, Math.max(buffer.length * 2, (int)length + len)));
+                }
+                System.arraycopy(b, off, buffer, (int)length, len);
+            }
+            length += len;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (spoolOutput != null)
+            {
+                spoolOutput.close();
+            }
+        }
+
+        long length()
+        {
+            return length;
+        }
+
+        void delete()
+        {
+            if (spoolFile != null)
+            {
+                spoolFile.delete();
+            }
+        }
+
+        InputStream getInputStream() throws IOException
+        {
+            if (spoolFile == null)
+            {
+                return new ByteArrayInputStream(buffer, 0, (int)length);
+            }
+
+            final File file = spoolFile;
+            return new BufferedInputStream(new FileInputStream(file))
+            {
+                @Override
+                public void close() throws IOException
+                {
+                    try
+                    {
+                        super.close();
+                    }
+                    finally
+                    {
+                        file.delete();
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Accessor for whether the value of this column is read/written as a stream rather than as a byte[].
+     * This is the case for serialised fields (deserialised directly from the JDBC stream) and File fields (spooled to a local file).
+     * @return Whether the value is streamed
+     */
+    protected boolean isStreamedValue()
+    {
+        JavaTypeMapping m = getJavaTypeMapping();
+        return m.isSerialised() || m instanceof SerialisedMapping || m instanceof FileMapping;
+    }
+
+    /**
+     * Method to retrieve the object from the large binary column by streaming it, for use where {@link #isStreamedValue()}.
+     * @param rs The ResultSet
+     * @param param The parameter position
+     * @param clr ClassLoader resolver for the classes of a serialised value (or null when not known)
+     * @return The object
+     */
+    protected Object getObjectForStream(ResultSet rs, int param, ClassLoaderResolver clr)
+    {
+        try
+        {
+            InputStream is = null;
+            try
+            {
+                is = rs.getBinaryStream(param);
+            }
+            catch (SQLException sqle)
+            {
+                // Retrieve the stream using the Blob (if getBinaryStream not supported)
+                Blob blob = rs.getBlob(param);
+                if (blob != null)
+                {
+                    is = blob.getBinaryStream();
+                }
+            }
+            if (is == null)
+            {
+                return null;
+            }
+
+            try
+            {
+                if (getJavaTypeMapping() instanceof FileMapping)
+                {
+                    return StreamableSpooler.instance().spoolStream(is);
+                }
+
+                return getValueSerialiser().deserialise(is, clr);
+            }
+            finally
+            {
+                is.close();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException(Localiser.msg("055002", "Object", "" + param, column, e.getMessage()), e);
+        }
+        catch (IOException e)
+        {
+            throw new NucleusDataStoreException(Localiser.msg("055002", "Object", "" + param, column, e.getMessage()), e);
+        }
+        catch (ClassNotFoundException e)
+        {
+            throw new NucleusDataStoreException(Localiser.msg("055002", "Object", "" + param, column, e.getMessage()), e);
+        }
+    }
+
+    protected Object getObjectForBytes(byte[] bytes, int param, ClassLoaderResolver clr)
     {
         String typeName = getJavaTypeMapping().getType();
         if (getJavaTypeMapping() instanceof TypeConverterMapping)
@@ -254,7 +514,7 @@ public abstract class AbstractLargeBinaryRDBMSMapping extends AbstractDatastoreM
             try
             {
                 BlobImpl blob = new BlobImpl(bytes);
-                return blob.getObject();
+                return blob.getObject(getValueSerialiser(), clr);
             }
             catch (SQLException sqle)
             {
@@ -374,6 +634,24 @@ public abstract class AbstractLargeBinaryRDBMSMapping extends AbstractDatastoreM
      */
     public Object getObject(ResultSet rs, int param)
     {
+        return getObject(rs, param, null);
+    }
+
+    /**
+     * Method to retrieve the object from the large binary column, resolving the classes of a serialised value using the
+     * specified ClassLoaderResolver.
+     * @param rs The ResultSet
+     * @param param The parameter position
+     * @param clr ClassLoader resolver of the ExecutionContext (or null when not known)
+     * @return The object
+     */
+    public Object getObject(ResultSet rs, int param, ClassLoaderResolver clr)
+    {
+        if (isStreamedValue())
+        {
+            return getObjectForStream(rs, param, clr);
+        }
+
         byte[] bytes = null;
         try
         {
@@ -389,7 +667,7 @@ public abstract class AbstractLargeBinaryRDBMSMapping extends AbstractDatastoreM
             return null;
         }
 
-        return getObjectForBytes(bytes, param);
+        return getObjectForBytes(bytes, param, clr);
     }
 
     /**
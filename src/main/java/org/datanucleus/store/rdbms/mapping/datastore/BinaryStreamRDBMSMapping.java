@@ -73,7 +73,9 @@ public class BinaryStreamRDBMSMapping extends AbstractDatastoreMapping
             else if (value instanceof File)
             {
                 File file = (File) value;
-                ps.setBinaryStream(param, new FileInputStream(file), (int) file.length());
+                InputStream is = new FileInputStream(file);
+                storeMgr.getSQLController().registerStatementResource(ps, is);
+                ps.setBinaryStream(param, is, file.length());
             }
             else
             {
@@ -23,13 +23,12 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.StreamCorruptedException;
 import java.sql.Blob;
 import java.sql.SQLException;
 
+import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.exceptions.NucleusUserException;
 import org.datanucleus.util.NucleusLogger;
 
@@ -69,10 +68,20 @@ public class BlobImpl implements Blob
      * @throws IOException if an error occurs
      */
     public BlobImpl(Object obj) throws IOException
+    {
+        this(obj, JavaValueSerialiser.INSTANCE);
+    }
+
+    /**
+     * Constructor taking an object and the serialiser to serialise it with.
+     * @param obj The object to serialise
+     * @param serialiser The serialiser
+     * @throws IOException if an error occurs
+     */
+    public BlobImpl(Object obj, ValueSerialiser serialiser) throws IOException
     {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(baos);
-        oos.writeObject(obj);
+        serialiser.serialise(obj, baos);
         bytes = baos.toByteArray();
         this.stream = new ByteArrayInputStream(bytes);
         this.length = bytes.length;
@@ -106,18 +115,28 @@ public class BlobImpl implements Blob
      */
     public Object getObject()
     throws SQLException
+    {
+        return getObject(JavaValueSerialiser.INSTANCE, null);
+    }
+
+    /**
+     * Accessor for the Object, deserialised using the specified serialiser.
+     * @param serialiser The serialiser
+     * @param clr ClassLoader resolver for the classes of the object (or null when not known)
+     * @return The object.
+     * @throws SQLException if an error occurs
+     */
+    public Object getObject(ValueSerialiser serialiser, ClassLoaderResolver clr)
+    throws SQLException
     {
         if (freed)
         {
             throw new SQLException("free() has been called");
         }
 
-        ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-        ObjectInputStream ois;
         try
         {
-            ois = new ObjectInputStream(bais);
-            return ois.readObject();
+            return serialiser.deserialise(new ByteArrayInputStream(bytes), clr);
         }
         catch (StreamCorruptedException e)
         {
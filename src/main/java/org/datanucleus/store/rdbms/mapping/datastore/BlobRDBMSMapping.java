@@ -27,6 +27,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 
+import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.exceptions.NucleusDataStoreException;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
@@ -63,12 +64,17 @@ public class BlobRDBMSMapping extends AbstractLargeBinaryRDBMSMapping
 
     /*
      * (non-Javadoc)
-     * @see org.datanucleus.store.rdbms.mapping.AbstractLargeBinaryRDBMSMapping#getObject(java.lang.Object,
-     * int)
+     * @see org.datanucleus.store.rdbms.mapping.AbstractLargeBinaryRDBMSMapping#getObject(java.sql.ResultSet,
+     * int, org.datanucleus.ClassLoaderResolver)
      */
     @Override
-    public Object getObject(ResultSet rs, int param)
+    public Object getObject(ResultSet rs, int param, ClassLoaderResolver clr)
     {
+        if (isStreamedValue())
+        {
+            return getObjectForStream(rs, param, clr);
+        }
+
         byte[] bytes = null;
         try
         {
@@ -101,7 +107,7 @@ public class BlobRDBMSMapping extends AbstractLargeBinaryRDBMSMapping
             }
         }
 
-        return getObjectForBytes(bytes, param);
+        return getObjectForBytes(bytes, param, clr);
     }
 
     public void setString(PreparedStatement ps, int param, String value)
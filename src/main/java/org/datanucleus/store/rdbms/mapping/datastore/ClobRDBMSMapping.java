@@ -19,8 +19,8 @@ Contributors:
 **********************************************************************/
 package org.datanucleus.store.rdbms.mapping.datastore;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.sql.Clob;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -121,20 +121,22 @@ public class ClobRDBMSMapping extends LongVarcharRDBMSMapping
             Clob clob = rs.getClob(param);
             if (!rs.wasNull())
             {
-                BufferedReader br = new BufferedReader(clob.getCharacterStream());
+                Reader reader = clob.getCharacterStream();
                 try
                 {
-                    int c;
-                    StringBuilder sb = new StringBuilder();
-                    while ((c = br.read()) != -1)
+                    long length = clob.length();
+                    StringBuilder sb = new StringBuilder(length > 0 && length < Integer.MAX_VALUE ? (int)length : 16);
+                    char[] buffer = new char[8192];
+                    int numRead;
+                    while ((numRead = reader.read(buffer)) != -1)
                     {
-                        sb.append((char)c);
+                        sb.append(buffer, 0, numRead);
                     }
                     value = sb.toString(); 
                 }
                 finally
                 {
-                    br.close();
+                    reader.close();
                 }
             }
             else
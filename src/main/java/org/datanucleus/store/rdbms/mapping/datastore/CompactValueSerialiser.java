@@ -0,0 +1,174 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.mapping.datastore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.exceptions.ClassNotResolvedException;
+
+/**
+ * Serialiser using Java serialisation, optionally compressing the output.
+ * The serialised form starts with a 3 byte header (magic, version, flags) followed by the (possibly compressed) standard
+ * Java serialisation stream, so the full class descriptors are stored and classes can evolve following the usual rules of
+ * Java serialisation. The classes of the value are resolved using the ClassLoaderResolver of the ExecutionContext.
+ * <p>
+ * When deserialising, a value stored using standard Java serialisation is detected and read as such, so a member can be
+ * switched to this serialiser without migrating existing data (values are written in this form when next updated).
+ * </p>
+ */
+public class CompactValueSerialiser implements ValueSerialiser
+{
+    private static final int MAGIC = 0xDC;
+
+    private static final int VERSION = 2;
+
+    private static final int FLAG_COMPRESSED = 0x01;
+
+    /** First byte of the standard Java serialisation stream header (ObjectStreamConstants.STREAM_MAGIC). */
+    private static final int JAVA_STREAM_MAGIC = 0xAC;
+
+    /** Whether to compress the serialised form. */
+    protected final boolean compress;
+
+    public CompactValueSerialiser()
+    {
+        this(false);
+    }
+
+    public CompactValueSerialiser(boolean compress)
+    {
+        this.compress = compress;
+    }
+
+    @Override
+    public void serialise(Object value, OutputStream out) throws IOException
+    {
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(compress ? FLAG_COMPRESSED : 0);
+        if (compress)
+        {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try
+            {
+                // Buffer the (many small) writes of the object stream so that the deflater is passed larger blocks
+                DeflaterOutputStream dos = new DeflaterOutputStream(out, deflater, 8192);
+                writeObject(value, new BufferedOutputStream(dos, 8192));
+                dos.finish();
+            }
+            finally
+            {
+                deflater.end();
+            }
+        }
+        else
+        {
+            writeObject(value, out);
+        }
+    }
+
+    @Override
+    public Object deserialise(InputStream in, ClassLoaderResolver clr) throws IOException, ClassNotFoundException
+    {
+        InputStream bis = new BufferedInputStream(in, 8192);
+        bis.mark(1);
+        int magic = bis.read();
+        if (magic == JAVA_STREAM_MAGIC)
+        {
+            // Stored using standard Java serialisation
+            bis.reset();
+            return new ResolvingObjectInputStream(bis, clr).readObject();
+        }
+        else if (magic != MAGIC)
+        {
+            throw new StreamCorruptedException("Serialised value has invalid header " + magic);
+        }
+
+        int version = bis.read();
+        if (version != VERSION)
+        {
+            throw new StreamCorruptedException("Serialised value has unsupported version " + version);
+        }
+        int flags = bis.read();
+        if ((flags & FLAG_COMPRESSED) != 0)
+        {
+            Inflater inflater = new Inflater();
+            try
+            {
+                return new ResolvingObjectInputStream(new BufferedInputStream(new InflaterInputStream(bis, inflater, 8192), 8192), clr).readObject();
+            }
+            finally
+            {
+                inflater.end();
+            }
+        }
+        return new ResolvingObjectInputStream(bis, clr).readObject();
+    }
+
+    private static void writeObject(Object value, OutputStream out) throws IOException
+    {
+        ObjectOutputStream oos = new ObjectOutputStream(out);
+        oos.writeObject(value);
+        oos.flush();
+    }
+
+    /**
+     * ObjectInputStream resolving the classes of the value using a ClassLoaderResolver.
+     */
+    private static class ResolvingObjectInputStream extends ObjectInputStream
+    {
+        /** ClassLoader resolver for the classes of the value, or null to use the default resolution. */
+        private final ClassLoaderResolver clr;
+
+        ResolvingObjectInputStream(InputStream in, ClassLoaderResolver clr) throws IOException
+        {
+            super(in);
+            this.clr = clr;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+        {
+            if (clr != null)
+            {
+                try
+                {
+                    return clr.classForName(desc.getName(), false);
+                }
+                catch (ClassNotResolvedException cnre)
+                {
+                    // Not resolvable (e.g array or primitive type) so use the default resolution
+                }
+            }
+            return super.resolveClass(desc);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.mapping.datastore;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+import org.datanucleus.ClassLoaderResolver;
+
+/**
+ * Serialiser using standard Java serialisation (ObjectOutputStream/ObjectInputStream).
+ * This is the default, and is the format of all serialised values stored by previous versions.
+ */
+public class JavaValueSerialiser implements ValueSerialiser
+{
+    public static final JavaValueSerialiser INSTANCE = new JavaValueSerialiser();
+
+    @Override
+    public void serialise(Object value, OutputStream out) throws IOException
+    {
+        ObjectOutputStream oos = new ObjectOutputStream(out);
+        oos.writeObject(value);
+        oos.flush();
+    }
+
+    @Override
+    public Object deserialise(InputStream in, ClassLoaderResolver clr) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream ois = new ObjectInputStream(in instanceof ByteArrayInputStream ? in : new BufferedInputStream(in));
+        return ois.readObject();
+    }
+}
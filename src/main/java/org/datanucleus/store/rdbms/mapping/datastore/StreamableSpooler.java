@@ -135,6 +135,15 @@ public class StreamableSpooler
         return spool;
     }
 
+    /**
+     * Accessor for the directory where spool files are created.
+     * @return The spool directory
+     */
+    public File getSpoolDirectory()
+    {
+        return spoolDirectory;
+    }
+
     public StreamableSpoolerGC getGCInstance()
     {
         return gcInstance;
@@ -147,10 +156,11 @@ public class StreamableSpooler
 
     public static void copyStream(InputStream is, OutputStream os, boolean close_src, boolean close_dest) throws IOException
     {
-        int b;
-        while ((b = is.read()) != -1)
+        byte[] buffer = new byte[8192];
+        int numRead;
+        while ((numRead = is.read(buffer)) != -1)
         {
-            os.write(b);
+            os.write(buffer, 0, numRead);
         }
         if (close_src)
         {
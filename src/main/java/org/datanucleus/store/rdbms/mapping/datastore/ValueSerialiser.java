@@ -0,0 +1,56 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.mapping.datastore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.datanucleus.ClassLoaderResolver;
+
+/**
+ * Serialiser for the value of a serialised member stored in a (large) binary column.
+ * The serialiser for a member is selected using the member extension "serialiser", taking the value
+ * <ul>
+ * <li><b>java</b> : Java serialisation (the default), see {@link JavaValueSerialiser}</li>
+ * <li><b>compact</b> : Java serialisation with a header, see {@link CompactValueSerialiser}</li>
+ * <li><b>compact-compressed</b> : Java serialisation with a header, with the output compressed</li>
+ * <li>the name of a class implementing this interface, having a default constructor</li>
+ * </ul>
+ * Implementations must be thread-safe since a single instance is used by the column mapping.
+ */
+public interface ValueSerialiser
+{
+    /**
+     * Method to serialise the value to the stream.
+     * @param value The value (not null)
+     * @param out The stream to write to
+     * @throws IOException if an error occurs serialising the value
+     */
+    void serialise(Object value, OutputStream out) throws IOException;
+
+    /**
+     * Method to deserialise a value from the stream.
+     * @param in The stream to read from
+     * @param clr ClassLoader resolver for the classes of the value (that of the ExecutionContext), or null when not known
+     * @return The value
+     * @throws IOException if an error occurs deserialising the value
+     * @throws ClassNotFoundException if a class of the serialised value cannot be found
+     */
+    Object deserialise(InputStream in, ClassLoaderResolver clr) throws IOException, ClassNotFoundException;
+}
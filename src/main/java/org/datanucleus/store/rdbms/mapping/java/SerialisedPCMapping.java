@@ -106,7 +106,7 @@ public class SerialisedPCMapping extends SerialisedMapping
      */
     public Object getObject(ExecutionContext ec, ResultSet resultSet, int[] exprIndex, ObjectProvider ownerOP, int fieldNumber)
     {
-        Object obj = getDatastoreMapping(0).getObject(resultSet, exprIndex[0]);
+        Object obj = getDatastoreObject(ec, resultSet, exprIndex[0]);
         if (obj != null)
         {
             // Assign a StateManager to the serialised object if none present
@@ -120,7 +120,7 @@ public class SerialisedReferenceMapping extends SerialisedMapping
      */
     public Object getObject(ExecutionContext ec, ResultSet resultSet, int[] exprIndex, ObjectProvider ownerOP, int fieldNumber)
     {
-        Object obj = getDatastoreMapping(0).getObject(resultSet, exprIndex[0]);
+        Object obj = getDatastoreObject(ec, resultSet, exprIndex[0]);
         ApiAdapter api = ec.getApiAdapter();
         if (api.isPersistable(obj))
         {
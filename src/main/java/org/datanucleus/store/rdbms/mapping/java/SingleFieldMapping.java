@@ -28,6 +28,8 @@ import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.ExecutionContext;
 import org.datanucleus.metadata.AbstractMemberMetaData;
 import org.datanucleus.store.rdbms.mapping.MappingManager;
+import org.datanucleus.store.rdbms.mapping.datastore.AbstractLargeBinaryRDBMSMapping;
+import org.datanucleus.store.rdbms.mapping.datastore.DatastoreMapping;
 import org.datanucleus.store.rdbms.table.Column;
 import org.datanucleus.store.rdbms.table.Table;
 
@@ -196,6 +198,24 @@ public abstract class SingleFieldMapping extends JavaTypeMapping
         {
             return null;
         }
-        return getDatastoreMapping(0).getObject(resultSet, exprIndex[0]);
+        return getDatastoreObject(ec, resultSet, exprIndex[0]);
+    }
+
+    /**
+     * Convenience method to return the value of the (single) datastore mapping from the ResultSet.
+     * A serialised value in a large binary column is deserialised using the ClassLoaderResolver of the ExecutionContext.
+     * @param ec ExecutionContext
+     * @param resultSet The ResultSet
+     * @param exprIndex The position in the ResultSet
+     * @return The value
+     */
+    protected Object getDatastoreObject(ExecutionContext ec, ResultSet resultSet, int exprIndex)
+    {
+        DatastoreMapping datastoreMapping = getDatastoreMapping(0);
+        if (ec != null && datastoreMapping instanceof AbstractLargeBinaryRDBMSMapping)
+        {
+            return ((AbstractLargeBinaryRDBMSMapping)datastoreMapping).getObject(resultSet, exprIndex, ec.getClassLoaderResolver());
+        }
+        return datastoreMapping.getObject(resultSet, exprIndex);
     }
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ import java.sql.Statement;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.datanucleus.ExecutionContext;
 import org.datanucleus.exceptions.NucleusDataStoreException;
@@ -63,6 +64,12 @@ public abstract class AbstractRDBMSQueryResult<E> extends AbstractQueryResult<E>
 
     boolean applyRangeChecks = false;
 
+    /**
+     * Lock for access to the results. Used in preference to synchronizing on this object since reading the results
+     * involves JDBC calls, and a monitor held during these would pin a virtual thread to its carrier thread.
+     */
+    protected final ReentrantLock resultsLock = new ReentrantLock();
+
     /**
      * Constructor of the result from a Query.
      * @param query The Query
@@ -256,11 +263,19 @@ public abstract class AbstractRDBMSQueryResult<E> extends AbstractQueryResult<E>
     /**
      * Method to close the results, meaning that they are inaccessible after this point.
      */
-    public synchronized void close()
+    public void close()
     {
-        super.close();
-        rof = null;
-        rs = null;
+        resultsLock.lock();
+        try
+        {
+            super.close();
+            rof = null;
+            rs = null;
+        }
+        finally
+        {
+            resultsLock.unlock();
+        }
     }
 
     /**
@@ -0,0 +1,312 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.query;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.PropertyNames;
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.connection.ManagedConnection;
+import org.datanucleus.store.query.Query;
+import org.datanucleus.store.query.QueryResult;
+import org.datanucleus.store.rdbms.RDBMSPropertyNames;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.StoreComponent;
+import org.datanucleus.transaction.TransactionUtils;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Executor for running queries asynchronously, returning a CompletableFuture for the result of each query.
+ * Queries are executed on a bounded pool of daemon threads, with the number of threads defined by the persistence property
+ * "datanucleus.rdbms.query.asyncThreads". If "datanucleus.rdbms.query.asyncVirtualThreads" is set and the JVM supports
+ * virtual threads then these are used for the pool, otherwise platform threads. Queries waiting for a thread are queued, up to
+ * the number defined by "datanucleus.rdbms.query.asyncQueueSize"; when the queue is full the query is rejected with a
+ * NucleusUserException rather than queueing without limit.
+ * <p>
+ * Cancelling the returned future (whether or not "mayInterruptIfRunning") cancels the query, so any JDBC statement being
+ * executed for it is cancelled via <i>PreparedStatement.cancel()</i>.
+ * </p>
+ * <p>
+ * Each query is executed using its own ManagedConnection, not enlisted in the transaction of its ExecutionContext, so several
+ * queries of the same ExecutionContext can execute concurrently without sharing a JDBC connection (and so see committed data only).
+ * The results are read in before the connection is closed, so the result of the future doesn't hold a connection.
+ * As a result each thread of the pool holds a connection while executing a query, so the number of threads should allow for
+ * the size of the connection pool.
+ * </p>
+ * <p>
+ * The query is executed using its ExecutionContext (creating the objects of the results in its L1 cache) concurrently with the
+ * caller, so the ExecutionContext has to be multithreaded ("datanucleus.Multithreaded"). Since the query would not see the
+ * changes of a transaction, a query can't be executed asynchronously while the transaction of its ExecutionContext is active.
+ * </p>
+ */
+public class AsyncQueryExecutor implements StoreComponent
+{
+    protected final RDBMSStoreManager storeMgr;
+
+    /** The pool of threads, created when first required. */
+    private ThreadPoolExecutor executor = null;
+
+    /** Whether this executor has been closed, so no more queries are accepted. */
+    private boolean closed = false;
+
+    /** The connection of the query being executed by each thread of the pool. */
+    private final ThreadLocal<ManagedConnection> queryConnection = new ThreadLocal<>();
+
+    public AsyncQueryExecutor(RDBMSStoreManager storeMgr)
+    {
+        this.storeMgr = storeMgr;
+    }
+
+    /**
+     * Method to shut down the threads of this executor. Any queries not yet started are not executed.
+     */
+    public synchronized void close()
+    {
+        closed = true;
+        if (executor != null)
+        {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Accessor for the connection to use for a query being executed asynchronously by the current thread.
+     * @return The connection, or null if the current thread is not executing a query for this executor
+     */
+    public ManagedConnection getConnectionForCurrentThread()
+    {
+        return queryConnection.get();
+    }
+
+    /**
+     * Method to execute the query asynchronously.
+     * @param query The query
+     * @param parameters Map of parameter values keyed by the parameter name or position (or null if no parameters)
+     * @return Future for the result of the query, as would be returned by <i>query.executeWithMap(parameters)</i>
+     * @throws NucleusUserException if the ExecutionContext of the query is not multithreaded, or its transaction is active
+     */
+    public CompletableFuture<Object> execute(final Query query, Map parameters)
+    {
+        ExecutionContext ec = query.getExecutionContext();
+        if (!ec.getMultithreaded())
+        {
+            throw new NucleusUserException(Localiser.msg("052533"));
+        }
+        if (ec.getTransaction().isActive())
+        {
+            throw new NucleusUserException(Localiser.msg("052534"));
+        }
+
+        final Map params = (parameters != null) ? parameters : Collections.EMPTY_MAP;
+        final QueryFuture future = new QueryFuture(query);
+        ThreadPoolExecutor queryExecutor = getExecutor();
+        try
+        {
+            queryExecutor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    if (!future.start())
+                    {
+                        // Cancelled before starting
+                        return;
+                    }
+
+                    Object result = null;
+                    Throwable failure = null;
+                    ManagedConnection mconn = null;
+                    try
+                    {
+                        // Use a connection of our own, not enlisted in the transaction of the ExecutionContext
+                        mconn = storeMgr.getConnectionManager().getConnection(
+                            TransactionUtils.getTransactionIsolationLevelForName(storeMgr.getStringProperty(PropertyNames.PROPERTY_TRANSACTION_ISOLATION)));
+                        mconn.setCloseOnRelease(false);
+                        queryConnection.set(mconn);
+
+                        result = query.executeWithMap(params);
+                        if (result instanceof QueryResult)
+                        {
+                            // Read in the results while we have the connection
+                            ((QueryResult)result).disconnect();
+                        }
+                    }
+                    catch (Throwable thr)
+                    {
+                        failure = thr;
+                    }
+                    finally
+                    {
+                        queryConnection.remove();
+                        if (mconn != null)
+                        {
+                            try
+                            {
+                                mconn.close();
+                            }
+                            catch (RuntimeException re)
+                            {
+                                if (failure == null)
+                                {
+                                    failure = re;
+                                }
+                            }
+                        }
+                        future.finish();
+                    }
+
+                    if (failure != null)
+                    {
+                        future.completeExceptionally(failure);
+                    }
+                    else
+                    {
+                        future.complete(result);
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException ree)
+        {
+            if (queryExecutor.isShutdown())
+            {
+                throw new NucleusUserException(Localiser.msg("052522"), ree);
+            }
+            throw new NucleusUserException(Localiser.msg("052523", "" + queryExecutor.getQueue().size()), ree);
+        }
+        return future;
+    }
+
+    private synchronized ThreadPoolExecutor getExecutor()
+    {
+        if (closed)
+        {
+            throw new NucleusUserException(Localiser.msg("052522"));
+        }
+        if (executor == null)
+        {
+            int numThreads = Math.max(1, storeMgr.getIntProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_ASYNC_THREADS));
+            int queueSize = Math.max(1, storeMgr.getIntProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_ASYNC_QUEUE_SIZE));
+            ThreadFactory threadFactory = null;
+            if (storeMgr.getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_ASYNC_VIRTUAL_THREADS))
+            {
+                threadFactory = getVirtualThreadFactory();
+            }
+            if (threadFactory == null)
+            {
+                threadFactory = new ThreadFactory()
+                {
+                    final AtomicInteger threadNumber = new AtomicInteger();
+                    public Thread newThread(Runnable r)
+                    {
+                        Thread thread = new Thread(r, "DataNucleus-AsyncQuery-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                };
+            }
+            // Bounded queue, rejecting queries when full. Idle threads are not retained
+            executor = new ThreadPoolExecutor(numThreads, numThreads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueSize),
+                threadFactory, new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            if (NucleusLogger.QUERY.isDebugEnabled())
+            {
+                NucleusLogger.QUERY.debug(Localiser.msg("052536", numThreads, queueSize));
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Convenience method to return a factory for virtual threads, if supported by this JVM.
+     * Uses reflection since virtual threads are not available in the JDK this is compiled against.
+     * @return The thread factory, or null if not supported
+     */
+    private static ThreadFactory getVirtualThreadFactory()
+    {
+        try
+        {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = Class.forName("java.lang.Thread$Builder").getMethod("name", String.class, long.class).invoke(builder, "DataNucleus-AsyncQuery-", 1L);
+            return (ThreadFactory)Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        }
+        catch (Exception e)
+        {
+            NucleusLogger.QUERY.info(Localiser.msg("052537"));
+            return null;
+        }
+    }
+
+    /**
+     * Future for the result of a query, which cancels the query when cancelled.
+     */
+    static class QueryFuture extends CompletableFuture<Object>
+    {
+        final Query query;
+
+        /** The thread executing the query, while it is being executed. */
+        Thread thread = null;
+
+        boolean finished = false;
+
+        QueryFuture(Query query)
+        {
+            this.query = query;
+        }
+
+        synchronized boolean start()
+        {
+            if (isDone())
+            {
+                return false;
+            }
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        synchronized void finish()
+        {
+            thread = null;
+            finished = true;
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning)
+        {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            synchronized (this)
+            {
+                if (cancelled && thread != null && !finished)
+                {
+                    // Cancel the statement being executed for this query
+                    query.cancel(thread);
+                }
+            }
+            return cancelled;
+        }
+    }
+}
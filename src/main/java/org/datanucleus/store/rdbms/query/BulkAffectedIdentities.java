@@ -0,0 +1,427 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.query;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.cache.Level2Cache;
+import org.datanucleus.identity.IdentityUtils;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.metadata.IdentityType;
+import org.datanucleus.store.connection.ManagedConnection;
+import org.datanucleus.store.query.Query;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.SQLController;
+import org.datanucleus.store.rdbms.adapter.DatastoreAdapter;
+import org.datanucleus.store.rdbms.fieldmanager.ResultSetGetter;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.mapping.java.PersistableMapping;
+import org.datanucleus.store.rdbms.sql.DeleteStatement;
+import org.datanucleus.store.rdbms.sql.SQLStatement;
+import org.datanucleus.store.rdbms.sql.SQLStatementHelper;
+import org.datanucleus.store.rdbms.sql.SQLTable;
+import org.datanucleus.store.rdbms.sql.SQLText;
+import org.datanucleus.store.rdbms.sql.UpdateStatement;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.rdbms.table.Table;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Collector of the identities of the objects affected by a bulk UPDATE/DELETE query, so that only those objects need
+ * evicting from the L1/L2 caches (rather than all objects of the candidate type). Identities are collected for each statement
+ * of the bulk operation that updates/deletes rows of a table of the candidate (or a subclass); statements of other tables
+ * (e.g join tables) don't affect the objects themselves.
+ * The primary key columns of the affected rows are obtained either by adding a RETURNING clause to the statement
+ * (where the datastore supports it, and the statement doesn't update a primary key column, since RETURNING gives the updated
+ * values), or by a SELECT, with the same WHERE clause, before the statement is executed. The SELECT
+ * locks the rows (e.g "FOR UPDATE") so that no other transaction can change which rows are affected before the statement is
+ * executed, so is only used within a transaction and where the datastore supports locking with a SELECT.
+ */
+public class BulkAffectedIdentities
+{
+    private final ExecutionContext ec;
+
+    private final AbstractClassMetaData cmd;
+
+    /** Identities of the rows affected by each statement, or null for a statement that doesn't affect objects. */
+    private final StatementIdentities[] stmtIdentities;
+
+    /** Types that identities are generated for (the candidate, plus any subclasses). */
+    private final List<Class> idClasses = new ArrayList<>();
+
+    private final Set<Object> ids = new HashSet<>();
+
+    /**
+     * Method to return a collector for the specified bulk UPDATE/DELETE statements.
+     * @param ec ExecutionContext
+     * @param stmts The statements of the bulk operation (in order of execution)
+     * @param cmd Metadata for the candidate
+     * @param subclasses Whether subclasses of the candidate are included
+     * @return The collector, or null if not supported for these statements/candidate
+     */
+    public static BulkAffectedIdentities getInstance(ExecutionContext ec, List<SQLStatement> stmts, AbstractClassMetaData cmd, boolean subclasses)
+    {
+        if (cmd.getIdentityType() != IdentityType.DATASTORE && cmd.getIdentityType() != IdentityType.APPLICATION)
+        {
+            return null;
+        }
+
+        DatastoreAdapter dba = ((RDBMSStoreManager)ec.getStoreManager()).getDatastoreAdapter();
+        boolean supportsReturning = dba.supportsOption(DatastoreAdapter.UPDATE_DELETE_STATEMENT_RETURNING);
+        boolean supportsSelect = ec.getTransaction().isActive() &&
+            (dba.supportsOption(DatastoreAdapter.LOCK_WITH_SELECT_FOR_UPDATE) || dba.supportsOption(DatastoreAdapter.LOCK_OPTION_PLACED_AFTER_FROM));
+        if (!supportsReturning && !supportsSelect)
+        {
+            // Rows can't be locked between the SELECT and the statement, so another transaction could change which rows are affected
+            return null;
+        }
+
+        StatementIdentities[] stmtIdentities = new StatementIdentities[stmts.size()];
+        boolean affectsObjects = false;
+        for (int i=0;i<stmts.size();i++)
+        {
+            SQLStatement stmt = stmts.get(i);
+            if (!(stmt instanceof UpdateStatement) && !(stmt instanceof DeleteStatement))
+            {
+                return null;
+            }
+
+            Table table = stmt.getPrimaryTable().getTable();
+            if (!(table instanceof DatastoreClass))
+            {
+                // Statement of a join table etc, so no objects affected
+                continue;
+            }
+            DatastoreClass dc = (DatastoreClass)table;
+            if (cmd.getIdentityType() == IdentityType.DATASTORE)
+            {
+                if (dc.getIdMapping() == null || dc.getIdMapping().getNumberOfDatastoreMappings() == 0)
+                {
+                    return null;
+                }
+            }
+            else
+            {
+                int[] pkMemberNumbers = cmd.getPKMemberPositions();
+                if (pkMemberNumbers == null || pkMemberNumbers.length == 0)
+                {
+                    return null;
+                }
+                for (int j=0;j<pkMemberNumbers.length;j++)
+                {
+                    AbstractMemberMetaData pkMmd = cmd.getMetaDataForManagedMemberAtAbsolutePosition(pkMemberNumbers[j]);
+                    JavaTypeMapping pkMapping = dc.getMemberMapping(pkMmd);
+                    if (pkMapping == null || pkMapping instanceof PersistableMapping || pkMapping.getNumberOfDatastoreMappings() == 0)
+                    {
+                        // Identity including a relation, so would need to find the related object for each row
+                        return null;
+                    }
+                }
+            }
+
+            // RETURNING gives the values after the UPDATE, so can't be used when the primary key is updated
+            boolean useReturning = supportsReturning && !(stmt instanceof UpdateStatement && ((UpdateStatement)stmt).updatesPrimaryKey());
+            if (!useReturning && !supportsSelect)
+            {
+                return null;
+            }
+            stmtIdentities[i] = new StatementIdentities(stmt, dc, cmd, useReturning);
+            affectsObjects = true;
+        }
+        if (!affectsObjects)
+        {
+            return null;
+        }
+
+        return new BulkAffectedIdentities(ec, cmd, subclasses, stmtIdentities);
+    }
+
+    private BulkAffectedIdentities(ExecutionContext ec, AbstractClassMetaData cmd, boolean subclasses, StatementIdentities[] stmtIdentities)
+    {
+        this.ec = ec;
+        this.cmd = cmd;
+        this.stmtIdentities = stmtIdentities;
+
+        // Generate the identities for all types that the candidate can be, since the identity can be type-specific
+        ClassLoaderResolver clr = ec.getClassLoaderResolver();
+        idClasses.add(clr.classForName(cmd.getFullClassName()));
+        if (subclasses)
+        {
+            RDBMSStoreManager storeMgr = (RDBMSStoreManager)ec.getStoreManager();
+            for (String subclassName : storeMgr.getSubClassesForClass(cmd.getFullClassName(), true, clr))
+            {
+                idClasses.add(clr.classForName(subclassName));
+            }
+        }
+    }
+
+    /**
+     * Accessor for whether the identities for the specified statement are returned by the statement itself (using RETURNING),
+     * rather than by a locking SELECT before the statement.
+     * @param stmtNumber Number of the statement (0-based, in order of execution)
+     * @return Whether to execute the statement using executeWithReturning
+     */
+    public boolean useReturning(int stmtNumber)
+    {
+        return stmtIdentities[stmtNumber] != null && stmtIdentities[stmtNumber].useReturning;
+    }
+
+    /**
+     * Accessor for whether the specified statement of the bulk operation affects objects, so needs its identities collecting.
+     * @param stmtNumber Number of the statement (0-based, in order of execution)
+     * @return Whether the statement affects objects
+     */
+    public boolean affectsObjects(int stmtNumber)
+    {
+        return stmtIdentities[stmtNumber] != null;
+    }
+
+    /**
+     * Method to execute a statement, with a RETURNING clause for the primary key columns, collecting the identities.
+     * @param stmtNumber Number of the statement (0-based, in order of execution)
+     * @param mconn The connection
+     * @param sqlControl SQL controller
+     * @param sql SQL of the statement
+     * @param query The query
+     * @param stmtParams Parameters of the statement
+     * @param paramNameByPosition Parameter names keyed by position (if positional parameters)
+     * @param paramValues Parameter values keyed by name
+     * @return The number of rows affected
+     * @throws SQLException if an error occurs
+     */
+    public int executeWithReturning(int stmtNumber, ManagedConnection mconn, SQLController sqlControl, String sql, Query query,
+            List stmtParams, Map<Integer, String> paramNameByPosition, Map paramValues)
+    throws SQLException
+    {
+        StatementIdentities stmtIds = stmtIdentities[stmtNumber];
+        String returningSQL = sql + " RETURNING " + stmtIds.idColumnsSQL;
+        PreparedStatement ps = sqlControl.getStatementForQuery(mconn, returningSQL);
+        try
+        {
+            SQLStatementHelper.applyParametersToStatement(ps, ec, stmtParams, paramNameByPosition, paramValues);
+            RDBMSQueryUtils.prepareStatementForExecution(ps, query, false);
+            ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, returningSQL, ps);
+            try
+            {
+                return readIdentities(stmtIds, rs);
+            }
+            finally
+            {
+                rs.close();
+            }
+        }
+        finally
+        {
+            sqlControl.closeStatement(mconn, ps);
+        }
+    }
+
+    /**
+     * Method to SELECT, and lock, the primary key columns of the rows that a statement will affect, collecting the identities.
+     * To be called before executing the statement, in the same transaction.
+     * @param stmtNumber Number of the statement (0-based, in order of execution)
+     * @param mconn The connection
+     * @param sqlControl SQL controller
+     * @param query The query
+     * @param paramNameByPosition Parameter names keyed by position (if positional parameters)
+     * @param paramValues Parameter values keyed by name
+     * @throws SQLException if an error occurs
+     */
+    public void selectAffectedIdentities(int stmtNumber, ManagedConnection mconn, SQLController sqlControl, Query query,
+            Map<Integer, String> paramNameByPosition, Map paramValues)
+    throws SQLException
+    {
+        StatementIdentities stmtIds = stmtIdentities[stmtNumber];
+        SQLText selectText = (stmtIds.stmt instanceof UpdateStatement) ?
+                ((UpdateStatement)stmtIds.stmt).getSelectAffectedRowsSQLText(stmtIds.idColumnsSQL, true) :
+                ((DeleteStatement)stmtIds.stmt).getSelectAffectedRowsSQLText(stmtIds.idColumnsSQL, true);
+        String selectSQL = selectText.toSQL();
+        PreparedStatement ps = sqlControl.getStatementForQuery(mconn, selectSQL);
+        try
+        {
+            SQLStatementHelper.applyParametersToStatement(ps, ec, selectText.getParametersForStatement(), paramNameByPosition, paramValues);
+            RDBMSQueryUtils.prepareStatementForExecution(ps, query, false);
+            ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, selectSQL, ps);
+            try
+            {
+                readIdentities(stmtIds, rs);
+            }
+            finally
+            {
+                rs.close();
+            }
+        }
+        finally
+        {
+            sqlControl.closeStatement(mconn, ps);
+        }
+    }
+
+    private int readIdentities(StatementIdentities stmtIds, ResultSet rs)
+    throws SQLException
+    {
+        int numRows = 0;
+        ResultSetGetter rsGetter = (stmtIds.pkResultMapping != null) ? new ResultSetGetter(ec, rs, stmtIds.pkResultMapping, cmd) : null;
+        while (rs.next())
+        {
+            numRows++;
+            if (stmtIds.datastoreIdMapping != null)
+            {
+                Object id = stmtIds.datastoreIdMapping.getObject(ec, rs, getPositions(stmtIds.datastoreIdMapping.getNumberOfDatastoreMappings()));
+                if (id != null)
+                {
+                    Object key = IdentityUtils.getTargetKeyForDatastoreIdentity(id);
+                    for (Class idClass : idClasses)
+                    {
+                        ids.add(ec.getNucleusContext().getIdentityManager().getDatastoreId(idClass.getName(), key));
+                    }
+                }
+            }
+            else
+            {
+                for (Class idClass : idClasses)
+                {
+                    ids.add(IdentityUtils.getApplicationIdentityForResultSetRow(ec, cmd, idClass, false, rsGetter));
+                }
+            }
+        }
+        return numRows;
+    }
+
+    private static int[] getPositions(int numColumns)
+    {
+        int[] positions = new int[numColumns];
+        for (int i=0;i<numColumns;i++)
+        {
+            positions[i] = i+1;
+        }
+        return positions;
+    }
+
+    /**
+     * Method to evict the affected objects from the L2 cache, and make any affected objects in the L1 cache hollow
+     * so that they are reloaded when next accessed.
+     */
+    public void evictAffectedObjects()
+    {
+        if (NucleusLogger.QUERY.isDebugEnabled())
+        {
+            NucleusLogger.QUERY.debug("Bulk operation affected " + (ids.size() / idClasses.size()) + " objects of type " + cmd.getFullClassName() +
+                " so evicting these from the caches");
+        }
+
+        Level2Cache l2Cache = ec.getNucleusContext().getLevel2Cache();
+        for (Object id : ids)
+        {
+            try
+            {
+                l2Cache.evict(id);
+            }
+            catch (UnsupportedOperationException uoe)
+            {
+                // Do nothing
+            }
+
+            Object pc = ec.getObjectFromCache(id);
+            if (pc != null)
+            {
+                ec.evictObject(pc);
+            }
+        }
+    }
+
+    /**
+     * The columns and mappings for the identities of the rows affected by a statement of the bulk operation.
+     */
+    private static class StatementIdentities
+    {
+        final SQLStatement stmt;
+
+        /** Whether the identities are returned by the statement (using RETURNING), otherwise by a SELECT before it. */
+        final boolean useReturning;
+
+        /** SQL of the primary key columns of the primary table of the statement (e.g "A0.ID"). */
+        final String idColumnsSQL;
+
+        /** Mapping for the datastore identity (when using datastore identity). */
+        final JavaTypeMapping datastoreIdMapping;
+
+        /** Mapping of the primary key members to the result columns (when using application identity). */
+        final StatementClassMapping pkResultMapping;
+
+        StatementIdentities(SQLStatement stmt, DatastoreClass table, AbstractClassMetaData cmd, boolean useReturning)
+        {
+            this.stmt = stmt;
+            this.useReturning = useReturning;
+
+            SQLTable sqlTbl = stmt.getPrimaryTable();
+            String tableRef = (sqlTbl.getAlias() != null ? sqlTbl.getAlias().toString() : sqlTbl.getTable().toString());
+            StringBuilder colsStr = new StringBuilder();
+            if (cmd.getIdentityType() == IdentityType.DATASTORE)
+            {
+                datastoreIdMapping = table.getIdMapping();
+                pkResultMapping = null;
+                appendColumns(colsStr, tableRef, datastoreIdMapping);
+            }
+            else
+            {
+                datastoreIdMapping = null;
+                pkResultMapping = new StatementClassMapping();
+                int position = 1;
+                int[] pkMemberNumbers = cmd.getPKMemberPositions();
+                for (int i=0;i<pkMemberNumbers.length;i++)
+                {
+                    AbstractMemberMetaData pkMmd = cmd.getMetaDataForManagedMemberAtAbsolutePosition(pkMemberNumbers[i]);
+                    JavaTypeMapping pkMapping = table.getMemberMapping(pkMmd);
+                    int[] positions = new int[pkMapping.getNumberOfDatastoreMappings()];
+                    for (int j=0;j<positions.length;j++)
+                    {
+                        positions[j] = position++;
+                    }
+                    StatementMappingIndex pkIdx = new StatementMappingIndex(pkMapping);
+                    pkIdx.setColumnPositions(positions);
+                    pkResultMapping.addMappingForMember(pkMemberNumbers[i], pkIdx);
+                    appendColumns(colsStr, tableRef, pkMapping);
+                }
+            }
+            this.idColumnsSQL = colsStr.toString();
+        }
+
+        private static void appendColumns(StringBuilder str, String tableRef, JavaTypeMapping mapping)
+        {
+            for (int i=0;i<mapping.getNumberOfDatastoreMappings();i++)
+            {
+                if (str.length() > 0)
+                {
+                    str.append(',');
+                }
+                str.append(tableRef).append('.').append(mapping.getDatastoreMapping(i).getColumn().getIdentifier().toString());
+            }
+        }
+    }
+}
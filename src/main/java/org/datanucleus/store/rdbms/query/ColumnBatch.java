@@ -0,0 +1,210 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.query;
+
+import java.util.BitSet;
+
+import org.datanucleus.util.Localiser;
+
+/**
+ * Batch of rows of a query result, held by column. Each column is held in an array of its type :
+ * <ul>
+ * <li><b>INT</b> : int[] (for integer, short and byte values)</li>
+ * <li><b>LONG</b> : long[]</li>
+ * <li><b>DOUBLE</b> : double[] (for double and float values)</li>
+ * <li><b>STRING</b> : int[] of codes into a dictionary of the distinct values of the column in this batch</li>
+ * <li><b>OBJECT</b> : Object[] (for any other type)</li>
+ * </ul>
+ * Null values are recorded separately (see {@link #isNull(int, int)}), with the array having 0 (or code -1) for that row.
+ * The arrays may be longer than the number of rows in the batch (and the dictionaries longer than their number of values).
+ * The arrays are reused by the {@link ColumnarQueryResult} for the batch after next, so the values of a batch must be consumed
+ * (or copied) before the batch after next is read.
+ */
+public class ColumnBatch
+{
+    /** Type of a column, defining the array holding its values. */
+    public enum ColumnType
+    {
+        INT,
+        LONG,
+        DOUBLE,
+        STRING,
+        OBJECT
+    }
+
+    private final String[] columnNames;
+
+    private final ColumnType[] columnTypes;
+
+    /** Values of each column, as int[], long[], double[], int[] (codes) or Object[] depending on the type. */
+    private final Object[] columnValues;
+
+    /** Dictionary for each STRING column, otherwise null. */
+    private final String[][] dictionaries;
+
+    /** Number of values in the dictionary of each STRING column. */
+    private final int[] dictionarySizes;
+
+    /** Rows with null values, for each column. */
+    private final BitSet[] nulls;
+
+    private final int numberOfRows;
+
+    ColumnBatch(String[] columnNames, ColumnType[] columnTypes, Object[] columnValues, String[][] dictionaries, int[] dictionarySizes,
+        BitSet[] nulls, int numberOfRows)
+    {
+        this.columnNames = columnNames;
+        this.columnTypes = columnTypes;
+        this.columnValues = columnValues;
+        this.dictionaries = dictionaries;
+        this.dictionarySizes = dictionarySizes;
+        this.nulls = nulls;
+        this.numberOfRows = numberOfRows;
+    }
+
+    public int getNumberOfRows()
+    {
+        return numberOfRows;
+    }
+
+    public int getNumberOfColumns()
+    {
+        return columnTypes.length;
+    }
+
+    /**
+     * Accessor for the name of a column, being the result alias or the name of the ResultSet column.
+     * @param col The column (0-based)
+     * @return The name (or null if not known)
+     */
+    public String getColumnName(int col)
+    {
+        return columnNames[col];
+    }
+
+    public ColumnType getColumnType(int col)
+    {
+        return columnTypes[col];
+    }
+
+    /**
+     * Accessor for whether the value of the column for the row is null.
+     * @param col The column (0-based)
+     * @param row The row (0-based)
+     * @return Whether the value is null
+     */
+    public boolean isNull(int col, int row)
+    {
+        return nulls[col].get(row);
+    }
+
+    public int[] getIntColumn(int col)
+    {
+        assertColumnType(col, ColumnType.INT);
+        return (int[])columnValues[col];
+    }
+
+    public long[] getLongColumn(int col)
+    {
+        assertColumnType(col, ColumnType.LONG);
+        return (long[])columnValues[col];
+    }
+
+    public double[] getDoubleColumn(int col)
+    {
+        assertColumnType(col, ColumnType.DOUBLE);
+        return (double[])columnValues[col];
+    }
+
+    /**
+     * Accessor for the codes of a STRING column, being the position of the value of each row in the dictionary.
+     * @param col The column (0-based)
+     * @return The codes
+     */
+    public int[] getStringCodes(int col)
+    {
+        assertColumnType(col, ColumnType.STRING);
+        return (int[])columnValues[col];
+    }
+
+    /**
+     * Accessor for the dictionary of a STRING column, being the distinct values of the column in this batch.
+     * The array may be longer than the number of values (see {@link #getStringDictionarySize(int)}).
+     * @param col The column (0-based)
+     * @return The dictionary
+     */
+    public String[] getStringDictionary(int col)
+    {
+        assertColumnType(col, ColumnType.STRING);
+        return dictionaries[col];
+    }
+
+    /**
+     * Accessor for the number of values in the dictionary of a STRING column.
+     * @param col The column (0-based)
+     * @return The number of distinct values
+     */
+    public int getStringDictionarySize(int col)
+    {
+        assertColumnType(col, ColumnType.STRING);
+        return dictionarySizes[col];
+    }
+
+    /**
+     * Convenience accessor for the value of a STRING column for a row.
+     * @param col The column (0-based)
+     * @param row The row (0-based)
+     * @return The value (or null)
+     */
+    public String getString(int col, int row)
+    {
+        int code = getStringCodes(col)[row];
+        return (code < 0) ? null : dictionaries[col][code];
+    }
+
+    public Object[] getObjectColumn(int col)
+    {
+        assertColumnType(col, ColumnType.OBJECT);
+        return (Object[])columnValues[col];
+    }
+
+    private void assertColumnType(int col, ColumnType type)
+    {
+        if (columnTypes[col] != type)
+        {
+            throw new IllegalArgumentException(Localiser.msg("052525", "" + col, columnTypes[col], type));
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    public String toString()
+    {
+        StringBuilder str = new StringBuilder("ColumnBatch(rows=" + numberOfRows + " columns=[");
+        for (int i=0;i<columnTypes.length;i++)
+        {
+            if (i > 0)
+            {
+                str.append(",");
+            }
+            str.append(columnNames[i]).append(" ").append(columnTypes[i]);
+        }
+        return str.append("])").toString();
+    }
+}
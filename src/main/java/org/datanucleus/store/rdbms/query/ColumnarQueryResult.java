@@ -0,0 +1,635 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.query;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.connection.ManagedConnection;
+import org.datanucleus.store.connection.ManagedConnectionResourceListener;
+import org.datanucleus.store.query.Query;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.mapping.java.SingleFieldMapping;
+import org.datanucleus.store.rdbms.mapping.java.TypeConverterMapping;
+import org.datanucleus.store.rdbms.query.ColumnBatch.ColumnType;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Result of a query read by column, in batches. Each batch holds up to the batch size of rows, with the values of each
+ * column read straight from the ResultSet into an array of its type (see {@link ColumnBatch}), so numeric values are not
+ * boxed and there is no Object[] per row.
+ * <p>
+ * Supports JDOQL/JPQL SELECT queries with a result clause of (single-column) basic fields, where the column types come
+ * from the mappings of the result expressions, and SQL SELECT queries, where the column types come from the
+ * ResultSetMetaData. Values of any other type are read as OBJECT columns.
+ * </p>
+ * <p>
+ * The query is executed as normal, creating this result from its ResultSet instead of the usual QueryResult, so flushes any
+ * changes before executing (unless ignoring the cache), can be cancelled, and applies its range.
+ * The query holds its connection until the result is exhausted or closed, so should be used in a try-with-resources.
+ * The result is also closed when the transaction ends, or the connection is closed outside of a transaction.
+ * The arrays of the batches are reused, so the values of a batch must be consumed before reading the batch after next.
+ * Obtain it using {@link RDBMSQueryUtils#executeColumnar(Query, Map, int)}.
+ * </p>
+ */
+public class ColumnarQueryResult implements Iterator<ColumnBatch>, AutoCloseable
+{
+    private final ExecutionContext ec;
+
+    private final int batchSize;
+
+    private ManagedConnection mconn;
+
+    /** Listener for the connection closing, so we can close the ResultSet. */
+    private ManagedConnectionResourceListener mconnListener;
+
+    private PreparedStatement ps;
+
+    private ResultSet rs;
+
+    private String[] columnNames;
+
+    private ColumnType[] columnTypes;
+
+    /** Position in the ResultSet of each column. */
+    private int[] columnPositions;
+
+    /** Mapping and positions for each OBJECT column of a JDOQL/JPQL query, otherwise null. */
+    private StatementMappingIndex[] objectMappings;
+
+    /** The next batch, when read by hasNext() and not yet returned. */
+    private ColumnBatch nextBatch = null;
+
+    /** Buffers for the values of the batches, used alternately. */
+    private final BatchBuffer[] buffers = new BatchBuffer[2];
+
+    /** The buffer to use for the next batch read. */
+    private int nextBuffer = 0;
+
+    /** Number of rows still to be read to the end of the range of the query. */
+    private long remainingRows = Long.MAX_VALUE;
+
+    private boolean closed = false;
+
+    /**
+     * Constructor for the result of a query that has been executed, taking over its statement and ResultSet.
+     * @param query The query
+     * @param conn Connection of the statement, with a use of it that is released when this result is closed
+     * @param ps The statement
+     * @param rs ResultSet of the statement
+     * @param resultDefinition Definition of the result expressions of a JDOQL/JPQL query (null for an SQL query)
+     * @param batchSize Maximum number of rows in each batch
+     */
+    private ColumnarQueryResult(Query query, ManagedConnection conn, PreparedStatement ps, ResultSet rs, StatementResultMapping resultDefinition,
+            int batchSize)
+    {
+        this.ec = query.getExecutionContext();
+        this.batchSize = Math.max(1, batchSize);
+        this.mconn = conn;
+        this.ps = ps;
+        this.rs = rs;
+        try
+        {
+            if (resultDefinition != null)
+            {
+                defineColumnsForResultDefinition(resultDefinition);
+            }
+            else if (query instanceof SQLQuery)
+            {
+                defineColumnsForResultSet(rs.getMetaData());
+            }
+            else
+            {
+                throw new NucleusUserException(Localiser.msg("052528", query.getLanguage()));
+            }
+
+            if (!query.processesRangeInDatastoreQuery())
+            {
+                // Range not applied by the statement, so skip to the first row of the range and stop at its end
+                for (long i=0;i<query.getRangeFromIncl();i++)
+                {
+                    if (!rs.next())
+                    {
+                        break;
+                    }
+                }
+                if (query.getRangeToExcl() != Long.MAX_VALUE)
+                {
+                    remainingRows = query.getRangeToExcl() - query.getRangeFromIncl();
+                }
+            }
+
+            // Close the ResultSet when the transaction ends, or when the connection is closed outside of a transaction
+            mconnListener = new ManagedConnectionResourceListener()
+            {
+                public void transactionFlushed()
+                {
+                }
+
+                public void transactionPreClose()
+                {
+                    disconnect();
+                }
+
+                public void managedConnectionPreClose()
+                {
+                    if (!ec.getTransaction().isActive())
+                    {
+                        disconnect();
+                    }
+                }
+
+                public void managedConnectionPostClose()
+                {
+                }
+
+                public void resourcePostClose()
+                {
+                    if (mconn != null)
+                    {
+                        mconn.removeListener(this);
+                    }
+                }
+            };
+            conn.addListener(mconnListener);
+        }
+        catch (SQLException sqle)
+        {
+            close();
+            throw new NucleusDataStoreException(Localiser.msg("052530"), sqle);
+        }
+        catch (RuntimeException re)
+        {
+            close();
+            throw re;
+        }
+    }
+
+    /**
+     * Constructor for the result of a query that has no possible results.
+     * @param query The query
+     */
+    private ColumnarQueryResult(Query query)
+    {
+        this.ec = query.getExecutionContext();
+        this.batchSize = 1;
+        this.closed = true;
+    }
+
+    /**
+     * Method called by the execution of a query for a columnar result (see {@link RDBMSQueryUtils#executeColumnar(Query, Map, int)})
+     * to create the result from its statement. The result takes a use of the connection of the query, so the connection is held
+     * until the result is closed. Since Query.executeQuery processes the result of a SELECT as a collection, the columnar result
+     * is returned as the only element of a list.
+     * @param query The query
+     * @param ps The statement
+     * @param rs ResultSet of the statement
+     * @param resultDefinition Definition of the result expressions of a JDOQL/JPQL query (null for an SQL query)
+     * @return List containing the columnar result
+     */
+    static List<ColumnarQueryResult> getQueryResult(Query query, PreparedStatement ps, ResultSet rs, StatementResultMapping resultDefinition)
+    {
+        ManagedConnection mconn = RDBMSQueryUtils.getConnectionForQuery(query);
+        return Collections.singletonList(new ColumnarQueryResult(query, mconn, ps, rs, resultDefinition, RDBMSQueryUtils.getColumnarBatchSize(query)));
+    }
+
+    /**
+     * Method called by the execution of a query for a columnar result when the query has no possible results.
+     * @param query The query
+     * @return List containing the (empty) columnar result
+     */
+    static List<ColumnarQueryResult> getEmptyQueryResult(Query query)
+    {
+        return Collections.singletonList(new ColumnarQueryResult(query));
+    }
+
+    private void defineColumnsForResultDefinition(StatementResultMapping resultDefinition)
+    {
+        int numCols = resultDefinition.getNumberOfResultExpressions();
+        columnNames = new String[numCols];
+        columnTypes = new ColumnType[numCols];
+        columnPositions = new int[numCols];
+        objectMappings = new StatementMappingIndex[numCols];
+        for (int i=0;i<numCols;i++)
+        {
+            Object stmtMap = resultDefinition.getMappingForResultExpression(i);
+            if (!(stmtMap instanceof StatementMappingIndex))
+            {
+                throw new NucleusUserException(Localiser.msg("052529", "" + i));
+            }
+            StatementMappingIndex idx = (StatementMappingIndex)stmtMap;
+            JavaTypeMapping mapping = idx.getMapping();
+            columnNames[i] = idx.getColumnAlias();
+            columnTypes[i] = ColumnType.OBJECT;
+            if (mapping instanceof SingleFieldMapping && !(mapping instanceof TypeConverterMapping) &&
+                idx.getColumnPositions() != null && idx.getColumnPositions().length == 1)
+            {
+                // Stored as its java type, so can read the column directly
+                columnTypes[i] = getColumnTypeForJavaType(mapping.getJavaType());
+                columnPositions[i] = idx.getColumnPositions()[0];
+            }
+            if (columnTypes[i] == ColumnType.OBJECT)
+            {
+                objectMappings[i] = idx;
+            }
+        }
+    }
+
+    private void defineColumnsForResultSet(ResultSetMetaData rsmd) throws SQLException
+    {
+        int numCols = rsmd.getColumnCount();
+        columnNames = new String[numCols];
+        columnTypes = new ColumnType[numCols];
+        columnPositions = new int[numCols];
+        for (int i=0;i<numCols;i++)
+        {
+            columnNames[i] = rsmd.getColumnLabel(i+1);
+            columnPositions[i] = i+1;
+            switch (rsmd.getColumnType(i+1))
+            {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                    columnTypes[i] = ColumnType.INT;
+                    break;
+                case Types.INTEGER:
+                    // An unsigned INTEGER (e.g MySQL) can exceed the range of int
+                    columnTypes[i] = rsmd.isSigned(i+1) ? ColumnType.INT : ColumnType.LONG;
+                    break;
+                case Types.BIGINT:
+                    // An unsigned BIGINT can exceed the range of long, so is read as its object (BigInteger)
+                    columnTypes[i] = rsmd.isSigned(i+1) ? ColumnType.LONG : ColumnType.OBJECT;
+                    break;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    columnTypes[i] = ColumnType.DOUBLE;
+                    break;
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                    columnTypes[i] = ColumnType.STRING;
+                    break;
+                default:
+                    columnTypes[i] = ColumnType.OBJECT;
+                    break;
+            }
+        }
+    }
+
+    private static ColumnType getColumnTypeForJavaType(Class type)
+    {
+        if (type == int.class || type == Integer.class || type == short.class || type == Short.class || type == byte.class || type == Byte.class)
+        {
+            return ColumnType.INT;
+        }
+        else if (type == long.class || type == Long.class)
+        {
+            return ColumnType.LONG;
+        }
+        else if (type == double.class || type == Double.class || type == float.class || type == Float.class)
+        {
+            return ColumnType.DOUBLE;
+        }
+        else if (type == String.class)
+        {
+            return ColumnType.STRING;
+        }
+        return ColumnType.OBJECT;
+    }
+
+    public boolean hasNext()
+    {
+        if (nextBatch == null && !closed)
+        {
+            nextBatch = readBatch();
+        }
+        return nextBatch != null;
+    }
+
+    public ColumnBatch next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        ColumnBatch batch = nextBatch;
+        nextBatch = null;
+        return batch;
+    }
+
+    /**
+     * Arrays holding the values of a batch. There are two of these, used for alternate batches, so the arrays of the batch
+     * returned by next() are not overwritten when the following batch is read by hasNext().
+     */
+    private class BatchBuffer
+    {
+        final Object[] columnValues;
+        final StringDictionary[] dictionaries;
+        final BitSet[] nulls;
+
+        BatchBuffer()
+        {
+            int numCols = columnTypes.length;
+            columnValues = new Object[numCols];
+            dictionaries = new StringDictionary[numCols];
+            nulls = new BitSet[numCols];
+            for (int i=0;i<numCols;i++)
+            {
+                nulls[i] = new BitSet(batchSize);
+                switch (columnTypes[i])
+                {
+                    case INT:
+                        columnValues[i] = new int[batchSize];
+                        break;
+                    case LONG:
+                        columnValues[i] = new long[batchSize];
+                        break;
+                    case DOUBLE:
+                        columnValues[i] = new double[batchSize];
+                        break;
+                    case STRING:
+                        columnValues[i] = new int[batchSize];
+                        dictionaries[i] = new StringDictionary();
+                        break;
+                    default:
+                        columnValues[i] = new Object[batchSize];
+                        break;
+                }
+            }
+        }
+
+        void clear()
+        {
+            for (int i=0;i<columnValues.length;i++)
+            {
+                nulls[i].clear();
+                if (dictionaries[i] != null)
+                {
+                    dictionaries[i].clear();
+                }
+                else if (columnValues[i] instanceof Object[])
+                {
+                    // Release the values of the previous use
+                    Arrays.fill((Object[])columnValues[i], null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Dictionary of the distinct values of a STRING column, giving the code (position) of each value without boxing.
+     * Uses open addressing into arrays of the values and codes.
+     */
+    private static class StringDictionary
+    {
+        /** The values, in code order. */
+        String[] values = new String[16];
+
+        int size = 0;
+
+        /** Hash table of the values, with the code of each in the same position of "codes". */
+        String[] keys = new String[32];
+
+        int[] codes = new int[32];
+
+        int getCode(String value)
+        {
+            int mask = keys.length - 1;
+            int pos = spread(value.hashCode()) & mask;
+            while (keys[pos] != null)
+            {
+                if (keys[pos].equals(value))
+                {
+                    return codes[pos];
+                }
+                pos = (pos + 1) & mask;
+            }
+
+            // Add the value
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int code = size++;
+            values[code] = value;
+            keys[pos] = value;
+            codes[pos] = code;
+            if (size * 2 > keys.length)
+            {
+                rehash();
+            }
+            return code;
+        }
+
+        void clear()
+        {
+            Arrays.fill(keys, null);
+            Arrays.fill(values, 0, size, null);
+            size = 0;
+        }
+
+        private void rehash()
+        {
+            String[] oldKeys = keys;
+            int[] oldCodes = codes;
+            keys = new String[oldKeys.length * 2];
+            codes = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i=0;i<oldKeys.length;i++)
+            {
+                if (oldKeys[i] != null)
+                {
+                    int pos = spread(oldKeys[i].hashCode()) & mask;
+                    while (keys[pos] != null)
+                    {
+                        pos = (pos + 1) & mask;
+                    }
+                    keys[pos] = oldKeys[i];
+                    codes[pos] = oldCodes[i];
+                }
+            }
+        }
+
+        private static int spread(int hash)
+        {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * Method to read the next batch of rows from the ResultSet.
+     * @return The batch, or null if there are no more rows (in which case the result is closed)
+     */
+    private ColumnBatch readBatch()
+    {
+        BatchBuffer buffer = buffers[nextBuffer];
+        if (buffer == null)
+        {
+            buffer = new BatchBuffer();
+            buffers[nextBuffer] = buffer;
+        }
+        else
+        {
+            buffer.clear();
+        }
+        nextBuffer = 1 - nextBuffer;
+
+        int numCols = columnTypes.length;
+        Object[] columnValues = buffer.columnValues;
+        BitSet[] nulls = buffer.nulls;
+        int row = 0;
+        try
+        {
+            while (row < batchSize && remainingRows > 0 && rs.next())
+            {
+                for (int i=0;i<numCols;i++)
+                {
+                    int position = columnPositions[i];
+                    switch (columnTypes[i])
+                    {
+                        case INT:
+                            ((int[])columnValues[i])[row] = rs.getInt(position);
+                            break;
+                        case LONG:
+                            ((long[])columnValues[i])[row] = rs.getLong(position);
+                            break;
+                        case DOUBLE:
+                            ((double[])columnValues[i])[row] = rs.getDouble(position);
+                            break;
+                        case STRING:
+                            String str = rs.getString(position);
+                            ((int[])columnValues[i])[row] = (str != null) ? buffer.dictionaries[i].getCode(str) : -1;
+                            break;
+                        default:
+                            Object value = (objectMappings != null) ?
+                                objectMappings[i].getMapping().getObject(ec, rs, objectMappings[i].getColumnPositions()) : rs.getObject(position);
+                            ((Object[])columnValues[i])[row] = value;
+                            if (value == null)
+                            {
+                                nulls[i].set(row);
+                            }
+                            continue;
+                    }
+                    if (rs.wasNull())
+                    {
+                        nulls[i].set(row);
+                    }
+                }
+                row++;
+                remainingRows--;
+            }
+        }
+        catch (SQLException sqle)
+        {
+            close();
+            throw new NucleusDataStoreException(Localiser.msg("052530"), sqle);
+        }
+
+        if (row == 0)
+        {
+            close();
+            return null;
+        }
+
+        String[][] dictionaries = new String[numCols][];
+        int[] dictionarySizes = new int[numCols];
+        for (int i=0;i<numCols;i++)
+        {
+            if (buffer.dictionaries[i] != null)
+            {
+                dictionaries[i] = buffer.dictionaries[i].values;
+                dictionarySizes[i] = buffer.dictionaries[i].size;
+            }
+        }
+        return new ColumnBatch(columnNames, columnTypes, columnValues, dictionaries, dictionarySizes, nulls, row);
+    }
+
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Method to close the ResultSet and statement, and release the connection.
+     */
+    public void close()
+    {
+        if (closed && mconn == null)
+        {
+            return;
+        }
+        ManagedConnection conn = mconn;
+        disconnect();
+        if (conn != null)
+        {
+            if (mconnListener != null)
+            {
+                conn.removeListener(mconnListener);
+                mconnListener = null;
+            }
+            conn.release();
+        }
+    }
+
+    /**
+     * Method to close the ResultSet and statement, without releasing the connection (since it is being closed).
+     */
+    protected void disconnect()
+    {
+        closed = true;
+        nextBatch = null;
+        if (mconn != null)
+        {
+            try
+            {
+                if (ps != null)
+                {
+                    ((RDBMSStoreManager)ec.getStoreManager()).getSQLController().closeStatement(mconn, ps);
+                }
+            }
+            catch (SQLException sqle)
+            {
+                NucleusLogger.QUERY.warn(Localiser.msg("052532", sqle.getMessage()));
+            }
+            finally
+            {
+                ps = null;
+                rs = null;
+                mconn = null;
+            }
+        }
+    }
+}
@@ -261,16 +261,24 @@ public final class ForwardQueryResult<E> extends AbstractRDBMSQueryResult<E> imp
     /**
      * Method to close the results, making the results unusable thereafter.
      */
-    public synchronized void close()
+    public void close()
     {
-        moreResultSetRows = false;
-        resultObjs.clear();
-        if (resultIds != null)
+        resultsLock.lock();
+        try
         {
-            resultIds.clear();
-        }
+            moreResultSetRows = false;
+            resultObjs.clear();
+            if (resultIds != null)
+            {
+                resultIds.clear();
+            }
 
-        super.close();
+            super.close();
+        }
+        finally
+        {
+            resultsLock.unlock();
+        }
     }
 
     /**
@@ -337,7 +345,8 @@ public final class ForwardQueryResult<E> extends AbstractRDBMSQueryResult<E> imp
 
         public boolean hasNext()
         {
-            synchronized (ForwardQueryResult.this)
+            resultsLock.lock();
+            try
             {
                 if (!isOpen())
                 {
@@ -368,6 +377,10 @@ public final class ForwardQueryResult<E> extends AbstractRDBMSQueryResult<E> imp
 
                 return moreResultSetRows;
             }
+            finally
+            {
+                resultsLock.unlock();
+            }
         }
 
         public boolean hasPrevious()
@@ -378,7 +391,8 @@ public final class ForwardQueryResult<E> extends AbstractRDBMSQueryResult<E> imp
 
         public E next()
         {
-            synchronized (ForwardQueryResult.this)
+            resultsLock.lock();
+            try
             {
                 if (!isOpen())
                 {
@@ -418,6 +432,10 @@ public final class ForwardQueryResult<E> extends AbstractRDBMSQueryResult<E> imp
                 }
                 throw new NoSuchElementException(Localiser.msg("052602"));
             }
+            finally
+            {
+                resultsLock.unlock();
+            }
         }
 
         public int nextIndex()
@@ -441,12 +459,20 @@ public final class ForwardQueryResult<E> extends AbstractRDBMSQueryResult<E> imp
      * @param o The object
      * @return Whether it is contained here.
      */
-    public synchronized boolean contains(Object o)
+    public boolean contains(Object o)
     {
-        assertIsOpen();
-        advanceToEndOfResultSet();
+        resultsLock.lock();
+        try
+        {
+            assertIsOpen();
+            advanceToEndOfResultSet();
 
-        return resultObjs.contains(o);
+            return resultObjs.contains(o);
+        }
+        finally
+        {
+            resultsLock.unlock();
+        }
     }
 
     /**
@@ -454,12 +480,20 @@ public final class ForwardQueryResult<E> extends AbstractRDBMSQueryResult<E> imp
      * @param c The collection of objects
      * @return Whether they are all contained here.
      */
-    public synchronized boolean containsAll(Collection c)
+    public boolean containsAll(Collection c)
     {
-        assertIsOpen();
-        advanceToEndOfResultSet();
+        resultsLock.lock();
+        try
+        {
+            assertIsOpen();
+            advanceToEndOfResultSet();
 
-        return resultObjs.containsAll(c);
+            return resultObjs.containsAll(c);
+        }
+        finally
+        {
+            resultsLock.unlock();
+        }
     }
 
     public boolean equals(Object o)
@@ -481,29 +515,45 @@ public final class ForwardQueryResult<E> extends AbstractRDBMSQueryResult<E> imp
      * @param index The index of the element
      * @return The element at index
      */
-    public synchronized E get(int index)
+    public E get(int index)
     {
-        assertIsOpen();
+        resultsLock.lock();
+        try
+        {
+            assertIsOpen();
 
-        // Load rest of results (is this necessary, if we already have the element we don't need more)
-        advanceToEndOfResultSet();
-        if (index < 0 || index >= resultObjs.size())
+            // Load rest of results (is this necessary, if we already have the element we don't need more)
+            advanceToEndOfResultSet();
+            if (index < 0 || index >= resultObjs.size())
+            {
+                throw new IndexOutOfBoundsException();
+            }
+
+            return resultObjs.get(index);
+        }
+        finally
         {
-            throw new IndexOutOfBoundsException();
+            resultsLock.unlock();
         }
-
-        return resultObjs.get(index);
     }
 
     /**
      * Accessor for whether there are any results.
      * @return <tt>true</tt> if these results are empty.
      */
-    public synchronized boolean isEmpty()
+    public boolean isEmpty()
     {
-        assertIsOpen();
+        resultsLock.lock();
+        try
+        {
+            assertIsOpen();
 
-        return resultObjs.isEmpty() && !moreResultSetRows;
+            return resultObjs.isEmpty() && !moreResultSetRows;
+        }
+        finally
+        {
+            resultsLock.unlock();
+        }
     }
 
     /**
@@ -525,12 +575,20 @@ public final class ForwardQueryResult<E> extends AbstractRDBMSQueryResult<E> imp
      * Method to return the results as an array.
      * @return The array.
      */
-    public synchronized Object[] toArray()
+    public Object[] toArray()
     {
-        assertIsOpen();
-        advanceToEndOfResultSet();
+        resultsLock.lock();
+        try
+        {
+            assertIsOpen();
+            advanceToEndOfResultSet();
 
-        return resultObjs.toArray();
+            return resultObjs.toArray();
+        }
+        finally
+        {
+            resultsLock.unlock();
+        }
     }
 
     /**
@@ -538,12 +596,20 @@ public final class ForwardQueryResult<E> extends AbstractRDBMSQueryResult<E> imp
      * @param a The array to copy into. 
      * @return The array.
      */
-    public synchronized Object[] toArray(Object[] a)
+    public Object[] toArray(Object[] a)
     {
-        assertIsOpen();
-        advanceToEndOfResultSet();
+        resultsLock.lock();
+        try
+        {
+            assertIsOpen();
+            advanceToEndOfResultSet();
 
-        return resultObjs.toArray(a);
+            return resultObjs.toArray(a);
+        }
+        finally
+        {
+            resultsLock.unlock();
+        }
     }
 
     /**
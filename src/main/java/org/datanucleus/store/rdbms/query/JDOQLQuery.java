@@ -110,6 +110,9 @@ public class JDOQLQuery extends AbstractJDOQLQuery
     /** Extension to add NOWAIT when using FOR UPDATE (when supported). */
     public static final String EXTENSION_FOR_UPDATE_NOWAIT = "datanucleus.forUpdateNowait";
 
+    /** Extension to add SKIP LOCKED when using FOR UPDATE (when supported), so locked rows are skipped rather than waited for. */
+    public static final String EXTENSION_FOR_UPDATE_SKIP_LOCKED = "datanucleus.forUpdateSkipLocked";
+
     /** Extension to define the JOIN TYPE to use when navigating single-valued relations, when part of the filter. */
     public static final String EXTENSION_NAVIGATION_JOIN_TYPE_FILTER = "datanucleus.query.jdoql.navigationJoinTypeForFilter";
 
@@ -246,7 +249,7 @@ public class JDOQLQuery extends AbstractJDOQLQuery
             return;
         }
 
-        if (getExtension("include-soft-deletes") != null)
+        if (getExtension("include-soft-deletes") != null || getExtension(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_POLYMORPHIC_TWO_PHASE) != null)
         {
             // If using an extension that can change the datastore query then evict any existing compilation
             QueryManager qm = getQueryManager();
@@ -572,12 +575,17 @@ public class JDOQLQuery extends AbstractJDOQLQuery
 
     protected Object performExecute(Map parameters)
     {
+        int columnarBatchSize = RDBMSQueryUtils.getColumnarBatchSize(this);
         if (statementReturnsEmpty)
         {
-            return Collections.EMPTY_LIST;
+            return (columnarBatchSize > 0) ? ColumnarQueryResult.getEmptyQueryResult(this) : Collections.EMPTY_LIST;
         }
 
         boolean inMemory = evaluateInMemory();
+        if (columnarBatchSize > 0 && (inMemory || candidateCollection != null))
+        {
+            throw new NucleusUserException(Localiser.msg("052535", getLanguage()));
+        }
         if (candidateCollection != null)
         {
             // Supplied collection of instances, so evaluate in-memory
@@ -590,7 +598,7 @@ public class JDOQLQuery extends AbstractJDOQLQuery
                 return new JDOQLInMemoryEvaluator(this, new ArrayList(candidateCollection), compilation, parameters, clr).execute(true, true, true, true, true);
             }
         }
-        else if (type == QueryType.SELECT)
+        else if (type == QueryType.SELECT && columnarBatchSize == 0)
         {
             // Query results are cached, so return those
             List<Object> cachedResults = getQueryManager().getQueryResult(this, parameters);
@@ -602,7 +610,7 @@ public class JDOQLQuery extends AbstractJDOQLQuery
 
         Object results = null;
         RDBMSStoreManager storeMgr = (RDBMSStoreManager)getStoreManager();
-        ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+        ManagedConnection mconn = RDBMSQueryUtils.getConnectionForQuery(this);
         try
         {
             // Execute the query
@@ -621,7 +629,7 @@ public class JDOQLQuery extends AbstractJDOQLQuery
                 {
                     // Create PreparedStatement and apply parameters, result settings etc
                     ps = RDBMSQueryUtils.getPreparedStatementForQuery(mconn, datastoreCompilation.getSQL(), this);
-                    SQLStatementHelper.applyParametersToStatement(ps, ec, datastoreCompilation.getStatementParameters(), datastoreCompilation.getParameterNameByPosition(), parameters);
+                    datastoreCompilation.getParameterBinder(true).applyParametersToStatement(ps, ec, parameters);
                     RDBMSQueryUtils.prepareStatementForExecution(ps, this, true);
 
                     registerTask(ps);
@@ -635,6 +643,12 @@ public class JDOQLQuery extends AbstractJDOQLQuery
                         deregisterTask();
                     }
 
+                    if (columnarBatchSize > 0)
+                    {
+                        // Read the results by column, in batches
+                        return ColumnarQueryResult.getQueryResult(this, ps, rs, datastoreCompilation.getResultDefinition());
+                    }
+
                     AbstractRDBMSQueryResult qr = null;
                     try
                     {
@@ -658,14 +672,27 @@ public class JDOQLQuery extends AbstractJDOQLQuery
                         {
                             // IN-DATASTORE EVALUATION
                             ResultObjectFactory rof = null;
+                            boolean readOnlyProjection = getBooleanExtensionProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_READ_ONLY_PROJECTION,
+                                getStoreManager().getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_READ_ONLY_PROJECTION));
                             if (result != null)
                             {
                                 // Each result row is of a result type
-                                rof = new ResultClassROF(ec, rs, ignoreCache, resultClass, datastoreCompilation.getResultDefinition());
+                                ResultClassROF resultROF = new ResultClassROF(ec, rs, ignoreCache, resultClass, datastoreCompilation.getResultDefinition());
+                                resultROF.setReadOnlyProjection(readOnlyProjection);
+                                rof = resultROF;
                             }
                             else if (resultClass != null && resultClass != candidateClass)
                             {
-                                rof = new ResultClassROF(ec, rs, ignoreCache, resultClass, datastoreCompilation.getResultDefinitionForClass());
+                                ResultClassROF resultROF = new ResultClassROF(ec, rs, ignoreCache, resultClass, datastoreCompilation.getResultDefinitionForClass());
+                                resultROF.setReadOnlyProjection(readOnlyProjection);
+                                rof = resultROF;
+                            }
+                            else if (readOnlyProjection && RDBMSQueryUtils.supportsReadOnlyCandidateProjection(this))
+                            {
+                                // Each result row is an unmanaged object of the candidate type
+                                ResultClassROF resultROF = new ResultClassROF(ec, rs, ignoreCache, candidateClass, datastoreCompilation.getResultDefinitionForClass());
+                                resultROF.setReadOnlyProjection(true);
+                                rof = resultROF;
                             }
                             else
                             {
@@ -749,12 +776,43 @@ public class JDOQLQuery extends AbstractJDOQLQuery
                 {
                     long bulkResult = 0;
                     List<StatementCompilation> stmtCompilations = datastoreCompilation.getStatementCompilations();
+
+                    BulkAffectedIdentities affectedIds = null;
+                    if (!stmtCompilations.isEmpty() &&
+                        getBooleanExtensionProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_BULK_EVICT_AFFECTED_ONLY, storeMgr.getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_BULK_EVICT_AFFECTED_ONLY)))
+                    {
+                        // Find the identities of the objects affected by the statements so we only evict those
+                        List<SQLStatement> stmts = new ArrayList<>(stmtCompilations.size());
+                        for (StatementCompilation stmtCompile : stmtCompilations)
+                        {
+                            stmts.add(stmtCompile.getStatement());
+                        }
+                        affectedIds = BulkAffectedIdentities.getInstance(ec, stmts, getCandidateClassMetaData(), subclasses);
+                    }
+
                     Iterator<StatementCompilation> stmtCompileIter = stmtCompilations.iterator();
+                    int stmtNumber = -1;
                     while (stmtCompileIter.hasNext())
                     {
                         StatementCompilation stmtCompile = stmtCompileIter.next();
+                        stmtNumber++;
+                        if (affectedIds != null && affectedIds.affectsObjects(stmtNumber))
+                        {
+                            if (affectedIds.useReturning(stmtNumber))
+                            {
+                                int numAffected = affectedIds.executeWithReturning(stmtNumber, mconn, sqlControl, stmtCompile.getSQL(), this,
+                                    datastoreCompilation.getStatementParameters(), datastoreCompilation.getParameterNameByPosition(), parameters);
+                                if (stmtCompile.useInCount())
+                                {
+                                    bulkResult += numAffected;
+                                }
+                                continue;
+                            }
+                            affectedIds.selectAffectedIdentities(stmtNumber, mconn, sqlControl, this, datastoreCompilation.getParameterNameByPosition(), parameters);
+                        }
+
                         ps = sqlControl.getStatementForUpdate(mconn, stmtCompile.getSQL(), false);
-                        SQLStatementHelper.applyParametersToStatement(ps, ec, datastoreCompilation.getStatementParameters(), datastoreCompilation.getParameterNameByPosition(), parameters);
+                        datastoreCompilation.getParameterBinder(true).applyParametersToStatement(ps, ec, parameters);
                         RDBMSQueryUtils.prepareStatementForExecution(ps, this, false);
 
                         int[] execResults = sqlControl.executeStatementUpdate(ec, mconn, toString(), ps, true);
@@ -764,14 +822,22 @@ public class JDOQLQuery extends AbstractJDOQLQuery
                         }
                     }
 
-                    try
+                    if (affectedIds != null)
                     {
-                        // Evict all objects of this type from the cache
-                        ec.getNucleusContext().getLevel2Cache().evictAll(candidateClass, subclasses);
+                        // Evict only the affected objects from the caches
+                        affectedIds.evictAffectedObjects();
                     }
-                    catch (UnsupportedOperationException uoe)
+                    else
                     {
-                        // Do nothing
+                        try
+                        {
+                            // Evict all objects of this type from the cache
+                            ec.getNucleusContext().getLevel2Cache().evictAll(candidateClass, subclasses);
+                        }
+                        catch (UnsupportedOperationException uoe)
+                        {
+                            // Do nothing
+                        }
                     }
 
                     results = bulkResult;
@@ -873,6 +939,16 @@ public class JDOQLQuery extends AbstractJDOQLQuery
                 options = new HashSet<>();
                 options.add(SelectStatementGenerator.OPTION_INCLUDE_SOFT_DELETES);
             }
+            if (getBooleanExtensionProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_POLYMORPHIC_TWO_PHASE,
+                getStoreManager().getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_POLYMORPHIC_TWO_PHASE)))
+            {
+                // Select the type of each candidate without UNIONs, and fetch the subclass members in bulk later
+                if (options == null)
+                {
+                    options = new HashSet<>();
+                }
+                options.add(SelectStatementGenerator.OPTION_TWO_PHASE_POLYMORPHIC);
+            }
             stmt = RDBMSQueryUtils.getStatementForCandidates((RDBMSStoreManager) getStoreManager(), null, candidateCmd,
                 datastoreCompilation.getResultDefinitionForClass(), ec, candidateClass, subclasses, result, null, null, options);
         }
@@ -971,6 +1047,10 @@ public class JDOQLQuery extends AbstractJDOQLQuery
         {
             stmt.addExtension(SQLStatement.EXTENSION_LOCK_FOR_UPDATE_NOWAIT, Boolean.TRUE);
         }
+        if (getBooleanExtensionProperty(EXTENSION_FOR_UPDATE_SKIP_LOCKED, false))
+        {
+            stmt.addExtension(SQLStatement.EXTENSION_LOCK_FOR_UPDATE_SKIP_LOCKED, Boolean.TRUE);
+        }
 
         datastoreCompilation.addStatement(stmt, stmt.getSQLText().toSQL(), false);
         datastoreCompilation.setStatementParameters(stmt.getSQLText().getParametersForStatement());
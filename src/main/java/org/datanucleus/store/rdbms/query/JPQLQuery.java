@@ -74,6 +74,7 @@ import org.datanucleus.store.rdbms.sql.SQLStatementHelper;
 import org.datanucleus.store.rdbms.sql.SQLTable;
 import org.datanucleus.store.rdbms.sql.SQLJoin.JoinType;
 import org.datanucleus.store.rdbms.sql.SelectStatement;
+import org.datanucleus.store.rdbms.sql.SelectStatementGenerator;
 import org.datanucleus.store.rdbms.sql.UpdateStatement;
 import org.datanucleus.store.rdbms.sql.expression.ColumnExpression;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
@@ -106,6 +107,9 @@ public class JPQLQuery extends AbstractJPQLQuery
     /** Extension to add NOWAIT when using FOR UPDATE (when supported). */
     public static final String EXTENSION_FOR_UPDATE_NOWAIT = "datanucleus.forUpdateNowait";
 
+    /** Extension to add SKIP LOCKED when using FOR UPDATE (when supported), so locked rows are skipped rather than waited for. */
+    public static final String EXTENSION_FOR_UPDATE_SKIP_LOCKED = "datanucleus.forUpdateSkipLocked";
+
     /** Extension to define the JOIN TYPE to use when navigating single-valued relations, when part of the filter. */
     public static final String EXTENSION_NAVIGATION_JOIN_TYPE_FILTER = "datanucleus.query.jpql.navigationJoinTypeForFilter";
 
@@ -509,6 +513,11 @@ public class JPQLQuery extends AbstractJPQLQuery
 
     protected Object performExecute(Map parameters)
     {
+        int columnarBatchSize = RDBMSQueryUtils.getColumnarBatchSize(this);
+        if (columnarBatchSize > 0 && (candidateCollection != null || evaluateInMemory()))
+        {
+            throw new NucleusUserException(Localiser.msg("052535", getLanguage()));
+        }
         if (candidateCollection != null)
         {
             // Supplied collection of instances, so evaluate in-memory
@@ -520,7 +529,7 @@ public class JPQLQuery extends AbstractJPQLQuery
             List candidates = new ArrayList(candidateCollection);
             return new JPQLInMemoryEvaluator(this, candidates, compilation, parameters, clr).execute(true, true, true, true, true);
         }
-        else if (type == QueryType.SELECT)
+        else if (type == QueryType.SELECT && columnarBatchSize == 0)
         {
             // Query results are cached, so return those
             List<Object> cachedResults = getQueryManager().getQueryResult(this, parameters);
@@ -531,7 +540,7 @@ public class JPQLQuery extends AbstractJPQLQuery
         }
 
         Object results = null;
-        ManagedConnection mconn = getStoreManager().getConnectionManager().getConnection(ec);
+        ManagedConnection mconn = RDBMSQueryUtils.getConnectionForQuery(this);
         try
         {
             // Execute the query
@@ -551,7 +560,7 @@ public class JPQLQuery extends AbstractJPQLQuery
                 {
                     // Create PreparedStatement and apply parameters, result settings etc
                     ps = RDBMSQueryUtils.getPreparedStatementForQuery(mconn, datastoreCompilation.getSQL(), this);
-                    SQLStatementHelper.applyParametersToStatement(ps, ec, datastoreCompilation.getStatementParameters(), null, parameters);
+                    datastoreCompilation.getParameterBinder(false).applyParametersToStatement(ps, ec, parameters);
                     RDBMSQueryUtils.prepareStatementForExecution(ps, this, true);
 
                     registerTask(ps);
@@ -565,6 +574,12 @@ public class JPQLQuery extends AbstractJPQLQuery
                         deregisterTask();
                     }
 
+                    if (columnarBatchSize > 0)
+                    {
+                        // Read the results by column, in batches
+                        return ColumnarQueryResult.getQueryResult(this, ps, rs, datastoreCompilation.getResultDefinition());
+                    }
+
                     AbstractRDBMSQueryResult qr = null;
                     try
                     {
@@ -588,14 +603,27 @@ public class JPQLQuery extends AbstractJPQLQuery
                         {
                             // IN-DATASTORE EVALUATION
                             ResultObjectFactory rof = null;
+                            boolean readOnlyProjection = getBooleanExtensionProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_READ_ONLY_PROJECTION,
+                                getStoreManager().getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_READ_ONLY_PROJECTION));
                             if (result != null)
                             {
                                 // Each result row is of a result type
-                                rof = new ResultClassROF(ec, rs, ignoreCache, resultClass, datastoreCompilation.getResultDefinition());
+                                ResultClassROF resultROF = new ResultClassROF(ec, rs, ignoreCache, resultClass, datastoreCompilation.getResultDefinition());
+                                resultROF.setReadOnlyProjection(readOnlyProjection);
+                                rof = resultROF;
                             }
                             else if (resultClass != null && resultClass != candidateClass)
                             {
-                                rof = new ResultClassROF(ec, rs, ignoreCache, resultClass, datastoreCompilation.getResultDefinitionForClass());
+                                ResultClassROF resultROF = new ResultClassROF(ec, rs, ignoreCache, resultClass, datastoreCompilation.getResultDefinitionForClass());
+                                resultROF.setReadOnlyProjection(readOnlyProjection);
+                                rof = resultROF;
+                            }
+                            else if (readOnlyProjection && RDBMSQueryUtils.supportsReadOnlyCandidateProjection(this))
+                            {
+                                // Each result row is an unmanaged object of the candidate type
+                                ResultClassROF resultROF = new ResultClassROF(ec, rs, ignoreCache, candidateClass, datastoreCompilation.getResultDefinitionForClass());
+                                resultROF.setReadOnlyProjection(true);
+                                rof = resultROF;
                             }
                             else
                             {
@@ -677,12 +705,43 @@ public class JPQLQuery extends AbstractJPQLQuery
                 {
                     long bulkResult = 0;
                     List<StatementCompilation> stmtCompilations = datastoreCompilation.getStatementCompilations();
+
+                    BulkAffectedIdentities affectedIds = null;
+                    if (!stmtCompilations.isEmpty() &&
+                        getBooleanExtensionProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_BULK_EVICT_AFFECTED_ONLY, storeMgr.getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_BULK_EVICT_AFFECTED_ONLY)))
+                    {
+                        // Find the identities of the objects affected by the statements so we only evict those
+                        List<SQLStatement> stmts = new ArrayList<>(stmtCompilations.size());
+                        for (StatementCompilation stmtCompile : stmtCompilations)
+                        {
+                            stmts.add(stmtCompile.getStatement());
+                        }
+                        affectedIds = BulkAffectedIdentities.getInstance(ec, stmts, getCandidateClassMetaData(), subclasses);
+                    }
+
                     Iterator<StatementCompilation> stmtCompileIter = stmtCompilations.iterator();
+                    int stmtNumber = -1;
                     while (stmtCompileIter.hasNext())
                     {
                         StatementCompilation stmtCompile = stmtCompileIter.next();
+                        stmtNumber++;
+                        if (affectedIds != null && affectedIds.affectsObjects(stmtNumber))
+                        {
+                            if (affectedIds.useReturning(stmtNumber))
+                            {
+                                int numAffected = affectedIds.executeWithReturning(stmtNumber, mconn, sqlControl, stmtCompile.getSQL(), this,
+                                    datastoreCompilation.getStatementParameters(), null, parameters);
+                                if (stmtCompile.useInCount())
+                                {
+                                    bulkResult += numAffected;
+                                }
+                                continue;
+                            }
+                            affectedIds.selectAffectedIdentities(stmtNumber, mconn, sqlControl, this, null, parameters);
+                        }
+
                         ps = sqlControl.getStatementForUpdate(mconn, stmtCompile.getSQL(), false);
-                        SQLStatementHelper.applyParametersToStatement(ps, ec, datastoreCompilation.getStatementParameters(), null, parameters);
+                        datastoreCompilation.getParameterBinder(false).applyParametersToStatement(ps, ec, parameters);
                         RDBMSQueryUtils.prepareStatementForExecution(ps, this, false);
 
                         int[] execResults = sqlControl.executeStatementUpdate(ec, mconn, toString(), ps, true);
@@ -692,14 +751,22 @@ public class JPQLQuery extends AbstractJPQLQuery
                         }
                     }
 
-                    try
+                    if (affectedIds != null)
                     {
-                        // Evict all objects of this type from the cache
-                        ec.getNucleusContext().getLevel2Cache().evictAll(candidateClass, subclasses);
+                        // Evict only the affected objects from the caches
+                        affectedIds.evictAffectedObjects();
                     }
-                    catch (UnsupportedOperationException uoe)
+                    else
                     {
-                        // Do nothing
+                        try
+                        {
+                            // Evict all objects of this type from the cache
+                            ec.getNucleusContext().getLevel2Cache().evictAll(candidateClass, subclasses);
+                        }
+                        catch (UnsupportedOperationException uoe)
+                        {
+                            // Do nothing
+                        }
                     }
 
                     results = bulkResult;
@@ -799,9 +866,17 @@ public class JPQLQuery extends AbstractJPQLQuery
         }
 
         // Generate statement for candidate(s)
+        Set<String> stmtGenOptions = null;
+        if (getBooleanExtensionProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_POLYMORPHIC_TWO_PHASE,
+            getStoreManager().getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_POLYMORPHIC_TWO_PHASE)))
+        {
+            // Select the type of each candidate without UNIONs, and fetch the subclass members in bulk later
+            stmtGenOptions = new HashSet<>();
+            stmtGenOptions.add(SelectStatementGenerator.OPTION_TWO_PHASE_POLYMORPHIC);
+        }
         SelectStatement stmt = RDBMSQueryUtils.getStatementForCandidates((RDBMSStoreManager) getStoreManager(), null, candidateCmd,
             datastoreCompilation.getResultDefinitionForClass(), ec, candidateClass, subclasses, result, 
-            compilation.getCandidateAlias(), compilation.getCandidateAlias(), null);
+            compilation.getCandidateAlias(), compilation.getCandidateAlias(), stmtGenOptions);
 
         // Update the SQLStatement with filter, ordering, result etc
         Set<String> options = new HashSet<>();
@@ -847,6 +922,10 @@ public class JPQLQuery extends AbstractJPQLQuery
         {
             stmt.addExtension(SQLStatement.EXTENSION_LOCK_FOR_UPDATE_NOWAIT, Boolean.TRUE);
         }
+        if (getBooleanExtensionProperty(EXTENSION_FOR_UPDATE_SKIP_LOCKED, false))
+        {
+            stmt.addExtension(SQLStatement.EXTENSION_LOCK_FOR_UPDATE_SKIP_LOCKED, Boolean.TRUE);
+        }
 
         datastoreCompilation.addStatement(stmt, stmt.getSQLText().toSQL(), false);
         datastoreCompilation.setStatementParameters(stmt.getSQLText().getParametersForStatement());
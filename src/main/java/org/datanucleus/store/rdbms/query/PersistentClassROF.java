@@ -45,7 +45,12 @@ import org.datanucleus.metadata.InterfaceMetaData;
 import org.datanucleus.metadata.VersionMetaData;
 import org.datanucleus.state.ObjectProvider;
 import org.datanucleus.store.FieldValues;
+import org.datanucleus.store.rdbms.LazyLobManager;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.ReferenceFetchManager;
+import org.datanucleus.store.rdbms.SubclassMemberFetchManager;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
 import org.datanucleus.store.schema.table.SurrogateColumnType;
 import org.datanucleus.store.rdbms.fieldmanager.ResultSetGetter;
 import org.datanucleus.util.ConcurrentReferenceHashMap;
@@ -72,6 +77,9 @@ public final class PersistentClassROF<T> extends AbstractROF<T>
 
     protected ResultSetGetter resultSetGetter = null;
 
+    /** Table of the candidate, when members of subclasses are not selected and are to be fetched in bulk. */
+    private DatastoreClass candidateTable = null;
+
     /** Resolved classes for metadata / discriminator keyed by class names. */
     private Map resolvedClasses = new ConcurrentReferenceHashMap<>(1, ReferenceType.STRONG, ReferenceType.SOFT);
 
@@ -461,6 +469,7 @@ public final class PersistentClassROF<T> extends AbstractROF<T>
             {
                 resultSetGetter.setObjectProvider(op);
                 op.replaceFields(fieldNumbers, resultSetGetter, false);
+                registerPendingObject(op);
 
                 // Set version
                 if (surrogateVersion != null)
@@ -487,6 +496,7 @@ public final class PersistentClassROF<T> extends AbstractROF<T>
             {
                 resultSetGetter.setObjectProvider(op);
                 op.replaceNonLoadedFields(fieldNumbers, resultSetGetter);
+                registerPendingObject(op);
             }
 
             public FetchPlan getFetchPlanForLoading()
@@ -495,4 +505,24 @@ public final class PersistentClassROF<T> extends AbstractROF<T>
             }
         }, pcClass, ignoreCache, false);
     }
+
+    /**
+     * Method to register an object just retrieved with the managers for any of its members not selected by this query, and for any
+     * hollow objects it references, so that they can be fetched in bulk when first accessed.
+     * @param op ObjectProvider for the object
+     */
+    private void registerPendingObject(ObjectProvider op)
+    {
+        RDBMSStoreManager storeMgr = (RDBMSStoreManager)ec.getStoreManager();
+        storeMgr.getComponent(LazyLobManager.class).registerPendingObject(op);
+        storeMgr.getComponent(ReferenceFetchManager.class).registerReferencedObjects(op);
+        if (resultMapping.isFetchSubclassMembersInBulk() && op.getClassMetaData() != rootCmd)
+        {
+            if (candidateTable == null)
+            {
+                candidateTable = storeMgr.getDatastoreClass(rootCmd.getFullClassName(), ec.getClassLoaderResolver());
+            }
+            storeMgr.getComponent(SubclassMemberFetchManager.class).registerPendingObject(op, candidateTable);
+        }
+    }
 }
\ No newline at end of file
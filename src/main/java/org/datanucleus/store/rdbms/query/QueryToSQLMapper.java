@@ -93,6 +93,7 @@ import org.datanucleus.store.rdbms.sql.expression.BooleanSubqueryExpression;
 import org.datanucleus.store.rdbms.sql.expression.CollectionExpression;
 import org.datanucleus.store.rdbms.sql.expression.ColumnExpression;
 import org.datanucleus.store.rdbms.sql.expression.ExpressionUtils;
+import org.datanucleus.store.rdbms.sql.expression.InArrayParameterExpression;
 import org.datanucleus.store.rdbms.sql.expression.IntegerLiteral;
 import org.datanucleus.store.rdbms.sql.expression.MapExpression;
 import org.datanucleus.store.rdbms.sql.expression.NewObjectExpression;
@@ -956,6 +957,7 @@ public class QueryToSQLMapper extends AbstractExpressionEvaluator implements Que
             compileComponent = CompilationComponent.UPDATE;
             Expression[] updateExprs = compilation.getExprUpdate();
             SQLExpression[] updateSqlExprs = new SQLExpression[updateExprs.length];
+            JavaTypeMapping[] updateMappings = new JavaTypeMapping[updateExprs.length];
             // TODO If the field being set is in a different table omit it
             boolean performingUpdate = false;
             for (int i=0;i<updateExprs.length;i++)
@@ -1041,6 +1043,7 @@ public class QueryToSQLMapper extends AbstractExpressionEvaluator implements Que
                     if (rightSqlExpr != null)
                     {
                         updateSqlExprs[i] = leftSqlExpr.eq(rightSqlExpr);
+                        updateMappings[i] = leftSqlExpr.getJavaTypeMapping();
                     }
                 }
             }
@@ -1067,6 +1070,10 @@ public class QueryToSQLMapper extends AbstractExpressionEvaluator implements Que
                         updateSqlExprs = new SQLExpression[oldArray.length+1];
                         System.arraycopy(oldArray, 0, updateSqlExprs, 0, oldArray.length);
                         updateSqlExprs[oldArray.length] = updateSqlExpr;
+                        JavaTypeMapping[] oldMappings = updateMappings;
+                        updateMappings = new JavaTypeMapping[oldMappings.length+1];
+                        System.arraycopy(oldMappings, 0, updateMappings, 0, oldMappings.length);
+                        updateMappings[oldMappings.length] = verMapping;
                         performingUpdate = true;
                     }
                     else if (vermd.getVersionStrategy() == VersionStrategy.DATE_TIME)
@@ -1083,6 +1090,10 @@ public class QueryToSQLMapper extends AbstractExpressionEvaluator implements Que
                         updateSqlExprs = new SQLExpression[oldArray.length+1];
                         System.arraycopy(oldArray, 0, updateSqlExprs, 0, oldArray.length);
                         updateSqlExprs[oldArray.length] = updateSqlExpr;
+                        JavaTypeMapping[] oldMappings = updateMappings;
+                        updateMappings = new JavaTypeMapping[oldMappings.length+1];
+                        System.arraycopy(oldMappings, 0, updateMappings, 0, oldMappings.length);
+                        updateMappings[oldMappings.length] = verMapping;
                         performingUpdate = true;
                     }
                 }
@@ -1091,7 +1102,7 @@ public class QueryToSQLMapper extends AbstractExpressionEvaluator implements Que
             if (performingUpdate)
             {
                 // Only set the updates component of the SQLStatement if anything to update in this table
-                stmt.setUpdates(updateSqlExprs);
+                stmt.setUpdates(updateSqlExprs, updateMappings);
             }
         }
         compileComponent = null;
@@ -4700,15 +4711,14 @@ public class QueryToSQLMapper extends AbstractExpressionEvaluator implements Que
         if (right instanceof CollectionExpression || right instanceof org.datanucleus.store.rdbms.sql.expression.ArrayExpression)
         {
             // myElement IN myCollection
-            if (right.getParameterName() != null)
-            {
-                setNotPrecompilable();
-            }
-
             // Use Collection.contains(element)/Array.contains(element)
             List<SQLExpression> sqlExprArgs = new ArrayList();
             sqlExprArgs.add(left);
             SQLExpression sqlExpr = right.invoke("contains", sqlExprArgs);
+            if (right.getParameterName() != null && !(sqlExpr instanceof InArrayParameterExpression))
+            {
+                setNotPrecompilable();
+            }
             stack.push(sqlExpr);
             return sqlExpr;
         }
@@ -4739,15 +4749,14 @@ public class QueryToSQLMapper extends AbstractExpressionEvaluator implements Que
         if (right instanceof CollectionExpression)
         {
             // myElement IN myCollection
-            if (right.getParameterName() != null)
-            {
-                setNotPrecompilable();
-            }
-
             // Use !Collection.contains(element)
             List<SQLExpression> sqlExprArgs = new ArrayList();
             sqlExprArgs.add(left);
             SQLExpression sqlExpr = right.invoke("contains", sqlExprArgs);
+            if (right.getParameterName() != null && !(sqlExpr instanceof InArrayParameterExpression))
+            {
+                setNotPrecompilable();
+            }
             sqlExpr.not();
             stack.push(sqlExpr);
             return sqlExpr;
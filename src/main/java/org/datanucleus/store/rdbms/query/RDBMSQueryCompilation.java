@@ -40,6 +40,9 @@ public class RDBMSQueryCompilation
     /** Map of input parameter name keyed by its position. Only for SELECT queries. */
     Map<Integer, String> inputParameterNameByPosition;
 
+    /** Binder for the input parameters, created when first required. */
+    volatile StatementParameterBinder parameterBinder;
+
     /** Result mappings when the result is for a candidate (can be null). Only for SELECT queries. */
     StatementClassMapping resultsDefinitionForClass = null;
 
@@ -162,6 +165,7 @@ public class RDBMSQueryCompilation
     public void setStatementParameters(List<SQLStatementParameter> params)
     {
         this.inputParameters = params;
+        this.parameterBinder = null;
     }
 
     public List<SQLStatementParameter> getStatementParameters()
@@ -172,6 +176,7 @@ public class RDBMSQueryCompilation
     public void setParameterNameByPosition(Map<Integer, String> paramNameByPos)
     {
         this.inputParameterNameByPosition = paramNameByPos;
+        this.parameterBinder = null;
     }
 
     public Map<Integer, String> getParameterNameByPosition()
@@ -179,6 +184,25 @@ public class RDBMSQueryCompilation
         return inputParameterNameByPosition;
     }
 
+    /**
+     * Accessor for the binder of the input parameters, precomputed from the parameters (and their positions) so that
+     * each execution of the compilation can apply the parameter values directly.
+     * @param useParameterPositions Whether numbered parameter values are resolved using the parameter name by position
+     * @return The binder
+     */
+    public StatementParameterBinder getParameterBinder(boolean useParameterPositions)
+    {
+        Map<Integer, String> paramNameByPos = useParameterPositions ? inputParameterNameByPosition : null;
+        StatementParameterBinder binder = parameterBinder;
+        if (binder == null || binder.getParameterNameByPosition() != paramNameByPos)
+        {
+            // Benign race; any thread creating it creates an equivalent binder
+            binder = new StatementParameterBinder(inputParameters, paramNameByPos);
+            parameterBinder = binder;
+        }
+        return binder;
+    }
+
     public void setSCOIteratorStatement(String memberName, IteratorStatement iterStmt)
     {
         if (scoIteratorStatementByMemberName == null)
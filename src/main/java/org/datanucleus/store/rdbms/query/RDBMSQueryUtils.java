@@ -17,15 +17,20 @@ Contributors:
 **********************************************************************/
 package org.datanucleus.store.rdbms.query;
 
+import java.lang.reflect.Modifier;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.ExecutionContext;
@@ -43,6 +48,7 @@ import org.datanucleus.store.rdbms.adapter.DatastoreAdapter;
 import org.datanucleus.store.rdbms.identifier.DatastoreIdentifier;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
 import org.datanucleus.store.query.Query;
+import org.datanucleus.store.rdbms.ConnectionFactoryImpl;
 import org.datanucleus.store.rdbms.RDBMSPropertyNames;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
 import org.datanucleus.store.rdbms.SQLController;
@@ -50,10 +56,12 @@ import org.datanucleus.store.rdbms.sql.DiscriminatorStatementGenerator;
 import org.datanucleus.store.rdbms.sql.SQLStatement;
 import org.datanucleus.store.rdbms.sql.SelectStatement;
 import org.datanucleus.store.rdbms.sql.SelectStatementGenerator;
+import org.datanucleus.store.rdbms.sql.TypeIndicatorStatementGenerator;
 import org.datanucleus.store.rdbms.sql.UnionStatementGenerator;
 import org.datanucleus.store.rdbms.sql.expression.StringLiteral;
 import org.datanucleus.store.rdbms.table.DatastoreClass;
 import org.datanucleus.store.schema.table.SurrogateColumnType;
+import org.datanucleus.transaction.TransactionIsolation;
 import org.datanucleus.util.ClassUtils;
 import org.datanucleus.util.Localiser;
 import org.datanucleus.util.NucleusLogger;
@@ -71,6 +79,9 @@ public class RDBMSQueryUtils extends QueryUtils
     public static final String QUERY_RESULTSET_CONCURRENCY_READONLY = "read-only";
     public static final String QUERY_RESULTSET_CONCURRENCY_UPDATEABLE = "updateable";
 
+    /** Extension set on a query while executed by executeColumnar, giving the batch size of the columnar result to create. */
+    static final String EXTENSION_COLUMNAR_BATCH_SIZE = "datanucleus.rdbms.query.columnarBatchSize";
+
     /**
      * Convenience method that takes a result set that contains a discriminator column and returns the class name that it represents.
      * @param discrimMapping Mapping for the discriminator column
@@ -173,6 +184,140 @@ public class RDBMSQueryUtils extends QueryUtils
     	return query.getExecutionContext().getSerializeReadForClass(query.getCandidateClassName());
     }
 
+    /**
+     * Convenience method to execute a query asynchronously, on the threads of the store manager's AsyncQueryExecutor.
+     * Cancelling the returned future cancels the query (and hence its JDBC statement).
+     * @param query The query
+     * @param parameters Map of parameter values keyed by the parameter name or position (or null if no parameters)
+     * @return Future for the result of the query
+     * @throws NucleusUserException if the ExecutionContext of the query is not multithreaded, or its transaction is active
+     */
+    public static CompletableFuture<Object> executeAsync(Query query, Map parameters)
+    {
+        return ((RDBMSStoreManager)query.getStoreManager()).getComponent(AsyncQueryExecutor.class).execute(query, parameters);
+    }
+
+    /**
+     * Convenience method to return whether the candidates of a query can be returned as a read-only projection of the
+     * candidate class. Requires that the candidate class can be instantiated, and that the query can't return objects of
+     * subclasses (since only the members of the candidate class are selected, so we couldn't create the subclass objects).
+     * @param query The query
+     * @return Whether a read-only projection of the candidate is supported
+     */
+    public static boolean supportsReadOnlyCandidateProjection(Query query)
+    {
+        Class candidateClass = query.getCandidateClass();
+        if (candidateClass == null || Modifier.isAbstract(candidateClass.getModifiers()))
+        {
+            return false;
+        }
+        if (query.isSubclasses())
+        {
+            Collection<String> subclassNames = query.getStoreManager().getSubClassesForClass(candidateClass.getName(), false,
+                query.getExecutionContext().getClassLoaderResolver());
+            if (subclassNames != null && !subclassNames.isEmpty())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Convenience method to return the connection to use for executing a query. This is the connection of the ExecutionContext,
+     * unless the query is being executed asynchronously, in which case it is the connection of the AsyncQueryExecutor thread,
+     * or the query is to be executed on a replica (see {@link #getReplicaConnectionForQuery(Query)}).
+     * @param query The query
+     * @return The connection
+     */
+    public static ManagedConnection getConnectionForQuery(Query query)
+    {
+        RDBMSStoreManager storeMgr = (RDBMSStoreManager)query.getStoreManager();
+        ManagedConnection mconn = storeMgr.getComponent(AsyncQueryExecutor.class).getConnectionForCurrentThread();
+        if (mconn == null)
+        {
+            mconn = getReplicaConnectionForQuery(query);
+        }
+        return (mconn != null) ? mconn : storeMgr.getConnectionManager().getConnection(query.getExecutionContext());
+    }
+
+    /**
+     * Convenience method to return a connection from a replica for a query marked as read-only using the extension
+     * "datanucleus.rdbms.replica.readOnly". Only applies to SELECT queries outside of a transaction, not returning a columnar
+     * result, and only when replicas are defined. The connection is the query's own, rather than the (non-transactional)
+     * connection of the ExecutionContext, since that can be reused for writes. It is closed when the query releases it.
+     * @param query The query
+     * @return The connection, or null if the query is not to be executed on a replica
+     */
+    private static ManagedConnection getReplicaConnectionForQuery(Query query)
+    {
+        if (query.getType() != Query.QueryType.SELECT || query.getExecutionContext().getTransaction().isActive() ||
+            getColumnarBatchSize(query) > 0 || !query.getBooleanExtensionProperty(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_READ_ONLY, false))
+        {
+            return null;
+        }
+
+        ManagedConnection mconn = ((RDBMSStoreManager)query.getStoreManager()).getConnectionManager().getConnection(TransactionIsolation.NONE);
+        if (!ConnectionFactoryImpl.setUseReplicaForConnection(mconn))
+        {
+            // No replicas defined
+            mconn.close();
+            return null;
+        }
+        return mconn;
+    }
+
+    /**
+     * Convenience method to execute a query returning its results by column, in batches of primitive arrays, rather than
+     * as an object (or Object[]) per row. Supports JDOQL/JPQL queries with a result clause of basic fields, and SQL queries.
+     * The query is executed as by <i>query.executeWithMap(parameters)</i>, so flushes any changes (unless ignoring the cache),
+     * can be cancelled, and applies its range, with the query creating a columnar result from its ResultSet.
+     * The returned result holds the connection until exhausted or closed.
+     * @param query The query
+     * @param parameters Map of parameter values keyed by the parameter name or position (or null if no parameters)
+     * @param batchSize Maximum number of rows in each batch
+     * @return The columnar result, iterating over the batches
+     */
+    public static ColumnarQueryResult executeColumnar(Query query, Map parameters, int batchSize)
+    {
+        if (!(query instanceof JDOQLQuery) && !(query instanceof JPQLQuery) && !(query instanceof SQLQuery))
+        {
+            throw new NucleusUserException(Localiser.msg("052526", query.getLanguage()));
+        }
+        query.compile();
+        if (query.getType() != Query.QueryType.SELECT)
+        {
+            throw new NucleusUserException(Localiser.msg("052527"));
+        }
+
+        Map extensions = query.getExtensions();
+        Map originalExtensions = (extensions != null) ? new HashMap(extensions) : null;
+        query.addExtension(EXTENSION_COLUMNAR_BATCH_SIZE, Integer.valueOf(Math.max(1, batchSize)));
+        Object result = null;
+        try
+        {
+            result = query.executeWithMap((parameters != null) ? parameters : Collections.EMPTY_MAP);
+        }
+        finally
+        {
+            query.setExtensions(originalExtensions);
+        }
+
+        // The columnar result is returned as the only element of a list, unless the query returns a single row
+        return (ColumnarQueryResult)((result instanceof List) ? ((List)result).get(0) : result);
+    }
+
+    /**
+     * Accessor for the batch size of the columnar result to be created by the execution of a query (see executeColumnar).
+     * @param query The query
+     * @return The batch size, or 0 if the query is being executed as normal
+     */
+    static int getColumnarBatchSize(Query query)
+    {
+        Object batchSize = query.getExtension(EXTENSION_COLUMNAR_BATCH_SIZE);
+        return (batchSize instanceof Integer) ? ((Integer)batchSize).intValue() : 0;
+    }
+
     /**
      * Method to create a PreparedStatement for use with the query.
      * @param conn the Connection
@@ -474,6 +619,21 @@ public class RDBMSQueryUtils extends QueryUtils
                         }
                     }
                 }
+                else if (result == null && subclasses && options != null && options.contains(SelectStatementGenerator.OPTION_TWO_PHASE_POLYMORPHIC) &&
+                    TypeIndicatorStatementGenerator.supportsCandidate(storeMgr, clr, cls))
+                {
+                    // No discriminator, so select the type of each candidate using EXISTS subqueries of the subclass tables, and fetch subclass members later
+                    stmtGen = new TypeIndicatorStatementGenerator(storeMgr, clr, cls, candidateAliasId, candidateTableGroupName);
+                    for (String option : options)
+                    {
+                        stmtGen.setOption(option);
+                    }
+                    if (clsMapping != null)
+                    {
+                        clsMapping.setNucleusTypeColumnName(UnionStatementGenerator.DN_TYPE_COLUMN);
+                        clsMapping.setFetchSubclassMembersInBulk(true);
+                    }
+                }
                 else
                 {
                     // No discriminator, so try to identify using UNIONs (hopefully one per class)
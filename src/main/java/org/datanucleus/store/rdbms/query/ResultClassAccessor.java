@@ -0,0 +1,296 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.query;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.datanucleus.util.ClassUtils;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Accessor for creating objects of a result class from the values of a result row, resolved once for the result class
+ * and the result fields rather than for each row. Resolves either
+ * <ul>
+ * <li>a constructor taking the result fields (in order) with compatible types, or</li>
+ * <li>the default constructor, and for each result field a setter <i>setXXX</i>, the field itself (in the class or
+ * a superclass), or a <i>put(Object, Object)</i> method keyed by the result field name</li>
+ * </ul>
+ * and holds each as a MethodHandle, so creating an object is a direct invocation with no reflective lookup.
+ * Where a row can't be applied (e.g a null for a primitive constructor argument, or a value of an incompatible type)
+ * {@link #newInstance(Object[])} returns null so the caller can use the general route for that row.
+ * Accessors are cached per result class (and result fields) so are only resolved once, rather than for each query execution;
+ * see {@link #getAccessor(Class, String[], Class[])}.
+ */
+public class ResultClassAccessor
+{
+    /**
+     * Cache of the accessors of each result class, keyed by the result field names and types. Held against the class
+     * (rather than in a map keyed by the class) so it doesn't prevent the class from being unloaded.
+     */
+    private static final ClassValue<ConcurrentHashMap<String, ResultClassAccessor>> ACCESSORS = new ClassValue<ConcurrentHashMap<String, ResultClassAccessor>>()
+    {
+        protected ConcurrentHashMap<String, ResultClassAccessor> computeValue(Class<?> type)
+        {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final Class resultClass;
+
+    private final String[] fieldNames;
+
+    /** Constructor taking all result fields as an Object[], or null if using the default constructor. */
+    private MethodHandle argumentedConstructor;
+
+    /** Default constructor, when not using an argumented constructor. */
+    private MethodHandle defaultConstructor;
+
+    /** Handle for setting each result field, taking (object, value). Null if the field can't be set. */
+    private MethodHandle[] setters;
+
+    /** Handle for put(Object, Object), used for result fields without a setter or field. */
+    private MethodHandle putMethod;
+
+    /** Which result fields are of a primitive type, so are not set when null. */
+    private boolean[] primitiveSetters;
+
+    /**
+     * Accessor for the (cached) accessor for the specified result class and result fields.
+     * @param resultClass The result class
+     * @param fieldNames Names of the result fields
+     * @param fieldTypes Types of the result fields (or null if not known)
+     * @return The accessor
+     */
+    public static ResultClassAccessor getAccessor(Class resultClass, String[] fieldNames, Class[] fieldTypes)
+    {
+        ConcurrentHashMap<String, ResultClassAccessor> accessors = ACCESSORS.get(resultClass);
+        String key = Arrays.toString(fieldNames) + (fieldTypes != null ? Arrays.toString(fieldTypes) : "");
+        ResultClassAccessor accessor = accessors.get(key);
+        if (accessor == null)
+        {
+            accessor = new ResultClassAccessor(resultClass, fieldNames, fieldTypes);
+            ResultClassAccessor existing = accessors.putIfAbsent(key, accessor);
+            if (existing != null)
+            {
+                accessor = existing;
+            }
+        }
+        return accessor;
+    }
+
+    /**
+     * Constructor, resolving how to create objects of the result class.
+     * @param resultClass The result class
+     * @param fieldNames Names of the result fields
+     * @param fieldTypes Types of the result fields (or null if not known)
+     */
+    public ResultClassAccessor(Class resultClass, String[] fieldNames, Class[] fieldTypes)
+    {
+        this.resultClass = resultClass;
+        this.fieldNames = fieldNames.clone();
+        resolve(fieldTypes);
+    }
+
+    /**
+     * Accessor for whether objects of the result class can be created by this accessor.
+     * @return Whether a constructor was found
+     */
+    public boolean isUsable()
+    {
+        return argumentedConstructor != null || defaultConstructor != null;
+    }
+
+    private void resolve(Class[] fieldTypes)
+    {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        int numFields = fieldNames.length;
+
+        // A. Constructor taking the result fields
+        if (fieldTypes != null && numFields > 0)
+        {
+            Constructor ctr = ClassUtils.getConstructorWithArguments(resultClass, fieldTypes);
+            if (ctr != null)
+            {
+                try
+                {
+                    ctr.setAccessible(true);
+                    argumentedConstructor = lookup.unreflectConstructor(ctr).asSpreader(Object[].class, numFields)
+                            .asType(MethodType.methodType(Object.class, Object[].class));
+                    return;
+                }
+                catch (Exception e)
+                {
+                    NucleusLogger.QUERY.debug("Unable to use constructor " + ctr + " for result class : " + e.getMessage());
+                }
+            }
+        }
+
+        // B. Default constructor and setters/fields/put method
+        try
+        {
+            Constructor ctr = resultClass.getDeclaredConstructor();
+            ctr.setAccessible(true);
+            defaultConstructor = lookup.unreflectConstructor(ctr).asType(MethodType.methodType(Object.class));
+        }
+        catch (Exception e)
+        {
+            NucleusLogger.QUERY.debug("Result class " + resultClass.getName() + " has no usable default constructor, so can't be created by an accessor");
+            return;
+        }
+
+        setters = new MethodHandle[numFields];
+        primitiveSetters = new boolean[numFields];
+        MethodType setterType = MethodType.methodType(void.class, Object.class, Object.class);
+        for (int i=0;i<numFields;i++)
+        {
+            String fieldName = fieldNames[i];
+            if (fieldName == null || Map.class.isAssignableFrom(resultClass))
+            {
+                // Map result classes only use the put method
+                continue;
+            }
+
+            Method setter = getSetterForField(fieldName);
+            try
+            {
+                if (setter != null)
+                {
+                    setter.setAccessible(true);
+                    setters[i] = lookup.unreflect(setter).asType(setterType);
+                    primitiveSetters[i] = setter.getParameterTypes()[0].isPrimitive();
+                    continue;
+                }
+
+                Field field = getFieldForField(fieldName);
+                if (field != null)
+                {
+                    field.setAccessible(true);
+                    setters[i] = lookup.unreflectSetter(field).asType(setterType);
+                    primitiveSetters[i] = field.getType().isPrimitive();
+                }
+            }
+            catch (Exception e)
+            {
+                NucleusLogger.QUERY.debug("Unable to set result field " + fieldName + " of " + resultClass.getName() + " directly : " + e.getMessage());
+            }
+        }
+
+        try
+        {
+            Method put = resultClass.getMethod("put", new Class[] {Object.class, Object.class});
+            putMethod = lookup.unreflect(put).asType(MethodType.methodType(void.class, Object.class, Object.class, Object.class));
+        }
+        catch (Exception e)
+        {
+            // No put method
+        }
+    }
+
+    /**
+     * Method to create an object of the result class from the values of a result row.
+     * @param fieldValues Values of the result fields (in the order of the result field names)
+     * @return The object, or null if it couldn't be created from these values
+     */
+    public Object newInstance(Object[] fieldValues)
+    {
+        try
+        {
+            if (argumentedConstructor != null)
+            {
+                return argumentedConstructor.invokeExact(fieldValues);
+            }
+
+            Object obj = defaultConstructor.invokeExact();
+            for (int i=0;i<setters.length;i++)
+            {
+                if (setters[i] != null)
+                {
+                    if (fieldValues[i] != null || !primitiveSetters[i])
+                    {
+                        setters[i].invokeExact(obj, fieldValues[i]);
+                    }
+                }
+                else if (putMethod != null && fieldNames[i] != null)
+                {
+                    putMethod.invokeExact(obj, (Object)fieldNames[i], fieldValues[i]);
+                }
+                else
+                {
+                    // No way of setting this field
+                    return null;
+                }
+            }
+            return obj;
+        }
+        catch (Throwable thr)
+        {
+            if (thr instanceof Error && !(thr instanceof LinkageError))
+            {
+                throw (Error)thr;
+            }
+            if (NucleusLogger.QUERY.isDebugEnabled())
+            {
+                NucleusLogger.QUERY.debug("Unable to create result object of type " + resultClass.getName() + " directly from the row values : " + thr);
+            }
+            return null;
+        }
+    }
+
+    private Method getSetterForField(String fieldName)
+    {
+        String setterName = "set" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+        Method[] methods = resultClass.getMethods();
+        for (int i=0;i<methods.length;i++)
+        {
+            if (methods[i].getParameterTypes().length == 1 && !Modifier.isStatic(methods[i].getModifiers()) &&
+                methods[i].getName().equals(setterName))
+            {
+                return methods[i];
+            }
+        }
+        return null;
+    }
+
+    private Field getFieldForField(String fieldName)
+    {
+        Class cls = resultClass;
+        while (cls != null)
+        {
+            Field[] fields = cls.getDeclaredFields();
+            for (int i=0;i<fields.length;i++)
+            {
+                if (!fields[i].isSynthetic() && !Modifier.isStatic(fields[i].getModifiers()) && !Modifier.isFinal(fields[i].getModifiers()) &&
+                    fields[i].getName().equals(fieldName))
+                {
+                    return fields[i];
+                }
+            }
+            cls = cls.getSuperclass();
+        }
+        return null;
+    }
+}
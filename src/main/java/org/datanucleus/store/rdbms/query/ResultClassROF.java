@@ -32,6 +32,9 @@ import org.datanucleus.exceptions.NucleusException;
 import org.datanucleus.exceptions.NucleusUserException;
 import org.datanucleus.metadata.AbstractClassMetaData;
 import org.datanucleus.query.QueryUtils;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.mapping.java.MultiPersistableMapping;
+import org.datanucleus.store.rdbms.mapping.java.PersistableMapping;
 import org.datanucleus.util.ClassUtils;
 import org.datanucleus.util.Localiser;
 import org.datanucleus.util.NucleusLogger;
@@ -56,6 +59,11 @@ import org.datanucleus.util.StringUtils;
  * The first is where a candidate class is available, and consequently field position mappings are available. 
  * The second is where no candidate class is available and so only the field names are available, and the results are taken in ResultSet order.
  * These 2 modes have their own constructor.
+ * <P>
+ * When set as a read-only projection, objects of a user-defined result class are created using the (cached) {@link ResultClassAccessor}
+ * for the result class, so that no ObjectProviders are created and nothing is added to the L1 cache. This can be used with the
+ * candidate class as the result class, giving unmanaged (transient) objects of the candidate class. A read-only projection can't
+ * include persistable objects (e.g 1-1/N-1 relation members) since these would be managed, so is rejected when it does.
  */
 public class ResultClassROF extends AbstractROF
 {
@@ -76,6 +84,12 @@ public class ResultClassROF extends AbstractROF
     /** Map of the ResultClass Fields, keyed by the field names (only for user-defined result classes). */
     private final Map resultClassFieldsByName = new HashMap();
 
+    /** Whether the results are a read-only projection, so objects are created directly with no managed relations. */
+    private boolean readOnlyProjection = false;
+
+    /** Accessor for creating objects of the result class, when a read-only projection. Created for the first row. */
+    private ResultClassAccessor accessor = null;
+
     /**
      * Constructor for a resultClass object factory where we have a result clause specified.
      * @param ec ExecutionContext
@@ -239,6 +253,47 @@ public class ResultClassROF extends AbstractROF
         }
     }
 
+    /**
+     * Method to set whether the results are a read-only projection. If set then objects of a user-defined result class are
+     * created directly from the row values (it has no effect for other result classes, e.g Object[]).
+     * @param readOnly Whether a read-only projection
+     * @throws NucleusUserException if the results include persistable objects, which can't be part of a read-only projection
+     */
+    public void setReadOnlyProjection(boolean readOnly)
+    {
+        if (readOnly && QueryUtils.resultClassIsUserType(resultClass.getName()))
+        {
+            if (stmtMappings != null)
+            {
+                for (int i=0;i<stmtMappings.length;i++)
+                {
+                    if (stmtMappings[i] != null && isPersistableMapping(stmtMappings[i].getMapping()))
+                    {
+                        throw new NucleusUserException(Localiser.msg("052524", resultClass.getName(), stmtMappings[i].getMapping().getMemberMetaData().getFullFieldName()));
+                    }
+                }
+            }
+            if (resultDefinition != null)
+            {
+                for (int i=0;i<resultDefinition.getNumberOfResultExpressions();i++)
+                {
+                    Object stmtMap = resultDefinition.getMappingForResultExpression(i);
+                    if (stmtMap instanceof StatementClassMapping ||
+                        (stmtMap instanceof StatementMappingIndex && isPersistableMapping(((StatementMappingIndex)stmtMap).getMapping())))
+                    {
+                        throw new NucleusUserException(Localiser.msg("052524", resultClass.getName(), resultFieldNames[i]));
+                    }
+                }
+            }
+        }
+        this.readOnlyProjection = readOnly;
+    }
+
+    private static boolean isPersistableMapping(JavaTypeMapping mapping)
+    {
+        return mapping instanceof PersistableMapping || mapping instanceof MultiPersistableMapping;
+    }
+
     /**
      * Method to convert the ResultSet row into an Object of the ResultClass type. 
      * We have a special handling for "result" expressions when they include literals or "new Object()" expression due to
@@ -351,6 +406,23 @@ public class ResultClassROF extends AbstractROF
                 return fieldValues[0];
             }
 
+            if (readOnlyProjection && resultFieldNames != null)
+            {
+                // Create the object directly, using the accessor for this result class
+                if (accessor == null)
+                {
+                    accessor = ResultClassAccessor.getAccessor(resultClass, resultFieldNames, resultFieldTypes);
+                }
+                if (accessor.isUsable())
+                {
+                    Object obj = accessor.newInstance(fieldValues);
+                    if (obj != null)
+                    {
+                        return obj;
+                    }
+                }
+            }
+
             // A. Find a constructor with the correct constructor arguments
             Object obj = QueryUtils.createResultObjectUsingArgumentedConstructor(resultClass, fieldValues, resultFieldTypes);
             if (obj != null)
@@ -29,6 +29,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -583,7 +584,7 @@ public final class SQLQuery extends Query
             try
             {
                 RDBMSStoreManager storeMgr = (RDBMSStoreManager)getStoreManager();
-                ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+                ManagedConnection mconn = RDBMSQueryUtils.getConnectionForQuery(this);
                 SQLController sqlControl = storeMgr.getSQLController();
 
                 try
@@ -620,10 +621,11 @@ public final class SQLQuery extends Query
         {
             // Query statement (SELECT, stored-procedure)
             AbstractRDBMSQueryResult qr = null;
+            List<ColumnarQueryResult> columnarResult = null;
             try
             {
                 RDBMSStoreManager storeMgr = (RDBMSStoreManager)getStoreManager();
-                ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+                ManagedConnection mconn = RDBMSQueryUtils.getConnectionForQuery(this);
                 SQLController sqlControl = storeMgr.getSQLController();
 
                 try
@@ -640,7 +642,22 @@ public final class SQLQuery extends Query
                         // Apply any user-specified constraints over timeouts and ResultSet
                         RDBMSQueryUtils.prepareStatementForExecution(ps, this, true);
 
-                        ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, compiledSQL, ps);
+                        registerTask(ps);
+                        ResultSet rs = null;
+                        try
+                        {
+                            rs = sqlControl.executeStatementQuery(ec, mconn, compiledSQL, ps);
+                        }
+                        finally
+                        {
+                            deregisterTask();
+                        }
+                        if (RDBMSQueryUtils.getColumnarBatchSize(this) > 0)
+                        {
+                            // Read the results by column, in batches
+                            columnarResult = ColumnarQueryResult.getQueryResult(this, ps, rs, null);
+                            return columnarResult;
+                        }
                         try
                         {
                             // Generate a ResultObjectFactory
@@ -706,7 +723,7 @@ public final class SQLQuery extends Query
                     }
                     finally
                     {
-                        if (qr == null)
+                        if (qr == null && columnarResult == null)
                         {
                             sqlControl.closeStatement(mconn, ps);
                         }
@@ -729,7 +746,7 @@ public final class SQLQuery extends Query
             try
             {
                 RDBMSStoreManager storeMgr = (RDBMSStoreManager)getStoreManager();
-                ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+                ManagedConnection mconn = RDBMSQueryUtils.getConnectionForQuery(this);
                 SQLController sqlControl = storeMgr.getSQLController();
 
                 try
@@ -1000,6 +1017,21 @@ public final class SQLQuery extends Query
         // We support cancel via JDBC PreparedStatement.cancel();
     }
 
+    protected boolean cancelTaskObject(Object obj)
+    {
+        Statement ps = (Statement)obj;
+        try
+        {
+            ps.cancel();
+            return true;
+        }
+        catch (SQLException sqle)
+        {
+            NucleusLogger.DATASTORE_RETRIEVE.warn("Error cancelling query", sqle);
+            return false;
+        }
+    }
+
     protected boolean supportsTimeout()
     {
         return true;
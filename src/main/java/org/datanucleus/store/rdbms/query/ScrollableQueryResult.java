@@ -272,14 +272,22 @@ public final class ScrollableQueryResult<E> extends AbstractRDBMSQueryResult<E>
     /**
      * Method to close the results, making the results unusable thereafter.
      */
-    public synchronized void close()
+    public void close()
     {
-        if (resultsObjsByIndex != null)
+        resultsLock.lock();
+        try
         {
-            resultsObjsByIndex.clear();
-        }
+            if (resultsObjsByIndex != null)
+            {
+                resultsObjsByIndex.clear();
+            }
 
-        super.close();
+            super.close();
+        }
+        finally
+        {
+            resultsLock.unlock();
+        }
     }
 
     /**
@@ -368,7 +376,8 @@ public final class ScrollableQueryResult<E> extends AbstractRDBMSQueryResult<E>
 
         public boolean hasNext()
         {
-            synchronized (ScrollableQueryResult.this)
+            resultsLock.lock();
+            try
             {
                 if (!isOpen())
                 {
@@ -396,11 +405,16 @@ public final class ScrollableQueryResult<E> extends AbstractRDBMSQueryResult<E>
                 // When we are at at "size()-1" we have one more element
                 return (iterRowNum <= (theSize - 1));
             }
+            finally
+            {
+                resultsLock.unlock();
+            }
         }
 
         public boolean hasPrevious()
         {
-            synchronized (ScrollableQueryResult.this)
+            resultsLock.lock();
+            try
             {
                 if (!isOpen())
                 {
@@ -417,11 +431,16 @@ public final class ScrollableQueryResult<E> extends AbstractRDBMSQueryResult<E>
                 // row 0 means no earlier
                 return (iterRowNum > 0);
             }
+            finally
+            {
+                resultsLock.unlock();
+            }
         }
 
         public E next()
         {
-            synchronized (ScrollableQueryResult.this)
+            resultsLock.lock();
+            try
             {
                 if (!isOpen())
                 {
@@ -438,6 +457,10 @@ public final class ScrollableQueryResult<E> extends AbstractRDBMSQueryResult<E>
                 iterRowNum++;
                 return obj;
             }
+            finally
+            {
+                resultsLock.unlock();
+            }
         }
 
         public int nextIndex()
@@ -455,7 +478,8 @@ public final class ScrollableQueryResult<E> extends AbstractRDBMSQueryResult<E>
 
         public E previous()
         {
-            synchronized (ScrollableQueryResult.this)
+            resultsLock.lock();
+            try
             {
                 if (!isOpen())
                 {
@@ -471,6 +495,10 @@ public final class ScrollableQueryResult<E> extends AbstractRDBMSQueryResult<E>
                 iterRowNum--;
                 return getObjectForIndex(iterRowNum);
             }
+            finally
+            {
+                resultsLock.unlock();
+            }
         }
 
         public int previousIndex()
@@ -502,14 +530,22 @@ public final class ScrollableQueryResult<E> extends AbstractRDBMSQueryResult<E>
      * @param index The index of the element
      * @return The element at index
      */
-    public synchronized E get(int index)
+    public E get(int index)
     {
-        assertIsOpen();
-        if (index < 0 || index >= size())
+        resultsLock.lock();
+        try
+        {
+            assertIsOpen();
+            if (index < 0 || index >= size())
+            {
+                throw new IndexOutOfBoundsException();
+            }
+            return getObjectForIndex(index + startIndex);
+        }
+        finally
         {
-            throw new IndexOutOfBoundsException();
+            resultsLock.unlock();
         }
-        return getObjectForIndex(index + startIndex);
     }
 
     /**
@@ -72,6 +72,9 @@ public class StatementClassMapping
     /** Name of a DN_TYPE column if used in this query for determining this class. Null otherwise. */
     String dnTypeColumn;
 
+    /** Whether members of subclasses of this class are not selected, and are to be fetched in bulk when first accessed. */
+    boolean fetchSubclassMembersInBulk = false;
+
     /** Numbers of fields/properties defined in the statement. */
     int[] memberNumbers;
 
@@ -112,6 +115,16 @@ public class StatementClassMapping
         return dnTypeColumn;
     }
 
+    public void setFetchSubclassMembersInBulk(boolean flag)
+    {
+        this.fetchSubclassMembersInBulk = flag;
+    }
+
+    public boolean isFetchSubclassMembersInBulk()
+    {
+        return fetchSubclassMembersInBulk;
+    }
+
     /**
      * Accessor for the mapping information for the member at the specified position.
      * Member positions start at 0 (first member in the root persistent class).
@@ -0,0 +1,244 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.query;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.store.rdbms.mapping.MappingHelper;
+import org.datanucleus.store.rdbms.mapping.datastore.BigIntRDBMSMapping;
+import org.datanucleus.store.rdbms.mapping.datastore.DatastoreMapping;
+import org.datanucleus.store.rdbms.mapping.datastore.DoubleRDBMSMapping;
+import org.datanucleus.store.rdbms.mapping.datastore.IntegerRDBMSMapping;
+import org.datanucleus.store.rdbms.mapping.java.DoubleMapping;
+import org.datanucleus.store.rdbms.mapping.java.IntegerMapping;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.mapping.java.LongMapping;
+import org.datanucleus.store.rdbms.mapping.java.SingleFieldMapping;
+import org.datanucleus.store.rdbms.sql.SQLStatementHelper;
+import org.datanucleus.store.rdbms.sql.SQLStatementParameter;
+
+/**
+ * Binder for the input parameters of a query compilation, applying the parameter values to the PreparedStatement.
+ * Everything that doesn't depend on the values is calculated once when the binder is created: the key to look up in the
+ * parameter values for each JDBC position, and how to set the value. Parameters of a single-column basic mapping have their
+ * datastore mapping and indices precomputed, and Integer/Long/Double values for INTEGER/BIGINT/DOUBLE columns are set
+ * directly using the primitive setter.
+ * <p>
+ * Binding gives the same result as {@link SQLStatementHelper#applyParametersToStatement}; where the parameter values are
+ * keyed in a way that can't be resolved up front (numbered values for named parameters without positions), or a parameter
+ * needs the generic handling (persistable, multi-column, ARRAY) it falls back to that method.
+ * </p>
+ */
+public class StatementParameterBinder
+{
+    /** Apply all values using the generic method of SQLStatementHelper. */
+    private static final byte SETTER_GENERIC = 0;
+
+    /** Apply as a whole object using the single datastore mapping. */
+    private static final byte SETTER_OBJECT = 1;
+
+    /** As SETTER_OBJECT but using setInt/setLong for Integer/Long values. */
+    private static final byte SETTER_INT_LONG = 2;
+
+    /** As SETTER_OBJECT but using setDouble for Double values. */
+    private static final byte SETTER_DOUBLE = 3;
+
+    private final List<SQLStatementParameter> parameters;
+
+    private final Map<Integer, String> paramNameByPosition;
+
+    /** The parameter at each JDBC position (index 0 being position 1). */
+    private final SQLStatementParameter[] params;
+
+    /** Name of the parameter at each position, for looking up named values. */
+    private final String[] names;
+
+    /** Key to look up when the value is not keyed by the name (or null if none). */
+    private final Integer[] numberedKeys;
+
+    /** Whether the value of each position has to be resolved by the generic method when not keyed by name. */
+    private final boolean[] requiresLookup;
+
+    /** How to set the value at each position. */
+    private final byte[] setters;
+
+    /** Datastore mapping for each position set using a precomputed setter, otherwise null. */
+    private final DatastoreMapping[] datastoreMappings;
+
+    /** Indices for mapping.setObject for each position set using a precomputed setter, otherwise null. */
+    private final int[][] mappingIndices;
+
+    /**
+     * Constructor, precomputing the binding of the parameters.
+     * @param parameters The parameters, in the order they appear in the SQL (or null if none)
+     * @param paramNameByPosition Optional map of parameter names keyed by the position
+     */
+    public StatementParameterBinder(List<SQLStatementParameter> parameters, Map<Integer, String> paramNameByPosition)
+    {
+        this.parameters = parameters;
+        this.paramNameByPosition = paramNameByPosition;
+
+        int numParams = (parameters != null) ? parameters.size() : 0;
+        params = new SQLStatementParameter[numParams];
+        names = new String[numParams];
+        numberedKeys = new Integer[numParams];
+        requiresLookup = new boolean[numParams];
+        setters = new byte[numParams];
+        datastoreMappings = new DatastoreMapping[numParams];
+        mappingIndices = new int[numParams][];
+
+        // Distinct names in the order of their positions, so the numbered key is the index of the name
+        List<String> distinctNames = null;
+        if (paramNameByPosition != null)
+        {
+            distinctNames = new ArrayList<>();
+            for (String paramName : paramNameByPosition.values())
+            {
+                if (!distinctNames.contains(paramName))
+                {
+                    distinctNames.add(paramName);
+                }
+            }
+        }
+
+        for (int i=0;i<numParams;i++)
+        {
+            SQLStatementParameter param = parameters.get(i);
+            params[i] = param;
+            names[i] = param.getName();
+            if (distinctNames != null)
+            {
+                int index = distinctNames.indexOf(param.getName());
+                numberedKeys[i] = (index >= 0) ? Integer.valueOf(index) : null;
+            }
+            else
+            {
+                try
+                {
+                    numberedKeys[i] = Integer.valueOf(param.getName());
+                }
+                catch (NumberFormatException nfe)
+                {
+                    requiresLookup[i] = true;
+                }
+            }
+
+            JavaTypeMapping mapping = param.getMapping();
+            if (param.getArrayElementTypeName() == null && param.getColumnNumber() < 0 && mapping instanceof SingleFieldMapping &&
+                mapping.getNumberOfDatastoreMappings() == 1)
+            {
+                DatastoreMapping dsMapping = mapping.getDatastoreMapping(0);
+                if ((mapping instanceof IntegerMapping || mapping instanceof LongMapping) &&
+                    (dsMapping instanceof IntegerRDBMSMapping || dsMapping instanceof BigIntRDBMSMapping))
+                {
+                    setters[i] = SETTER_INT_LONG;
+                }
+                else if (mapping instanceof DoubleMapping && dsMapping instanceof DoubleRDBMSMapping)
+                {
+                    setters[i] = SETTER_DOUBLE;
+                }
+                else
+                {
+                    setters[i] = SETTER_OBJECT;
+                }
+                datastoreMappings[i] = dsMapping;
+                mappingIndices[i] = MappingHelper.getMappingIndices(i+1, mapping);
+            }
+            else
+            {
+                setters[i] = SETTER_GENERIC;
+            }
+        }
+    }
+
+    public Map<Integer, String> getParameterNameByPosition()
+    {
+        return paramNameByPosition;
+    }
+
+    /**
+     * Method to apply the parameter values to the provided statement.
+     * @param ps The prepared statement
+     * @param ec ExecutionContext
+     * @param paramValues Value of parameter keyed by name (or position)
+     */
+    public void applyParametersToStatement(PreparedStatement ps, ExecutionContext ec, Map paramValues)
+    {
+        for (int i=0;i<params.length;i++)
+        {
+            Object value;
+            if (paramValues.containsKey(names[i]))
+            {
+                value = paramValues.get(names[i]);
+            }
+            else if (requiresLookup[i])
+            {
+                // Values are numbered but the parameters only have names, so the numbering depends on the values supplied
+                SQLStatementHelper.applyParametersToStatement(ps, ec, parameters, paramNameByPosition, paramValues);
+                return;
+            }
+            else
+            {
+                value = (numberedKeys[i] != null) ? paramValues.get(numberedKeys[i]) : null;
+            }
+
+            int num = i+1;
+            byte setter = setters[i];
+            if (setter != SETTER_GENERIC && value != null && ec.getApiAdapter().isPersistable(value))
+            {
+                // Persistable passed for a basic parameter, so leave the handling of its state to the generic method
+                setter = SETTER_GENERIC;
+            }
+            switch (setter)
+            {
+                case SETTER_INT_LONG:
+                    if (value instanceof Integer)
+                    {
+                        datastoreMappings[i].setInt(ps, num, ((Integer)value).intValue());
+                        break;
+                    }
+                    else if (value instanceof Long)
+                    {
+                        datastoreMappings[i].setLong(ps, num, ((Long)value).longValue());
+                        break;
+                    }
+                    params[i].getMapping().setObject(ec, ps, mappingIndices[i], value);
+                    break;
+                case SETTER_DOUBLE:
+                    if (value instanceof Double)
+                    {
+                        datastoreMappings[i].setDouble(ps, num, ((Double)value).doubleValue());
+                        break;
+                    }
+                    params[i].getMapping().setObject(ec, ps, mappingIndices[i], value);
+                    break;
+                case SETTER_OBJECT:
+                    params[i].getMapping().setObject(ec, ps, mappingIndices[i], value);
+                    break;
+                default:
+                    // Parameter needs the generic handling, so apply all values using the generic method
+                    SQLStatementHelper.applyParametersToStatement(ps, ec, parameters, paramNameByPosition, paramValues);
+                    return;
+            }
+        }
+    }
+}
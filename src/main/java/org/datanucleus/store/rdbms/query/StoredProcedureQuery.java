@@ -167,7 +167,7 @@ public class StoredProcedureQuery extends AbstractStoredProcedureQuery
         try
         {
             RDBMSStoreManager storeMgr = (RDBMSStoreManager)getStoreManager();
-            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            ManagedConnection mconn = RDBMSQueryUtils.getConnectionForQuery(this);
 
             try
             {
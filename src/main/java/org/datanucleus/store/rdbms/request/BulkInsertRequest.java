@@ -0,0 +1,289 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.request;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.state.ObjectProvider;
+import org.datanucleus.store.connection.ManagedConnection;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.SQLController;
+import org.datanucleus.store.rdbms.adapter.DatastoreAdapter;
+import org.datanucleus.store.rdbms.request.ParameterCapturingStatement.ParameterValue;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Request to insert many objects of the same type into a table, for use when persisting large numbers of objects.
+ * The values of each object are captured from the INSERT of the type (so are exactly those that an INSERT of the object
+ * would use, see ParameterCapturingStatement), and are then inserted using, in order of preference
+ * <ul>
+ * <li>the bulk loading mechanism of the datastore/driver (see DatastoreAdapter.bulkLoad), when all values are plain</li>
+ * <li>INSERT statements with many rows in the VALUES clause, when the datastore supports it</li>
+ * <li>a JDBC batch of the INSERT statement.</li>
+ * </ul>
+ * This is only applicable to a type that has an INSERT with no identity column, no relations, no external FKs,
+ * no mapping callbacks and no streamed (LOB, serialised, File) columns, and whose table has no supertable or secondary
+ * tables. See InsertRequest.getBulkLoadColumnNames.
+ */
+public class BulkInsertRequest extends BulkRequest
+{
+    /** Maximum number of rows in a multi-row INSERT statement. */
+    private static final int MAX_ROWS_PER_INSERT = 1000;
+
+    /** Maximum number of parameters in a multi-row INSERT statement. */
+    private static final int MAX_PARAMETERS_PER_INSERT = 2000;
+
+    private final InsertRequest insertRequest;
+
+    private final String[] columnNames;
+
+    /**
+     * Constructor, taking the table, and the INSERT request for the type of the objects.
+     * @param table The table to insert into
+     * @param insertRequest The INSERT for the type of the objects, that can be bulk loaded
+     */
+    public BulkInsertRequest(DatastoreClass table, InsertRequest insertRequest)
+    {
+        super(table);
+        this.insertRequest = insertRequest;
+        this.columnNames = insertRequest.getBulkLoadColumnNames();
+    }
+
+    /**
+     * Method to insert the objects.
+     * @param ops ObjectProviders of the objects to insert
+     */
+    public void execute(ObjectProvider[] ops)
+    {
+        if (ops == null || ops.length == 0)
+        {
+            return;
+        }
+
+        ExecutionContext ec = ops[0].getExecutionContext();
+        RDBMSStoreManager storeMgr = table.getStoreManager();
+        DatastoreAdapter dba = storeMgr.getDatastoreAdapter();
+        SQLController sqlControl = storeMgr.getSQLController();
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            try
+            {
+                // Make sure any batched statement is executed before these rows
+                sqlControl.processStatementsForConnection(mconn);
+                Connection conn = (Connection) mconn.getConnection();
+
+                // Capture the parameter values that the INSERT of each object would use
+                ParameterCapturingStatement capturingPs = new ParameterCapturingStatement(conn, columnNames.length);
+                for (int i=0;i<ops.length;i++)
+                {
+                    if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+                    {
+                        NucleusLogger.PERSISTENCE.debug(Localiser.msg("052207", ops[i].getObjectAsPrintable(), table));
+                    }
+                    insertRequest.populateStatement(ops[i], capturingPs);
+                    capturingPs.nextRow();
+                }
+
+                List<ParameterValue[]> rows = capturingPs.getRows();
+                List<Object[]> rowValues = getPlainRowValues(rows);
+                if (rowValues != null && dba.bulkLoad(conn, table.toString(), columnNames, rowValues))
+                {
+                    if (NucleusLogger.DATASTORE_PERSIST.isDebugEnabled())
+                    {
+                        NucleusLogger.DATASTORE_PERSIST.debug(Localiser.msg("052230", "" + rows.size(), table, "bulk-load"));
+                    }
+                    if (ec.getStatistics() != null)
+                    {
+                        ec.getStatistics().incrementNumWrites();
+                    }
+                }
+                else if (dba.supportsOption(DatastoreAdapter.MULTI_ROW_INSERT) && rows.size() > 1)
+                {
+                    if (NucleusLogger.DATASTORE_PERSIST.isDebugEnabled())
+                    {
+                        NucleusLogger.DATASTORE_PERSIST.debug(Localiser.msg("052230", "" + rows.size(), table, "multi-row INSERT"));
+                    }
+                    executeMultiRowInsert(ec, sqlControl, mconn, rows);
+                }
+                else
+                {
+                    if (NucleusLogger.DATASTORE_PERSIST.isDebugEnabled())
+                    {
+                        NucleusLogger.DATASTORE_PERSIST.debug(Localiser.msg("052230", "" + rows.size(), table, "batched INSERT"));
+                    }
+                    executeBatchInsert(ec, sqlControl, mconn, rows);
+                }
+
+                // Update the insert status for this table via the StoreManager
+                for (int i=0;i<ops.length;i++)
+                {
+                    storeMgr.setObjectIsInsertedToLevel(ops[i], table);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            String msg = Localiser.msg("052231", "" + ops.length, table, e.getMessage());
+            NucleusLogger.DATASTORE_PERSIST.warn(msg);
+            List exceptions = new ArrayList();
+            exceptions.add(e);
+            while ((e = e.getNextException()) != null)
+            {
+                exceptions.add(e);
+            }
+            throw new NucleusDataStoreException(msg, (Throwable[])exceptions.toArray(new Throwable[exceptions.size()]));
+        }
+    }
+
+    /**
+     * Method to insert the rows using INSERT statements each with many rows in the VALUES clause.
+     * @param ec ExecutionContext
+     * @param sqlControl SQL Controller
+     * @param mconn The connection
+     * @param rows The parameter values of the rows
+     * @throws SQLException if an error occurs
+     */
+    private void executeMultiRowInsert(ExecutionContext ec, SQLController sqlControl, ManagedConnection mconn, List<ParameterValue[]> rows)
+    throws SQLException
+    {
+        String insertStmt = insertRequest.getInsertStatement();
+        String stmtPrefix = insertStmt.substring(0, insertStmt.lastIndexOf(" VALUES (")) + " VALUES ";
+        StringBuilder rowParams = new StringBuilder("(");
+        for (int i=0;i<columnNames.length;i++)
+        {
+            rowParams.append(i > 0 ? ",?" : "?");
+        }
+        rowParams.append(")");
+
+        int rowsPerStmt = Math.max(1, Math.min(MAX_ROWS_PER_INSERT, MAX_PARAMETERS_PER_INSERT / columnNames.length));
+        String stmtText = null;
+        int stmtRows = 0;
+        for (int start=0;start<rows.size();start+=rowsPerStmt)
+        {
+            int numRows = Math.min(rowsPerStmt, rows.size() - start);
+            if (numRows != stmtRows)
+            {
+                StringBuilder str = new StringBuilder(stmtPrefix);
+                for (int i=0;i<numRows;i++)
+                {
+                    str.append(i > 0 ? "," : "").append(rowParams);
+                }
+                stmtText = str.toString();
+                stmtRows = numRows;
+            }
+
+            PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, stmtText, false);
+            try
+            {
+                for (int i=0;i<numRows;i++)
+                {
+                    setRowOnStatement(ps, rows.get(start + i), i * columnNames.length);
+                }
+                sqlControl.executeStatementUpdate(ec, mconn, stmtText, ps, true);
+            }
+            finally
+            {
+                sqlControl.closeStatement(mconn, ps);
+            }
+        }
+    }
+
+    /**
+     * Method to insert the rows using JDBC batches of the INSERT statement. The statements are batched by the SQLController,
+     * so each batch is at most "datanucleus.rdbms.statementBatchLimit" rows (or a statement per row where batching is disabled).
+     * @param ec ExecutionContext
+     * @param sqlControl SQL Controller
+     * @param mconn The connection
+     * @param rows The parameter values of the rows
+     * @throws SQLException if an error occurs
+     */
+    private void executeBatchInsert(ExecutionContext ec, SQLController sqlControl, ManagedConnection mconn, List<ParameterValue[]> rows)
+    throws SQLException
+    {
+        String insertStmt = insertRequest.getInsertStatement();
+        for (int i=0;i<rows.size();i++)
+        {
+            PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, insertStmt, true);
+            try
+            {
+                setRowOnStatement(ps, rows.get(i), 0);
+                sqlControl.executeStatementUpdate(ec, mconn, insertStmt, ps, i == rows.size() - 1);
+            }
+            finally
+            {
+                sqlControl.closeStatement(mconn, ps);
+            }
+        }
+    }
+
+    /**
+     * Convenience method to return the values of the rows when every parameter is set from a plain value.
+     * @param rows The parameter values of the rows
+     * @return The values of the rows, or null if any parameter is not set from a plain value
+     */
+    private static List<Object[]> getPlainRowValues(List<ParameterValue[]> rows)
+    {
+        List<Object[]> rowValues = new ArrayList<>(rows.size());
+        for (ParameterValue[] row : rows)
+        {
+            Object[] values = new Object[row.length];
+            for (int i=0;i<row.length;i++)
+            {
+                if (row[i] == null || !row[i].isPlainValue())
+                {
+                    return null;
+                }
+                values[i] = row[i].value;
+            }
+            rowValues.add(values);
+        }
+        return rowValues;
+    }
+
+    /**
+     * Method to set the parameter values of a row on the specified statement.
+     * @param ps The statement
+     * @param row The parameter values of the row
+     * @param paramOffset Offset of the position of the parameters of this row in the statement
+     * @throws SQLException if an error occurs
+     */
+    private static void setRowOnStatement(PreparedStatement ps, ParameterValue[] row, int paramOffset)
+    throws SQLException
+    {
+        for (int i=0;i<row.length;i++)
+        {
+            if (row[i] != null)
+            {
+                row[i].setOnStatement(ps, i + 1 + paramOffset);
+            }
+        }
+    }
+}
@@ -173,6 +173,14 @@ public class DeleteRequest extends Request
         oneToOneNonOwnerFields = consumer.getOneToOneNonOwnerFields();
     }
 
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.rdbms.request.Request#getEstimatedSize()
+     */
+    public int getEstimatedSize()
+    {
+        return super.getEstimatedSize() + getEstimatedSize(deleteStmt, deleteStmtOptimistic, softDeleteStmt);
+    }
+
     /**
      * Method performing the deletion of the record from the datastore.
      * Takes the constructed deletion query and populates with the specific record information.
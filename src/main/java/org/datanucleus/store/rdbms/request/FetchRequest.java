@@ -45,9 +45,11 @@ import org.datanucleus.store.rdbms.mapping.java.SingleCollectionMapping;
 import org.datanucleus.store.rdbms.query.StatementClassMapping;
 import org.datanucleus.store.rdbms.query.StatementMappingIndex;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.RelationPrefetchManager;
 import org.datanucleus.store.rdbms.SQLController;
 import org.datanucleus.store.rdbms.fieldmanager.ParameterSetter;
 import org.datanucleus.store.rdbms.fieldmanager.ResultSetGetter;
+import org.datanucleus.store.rdbms.sql.SQLJoin.JoinType;
 import org.datanucleus.store.rdbms.sql.SQLStatement;
 import org.datanucleus.store.rdbms.sql.SQLStatementHelper;
 import org.datanucleus.store.rdbms.sql.SQLTable;
@@ -98,6 +100,9 @@ public class FetchRequest extends Request
     /** Name of the version field. Only applies if the class has a version field (not surrogate). */
     private String versionFieldName = null;
 
+    /** Paths (arrays of member names) of the 1-1/N-1 related objects that are loaded by this fetch. */
+    private final List<String[]> relationPaths = new ArrayList<>();
+
     /**
      * Constructor, taking the table. Uses the structure of the datastore table to build a basic query.
      * @param classTable The Class Table representing the datastore table to retrieve
@@ -171,6 +176,18 @@ public class FetchRequest extends Request
         mappingDefinition = new StatementClassMapping();
         Collection<MappingCallbacks> fetchCallbacks = new HashSet<>();
         numberOfFieldsToFetch = processMembersOfClass(sqlStatement, mmds, table, sqlStatement.getPrimaryTable(), mappingDefinition, fetchCallbacks, clr);
+        if (!relationPaths.isEmpty())
+        {
+            // Extend the related objects being loaded along any relation paths found to be navigated after fetching objects of this class
+            RelationPrefetchManager prefetchMgr = storeMgr.getComponent(RelationPrefetchManager.class);
+            for (String[] path : prefetchMgr.getPrefetchPaths(cmd))
+            {
+                if (selectRelationPath(sqlStatement, sqlStatement.getPrimaryTable(), mappingDefinition, cmd, path, clr))
+                {
+                    relationPaths.add(path);
+                }
+            }
+        }
         callbacks = fetchCallbacks.toArray(new MappingCallbacks[fetchCallbacks.size()]);
         memberNumbersToFetch = mappingDefinition.getMemberNumbers();
 
@@ -297,6 +314,14 @@ public class FetchRequest extends Request
         }
     }
 
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.rdbms.request.Request#getEstimatedSize()
+     */
+    public int getEstimatedSize()
+    {
+        return super.getEstimatedSize() + getEstimatedSize(statementUnlocked, statementLocked);
+    }
+
     /* (non-Javadoc)
      * @see org.datanucleus.store.rdbms.request.Request#execute(org.datanucleus.state.ObjectProvider)
      */
@@ -449,6 +474,12 @@ public class FetchRequest extends Request
             }
         }
 
+        if (!relationPaths.isEmpty())
+        {
+            // Record the objects reached from those loaded, so that navigation to them can be detected
+            table.getStoreManager().getComponent(RelationPrefetchManager.class).registerReachedObjects(op, relationPaths);
+        }
+
         // Execute any mapping actions now that we have fetched the fields
         for (int i = 0; i < callbacks.length; ++i)
         {
@@ -500,22 +531,7 @@ public class FetchRequest extends Request
                         if (mappingToUse instanceof PersistableMapping)
                         {
                             // Special case of 1-1/N-1 where we know the other side type so know what to join to, hence can load the related object
-                            depth = 1;
-                            if (Modifier.isAbstract(mmdToUse.getType().getModifiers()))
-                            {
-                                String typeName = mmdToUse.getTypeName();
-								DatastoreClass relTable = table.getStoreManager().getDatastoreClass(typeName, clr);
-                                if (relTable != null && relTable.getSurrogateMapping(SurrogateColumnType.DISCRIMINATOR, false) == null)
-                                {
-                                    // 1-1 relation to base class with no discriminator and has subclasses
-                                    // hence no way of determining the exact type, hence no point in fetching it
-                                    String[] subclasses = table.getStoreManager().getMetaDataManager().getSubclassesForClass(typeName, false);
-                                    if (subclasses != null && subclasses.length > 0)
-                                    {
-                                        depth = 0;
-                                    }
-                                }
-                            }
+                            depth = canSelectRelatedObject(mmdToUse, table.getStoreManager(), clr) ? 1 : 0;
                         }
                         else if (mappingToUse instanceof ReferenceMapping)
                         {
@@ -536,6 +552,12 @@ public class FetchRequest extends Request
                         // TODO If this field is a 1-1 and the other side has a discriminator or version then we really ought to fetch it
                         SQLStatementHelper.selectMemberOfSourceInStatement(sqlStatement, mappingDef, null, sqlTbl, mmd, clr, depth, null);
                         number++;
+
+                        if (depth > 0 && mappingDef == mappingDefinition && mappingDef.getMappingDefinitionForMemberPosition(mmd.getAbsoluteFieldNumber()) != null)
+                        {
+                            // Related object is loaded by this fetch
+                            relationPaths.add(new String[] {mmd.getName()});
+                        }
                     }
 
                     if (mapping instanceof MappingCallbacks)
@@ -560,4 +582,95 @@ public class FetchRequest extends Request
 
         return number;
     }
+
+    /**
+     * Method to select the related objects along the specified path of 1-1/N-1 relations, where the first related object
+     * is already selected in the statement. Each further related object is LEFT OUTER JOINed and its fetch plan fields selected.
+     * @param sqlStatement Statement being built
+     * @param sqlTbl The table in the SQL statement for the object being fetched
+     * @param mappingDef Mapping definition for the result
+     * @param cmd Metadata for the object being fetched
+     * @param path Member names of the relations to navigate
+     * @param clr ClassLoader resolver
+     * @return Whether the whole path was selected
+     */
+    private static boolean selectRelationPath(SelectStatement sqlStatement, SQLTable sqlTbl, StatementClassMapping mappingDef,
+            AbstractClassMetaData cmd, String[] path, ClassLoaderResolver clr)
+    {
+        RDBMSStoreManager storeMgr = sqlStatement.getRDBMSManager();
+        SQLTable pathSqlTbl = sqlTbl;
+        StatementClassMapping pathMappingDef = mappingDef;
+        AbstractClassMetaData pathCmd = cmd;
+        for (int i=0;i<path.length;i++)
+        {
+            AbstractMemberMetaData pathMmd = pathCmd.getMetaDataForMember(path[i]);
+            if (pathMmd == null || pathMmd.isEmbedded() || pathMmd.isSerialized())
+            {
+                return false;
+            }
+
+            StatementClassMapping relatedMappingDef = pathMappingDef.getMappingDefinitionForMemberPosition(pathMmd.getAbsoluteFieldNumber());
+            if (relatedMappingDef == null)
+            {
+                if (i == 0)
+                {
+                    // First relation not loaded by this request
+                    return false;
+                }
+
+                JavaTypeMapping mapping = pathSqlTbl.getTable().getMemberMapping(pathMmd);
+                if (!(mapping instanceof PersistableMapping) || !canSelectRelatedObject(pathMmd, storeMgr, clr))
+                {
+                    return false;
+                }
+                SQLStatementHelper.selectMemberOfSourceInStatement(sqlStatement, pathMappingDef, null, pathSqlTbl, pathMmd, clr, 1, JoinType.LEFT_OUTER_JOIN);
+                relatedMappingDef = pathMappingDef.getMappingDefinitionForMemberPosition(pathMmd.getAbsoluteFieldNumber());
+                if (relatedMappingDef == null)
+                {
+                    return false;
+                }
+            }
+
+            // Find the table of the related object in the statement (joined with table group named as "{group}.{member}")
+            AbstractClassMetaData relatedCmd = storeMgr.getMetaDataManager().getMetaDataForClass(pathMmd.getType(), clr);
+            DatastoreClass relatedTbl = (relatedCmd != null) ? storeMgr.getDatastoreClass(relatedCmd.getFullClassName(), clr) : null;
+            pathSqlTbl = (relatedTbl != null) ? sqlStatement.getTable(relatedTbl, pathSqlTbl.getGroupName() + "." + pathMmd.getName()) : null;
+            if (pathSqlTbl == null)
+            {
+                return false;
+            }
+            pathMappingDef = relatedMappingDef;
+            pathCmd = relatedCmd;
+        }
+        return true;
+    }
+
+    /**
+     * Convenience method to return whether the object related via the specified 1-1/N-1 member can be loaded in the same
+     * statement. This is not the case where the related type is abstract with subclasses and no discriminator, since we have
+     * no way of determining the exact type.
+     * @param mmd Metadata for the member
+     * @param storeMgr Store manager
+     * @param clr ClassLoader resolver
+     * @return Whether the related object can be selected
+     */
+    private static boolean canSelectRelatedObject(AbstractMemberMetaData mmd, RDBMSStoreManager storeMgr, ClassLoaderResolver clr)
+    {
+        if (Modifier.isAbstract(mmd.getType().getModifiers()))
+        {
+            String typeName = mmd.getTypeName();
+            DatastoreClass relTable = storeMgr.getDatastoreClass(typeName, clr);
+            if (relTable != null && relTable.getSurrogateMapping(SurrogateColumnType.DISCRIMINATOR, false) == null)
+            {
+                // 1-1 relation to base class with no discriminator and has subclasses
+                // hence no way of determining the exact type, hence no point in fetching it
+                String[] subclasses = storeMgr.getMetaDataManager().getSubclassesForClass(typeName, false);
+                if (subclasses != null && subclasses.length > 0)
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
 }
\ No newline at end of file
@@ -26,6 +26,7 @@ Contributors:
 **********************************************************************/
 package org.datanucleus.store.rdbms.request;
 
+import java.io.File;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -56,6 +57,13 @@ import org.datanucleus.store.rdbms.identifier.DatastoreIdentifier;
 import org.datanucleus.store.rdbms.mapping.MappingCallbacks;
 import org.datanucleus.store.rdbms.mapping.MappingConsumer;
 import org.datanucleus.store.rdbms.mapping.MappingType;
+import org.datanucleus.store.rdbms.mapping.datastore.ArrayRDBMSMapping;
+import org.datanucleus.store.rdbms.mapping.datastore.BinaryStreamRDBMSMapping;
+import org.datanucleus.store.rdbms.mapping.datastore.BlobRDBMSMapping;
+import org.datanucleus.store.rdbms.mapping.datastore.ClobRDBMSMapping;
+import org.datanucleus.store.rdbms.mapping.datastore.DatastoreMapping;
+import org.datanucleus.store.rdbms.mapping.datastore.OracleBlobRDBMSMapping;
+import org.datanucleus.store.rdbms.mapping.datastore.SqlXmlRDBMSMapping;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
 import org.datanucleus.store.rdbms.mapping.java.PersistableMapping;
 import org.datanucleus.store.rdbms.mapping.java.ReferenceMapping;
@@ -143,6 +151,9 @@ public class InsertRequest extends Request
     /** Whether to batch the INSERT SQL. */
     private boolean batch = false;
 
+    /** Names of the columns of the INSERT when objects of this type can be bulk loaded, otherwise null. */
+    private String[] bulkLoadColumnNames = null;
+
     /**
      * Constructor, taking the table. Uses the structure of the datastore table to build a basic query.
      * @param table The Class Table representing the datastore table to insert.
@@ -193,9 +204,44 @@ public class InsertRequest extends Request
         {
             // No identity, no persistence-by-reachability and no external FKs so should be safe to batch this
             batch = true;
+
+            if (callbacks.length == 0 && reachableFieldNumbers.length == 0)
+            {
+                // No post-insert processing needed and all values are simple parameters, so can also be bulk loaded
+                bulkLoadColumnNames = consumer.getColumnNamesIfAllParameters();
+            }
         }
     }
 
+    /**
+     * Accessor for the INSERT statement.
+     * @return The SQL of the INSERT
+     */
+    public String getInsertStatement()
+    {
+        return insertStmt;
+    }
+
+    /**
+     * Accessor for the names of the columns of the INSERT, where objects of this type can be inserted in bulk. This is
+     * the case when there is no identity column, no relations, no external FKs, no mapping callbacks, and every column
+     * is set directly from a parameter with a simple value (not a stream, LOB, serialised or File value).
+     * The columns are in the same order as the parameters of the INSERT.
+     * @return The column names, or null if bulk loading is not possible
+     */
+    public String[] getBulkLoadColumnNames()
+    {
+        return bulkLoadColumnNames;
+    }
+
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.rdbms.request.Request#getEstimatedSize()
+     */
+    public int getEstimatedSize()
+    {
+        return super.getEstimatedSize() + getEstimatedSize(insertStmt);
+    }
+
     /**
      * Method performing the insertion of the record from the datastore. 
      * Takes the constructed insert query and populates with the specific record information.
@@ -212,31 +258,7 @@ public class InsertRequest extends Request
 
         try
         {
-            VersionMetaData vermd = table.getVersionMetaData();
             RDBMSStoreManager storeMgr = table.getStoreManager();
-            if (vermd != null && vermd.getFieldName() != null)
-            {
-                // Version field - Update the version in the object
-                AbstractMemberMetaData verfmd = ((AbstractClassMetaData)vermd.getParent()).getMetaDataForMember(vermd.getFieldName());
-                Object currentVersion = op.getVersion();
-                if (currentVersion instanceof Number)
-                {
-                    // Cater for Integer based versions
-                    currentVersion = Long.valueOf(((Number)currentVersion).longValue());
-                }
-
-                Object nextOptimisticVersion = ec.getLockManager().getNextVersion(vermd, currentVersion);
-                if (verfmd.getType() == Integer.class || verfmd.getType() == int.class)
-                {
-                    // Cater for Integer based versions
-                    nextOptimisticVersion = Integer.valueOf(((Number)nextOptimisticVersion).intValue());
-                }
-                op.replaceField(verfmd.getAbsoluteFieldNumber(), nextOptimisticVersion);
-            }
-
-            // Set the state to "inserting" (may already be at this state if multiple inheritance level INSERT)
-            op.changeActivityState(ActivityState.INSERTING);
-
             SQLController sqlControl = storeMgr.getSQLController();
             ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
             try
@@ -246,173 +268,7 @@ public class InsertRequest extends Request
 
                 try
                 {
-                    StatementClassMapping mappingDefinition = new StatementClassMapping();
-                    StatementMappingIndex[] idxs = stmtMappings;
-                    for (int i=0;i<idxs.length;i++)
-                    {
-                        if (idxs[i] != null)
-                        {
-                            mappingDefinition.addMappingForMember(i, idxs[i]);
-                        }
-                    }
-
-                    // Provide the primary key field(s)
-                    if (table.getIdentityType() == IdentityType.DATASTORE)
-                    {
-                        if (!table.isObjectIdDatastoreAttributed() || !table.isBaseDatastoreClass())
-                        {
-                            int[] paramNumber = {IDPARAMNUMBER};
-                            table.getSurrogateMapping(SurrogateColumnType.DATASTORE_ID, false).setObject(ec, ps, paramNumber, op.getInternalObjectId());
-                        }
-                    }
-                    else if (table.getIdentityType() == IdentityType.APPLICATION)
-                    {
-                        op.provideFields(pkFieldNumbers, new ParameterSetter(op, ps, mappingDefinition));
-                    }
-
-                    // Provide all non-key fields needed for the insert.
-                    // This provides "persistence-by-reachability" for these fields
-                    if (insertFieldNumbers.length > 0)
-                    {
-                        // TODO Support surrogate current-user, create-timestamp
-                        int numberOfFieldsToProvide = 0;
-                        for (int i = 0; i < insertFieldNumbers.length; i++)
-                        {
-                            if (insertFieldNumbers[i] < op.getClassMetaData().getMemberCount())
-                            {
-                                AbstractMemberMetaData mmd = op.getClassMetaData().getMetaDataForManagedMemberAtAbsolutePosition(insertFieldNumbers[i]);
-                                if (mmd.isCreateTimestamp())
-                                {
-                                    // Set create timestamp to time for the start of this transaction
-                                    op.replaceField(insertFieldNumbers[i], new Timestamp(ec.getTransaction().getBeginTime()));
-                                }
-                                else if (mmd.isCreateUser())
-                                {
-                                    // Set create user to current user
-                                    op.replaceField(insertFieldNumbers[i], ec.getNucleusContext().getCurrentUser(ec));
-                                }
-
-                                numberOfFieldsToProvide++;
-                            }
-                        }
-                        int j = 0;
-                        int[] fieldNums = new int[numberOfFieldsToProvide];
-                        for (int i = 0; i < insertFieldNumbers.length; i++)
-                        {
-                            if (insertFieldNumbers[i] < op.getClassMetaData().getMemberCount())
-                            {
-                                fieldNums[j++] = insertFieldNumbers[i];
-                            }
-                        }
-                        op.provideFields(fieldNums, new ParameterSetter(op, ps, mappingDefinition));
-                    }
-
-                    JavaTypeMapping versionMapping = table.getSurrogateMapping(SurrogateColumnType.VERSION, false);
-                    if (versionMapping != null)
-                    {
-                        // Surrogate version - set the new version for the object
-                        Object currentVersion = op.getVersion();
-                        Object nextOptimisticVersion = ec.getLockManager().getNextVersion(vermd, currentVersion);
-                        for (int k=0;k<versionStmtMapping.getNumberOfParameterOccurrences();k++)
-                        {
-                            versionMapping.setObject(ec, ps, versionStmtMapping.getParameterPositionsForOccurrence(k), nextOptimisticVersion);
-                        }
-                        op.setTransactionalVersion(nextOptimisticVersion);
-                    }
-                    else if (vermd != null && vermd.getFieldName() != null)
-                    {
-                        // Version field - set the new version for the object
-                        Object currentVersion = op.getVersion();
-                        Object nextOptimisticVersion = ec.getLockManager().getNextVersion(vermd, currentVersion);
-                        op.setTransactionalVersion(nextOptimisticVersion);
-                    }
-
-                    if (multitenancyStmtMapping != null)
-                    {
-                        // Multitenancy mapping
-                        table.getSurrogateMapping(SurrogateColumnType.MULTITENANCY, false).setObject(ec, ps, multitenancyStmtMapping.getParameterPositionsForOccurrence(0),
-                            ec.getNucleusContext().getMultiTenancyId(ec, op.getClassMetaData()));
-                    }
-
-                    if (softDeleteStmtMapping != null)
-                    {
-                        // Soft-Delete mapping
-                        table.getSurrogateMapping(SurrogateColumnType.SOFTDELETE, false).setObject(ec, ps, softDeleteStmtMapping.getParameterPositionsForOccurrence(0), Boolean.FALSE);
-                    }
-
-                    JavaTypeMapping discrimMapping = table.getSurrogateMapping(SurrogateColumnType.DISCRIMINATOR, false);
-                    if (discrimMapping != null)
-                    {
-                        // Discriminator mapping
-                        Object discVal = op.getClassMetaData().getDiscriminatorValue();
-                        for (int k=0;k<discriminatorStmtMapping.getNumberOfParameterOccurrences();k++)
-                        {
-                            discrimMapping.setObject(ec, ps, discriminatorStmtMapping.getParameterPositionsForOccurrence(k), discVal);
-                        }
-                    }
-
-                    // External FK columns (optional)
-                    if (externalFKStmtMappings != null)
-                    {
-                        for (int i=0;i<externalFKStmtMappings.length;i++)
-                        {
-                            Object fkValue = op.getAssociatedValue(externalFKStmtMappings[i].getMapping());
-                            if (fkValue != null)
-                            {
-                                // Need to provide the owner field number so PCMapping can work out if it is inserted yet
-                                AbstractMemberMetaData ownerFmd = 
-                                    table.getMetaDataForExternalMapping(externalFKStmtMappings[i].getMapping(), MappingType.EXTERNAL_FK);
-                                for (int k=0;k<externalFKStmtMappings[i].getNumberOfParameterOccurrences();k++)
-                                {
-                                    externalFKStmtMappings[i].getMapping().setObject(ec, ps,
-                                        externalFKStmtMappings[i].getParameterPositionsForOccurrence(k), fkValue, null, ownerFmd.getAbsoluteFieldNumber());
-                                }
-                            }
-                            else
-                            {
-                                // TODO What if the column is not nullable?
-                                // We're inserting a null so don't need the owner field
-                                for (int k=0;k<externalFKStmtMappings[i].getNumberOfParameterOccurrences();k++)
-                                {
-                                    externalFKStmtMappings[i].getMapping().setObject(ec, ps,
-                                        externalFKStmtMappings[i].getParameterPositionsForOccurrence(k), null);
-                                }
-                            }
-                        }
-                    }
-
-                    // External FK discriminator columns (optional)
-                    if (externalFKDiscrimStmtMappings != null)
-                    {
-                        for (int i=0;i<externalFKDiscrimStmtMappings.length;i++)
-                        {
-                            Object discrimValue = op.getAssociatedValue(externalFKDiscrimStmtMappings[i].getMapping());
-                            for (int k=0;k<externalFKDiscrimStmtMappings[i].getNumberOfParameterOccurrences();k++)
-                            {
-                                externalFKDiscrimStmtMappings[i].getMapping().setObject(ec, ps, 
-                                    externalFKDiscrimStmtMappings[i].getParameterPositionsForOccurrence(k), discrimValue);
-                            }
-                        }
-                    }
-
-                    // External order columns (optional)
-                    if (externalOrderStmtMappings != null)
-                    {
-                        for (int i=0;i<externalOrderStmtMappings.length;i++)
-                        {
-                            Object orderValue = op.getAssociatedValue(externalOrderStmtMappings[i].getMapping());
-                            if (orderValue == null)
-                            {
-                                // No order value so use -1
-                                orderValue = Integer.valueOf(-1);
-                            }
-                            for (int k=0;k<externalOrderStmtMappings[i].getNumberOfParameterOccurrences();k++)
-                            {
-                                externalOrderStmtMappings[i].getMapping().setObject(ec, ps, 
-                                    externalOrderStmtMappings[i].getParameterPositionsForOccurrence(k), orderValue);
-                            }
-                        }
-                    }
+                    StatementClassMapping mappingDefinition = populateStatement(op, ps);
 
                     sqlControl.executeStatementUpdate(ec, mconn, insertStmt, ps, !batch);
                     if (hasIdentityColumn)
@@ -477,7 +333,7 @@ public class InsertRequest extends Request
                             }
                         }
                         mappingDefinition = new StatementClassMapping();
-                        idxs = retrievedStmtMappings;
+                        StatementMappingIndex[] idxs = retrievedStmtMappings;
                         for (int i=0;i<idxs.length;i++)
                         {
                             if (idxs[i] != null)
@@ -533,6 +389,213 @@ public class InsertRequest extends Request
         }
     }
 
+    /**
+     * Method to update the object ready for its INSERT (version, create timestamp etc), and to provide its values to the
+     * parameters of the INSERT statement.
+     * @param op ObjectProvider for the object being inserted
+     * @param ps The PreparedStatement for the INSERT
+     * @return Definition of the mapping of the members to the parameters of the statement
+     * @throws SQLException if an error occurs setting the parameters
+     */
+    public StatementClassMapping populateStatement(ObjectProvider op, PreparedStatement ps)
+    throws SQLException
+    {
+        ExecutionContext ec = op.getExecutionContext();
+        VersionMetaData vermd = table.getVersionMetaData();
+        if (vermd != null && vermd.getFieldName() != null)
+        {
+            // Version field - Update the version in the object
+            AbstractMemberMetaData verfmd = ((AbstractClassMetaData)vermd.getParent()).getMetaDataForMember(vermd.getFieldName());
+            Object currentVersion = op.getVersion();
+            if (currentVersion instanceof Number)
+            {
+                // Cater for Integer based versions
+                currentVersion = Long.valueOf(((Number)currentVersion).longValue());
+            }
+
+            Object nextOptimisticVersion = ec.getLockManager().getNextVersion(vermd, currentVersion);
+            if (verfmd.getType() == Integer.class || verfmd.getType() == int.class)
+            {
+                // Cater for Integer based versions
+                nextOptimisticVersion = Integer.valueOf(((Number)nextOptimisticVersion).intValue());
+            }
+            op.replaceField(verfmd.getAbsoluteFieldNumber(), nextOptimisticVersion);
+        }
+
+        // Set the state to "inserting" (may already be at this state if multiple inheritance level INSERT)
+        op.changeActivityState(ActivityState.INSERTING);
+
+        StatementClassMapping mappingDefinition = new StatementClassMapping();
+        StatementMappingIndex[] idxs = stmtMappings;
+        for (int i=0;i<idxs.length;i++)
+        {
+            if (idxs[i] != null)
+            {
+                mappingDefinition.addMappingForMember(i, idxs[i]);
+            }
+        }
+
+        // Provide the primary key field(s)
+        if (table.getIdentityType() == IdentityType.DATASTORE)
+        {
+            if (!table.isObjectIdDatastoreAttributed() || !table.isBaseDatastoreClass())
+            {
+                int[] paramNumber = {IDPARAMNUMBER};
+                table.getSurrogateMapping(SurrogateColumnType.DATASTORE_ID, false).setObject(ec, ps, paramNumber, op.getInternalObjectId());
+            }
+        }
+        else if (table.getIdentityType() == IdentityType.APPLICATION)
+        {
+            op.provideFields(pkFieldNumbers, new ParameterSetter(op, ps, mappingDefinition));
+        }
+
+        // Provide all non-key fields needed for the insert.
+        // This provides "persistence-by-reachability" for these fields
+        if (insertFieldNumbers.length > 0)
+        {
+            // TODO Support surrogate current-user, create-timestamp
+            int numberOfFieldsToProvide = 0;
+            for (int i = 0; i < insertFieldNumbers.length; i++)
+            {
+                if (insertFieldNumbers[i] < op.getClassMetaData().getMemberCount())
+                {
+                    AbstractMemberMetaData mmd = op.getClassMetaData().getMetaDataForManagedMemberAtAbsolutePosition(insertFieldNumbers[i]);
+                    if (mmd.isCreateTimestamp())
+                    {
+                        // Set create timestamp to time for the start of this transaction
+                        op.replaceField(insertFieldNumbers[i], new Timestamp(ec.getTransaction().getBeginTime()));
+                    }
+                    else if (mmd.isCreateUser())
+                    {
+                        // Set create user to current user
+                        op.replaceField(insertFieldNumbers[i], ec.getNucleusContext().getCurrentUser(ec));
+                    }
+
+                    numberOfFieldsToProvide++;
+                }
+            }
+            int j = 0;
+            int[] fieldNums = new int[numberOfFieldsToProvide];
+            for (int i = 0; i < insertFieldNumbers.length; i++)
+            {
+                if (insertFieldNumbers[i] < op.getClassMetaData().getMemberCount())
+                {
+                    fieldNums[j++] = insertFieldNumbers[i];
+                }
+            }
+            op.provideFields(fieldNums, new ParameterSetter(op, ps, mappingDefinition));
+        }
+
+        JavaTypeMapping versionMapping = table.getSurrogateMapping(SurrogateColumnType.VERSION, false);
+        if (versionMapping != null)
+        {
+            // Surrogate version - set the new version for the object
+            Object currentVersion = op.getVersion();
+            Object nextOptimisticVersion = ec.getLockManager().getNextVersion(vermd, currentVersion);
+            for (int k=0;k<versionStmtMapping.getNumberOfParameterOccurrences();k++)
+            {
+                versionMapping.setObject(ec, ps, versionStmtMapping.getParameterPositionsForOccurrence(k), nextOptimisticVersion);
+            }
+            op.setTransactionalVersion(nextOptimisticVersion);
+        }
+        else if (vermd != null && vermd.getFieldName() != null)
+        {
+            // Version field - set the new version for the object
+            Object currentVersion = op.getVersion();
+            Object nextOptimisticVersion = ec.getLockManager().getNextVersion(vermd, currentVersion);
+            op.setTransactionalVersion(nextOptimisticVersion);
+        }
+
+        if (multitenancyStmtMapping != null)
+        {
+            // Multitenancy mapping
+            table.getSurrogateMapping(SurrogateColumnType.MULTITENANCY, false).setObject(ec, ps, multitenancyStmtMapping.getParameterPositionsForOccurrence(0),
+                ec.getNucleusContext().getMultiTenancyId(ec, op.getClassMetaData()));
+        }
+
+        if (softDeleteStmtMapping != null)
+        {
+            // Soft-Delete mapping
+            table.getSurrogateMapping(SurrogateColumnType.SOFTDELETE, false).setObject(ec, ps, softDeleteStmtMapping.getParameterPositionsForOccurrence(0), Boolean.FALSE);
+        }
+
+        JavaTypeMapping discrimMapping = table.getSurrogateMapping(SurrogateColumnType.DISCRIMINATOR, false);
+        if (discrimMapping != null)
+        {
+            // Discriminator mapping
+            Object discVal = op.getClassMetaData().getDiscriminatorValue();
+            for (int k=0;k<discriminatorStmtMapping.getNumberOfParameterOccurrences();k++)
+            {
+                discrimMapping.setObject(ec, ps, discriminatorStmtMapping.getParameterPositionsForOccurrence(k), discVal);
+            }
+        }
+
+        // External FK columns (optional)
+        if (externalFKStmtMappings != null)
+        {
+            for (int i=0;i<externalFKStmtMappings.length;i++)
+            {
+                Object fkValue = op.getAssociatedValue(externalFKStmtMappings[i].getMapping());
+                if (fkValue != null)
+                {
+                    // Need to provide the owner field number so PCMapping can work out if it is inserted yet
+                    AbstractMemberMetaData ownerFmd = 
+                        table.getMetaDataForExternalMapping(externalFKStmtMappings[i].getMapping(), MappingType.EXTERNAL_FK);
+                    for (int k=0;k<externalFKStmtMappings[i].getNumberOfParameterOccurrences();k++)
+                    {
+                        externalFKStmtMappings[i].getMapping().setObject(ec, ps,
+                            externalFKStmtMappings[i].getParameterPositionsForOccurrence(k), fkValue, null, ownerFmd.getAbsoluteFieldNumber());
+                    }
+                }
+                else
+                {
+                    // TODO What if the column is not nullable?
+                    // We're inserting a null so don't need the owner field
+                    for (int k=0;k<externalFKStmtMappings[i].getNumberOfParameterOccurrences();k++)
+                    {
+                        externalFKStmtMappings[i].getMapping().setObject(ec, ps,
+                            externalFKStmtMappings[i].getParameterPositionsForOccurrence(k), null);
+                    }
+                }
+            }
+        }
+
+        // External FK discriminator columns (optional)
+        if (externalFKDiscrimStmtMappings != null)
+        {
+            for (int i=0;i<externalFKDiscrimStmtMappings.length;i++)
+            {
+                Object discrimValue = op.getAssociatedValue(externalFKDiscrimStmtMappings[i].getMapping());
+                for (int k=0;k<externalFKDiscrimStmtMappings[i].getNumberOfParameterOccurrences();k++)
+                {
+                    externalFKDiscrimStmtMappings[i].getMapping().setObject(ec, ps, 
+                        externalFKDiscrimStmtMappings[i].getParameterPositionsForOccurrence(k), discrimValue);
+                }
+            }
+        }
+
+        // External order columns (optional)
+        if (externalOrderStmtMappings != null)
+        {
+            for (int i=0;i<externalOrderStmtMappings.length;i++)
+            {
+                Object orderValue = op.getAssociatedValue(externalOrderStmtMappings[i].getMapping());
+                if (orderValue == null)
+                {
+                    // No order value so use -1
+                    orderValue = Integer.valueOf(-1);
+                }
+                for (int k=0;k<externalOrderStmtMappings[i].getNumberOfParameterOccurrences();k++)
+                {
+                    externalOrderStmtMappings[i].getMapping().setObject(ec, ps, 
+                        externalOrderStmtMappings[i].getParameterPositionsForOccurrence(k), orderValue);
+                }
+            }
+        }
+
+        return mappingDefinition;
+    }
+
     /**
      * Method to obtain the identity attributed by the datastore when using auto-increment/IDENTITY/SERIAL.
      * @param ec execution context
@@ -644,6 +707,15 @@ public class InsertRequest extends Request
         StringBuilder columnNames = new StringBuilder();
         StringBuilder columnValues = new StringBuilder();
 
+        /** Names of the columns in the INSERT, in the order they appear in the statement. */
+        List<String> columnNameList = new ArrayList<>();
+
+        /** Whether the value of every column of the INSERT is a plain parameter ("?"). */
+        boolean allValuesParameters = true;
+
+        /** Whether the value of any column of the INSERT is streamed, or needs other datastore resources (LOB, serialised, File). */
+        boolean hasStreamedValues = false;
+
         Map assignedColumns = new HashMap();
 
         List mc = new ArrayList();
@@ -782,6 +854,10 @@ public class InsertRequest extends Request
                     }
 
                     statementMappings[mmd.getAbsoluteFieldNumber()] = new StatementMappingIndex(m);
+                    if (isStreamedMapping(m))
+                    {
+                        hasStreamedValues = true;
+                    }
 
                     // create the expressions index (columns index)
                     int parametersIndex[] = new int[m.getNumberOfDatastoreMappings()];
@@ -804,13 +880,7 @@ public class InsertRequest extends Request
                         {
                             if (!columnExists)
                             {
-                                if (columnNames.length() > 0)
-                                {
-                                    columnNames.append(',');
-                                    columnValues.append(',');
-                                }
-                                columnNames.append(columnId);
-                                columnValues.append(m.getDatastoreMapping(j).getInsertionInputParameter());
+                                addColumn(columnId.toString(), m.getDatastoreMapping(j).getInsertionInputParameter());
                             }
 
                             if (m.getDatastoreMapping(j).insertValuesOnInsert())
@@ -873,13 +943,7 @@ public class InsertRequest extends Request
                 if (versionMapping != null)
                 {
                     String val = versionMapping.getDatastoreMapping(0).getUpdateInputParameter();
-                    if (columnNames.length() > 0)
-                    {
-                        columnNames.append(',');
-                        columnValues.append(',');
-                    }
-                    columnNames.append(versionMapping.getDatastoreMapping(0).getColumn().getIdentifier());
-                    columnValues.append(val);
+                    addColumn(versionMapping.getDatastoreMapping(0).getColumn().getIdentifier().toString(), val);
 
                     versionStatementMapping = new StatementMappingIndex(versionMapping);
                     int[] param = { paramIndex++ };
@@ -898,13 +962,7 @@ public class InsertRequest extends Request
                 {
                     String val = discrimMapping.getDatastoreMapping(0).getUpdateInputParameter();
 
-                    if (columnNames.length() > 0)
-                    {
-                        columnNames.append(',');
-                        columnValues.append(',');
-                    }
-                    columnNames.append(discrimMapping.getDatastoreMapping(0).getColumn().getIdentifier());
-                    columnValues.append(val);
+                    addColumn(discrimMapping.getDatastoreMapping(0).getColumn().getIdentifier().toString(), val);
                     discriminatorStatementMapping = new StatementMappingIndex(discrimMapping);
                     int[] param = { paramIndex++ };
                     discriminatorStatementMapping.addParameterOccurrence(param);
@@ -922,13 +980,7 @@ public class InsertRequest extends Request
                     if (!table.isObjectIdDatastoreAttributed() || !table.isBaseDatastoreClass())
                     {
                         Iterator iterator = key.getColumns().iterator();
-                        if (columnNames.length() > 0)
-                        {
-                            columnNames.append(',');
-                            columnValues.append(',');
-                        }
-                        columnNames.append(((Column) iterator.next()).getIdentifier().toString());
-                        columnValues.append("?");
+                        addColumn(((Column) iterator.next()).getIdentifier().toString(), "?");
                         paramIndex++;
                     }
                     else
@@ -958,13 +1010,7 @@ public class InsertRequest extends Request
                 JavaTypeMapping multitenancyMapping = table.getSurrogateMapping(SurrogateColumnType.MULTITENANCY, false);
                 String val = multitenancyMapping.getDatastoreMapping(0).getUpdateInputParameter();
 
-                if (columnNames.length() > 0)
-                {
-                    columnNames.append(',');
-                    columnValues.append(',');
-                }
-                columnNames.append(multitenancyMapping.getDatastoreMapping(0).getColumn().getIdentifier());
-                columnValues.append(val);
+                addColumn(multitenancyMapping.getDatastoreMapping(0).getColumn().getIdentifier().toString(), val);
                 multitenancyStatementMapping = new StatementMappingIndex(multitenancyMapping);
                 int[] param = { paramIndex++ };
                 multitenancyStatementMapping.addParameterOccurrence(param);
@@ -975,13 +1021,7 @@ public class InsertRequest extends Request
                 JavaTypeMapping softDeleteMapping = table.getSurrogateMapping(SurrogateColumnType.SOFTDELETE, false);
                 String val = softDeleteMapping.getDatastoreMapping(0).getUpdateInputParameter();
 
-                if (columnNames.length() > 0)
-                {
-                    columnNames.append(',');
-                    columnValues.append(',');
-                }
-                columnNames.append(softDeleteMapping.getDatastoreMapping(0).getColumn().getIdentifier());
-                columnValues.append(val);
+                addColumn(softDeleteMapping.getDatastoreMapping(0).getColumn().getIdentifier().toString(), val);
                 softDeleteStatementMapping = new StatementMappingIndex(softDeleteMapping);
                 int[] param = { paramIndex++ };
                 softDeleteStatementMapping.addParameterOccurrence(param);
@@ -994,13 +1034,6 @@ public class InsertRequest extends Request
          */
         public void consumeUnmappedColumn(Column col)
         {
-            if (columnNames.length() > 0)
-            {
-                columnNames.append(',');
-                columnValues.append(',');
-            }
-            columnNames.append(col.getIdentifier());
-
             ColumnMetaData colmd = col.getColumnMetaData();
             String value = colmd.getInsertValue();
             if (value != null && value.equalsIgnoreCase("#NULL"))
@@ -1021,7 +1054,29 @@ public class InsertRequest extends Request
                 }
             }
 
-            columnValues.append(value);
+            addColumn(col.getIdentifier().toString(), value);
+        }
+
+        /**
+         * Convenience method to add a column, and the value it is set to, to the INSERT.
+         * @param columnName Name of the column
+         * @param columnValue The value for the column (typically "?")
+         */
+        private void addColumn(String columnName, String columnValue)
+        {
+            if (columnNames.length() > 0)
+            {
+                columnNames.append(',');
+                columnValues.append(',');
+            }
+            columnNames.append(columnName);
+            columnValues.append(columnValue);
+
+            columnNameList.add(columnName);
+            if (!"?".equals(columnValue))
+            {
+                allValuesParameters = false;
+            }
         }
 
         /**
@@ -1074,13 +1129,7 @@ public class InsertRequest extends Request
             int[] param = new int[mapping.getNumberOfDatastoreMappings()];
             for (int i=0;i<mapping.getNumberOfDatastoreMappings();i++)
             {
-                if (columnNames.length() > 0)
-                {
-                    columnNames.append(',');
-                    columnValues.append(',');
-                }
-                columnNames.append(mapping.getDatastoreMapping(i).getColumn().getIdentifier());
-                columnValues.append(mapping.getDatastoreMapping(i).getUpdateInputParameter());
+                addColumn(mapping.getDatastoreMapping(i).getColumn().getIdentifier().toString(), mapping.getDatastoreMapping(i).getUpdateInputParameter());
                 param[i] = paramIndex++;
             }
             stmtExprIndex[pos].addParameterOccurrence(param);
@@ -1233,6 +1282,43 @@ public class InsertRequest extends Request
             return externalOrderStmtExprIndex;
         }
 
+        /**
+         * Accessor for the names of the columns of the INSERT, when the value of every column is a parameter.
+         * @return The column names, or null if some column is set to something other than a parameter
+         */
+        public String[] getColumnNamesIfAllParameters()
+        {
+            if (!allValuesParameters || hasStreamedValues || columnNameList.isEmpty())
+            {
+                return null;
+            }
+            return columnNameList.toArray(new String[columnNameList.size()]);
+        }
+
+        /**
+         * Convenience method to return whether the value of a mapping is set on the INSERT using a stream, LOB or other
+         * value that needs datastore resources, rather than a simple value.
+         * @param m The mapping
+         * @return Whether the value is streamed
+         */
+        private boolean isStreamedMapping(JavaTypeMapping m)
+        {
+            if (m.isSerialised() || (m.getJavaType() != null && File.class.isAssignableFrom(m.getJavaType())))
+            {
+                return true;
+            }
+            for (int i=0;i<m.getNumberOfDatastoreMappings();i++)
+            {
+                DatastoreMapping dm = m.getDatastoreMapping(i);
+                if (dm instanceof BlobRDBMSMapping || dm instanceof ClobRDBMSMapping || dm instanceof OracleBlobRDBMSMapping ||
+                    dm instanceof BinaryStreamRDBMSMapping || dm instanceof ArrayRDBMSMapping || dm instanceof SqlXmlRDBMSMapping)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         /**
          * Obtain the insert statement
          * @return the SQL statement
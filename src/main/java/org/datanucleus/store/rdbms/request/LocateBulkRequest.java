@@ -75,6 +75,9 @@ public class LocateBulkRequest extends BulkRequest
     /** Result mapping for the SQL statement. */
     private StatementClassMapping resultMapping;
 
+    /** Numbers of the (non-PK) members to select, or null to select all non-PK members. */
+    private int[] memberNumbersToSelect = null;
+
     /**
      * Constructor, taking the table. Uses the structure of the datastore table to build a basic query.
      * @param table The Class Table representing the datastore table to retrieve
@@ -84,6 +87,18 @@ public class LocateBulkRequest extends BulkRequest
         super(table);
     }
 
+    /**
+     * Constructor, taking the table and the members to select. Uses the structure of the datastore table to build a basic query.
+     * @param table The Class Table representing the datastore table to retrieve
+     * @param memberNumbers Numbers of the non-PK members to select (and load where not loaded). 1-1/N-1 members with the FK
+     *     in this table are selected as the FK only
+     */
+    public LocateBulkRequest(DatastoreClass table, int[] memberNumbers)
+    {
+        super(table);
+        this.memberNumbersToSelect = memberNumbers;
+    }
+
     protected String getStatement(DatastoreClass table, ObjectProvider[] ops, boolean lock)
     {
         RDBMSStoreManager storeMgr = table.getStoreManager();
@@ -150,13 +165,18 @@ public class LocateBulkRequest extends BulkRequest
         {
             for (int i=0;i<nonPkFieldNums.length;i++)
             {
+                if (memberNumbersToSelect != null && !isMemberToSelect(nonPkFieldNums[i]))
+                {
+                    continue;
+                }
+
                 AbstractMemberMetaData mmd = cmd.getMetaDataForManagedMemberAtAbsolutePosition(nonPkFieldNums[i]);
                 JavaTypeMapping mapping = table.getMemberMapping(mmd);
                 if (mapping != null && mapping.includeInFetchStatement())
                 {
-                    if (mapping instanceof PersistableMapping)
+                    if (mapping instanceof PersistableMapping && (memberNumbersToSelect == null || mapping.getNumberOfDatastoreMappings() == 0))
                     {
-                        // Ignore 1-1/N-1 for now
+                        // Ignore 1-1/N-1 for now, unless explicitly requested and the FK is in this table
                         continue;
                     }
 
@@ -258,6 +278,18 @@ public class LocateBulkRequest extends BulkRequest
         return sqlStatement.getSQLText().toSQL();
     }
 
+    private boolean isMemberToSelect(int memberNumber)
+    {
+        for (int i=0;i<memberNumbersToSelect.length;i++)
+        {
+            if (memberNumbersToSelect[i] == memberNumber)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Method performing the location of the records in the datastore. 
      * @param ops ObjectProviders to be located
@@ -173,6 +173,14 @@ public class LocateRequest extends Request
         statementLocked = sqlStatement.getSQLText().toSQL();
     }
 
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.rdbms.request.Request#getEstimatedSize()
+     */
+    public int getEstimatedSize()
+    {
+        return super.getEstimatedSize() + getEstimatedSize(statementUnlocked, statementLocked);
+    }
+
     /**
      * Method performing the retrieval of the record from the datastore. 
      * Takes the constructed retrieval query and populates with the specific record information.
@@ -0,0 +1,697 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.request;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.datanucleus.util.Localiser;
+
+/**
+ * PreparedStatement that captures the values of the parameters set on it, for use by BulkInsertRequest to obtain the
+ * values that the INSERT of each object would use (via InsertRequest.populateStatement), without executing anything.
+ * Only simple values are captured (those set using setNull, setObject, or the setter of a type such as setString or
+ * setTimestamp). Any attempt to set a stream, LOB, array or other value needing datastore resources, or to use the
+ * statement for anything other than setting parameters, throws an SQLException; InsertRequest doesn't allow bulk loading
+ * of a type having such columns. The captured values are set on the real statement(s) using
+ * {@link ParameterValue#setOnStatement(PreparedStatement, int)}.
+ */
+class ParameterCapturingStatement implements PreparedStatement
+{
+    /** The connection that the captured values will be inserted using. */
+    private final Connection conn;
+
+    private final int numParams;
+
+    /** The values of the rows captured so far. */
+    private final List<ParameterValue[]> rows = new ArrayList<>();
+
+    /** The values of the row currently being captured. */
+    private ParameterValue[] currentRow;
+
+    /**
+     * The value of a parameter, and how it was set.
+     */
+    static class ParameterValue
+    {
+        final Object value;
+
+        /** JDBC type that the value was set as, or null if not specified. */
+        final Integer sqlType;
+
+        /** Calendar the value (a date/time/timestamp) was set using, or null if not specified. */
+        final Calendar cal;
+
+        /** Whether the value was set as a national character string. */
+        final boolean nationalString;
+
+        ParameterValue(Object value, Integer sqlType, Calendar cal, boolean nationalString)
+        {
+            this.value = value;
+            this.sqlType = sqlType;
+            this.cal = cal;
+            this.nationalString = nationalString;
+        }
+
+        /**
+         * Accessor for whether the value can be loaded as is, without its calendar or the type of string.
+         * @return Whether this is a plain value
+         */
+        boolean isPlainValue()
+        {
+            return cal == null && !nationalString;
+        }
+
+        /**
+         * Method to set this value on the specified parameter of a statement, in the same way as it was set originally.
+         * @param ps The statement
+         * @param paramNumber Number of the parameter
+         * @throws SQLException if an error occurs
+         */
+        void setOnStatement(PreparedStatement ps, int paramNumber)
+        throws SQLException
+        {
+            if (value == null)
+            {
+                ps.setNull(paramNumber, sqlType != null ? sqlType.intValue() : Types.NULL);
+            }
+            else if (cal != null)
+            {
+                if (value instanceof Timestamp)
+                {
+                    ps.setTimestamp(paramNumber, (Timestamp)value, cal);
+                }
+                else if (value instanceof Time)
+                {
+                    ps.setTime(paramNumber, (Time)value, cal);
+                }
+                else
+                {
+                    ps.setDate(paramNumber, (Date)value, cal);
+                }
+            }
+            else if (nationalString)
+            {
+                ps.setNString(paramNumber, (String)value);
+            }
+            else if (sqlType != null)
+            {
+                ps.setObject(paramNumber, value, sqlType.intValue());
+            }
+            else
+            {
+                ps.setObject(paramNumber, value);
+            }
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param conn The connection the values are for
+     * @param numParams Number of parameters of the statement
+     */
+    ParameterCapturingStatement(Connection conn, int numParams)
+    {
+        this.conn = conn;
+        this.numParams = numParams;
+        this.currentRow = new ParameterValue[numParams];
+    }
+
+    /**
+     * Method to finish capturing the values of the current row, and start the next row.
+     */
+    void nextRow()
+    {
+        rows.add(currentRow);
+        currentRow = new ParameterValue[numParams];
+    }
+
+    /**
+     * Accessor for the values of the rows captured, indexed by parameter number - 1.
+     * @return The values of the rows
+     */
+    List<ParameterValue[]> getRows()
+    {
+        return rows;
+    }
+
+    private void capture(int paramNumber, Object value, Integer sqlType, Calendar cal, boolean nationalString)
+    throws SQLException
+    {
+        if (paramNumber < 1 || paramNumber > numParams)
+        {
+            throw new SQLException(Localiser.msg("052233", "" + paramNumber, "" + numParams));
+        }
+        currentRow[paramNumber-1] = new ParameterValue(value, sqlType, cal, nationalString);
+    }
+
+    private void capture(int paramNumber, Object value)
+    throws SQLException
+    {
+        capture(paramNumber, value, null, null, false);
+    }
+
+    private static SQLException unsupported(String methodName)
+    {
+        return new SQLException(Localiser.msg("052234", methodName));
+    }
+
+    // Simple values
+
+    public void setNull(int parameterIndex, int sqlType) throws SQLException
+    {
+        capture(parameterIndex, null, Integer.valueOf(sqlType), null, false);
+    }
+
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException
+    {
+        capture(parameterIndex, null, Integer.valueOf(sqlType), null, false);
+    }
+
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException
+    {
+        capture(parameterIndex, Boolean.valueOf(x));
+    }
+
+    public void setByte(int parameterIndex, byte x) throws SQLException
+    {
+        capture(parameterIndex, Byte.valueOf(x));
+    }
+
+    public void setShort(int parameterIndex, short x) throws SQLException
+    {
+        capture(parameterIndex, Short.valueOf(x));
+    }
+
+    public void setInt(int parameterIndex, int x) throws SQLException
+    {
+        capture(parameterIndex, Integer.valueOf(x));
+    }
+
+    public void setLong(int parameterIndex, long x) throws SQLException
+    {
+        capture(parameterIndex, Long.valueOf(x));
+    }
+
+    public void setFloat(int parameterIndex, float x) throws SQLException
+    {
+        capture(parameterIndex, Float.valueOf(x));
+    }
+
+    public void setDouble(int parameterIndex, double x) throws SQLException
+    {
+        capture(parameterIndex, Double.valueOf(x));
+    }
+
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException
+    {
+        capture(parameterIndex, x);
+    }
+
+    public void setString(int parameterIndex, String x) throws SQLException
+    {
+        capture(parameterIndex, x);
+    }
+
+    public void setNString(int parameterIndex, String value) throws SQLException
+    {
+        capture(parameterIndex, value, null, null, value != null);
+    }
+
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException
+    {
+        capture(parameterIndex, x);
+    }
+
+    public void setDate(int parameterIndex, Date x) throws SQLException
+    {
+        capture(parameterIndex, x);
+    }
+
+    public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException
+    {
+        capture(parameterIndex, x, null, x != null ? cal : null, false);
+    }
+
+    public void setTime(int parameterIndex, Time x) throws SQLException
+    {
+        capture(parameterIndex, x);
+    }
+
+    public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException
+    {
+        capture(parameterIndex, x, null, x != null ? cal : null, false);
+    }
+
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException
+    {
+        capture(parameterIndex, x);
+    }
+
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException
+    {
+        capture(parameterIndex, x, null, x != null ? cal : null, false);
+    }
+
+    public void setObject(int parameterIndex, Object x) throws SQLException
+    {
+        capture(parameterIndex, x);
+    }
+
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException
+    {
+        capture(parameterIndex, x, Integer.valueOf(targetSqlType), null, false);
+    }
+
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException
+    {
+        capture(parameterIndex, x, Integer.valueOf(targetSqlType), null, false);
+    }
+
+    public void clearParameters() throws SQLException
+    {
+        currentRow = new ParameterValue[numParams];
+    }
+
+    public Connection getConnection() throws SQLException
+    {
+        return conn;
+    }
+
+    public void close() throws SQLException
+    {
+        // Nothing to release
+    }
+
+    public boolean isClosed() throws SQLException
+    {
+        return false;
+    }
+
+    public boolean isWrapperFor(Class<?> iface) throws SQLException
+    {
+        return false;
+    }
+
+    public <T> T unwrap(Class<T> iface) throws SQLException
+    {
+        throw unsupported("unwrap");
+    }
+
+    // Values that need datastore resources, so are not captured
+
+    public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException
+    {
+        throw unsupported("setAsciiStream");
+    }
+
+    public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException
+    {
+        throw unsupported("setAsciiStream");
+    }
+
+    public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException
+    {
+        throw unsupported("setAsciiStream");
+    }
+
+    public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException
+    {
+        throw unsupported("setUnicodeStream");
+    }
+
+    public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException
+    {
+        throw unsupported("setBinaryStream");
+    }
+
+    public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException
+    {
+        throw unsupported("setBinaryStream");
+    }
+
+    public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException
+    {
+        throw unsupported("setBinaryStream");
+    }
+
+    public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException
+    {
+        throw unsupported("setCharacterStream");
+    }
+
+    public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException
+    {
+        throw unsupported("setCharacterStream");
+    }
+
+    public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException
+    {
+        throw unsupported("setCharacterStream");
+    }
+
+    public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException
+    {
+        throw unsupported("setNCharacterStream");
+    }
+
+    public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException
+    {
+        throw unsupported("setNCharacterStream");
+    }
+
+    public void setBlob(int parameterIndex, Blob x) throws SQLException
+    {
+        throw unsupported("setBlob");
+    }
+
+    public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException
+    {
+        throw unsupported("setBlob");
+    }
+
+    public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException
+    {
+        throw unsupported("setBlob");
+    }
+
+    public void setClob(int parameterIndex, Clob x) throws SQLException
+    {
+        throw unsupported("setClob");
+    }
+
+    public void setClob(int parameterIndex, Reader reader, long length) throws SQLException
+    {
+        throw unsupported("setClob");
+    }
+
+    public void setClob(int parameterIndex, Reader reader) throws SQLException
+    {
+        throw unsupported("setClob");
+    }
+
+    public void setNClob(int parameterIndex, NClob value) throws SQLException
+    {
+        throw unsupported("setNClob");
+    }
+
+    public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException
+    {
+        throw unsupported("setNClob");
+    }
+
+    public void setNClob(int parameterIndex, Reader reader) throws SQLException
+    {
+        throw unsupported("setNClob");
+    }
+
+    public void setArray(int parameterIndex, Array x) throws SQLException
+    {
+        throw unsupported("setArray");
+    }
+
+    public void setRef(int parameterIndex, Ref x) throws SQLException
+    {
+        throw unsupported("setRef");
+    }
+
+    public void setRowId(int parameterIndex, RowId x) throws SQLException
+    {
+        throw unsupported("setRowId");
+    }
+
+    public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException
+    {
+        throw unsupported("setSQLXML");
+    }
+
+    public void setURL(int parameterIndex, URL x) throws SQLException
+    {
+        throw unsupported("setURL");
+    }
+
+    // Statement operations, which the INSERT doesn't use when setting its parameters
+
+    public ResultSet executeQuery() throws SQLException
+    {
+        throw unsupported("executeQuery");
+    }
+
+    public int executeUpdate() throws SQLException
+    {
+        throw unsupported("executeUpdate");
+    }
+
+    public boolean execute() throws SQLException
+    {
+        throw unsupported("execute");
+    }
+
+    public void addBatch() throws SQLException
+    {
+        throw unsupported("addBatch");
+    }
+
+    public ResultSetMetaData getMetaData() throws SQLException
+    {
+        throw unsupported("getMetaData");
+    }
+
+    public ParameterMetaData getParameterMetaData() throws SQLException
+    {
+        throw unsupported("getParameterMetaData");
+    }
+
+    public ResultSet executeQuery(String sql) throws SQLException
+    {
+        throw unsupported("executeQuery");
+    }
+
+    public int executeUpdate(String sql) throws SQLException
+    {
+        throw unsupported("executeUpdate");
+    }
+
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException
+    {
+        throw unsupported("executeUpdate");
+    }
+
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException
+    {
+        throw unsupported("executeUpdate");
+    }
+
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException
+    {
+        throw unsupported("executeUpdate");
+    }
+
+    public boolean execute(String sql) throws SQLException
+    {
+        throw unsupported("execute");
+    }
+
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException
+    {
+        throw unsupported("execute");
+    }
+
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException
+    {
+        throw unsupported("execute");
+    }
+
+    public boolean execute(String sql, String[] columnNames) throws SQLException
+    {
+        throw unsupported("execute");
+    }
+
+    public void addBatch(String sql) throws SQLException
+    {
+        throw unsupported("addBatch");
+    }
+
+    public void clearBatch() throws SQLException
+    {
+        throw unsupported("clearBatch");
+    }
+
+    public int[] executeBatch() throws SQLException
+    {
+        throw unsupported("executeBatch");
+    }
+
+    public void cancel() throws SQLException
+    {
+        throw unsupported("cancel");
+    }
+
+    public ResultSet getResultSet() throws SQLException
+    {
+        throw unsupported("getResultSet");
+    }
+
+    public int getUpdateCount() throws SQLException
+    {
+        throw unsupported("getUpdateCount");
+    }
+
+    public boolean getMoreResults() throws SQLException
+    {
+        throw unsupported("getMoreResults");
+    }
+
+    public boolean getMoreResults(int current) throws SQLException
+    {
+        throw unsupported("getMoreResults");
+    }
+
+    public ResultSet getGeneratedKeys() throws SQLException
+    {
+        throw unsupported("getGeneratedKeys");
+    }
+
+    public SQLWarning getWarnings() throws SQLException
+    {
+        return null;
+    }
+
+    public void clearWarnings() throws SQLException
+    {
+        // No warnings
+    }
+
+    public void setCursorName(String name) throws SQLException
+    {
+        throw unsupported("setCursorName");
+    }
+
+    public void setEscapeProcessing(boolean enable) throws SQLException
+    {
+        throw unsupported("setEscapeProcessing");
+    }
+
+    public int getMaxFieldSize() throws SQLException
+    {
+        throw unsupported("getMaxFieldSize");
+    }
+
+    public void setMaxFieldSize(int max) throws SQLException
+    {
+        throw unsupported("setMaxFieldSize");
+    }
+
+    public int getMaxRows() throws SQLException
+    {
+        throw unsupported("getMaxRows");
+    }
+
+    public void setMaxRows(int max) throws SQLException
+    {
+        throw unsupported("setMaxRows");
+    }
+
+    public int getQueryTimeout() throws SQLException
+    {
+        throw unsupported("getQueryTimeout");
+    }
+
+    public void setQueryTimeout(int seconds) throws SQLException
+    {
+        throw unsupported("setQueryTimeout");
+    }
+
+    public int getFetchDirection() throws SQLException
+    {
+        throw unsupported("getFetchDirection");
+    }
+
+    public void setFetchDirection(int direction) throws SQLException
+    {
+        throw unsupported("setFetchDirection");
+    }
+
+    public int getFetchSize() throws SQLException
+    {
+        throw unsupported("getFetchSize");
+    }
+
+    public void setFetchSize(int rows) throws SQLException
+    {
+        throw unsupported("setFetchSize");
+    }
+
+    public int getResultSetConcurrency() throws SQLException
+    {
+        throw unsupported("getResultSetConcurrency");
+    }
+
+    public int getResultSetType() throws SQLException
+    {
+        throw unsupported("getResultSetType");
+    }
+
+    public int getResultSetHoldability() throws SQLException
+    {
+        throw unsupported("getResultSetHoldability");
+    }
+
+    public boolean isPoolable() throws SQLException
+    {
+        return false;
+    }
+
+    public void setPoolable(boolean poolable) throws SQLException
+    {
+        throw unsupported("setPoolable");
+    }
+
+    public void closeOnCompletion() throws SQLException
+    {
+        throw unsupported("closeOnCompletion");
+    }
+
+    public boolean isCloseOnCompletion() throws SQLException
+    {
+        return false;
+    }
+}
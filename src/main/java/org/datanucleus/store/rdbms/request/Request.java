@@ -43,6 +43,34 @@ public abstract class Request
         this.key = ((AbstractClassTable)table).getPrimaryKey();
     }
 
+    /**
+     * Accessor for an estimate of the memory used by this request, used to bound the size of the RequestCache.
+     * Requests with SQL add the size of their statement text to this.
+     * @return The estimated size (bytes)
+     */
+    public int getEstimatedSize()
+    {
+        return 256;
+    }
+
+    /**
+     * Convenience method to estimate the memory used by SQL statement texts.
+     * @param stmts The statement texts (any can be null)
+     * @return The estimated size (bytes)
+     */
+    protected static int getEstimatedSize(String... stmts)
+    {
+        int size = 0;
+        for (String stmt : stmts)
+        {
+            if (stmt != null)
+            {
+                size += 40 + 2 * stmt.length();
+            }
+        }
+        return size;
+    }
+
     /**
      * Method to execute the request - to be implemented by deriving classes.
      * @param op The ObjectProvider for the object in question. 
@@ -0,0 +1,396 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.request;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Bounded cache of the requests (and hence SQL) used for persistence operations, keyed by their RequestIdentifier.
+ * Unlike a cache using soft references the requests are only removed when the cache exceeds its bounds, choosing
+ * the request to evict using the eviction policy, so are not silently lost (and rebuilt) under memory pressure.
+ * The cache is bounded by the number of requests and/or by their estimated size (see {@link Request#getEstimatedSize()}),
+ * since the SQL of a request for a wide class can be many times that of a narrow one.
+ * <p>
+ * The requests are held in a ConcurrentHashMap so lookups take no lock. Eviction uses a "clock" over a queue of the
+ * cached requests, with a use count per request that is incremented on access (without locking), and only one thread evicts
+ * at a time. Supports eviction policies of
+ * <ul>
+ * <li><b>lru</b> : evict a request not used since the clock last passed it (an approximation of least recently used)</li>
+ * <li><b>lfu</b> : as lru, but a request is passed over once for each use (up to {@link #MAX_LFU_COUNT}), so frequently
+ * used requests are retained (an approximation of least frequently used, with ageing)</li>
+ * </ul>
+ * Maintains counters of hits, misses, evictions and rebuilds (misses for requests that were previously evicted), so
+ * that the bounds can be tuned.
+ */
+public class RequestCache
+{
+    /** Eviction policy of least-recently-used. */
+    public static final String EVICTION_POLICY_LRU = "lru";
+
+    /** Eviction policy of least-frequently-used. */
+    public static final String EVICTION_POLICY_LFU = "lfu";
+
+    /** Maximum use count retained for a request with LFU, so a request that is no longer used ages out in reasonable time. */
+    static final int MAX_LFU_COUNT = 15;
+
+    /** Maximum number of requests to cache (0 or less means unbounded). */
+    private final int maxSize;
+
+    /** Maximum estimated size (bytes) of the cached requests (0 or less means unbounded). */
+    private final long maxMemory;
+
+    /** Maximum use count of a request (1 for LRU). */
+    private final int maxCount;
+
+    /** The cached requests. */
+    private final Map<RequestIdentifier, CacheEntry> entriesByID = new ConcurrentHashMap<>();
+
+    /** Queue of the cached requests for the eviction clock. Can contain entries since removed from the map. */
+    private final Queue<CacheEntry> clock = new ConcurrentLinkedQueue<>();
+
+    /** Lock taken by the thread evicting requests. */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /** Total estimated size (bytes) of the cached requests. */
+    private final AtomicLong memory = new AtomicLong();
+
+    /** Identifiers of requests evicted, so we can detect rebuilds. */
+    private final Set<RequestIdentifier> evictedIDs = ConcurrentHashMap.newKeySet();
+
+    /** Order of eviction of the evictedIDs, so they can be bounded. Only updated when holding the eviction lock. */
+    private final Queue<RequestIdentifier> evictedOrder = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder rebuildCount = new LongAdder();
+
+    /**
+     * Entry for a cached request.
+     */
+    private static class CacheEntry
+    {
+        final RequestIdentifier reqID;
+        final Request request;
+        final int size;
+
+        /** Number of uses since the clock last passed this entry (up to the maximum use count). */
+        final AtomicInteger useCount = new AtomicInteger();
+
+        CacheEntry(RequestIdentifier reqID, Request request)
+        {
+            this.reqID = reqID;
+            this.request = request;
+            this.size = request.getEstimatedSize();
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param maxSize Maximum number of requests to cache (0 or less means unbounded)
+     * @param evictionPolicy The eviction policy ("lru", "lfu")
+     */
+    public RequestCache(int maxSize, String evictionPolicy)
+    {
+        this(maxSize, 0, evictionPolicy);
+    }
+
+    /**
+     * Constructor.
+     * @param maxSize Maximum number of requests to cache (0 or less means unbounded)
+     * @param maxMemory Maximum estimated size in bytes of the requests to cache (0 or less means unbounded)
+     * @param evictionPolicy The eviction policy ("lru", "lfu")
+     */
+    public RequestCache(int maxSize, long maxMemory, String evictionPolicy)
+    {
+        this.maxSize = maxSize;
+        this.maxMemory = maxMemory;
+        this.maxCount = EVICTION_POLICY_LFU.equalsIgnoreCase(evictionPolicy) ? MAX_LFU_COUNT : 1;
+    }
+
+    /**
+     * Accessor for the cached request with the specified identifier.
+     * @param reqID Identifier of the request
+     * @return The request, or null if not cached
+     */
+    public Request get(RequestIdentifier reqID)
+    {
+        CacheEntry entry = entriesByID.get(reqID);
+        if (entry == null)
+        {
+            missCount.increment();
+            return null;
+        }
+
+        hitCount.increment();
+        int count = entry.useCount.get();
+        if (count < maxCount)
+        {
+            // Not important if a concurrent use is lost
+            entry.useCount.compareAndSet(count, count + 1);
+        }
+        return entry.request;
+    }
+
+    /**
+     * Method to add a request to the cache, evicting requests if the cache then exceeds its bounds.
+     * @param reqID Identifier of the request
+     * @param req The request
+     */
+    public void put(RequestIdentifier reqID, Request req)
+    {
+        if (evictedIDs.remove(reqID))
+        {
+            rebuildCount.increment();
+            if (NucleusLogger.PERSISTENCE.isDebugEnabled())
+            {
+                NucleusLogger.PERSISTENCE.debug("Request for " + reqID.getTable() + " was rebuilt after eviction from the request cache (size=" + entriesByID.size() + ")");
+            }
+        }
+
+        CacheEntry entry = new CacheEntry(reqID, req);
+        CacheEntry oldEntry = entriesByID.put(reqID, entry);
+        memory.addAndGet(oldEntry != null ? entry.size - oldEntry.size : entry.size);
+        if (isBounded())
+        {
+            clock.offer(entry);
+            if (isOverBounds())
+            {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Method to remove the cached requests using the specified table, since its structure has changed.
+     * @param table The table
+     */
+    public void removeRequestsForTable(DatastoreClass table)
+    {
+        Iterator<CacheEntry> entryIter = entriesByID.values().iterator();
+        while (entryIter.hasNext())
+        {
+            CacheEntry entry = entryIter.next();
+            if (entry.reqID.getTable() == table && entriesByID.remove(entry.reqID, entry))
+            {
+                memory.addAndGet(-entry.size);
+            }
+        }
+        removeStaleClockEntries();
+    }
+
+    /**
+     * Method to remove the cached requests for the specified class, since the way its objects are to be fetched has changed.
+     * @param className Name of the class
+     */
+    public void removeRequestsForClass(String className)
+    {
+        Iterator<CacheEntry> entryIter = entriesByID.values().iterator();
+        while (entryIter.hasNext())
+        {
+            CacheEntry entry = entryIter.next();
+            if (entry.reqID.getClassName().equals(className) && entriesByID.remove(entry.reqID, entry))
+            {
+                memory.addAndGet(-entry.size);
+            }
+        }
+        removeStaleClockEntries();
+    }
+
+    /**
+     * Method to remove all cached requests, since the schema has changed. Retains the counters.
+     */
+    public void clear()
+    {
+        evictionLock.lock();
+        try
+        {
+            Iterator<CacheEntry> entryIter = entriesByID.values().iterator();
+            while (entryIter.hasNext())
+            {
+                CacheEntry entry = entryIter.next();
+                if (entriesByID.remove(entry.reqID, entry))
+                {
+                    memory.addAndGet(-entry.size);
+                }
+            }
+            clock.clear();
+            evictedIDs.clear();
+            evictedOrder.clear();
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size()
+    {
+        return entriesByID.size();
+    }
+
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Accessor for the total estimated size of the cached requests.
+     * @return The estimated size (bytes)
+     */
+    public long getMemory()
+    {
+        return memory.get();
+    }
+
+    public long getMaxMemory()
+    {
+        return maxMemory;
+    }
+
+    public long getHitCount()
+    {
+        return hitCount.sum();
+    }
+
+    public long getMissCount()
+    {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount()
+    {
+        return evictionCount.sum();
+    }
+
+    public long getRebuildCount()
+    {
+        return rebuildCount.sum();
+    }
+
+    private boolean isBounded()
+    {
+        return maxSize > 0 || maxMemory > 0;
+    }
+
+    private boolean isOverBounds()
+    {
+        return (maxSize > 0 && entriesByID.size() > maxSize) || (maxMemory > 0 && memory.get() > maxMemory);
+    }
+
+    /**
+     * Method to evict requests, using the eviction policy, until the cache is within its bounds.
+     * If another thread is already evicting then this returns immediately, leaving that thread to do it.
+     */
+    private void evict()
+    {
+        if (!evictionLock.tryLock())
+        {
+            return;
+        }
+        try
+        {
+            while (isOverBounds())
+            {
+                CacheEntry entry = clock.poll();
+                if (entry == null)
+                {
+                    break;
+                }
+                if (entriesByID.get(entry.reqID) != entry)
+                {
+                    // Already removed (or replaced) so just drop it from the clock
+                    continue;
+                }
+
+                int count = entry.useCount.get();
+                if (count > 0 && entriesByID.size() > 1)
+                {
+                    // Used since the clock last passed, so give it another chance
+                    entry.useCount.compareAndSet(count, count - 1);
+                    clock.offer(entry);
+                    continue;
+                }
+
+                if (entriesByID.remove(entry.reqID, entry))
+                {
+                    memory.addAndGet(-entry.size);
+                    evictionCount.increment();
+                    if (evictedIDs.add(entry.reqID))
+                    {
+                        evictedOrder.offer(entry.reqID);
+                    }
+                }
+            }
+
+            // Bound the evicted identifiers to the number of requests that the cache can hold
+            int maxEvicted = maxSize > 0 ? maxSize : Math.max(entriesByID.size(), 1);
+            while (evictedIDs.size() > maxEvicted)
+            {
+                RequestIdentifier evictedID = evictedOrder.poll();
+                if (evictedID == null)
+                {
+                    break;
+                }
+                evictedIDs.remove(evictedID);
+            }
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Method to remove entries from the clock that are no longer cached.
+     */
+    private void removeStaleClockEntries()
+    {
+        Iterator<CacheEntry> clockIter = clock.iterator();
+        while (clockIter.hasNext())
+        {
+            CacheEntry entry = clockIter.next();
+            if (entriesByID.get(entry.reqID) != entry)
+            {
+                clockIter.remove();
+            }
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    public String toString()
+    {
+        return "RequestCache(size=" + entriesByID.size() + " maxSize=" + maxSize + " memory=" + memory.get() + " maxMemory=" + maxMemory +
+            " policy=" + (maxCount > 1 ? EVICTION_POLICY_LFU : EVICTION_POLICY_LRU) +
+            " hits=" + hitCount.sum() + " misses=" + missCount.sum() + " evictions=" + evictionCount.sum() + " rebuilds=" + rebuildCount.sum() + ")";
+    }
+}
@@ -85,6 +85,15 @@ public class RequestIdentifier
         return table;
     }
 
+    /**
+     * Accessor for the name of the class of this request.
+     * @return Name of the class
+     */
+    public String getClassName()
+    {
+        return className;
+    }
+
     /**
      * Accessor for the hashcode
      * @return The hashcode
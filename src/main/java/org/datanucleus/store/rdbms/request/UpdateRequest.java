@@ -46,6 +46,7 @@ import org.datanucleus.metadata.VersionStrategy;
 import org.datanucleus.state.ObjectProvider;
 import org.datanucleus.store.connection.ManagedConnection;
 import org.datanucleus.store.fieldmanager.FieldManager;
+import org.datanucleus.store.rdbms.RDBMSPropertyNames;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
 import org.datanucleus.store.rdbms.SQLController;
 import org.datanucleus.store.rdbms.fieldmanager.OldValueParameterSetter;
@@ -232,6 +233,14 @@ public class UpdateRequest extends Request
         updateFieldNumbers = consumer.getUpdateFieldNumbers();
     }
 
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.rdbms.request.Request#getEstimatedSize()
+     */
+    public int getEstimatedSize()
+    {
+        return super.getEstimatedSize() + getEstimatedSize(updateStmt, updateStmtOptimistic);
+    }
+
     /**
      * Method performing the update of the record in the datastore. 
      * Takes the constructed update query and populates with the specific record information.
@@ -292,8 +301,11 @@ public class UpdateRequest extends Request
 
             RDBMSStoreManager storeMgr = table.getStoreManager();
 
-            boolean batch = false;
-            // TODO Set the batch flag based on whether we have no other SQL being invoked in here just our UPDATE
+            // Batch the UPDATE when enabled ("datanucleus.rdbms.batchUpdates"), and we don't need its result (optimistic checks),
+            // have no mapping callbacks invoking other SQL, and aren't using nontransactional writes (since we want it sending
+            // to the datastore now). A batched UPDATE has its update count unchecked, and any failure is reported on flush
+            boolean batch = storeMgr.getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_BATCH_UPDATES) &&
+                !optimisticChecks && callbacks.length == 0 && ec.getTransaction().isActive();
             try
             {
                 ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
@@ -414,7 +426,7 @@ public class UpdateRequest extends Request
                         }
 
                         int[] rcs = sqlControl.executeStatementUpdate(ec, mconn, stmt, ps, !batch);
-                        if (rcs[0] == 0 && optimisticChecks)
+                        if (optimisticChecks && rcs[0] == 0)
                         {
                             // No object updated so either object disappeared or failed optimistic version checks
                             // TODO Batching : when we use batching here we need to process these somehow
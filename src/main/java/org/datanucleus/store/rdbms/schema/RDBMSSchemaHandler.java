@@ -17,6 +17,9 @@ Contributors:
 **********************************************************************/
 package org.datanucleus.store.rdbms.schema;
 
+import java.io.File;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
@@ -29,6 +32,8 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.datanucleus.exceptions.NucleusDataStoreException;
 import org.datanucleus.exceptions.NucleusException;
@@ -82,8 +87,21 @@ public class RDBMSSchemaHandler extends AbstractStoreSchemaHandler
      * Map of schema data, keyed by its symbolic name where the data is cached. 
      * Can be "types", "tables" etc. The "tables" cached here are "known tables" and not
      * just all tables for the catalog/schema.
+     * Concurrent since the schema may be validated using multiple threads.
      */
-    protected Map<String, StoreSchemaData> schemaDataByName = new HashMap<>();
+    protected Map<String, StoreSchemaData> schemaDataByName = new ConcurrentHashMap<>();
+
+    /**
+     * Lock for the cached schema data. Updates (which involve reading the datastore metadata via JDBC) take the write lock,
+     * whereas lookups of cached table info only take the read lock, so threads validating tables in parallel don't block each other.
+     */
+    protected final ReentrantReadWriteLock schemaDataLock = new ReentrantReadWriteLock();
+
+    /** Snapshot of schema information, when using a snapshot file (otherwise null). */
+    protected RDBMSSchemaSnapshot snapshot = null;
+
+    /** File used to store the snapshot of schema information. */
+    protected File snapshotFile = null;
 
     public RDBMSSchemaHandler(StoreManager storeMgr)
     {
@@ -104,6 +122,125 @@ public class RDBMSSchemaHandler extends AbstractStoreSchemaHandler
         schemaDataByName.clear();
     }
 
+    /**
+     * Method to initialise use of a snapshot of the schema information, if the persistence property
+     * "datanucleus.rdbms.schema.snapshotFile" is specified. The snapshot is identified by a hash of the datastore details
+     * and the schema version (the result of the SQL in "datanucleus.rdbms.schema.snapshotVersionQuery"). If the file holds
+     * a snapshot with that identity, its information is used in place of calls to DatabaseMetaData; any information that
+     * is not in the snapshot is retrieved from the datastore and added to the snapshot to be saved.
+     * A snapshot is not used when auto-creating any part of the schema, since the schema could then change without
+     * any change to the schema version.
+     * @param conn Connection to the datastore
+     */
+    public void initialiseSnapshot(Connection conn)
+    {
+        String fileName = storeMgr.getStringProperty(RDBMSPropertyNames.PROPERTY_RDBMS_SCHEMA_SNAPSHOT_FILE);
+        if (StringUtils.isWhitespace(fileName))
+        {
+            return;
+        }
+        if (isAutoCreateTables() || isAutoCreateColumns() || isAutoCreateConstraints())
+        {
+            NucleusLogger.DATASTORE_SCHEMA.warn(Localiser.msg("050064", fileName));
+            return;
+        }
+        String versionQuery = storeMgr.getStringProperty(RDBMSPropertyNames.PROPERTY_RDBMS_SCHEMA_SNAPSHOT_VERSION_QUERY);
+        if (StringUtils.isWhitespace(versionQuery))
+        {
+            NucleusLogger.DATASTORE_SCHEMA.warn(Localiser.msg("050067", fileName));
+            return;
+        }
+
+        String key = getSnapshotKey(conn, versionQuery);
+        if (key == null)
+        {
+            return;
+        }
+
+        snapshotFile = new File(fileName);
+        snapshot = RDBMSSchemaSnapshot.load(snapshotFile, key);
+        if (snapshot == null)
+        {
+            snapshot = new RDBMSSchemaSnapshot(key);
+        }
+        else if (NucleusLogger.DATASTORE_SCHEMA.isDebugEnabled())
+        {
+            NucleusLogger.DATASTORE_SCHEMA.debug(Localiser.msg("050065", fileName, "" + snapshot.getColumnInfo().size()));
+        }
+    }
+
+    /**
+     * Method to save the snapshot of the schema information, if in use and updated since last saved.
+     */
+    public void saveSnapshot()
+    {
+        schemaDataLock.writeLock().lock();
+        try
+        {
+            if (snapshot != null && snapshot.isDirty())
+            {
+                snapshot.save(snapshotFile);
+            }
+        }
+        finally
+        {
+            schemaDataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Convenience method to generate the key for the schema snapshot, as a hash of the datastore URL, user, product
+     * and driver versions, the default catalog/schema, and the result of the schema version query.
+     * @param conn Connection to the datastore
+     * @param versionQuery SQL returning the schema version
+     * @return The key, or null if it could not be generated
+     */
+    private String getSnapshotKey(Connection conn, String versionQuery)
+    {
+        StringBuilder str = new StringBuilder();
+        try
+        {
+            DatabaseMetaData dmd = conn.getMetaData();
+            str.append(dmd.getURL()).append('|').append(dmd.getUserName());
+            str.append('|').append(dmd.getDatabaseProductVersion()).append('|').append(dmd.getDriverVersion());
+            str.append('|').append(rdbmsStoreMgr.getCatalogName()).append('|').append(rdbmsStoreMgr.getSchemaName());
+
+            Statement stmt = conn.createStatement();
+            try
+            {
+                ResultSet rs = stmt.executeQuery(versionQuery);
+                try
+                {
+                    while (rs.next())
+                    {
+                        str.append('|').append(rs.getString(1));
+                    }
+                }
+                finally
+                {
+                    rs.close();
+                }
+            }
+            finally
+            {
+                stmt.close();
+            }
+
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(str.toString().getBytes("UTF-8"));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (int i=0;i<digest.length;i++)
+            {
+                key.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return key.toString();
+        }
+        catch (SQLException | NoSuchAlgorithmException | java.io.UnsupportedEncodingException e)
+        {
+            NucleusLogger.DATASTORE_SCHEMA.warn(Localiser.msg("050066", e));
+            return null;
+        }
+    }
+
     /* (non-Javadoc)
      * @see org.datanucleus.store.schema.AbstractStoreSchemaHandler#createDatabase(java.lang.String, java.lang.String, java.util.Properties, java.lang.Object)
      */
@@ -424,6 +561,17 @@ public class RDBMSSchemaHandler extends AbstractStoreSchemaHandler
         schemaName = getIdentifierForUseWithDatabaseMetaData(schemaName);
         tableName = getIdentifierForUseWithDatabaseMetaData(tableName);
 
+        String tableKey = null;
+        if (snapshot != null)
+        {
+            tableKey = getTableKeyInRDBMSSchemaInfo(catalogName, schemaName, tableName);
+            tableType = snapshot.getTableType(tableKey);
+            if (tableType != null)
+            {
+                return tableType;
+            }
+        }
+
         try
         {
             ResultSet rs = conn.getMetaData().getTables(catalogName, schemaName, tableName, null);
@@ -450,6 +598,10 @@ public class RDBMSSchemaHandler extends AbstractStoreSchemaHandler
             throw new NucleusDataStoreException("Exception thrown finding table type using DatabaseMetaData.getTables()", sqle);
         }
 
+        if (tableKey != null && tableType != null)
+        {
+            snapshot.setTableType(tableKey, tableType);
+        }
         return tableType;
     }
 
@@ -664,7 +816,17 @@ public class RDBMSSchemaHandler extends AbstractStoreSchemaHandler
      */
     protected RDBMSTableFKInfo getRDBMSTableFKInfoForTable(Connection conn, String catalogName, String schemaName, String tableName)
     {
-        // We don't cache FK info, so retrieve it directly
+        // We don't cache FK info (other than in any snapshot), so retrieve it directly
+        String tableKey = null;
+        if (snapshot != null)
+        {
+            tableKey = getTableKeyInRDBMSSchemaInfo(catalogName, schemaName, tableName);
+            RDBMSTableFKInfo snapshotInfo = snapshot.getFKInfo(tableKey);
+            if (snapshotInfo != null)
+            {
+                return snapshotInfo;
+            }
+        }
         RDBMSTableFKInfo info = new RDBMSTableFKInfo(catalogName, schemaName, tableName);
 
         DatastoreAdapter dba = getDatastoreAdapter();
@@ -692,6 +854,10 @@ public class RDBMSSchemaHandler extends AbstractStoreSchemaHandler
         {
             throw new NucleusDataStoreException("Exception thrown while querying foreign keys for table=" + tableName, sqle);
         }
+        if (tableKey != null)
+        {
+            snapshot.setFKInfo(tableKey, info);
+        }
         return info;
     }
 
@@ -738,7 +904,17 @@ public class RDBMSSchemaHandler extends AbstractStoreSchemaHandler
      */
     protected RDBMSTablePKInfo getRDBMSTablePKInfoForTable(Connection conn, String catalogName, String schemaName, String tableName)
     {
-        // We don't cache PK info, so retrieve it directly
+        // We don't cache PK info (other than in any snapshot), so retrieve it directly
+        String tableKey = null;
+        if (snapshot != null)
+        {
+            tableKey = getTableKeyInRDBMSSchemaInfo(catalogName, schemaName, tableName);
+            RDBMSTablePKInfo snapshotInfo = snapshot.getPKInfo(tableKey);
+            if (snapshotInfo != null)
+            {
+                return snapshotInfo;
+            }
+        }
         RDBMSTablePKInfo info = new RDBMSTablePKInfo(catalogName, schemaName, tableName);
 
         try
@@ -765,6 +941,10 @@ public class RDBMSSchemaHandler extends AbstractStoreSchemaHandler
         {
             throw new NucleusDataStoreException("Exception thrown while querying primary keys for table=" + tableName, sqle);
         }
+        if (tableKey != null)
+        {
+            snapshot.setPKInfo(tableKey, info);
+        }
         return info;
     }
 
@@ -814,7 +994,17 @@ public class RDBMSSchemaHandler extends AbstractStoreSchemaHandler
      */
     protected RDBMSTableIndexInfo getRDBMSTableIndexInfoForTable(Connection conn, String catalogName, String schemaName, String tableName)
     {
-        // We don't cache Index info, so retrieve it directly
+        // We don't cache Index info (other than in any snapshot), so retrieve it directly
+        String tableKey = null;
+        if (snapshot != null)
+        {
+            tableKey = getTableKeyInRDBMSSchemaInfo(catalogName, schemaName, tableName);
+            RDBMSTableIndexInfo snapshotInfo = snapshot.getIndexInfo(tableKey);
+            if (snapshotInfo != null)
+            {
+                return snapshotInfo;
+            }
+        }
         RDBMSTableIndexInfo info = new RDBMSTableIndexInfo(catalogName, schemaName, tableName);
         DatastoreAdapter dba = getDatastoreAdapter();
         try
@@ -863,6 +1053,10 @@ public class RDBMSSchemaHandler extends AbstractStoreSchemaHandler
             throw new NucleusDataStoreException("Exception thrown while querying indices for table=" + tableName, sqle);
         }
 
+        if (tableKey != null)
+        {
+            snapshot.setIndexInfo(tableKey, info);
+        }
         return info;
     }
 
@@ -995,58 +1189,176 @@ public class RDBMSSchemaHandler extends AbstractStoreSchemaHandler
      */
     protected RDBMSTableInfo getRDBMSTableInfoForTable(Connection conn, String catalogName, String schemaName, String tableName)
     {
-        RDBMSSchemaInfo info = (RDBMSSchemaInfo)getSchemaData(conn, TYPE_TABLES, null);
-        if (info == null)
+        RDBMSTableInfo cachedTableInfo = getCachedRDBMSTableInfoForTable(catalogName, schemaName, tableName);
+        if (cachedTableInfo != null)
         {
-            // No schema info defined yet
-            info = new RDBMSSchemaInfo(rdbmsStoreMgr.getCatalogName(), rdbmsStoreMgr.getSchemaName());
-            schemaDataByName.put(TYPE_TABLES, info);
+            return cachedTableInfo;
         }
 
-        // Check existence
-        String tableKey = getTableKeyInRDBMSSchemaInfo(catalogName, schemaName, tableName);
-        RDBMSTableInfo tableInfo = (RDBMSTableInfo)info.getChild(tableKey);
-        if (tableInfo != null)
+        schemaDataLock.writeLock().lock();
+        try
         {
-            long time = ((Long)tableInfo.getProperty("time")).longValue();
-            long now = System.currentTimeMillis();
-            if (now < time + COLUMN_INFO_EXPIRATION_MS)
+            RDBMSSchemaInfo info = (RDBMSSchemaInfo)getSchemaData(conn, TYPE_TABLES, null);
+            if (info == null)
             {
-                // Table info is still valid so just return it
-                return tableInfo;
+                // No schema info defined yet
+                info = new RDBMSSchemaInfo(rdbmsStoreMgr.getCatalogName(), rdbmsStoreMgr.getSchemaName());
+                schemaDataByName.put(TYPE_TABLES, info);
             }
+
+            // Check existence
+            String tableKey = getTableKeyInRDBMSSchemaInfo(catalogName, schemaName, tableName);
+            RDBMSTableInfo tableInfo = (RDBMSTableInfo)info.getChild(tableKey);
+            if (tableInfo != null)
+            {
+                long time = ((Long)tableInfo.getProperty("time")).longValue();
+                long now = System.currentTimeMillis();
+                if (now < time + COLUMN_INFO_EXPIRATION_MS)
+                {
+                    // Table info is still valid so just return it
+                    return tableInfo;
+                }
+            }
+            if (snapshot != null)
+            {
+                RDBMSTableInfo snapshotInfo = snapshot.getColumnInfo(tableKey);
+                if (snapshotInfo != null)
+                {
+                    // Use a copy of the info from the snapshot, since the snapshot may be being saved, and the copy can be refreshed
+                    tableInfo = new RDBMSTableInfo(snapshotInfo);
+                    tableInfo.addProperty("time", Long.valueOf(System.currentTimeMillis()));
+                    info.addChild(tableInfo);
+                    return tableInfo;
+                }
+            }
+
+            // Refresh all existing tables plus this requested one
+            boolean insensitiveIdentifiers = identifiersCaseInsensitive();
+            Collection tableNames = new HashSet();
+            Collection tables = rdbmsStoreMgr.getManagedTables(catalogName, schemaName);
+            if (tables.size() > 0)
+            {
+                Iterator iter = tables.iterator();
+                while (iter.hasNext())
+                {
+                    Table tbl = (Table)iter.next();
+                    tableNames.add(insensitiveIdentifiers ? tbl.getIdentifier().getName().toLowerCase() : tbl.getIdentifier().getName());
+                }
+            }
+            tableNames.add(insensitiveIdentifiers ? tableName.toLowerCase() : tableName);
+
+            refreshTableData(conn, catalogName, schemaName, tableNames);
+
+            tableInfo = (RDBMSTableInfo)info.getChild(tableKey);
+            if (NucleusLogger.DATASTORE_SCHEMA.isDebugEnabled())
+            {
+                if (tableInfo == null || tableInfo.getNumberOfChildren() == 0)
+                {
+                    NucleusLogger.DATASTORE_SCHEMA.info(Localiser.msg("050030", tableName));
+                }
+                else
+                {
+                    NucleusLogger.DATASTORE_SCHEMA.debug(Localiser.msg("050032", tableName, "" + tableInfo.getNumberOfChildren()));
+                }
+            }
+            return tableInfo;
         }
+        finally
+        {
+            schemaDataLock.writeLock().unlock();
+        }
+    }
 
-        // Refresh all existing tables plus this requested one
-        boolean insensitiveIdentifiers = identifiersCaseInsensitive();
-        Collection tableNames = new HashSet();
-        Collection tables = rdbmsStoreMgr.getManagedTables(catalogName, schemaName);
-        if (tables.size() > 0)
+    /**
+     * Convenience method to return the cached column info for the catalog+schema+tableName, if present and not expired.
+     * Only takes the read lock, so can be called by multiple threads at once.
+     * @param catalogName Catalog
+     * @param schemaName Schema
+     * @param tableName Name of the table
+     * @return The table info, or null if not cached (or expired)
+     */
+    private RDBMSTableInfo getCachedRDBMSTableInfoForTable(String catalogName, String schemaName, String tableName)
+    {
+        schemaDataLock.readLock().lock();
+        try
         {
-            Iterator iter = tables.iterator();
-            while (iter.hasNext())
+            RDBMSSchemaInfo info = (RDBMSSchemaInfo)schemaDataByName.get(TYPE_TABLES);
+            if (info != null)
             {
-                Table tbl = (Table)iter.next();
-                tableNames.add(insensitiveIdentifiers ? tbl.getIdentifier().getName().toLowerCase() : tbl.getIdentifier().getName());
+                RDBMSTableInfo tableInfo = (RDBMSTableInfo)info.getChild(getTableKeyInRDBMSSchemaInfo(catalogName, schemaName, tableName));
+                if (tableInfo != null && System.currentTimeMillis() < ((Long)tableInfo.getProperty("time")).longValue() + COLUMN_INFO_EXPIRATION_MS)
+                {
+                    return tableInfo;
+                }
             }
+            return null;
         }
-        tableNames.add(insensitiveIdentifiers ? tableName.toLowerCase() : tableName);
-
-        refreshTableData(conn, catalogName, schemaName, tableNames);
+        finally
+        {
+            schemaDataLock.readLock().unlock();
+        }
+    }
 
-        tableInfo = (RDBMSTableInfo)info.getChild(tableKey);
-        if (NucleusLogger.DATASTORE_SCHEMA.isDebugEnabled())
+    /**
+     * Method to load (and cache) the column info for all of the specified tables, using a single call to
+     * DatabaseMetaData.getColumns() per catalog/schema. Subsequent requests for the column info of any of
+     * these tables will then be served from the cache (until it expires or is invalidated).
+     * @param conn Connection to use
+     * @param tables The tables
+     */
+    public void loadColumnInfoForTables(Connection conn, Collection<? extends Table> tables)
+    {
+        schemaDataLock.writeLock().lock();
+        try
         {
-            if (tableInfo == null || tableInfo.getNumberOfChildren() == 0)
+            boolean insensitiveIdentifiers = identifiersCaseInsensitive();
+            Map<String, String[]> catalogSchemaByKey = new HashMap<>();
+            Map<String, Collection<String>> tableNamesByKey = new HashMap<>();
+            for (Table table : tables)
             {
-                NucleusLogger.DATASTORE_SCHEMA.info(Localiser.msg("050030", tableName));
+                String[] names = getNamesForUseWithDatabaseMetaData(table);
+                if (snapshot != null && snapshot.getColumnInfo(getTableKeyInRDBMSSchemaInfo(names[0], names[1], names[2])) != null)
+                {
+                    // Info is available from the snapshot so no need to retrieve it
+                    continue;
+                }
+                String key = names[0] + "." + names[1];
+                Collection<String> tableNames = tableNamesByKey.get(key);
+                if (tableNames == null)
+                {
+                    tableNames = new HashSet<>();
+                    tableNamesByKey.put(key, tableNames);
+                    catalogSchemaByKey.put(key, names);
+                }
+                tableNames.add(insensitiveIdentifiers ? names[2].toLowerCase() : names[2]);
             }
-            else
+
+            for (Map.Entry<String, Collection<String>> entry : tableNamesByKey.entrySet())
             {
-                NucleusLogger.DATASTORE_SCHEMA.debug(Localiser.msg("050032", tableName, "" + tableInfo.getNumberOfChildren()));
+                String[] names = catalogSchemaByKey.get(entry.getKey());
+                refreshTableData(conn, names[0], names[1], entry.getValue());
             }
         }
-        return tableInfo;
+        finally
+        {
+            schemaDataLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Convenience method to return the catalog, schema and table names of the specified table, in the form
+     * needed for use with DatabaseMetaData.
+     * @param table The table
+     * @return The catalog, schema and table names
+     */
+    private String[] getNamesForUseWithDatabaseMetaData(Table table)
+    {
+        String[] c = splitTableIdentifierName(getDatastoreAdapter().getCatalogSeparator(), table.getIdentifier().getName());
+        String catalogName = c[0] != null ? c[0] : table.getCatalogName();
+        String schemaName = c[1] != null ? c[1] : table.getSchemaName();
+        String tableName = c[2] != null ? c[2] : table.getIdentifier().getName();
+        return new String[] {getIdentifierForUseWithDatabaseMetaData(catalogName), getIdentifierForUseWithDatabaseMetaData(schemaName),
+                getIdentifierForUseWithDatabaseMetaData(tableName)};
     }
 
     /**
@@ -1226,6 +1538,15 @@ public class RDBMSSchemaHandler extends AbstractStoreSchemaHandler
             }
         }
 
+        if (snapshot != null)
+        {
+            for (String tableKey : tablesProcessed)
+            {
+                // Add a copy since the cached info is refreshed in place, and the snapshot may be being saved
+                snapshot.setColumnInfo(tableKey, new RDBMSTableInfo((RDBMSTableInfo)info.getChild(tableKey)));
+            }
+        }
+
         if (NucleusLogger.DATASTORE_SCHEMA.isDebugEnabled())
         {
             NucleusLogger.DATASTORE_SCHEMA.debug(Localiser.msg("050029", catalog, schema,
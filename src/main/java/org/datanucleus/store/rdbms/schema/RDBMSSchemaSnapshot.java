@@ -0,0 +1,283 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.schema;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Snapshot of the schema information read from DatabaseMetaData (table types, columns, primary keys,
+ * foreign keys and indices), keyed by the fully-qualified table name. The snapshot is saved to file, so that a
+ * later start against the same (unchanged) datastore schema can use it instead of querying DatabaseMetaData again.
+ * The snapshot is identified by a key, being a hash of the datastore details and the schema version, and a
+ * snapshot with a different key is never used. The file starts with a format version, so a file written with a different
+ * format (or by an incompatible version of this class) is ignored rather than misread. Only the classes that make up a
+ * snapshot are deserialised from the file (see SnapshotInputStream), so a file of other content is rejected.
+ */
+public class RDBMSSchemaSnapshot implements Serializable
+{
+    private static final long serialVersionUID = 2395704391536614725L;
+
+    /** Marker at the start of a snapshot file. */
+    private static final String FILE_MARKER = "DataNucleus RDBMS schema snapshot";
+
+    /** Version of the format of the snapshot file. Increment when the snapshot (or the info it holds) changes incompatibly. */
+    static final int FORMAT_VERSION = 1;
+
+    /** Prefix of the names of the classes of this package, that make up a snapshot. */
+    private static final String SNAPSHOT_PACKAGE_PREFIX = "org.datanucleus.store.rdbms.schema.";
+
+    /** Names of the classes (other than those of this package) that can be deserialised from a snapshot file. */
+    private static final Set<String> SNAPSHOT_CLASS_NAMES = new HashSet<>(Arrays.asList(
+        String.class.getName(), Number.class.getName(), Boolean.class.getName(), Short.class.getName(),
+        Integer.class.getName(), Long.class.getName(),
+        "java.util.ArrayList", "java.util.HashMap",
+        "java.util.concurrent.ConcurrentHashMap", "java.util.concurrent.ConcurrentHashMap$Segment",
+        "[Ljava.util.concurrent.ConcurrentHashMap$Segment;",
+        "java.util.concurrent.locks.ReentrantLock", "java.util.concurrent.locks.ReentrantLock$Sync",
+        "java.util.concurrent.locks.ReentrantLock$NonfairSync", "java.util.concurrent.locks.AbstractQueuedSynchronizer",
+        "java.util.concurrent.locks.AbstractOwnableSynchronizer"));
+
+    /** Key identifying the datastore and schema version that this snapshot represents. */
+    private final String key;
+
+    private final Map<String, String> tableTypeByTable = new ConcurrentHashMap<>();
+
+    private final Map<String, RDBMSTableInfo> columnInfoByTable = new ConcurrentHashMap<>();
+
+    private final Map<String, RDBMSTablePKInfo> pkInfoByTable = new ConcurrentHashMap<>();
+
+    private final Map<String, RDBMSTableFKInfo> fkInfoByTable = new ConcurrentHashMap<>();
+
+    private final Map<String, RDBMSTableIndexInfo> indexInfoByTable = new ConcurrentHashMap<>();
+
+    /** Whether information has been added since this snapshot was loaded/saved. */
+    private transient volatile boolean dirty = false;
+
+    public RDBMSSchemaSnapshot(String key)
+    {
+        this.key = key;
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    public boolean isDirty()
+    {
+        return dirty;
+    }
+
+    public String getTableType(String tableKey)
+    {
+        return tableTypeByTable.get(tableKey);
+    }
+
+    public void setTableType(String tableKey, String type)
+    {
+        tableTypeByTable.put(tableKey, type);
+        dirty = true;
+    }
+
+    public RDBMSTableInfo getColumnInfo(String tableKey)
+    {
+        return columnInfoByTable.get(tableKey);
+    }
+
+    public Map<String, RDBMSTableInfo> getColumnInfo()
+    {
+        return columnInfoByTable;
+    }
+
+    public void setColumnInfo(String tableKey, RDBMSTableInfo info)
+    {
+        columnInfoByTable.put(tableKey, info);
+        dirty = true;
+    }
+
+    public RDBMSTablePKInfo getPKInfo(String tableKey)
+    {
+        return pkInfoByTable.get(tableKey);
+    }
+
+    public void setPKInfo(String tableKey, RDBMSTablePKInfo info)
+    {
+        pkInfoByTable.put(tableKey, info);
+        dirty = true;
+    }
+
+    public RDBMSTableFKInfo getFKInfo(String tableKey)
+    {
+        return fkInfoByTable.get(tableKey);
+    }
+
+    public void setFKInfo(String tableKey, RDBMSTableFKInfo info)
+    {
+        fkInfoByTable.put(tableKey, info);
+        dirty = true;
+    }
+
+    public RDBMSTableIndexInfo getIndexInfo(String tableKey)
+    {
+        return indexInfoByTable.get(tableKey);
+    }
+
+    public void setIndexInfo(String tableKey, RDBMSTableIndexInfo info)
+    {
+        indexInfoByTable.put(tableKey, info);
+        dirty = true;
+    }
+
+    /**
+     * Method to load the snapshot from the specified file, if it exists and is for the specified key.
+     * @param file The file
+     * @param key Key of the snapshot required
+     * @return The snapshot, or null if not present, not readable, or for a different key
+     */
+    public static RDBMSSchemaSnapshot load(File file, String key)
+    {
+        if (!file.exists())
+        {
+            return null;
+        }
+
+        try (ObjectInputStream in = new SnapshotInputStream(new BufferedInputStream(new FileInputStream(file))))
+        {
+            int version = readFormatVersion(in);
+            if (version != FORMAT_VERSION)
+            {
+                NucleusLogger.DATASTORE_SCHEMA.info(Localiser.msg("050068", file, version < 0 ? "(none)" : "" + version, "" + FORMAT_VERSION));
+                return null;
+            }
+            Object obj = in.readObject();
+            if (obj instanceof RDBMSSchemaSnapshot && key.equals(((RDBMSSchemaSnapshot)obj).key))
+            {
+                return (RDBMSSchemaSnapshot)obj;
+            }
+            NucleusLogger.DATASTORE_SCHEMA.info(Localiser.msg("050061", file));
+        }
+        catch (IOException | ClassNotFoundException | RuntimeException e)
+        {
+            NucleusLogger.DATASTORE_SCHEMA.warn(Localiser.msg("050062", file, e));
+        }
+        return null;
+    }
+
+    /**
+     * Method to read the format version from the start of a snapshot file.
+     * @param in Stream of the file
+     * @return The version, or -1 if the file has no version
+     */
+    private static int readFormatVersion(ObjectInputStream in)
+    {
+        try
+        {
+            if (FILE_MARKER.equals(in.readUTF()))
+            {
+                return in.readInt();
+            }
+        }
+        catch (IOException e)
+        {
+            // Not written with a version
+        }
+        return -1;
+    }
+
+    /**
+     * Method to save the snapshot to the specified file. The snapshot is written to a temporary file which then
+     * replaces the specified file, so that a reader never sees a partial snapshot.
+     * @param file The file
+     */
+    public synchronized void save(File file)
+    {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try
+        {
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile))))
+            {
+                dirty = false;
+                out.writeUTF(FILE_MARKER);
+                out.writeInt(FORMAT_VERSION);
+                out.writeObject(this);
+            }
+            if (file.exists() && !file.delete())
+            {
+                throw new IOException("Unable to replace " + file);
+            }
+            if (!tmpFile.renameTo(file))
+            {
+                throw new IOException("Unable to rename " + tmpFile + " to " + file);
+            }
+        }
+        catch (IOException e)
+        {
+            dirty = true;
+            NucleusLogger.DATASTORE_SCHEMA.warn(Localiser.msg("050063", file, e));
+        }
+    }
+
+    /**
+     * Stream for reading a snapshot file, that only resolves the classes making up a snapshot, namely the classes of this package
+     * and the JDK classes that they use. Any other class in the file causes an InvalidClassException, so the file is ignored.
+     */
+    static class SnapshotInputStream extends ObjectInputStream
+    {
+        SnapshotInputStream(InputStream in) throws IOException
+        {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+        {
+            String name = desc.getName();
+            boolean inSnapshotPackage = name.startsWith(SNAPSHOT_PACKAGE_PREFIX) && name.indexOf('.', SNAPSHOT_PACKAGE_PREFIX.length()) < 0;
+            if (!inSnapshotPackage && !SNAPSHOT_CLASS_NAMES.contains(name))
+            {
+                throw new InvalidClassException(name, "Class not permitted in a schema snapshot");
+            }
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException
+        {
+            throw new InvalidClassException("Proxy classes are not permitted in a schema snapshot");
+        }
+    }
+}
@@ -17,6 +17,7 @@ Contributors:
 **********************************************************************/
 package org.datanucleus.store.rdbms.schema;
 
+import java.io.Serializable;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -41,8 +42,10 @@ import org.datanucleus.store.schema.StoreSchemaData;
  * <li><b>time</b> : time at which the information was provided</li>
  * </ul>
  */
-public class RDBMSTableInfo implements ListStoreSchemaData
+public class RDBMSTableInfo implements ListStoreSchemaData, Serializable
 {
+    private static final long serialVersionUID = -8746510007440245789L;
+
     /** Hashcode. Set on first use. */
     private int hash = 0;
 
@@ -59,6 +62,18 @@ public class RDBMSTableInfo implements ListStoreSchemaData
     {
     }
 
+    /**
+     * Copy constructor, taking the properties and columns of the specified table info.
+     * The column info is shared, since it is not changed once created.
+     * @param tableInfo The table info to copy
+     */
+    public RDBMSTableInfo(RDBMSTableInfo tableInfo)
+    {
+        properties.putAll(tableInfo.properties);
+        columns.addAll(tableInfo.columns);
+        columnMapByColumnName.putAll(tableInfo.columnMapByColumnName);
+    }
+
     /**
      * Constructor taking just the catalog, schema and table name directly.
      * @param catalog Catalog containing the table
@@ -17,6 +17,7 @@ Contributors:
 **********************************************************************/
 package org.datanucleus.store.rdbms.schema;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -35,8 +36,10 @@ import org.datanucleus.store.schema.StoreSchemaData;
  * <li><b>table_name</b> : name of the table</li>
  * </ul>
  */
-public class RDBMSTablePKInfo implements ListStoreSchemaData
+public class RDBMSTablePKInfo implements ListStoreSchemaData, Serializable
 {
+    private static final long serialVersionUID = -1818637659920120726L;
+
     /** Hashcode. Set on first use. */
     private int hash = 0;
 
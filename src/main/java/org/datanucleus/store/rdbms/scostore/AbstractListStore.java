@@ -23,6 +23,7 @@ Contributors:
 **********************************************************************/
 package org.datanucleus.store.rdbms.scostore;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -36,6 +37,7 @@ import java.util.ListIterator;
 import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.ExecutionContext;
 import org.datanucleus.exceptions.NucleusDataStoreException;
+import org.datanucleus.exceptions.NucleusUserException;
 import org.datanucleus.metadata.CollectionMetaData;
 import org.datanucleus.state.ObjectProvider;
 import org.datanucleus.store.connection.ManagedConnection;
@@ -45,7 +47,10 @@ import org.datanucleus.store.types.scostore.ListStore;
 import org.datanucleus.store.rdbms.JDBCUtils;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
 import org.datanucleus.store.rdbms.SQLController;
+import org.datanucleus.store.rdbms.table.Column;
+import org.datanucleus.store.rdbms.table.TableImpl;
 import org.datanucleus.util.Localiser;
+import org.datanucleus.util.NucleusLogger;
 
 /**
  * Abstract representation of a backing store for a List.
@@ -59,6 +64,28 @@ public abstract class AbstractListStore<E> extends AbstractCollectionStore<E> im
     protected String lastIndexOfStmt;
     protected String removeAtStmt;
     protected String shiftStmt;
+    protected String shiftRangeStmt;
+    protected String shiftRangeNegatedStmt;
+    protected String orderKeysStmt;
+    protected String lastOrderKeyStmt;
+    protected String orderKeyPositionStmt;
+    protected String setOrderKeyStmt;
+
+    /**
+     * Whether the (indexed) list stores gapped values in the index column, rather than the position in the list.
+     * With gapped ordering an element inserted into the list takes a value between those of its neighbours, so no other
+     * element needs updating, and the values are only renumbered when there is no space left between the neighbours.
+     */
+    protected boolean gappedOrdering = false;
+
+    /** Gap between index values when (re)numbering a list using gapped ordering. */
+    protected int orderGap = DEFAULT_ORDER_GAP;
+
+    /** Default gap between index values when using gapped ordering. */
+    public static final int DEFAULT_ORDER_GAP = 1024;
+
+    /** Whether the index column is part of a unique key. Determined when first needed. */
+    private volatile Boolean orderColumnUnique = null;
 
     /**
      * Constructor. Protected to prevent instantiation.
@@ -70,6 +97,47 @@ public abstract class AbstractListStore<E> extends AbstractCollectionStore<E> im
         super(storeMgr, clr);
     }
 
+    /**
+     * Method to set up the ordering strategy of an indexed list from the extensions of the owner member.
+     * Gapped ordering is selected using the extension "list-ordering" with value "gapped", and the gap between
+     * values can be specified using the extension "list-ordering-gap". Must be called after setting the orderMapping.
+     */
+    protected void initialiseListOrdering()
+    {
+        String ordering = ownerMemberMetaData.getValueForExtension("list-ordering");
+        if (!indexedList || orderMapping == null || !"gapped".equalsIgnoreCase(ordering))
+        {
+            return;
+        }
+
+        gappedOrdering = true;
+        String gap = ownerMemberMetaData.getValueForExtension("list-ordering-gap");
+        if (gap != null)
+        {
+            try
+            {
+                orderGap = Integer.parseInt(gap.trim());
+            }
+            catch (NumberFormatException nfe)
+            {
+                orderGap = 0;
+            }
+            if (orderGap < 1)
+            {
+                throw new NucleusUserException(Localiser.msg("062001", ownerMemberMetaData.getFullFieldName(), gap));
+            }
+        }
+    }
+
+    /**
+     * Accessor for whether the list stores gapped values in its index column, rather than the list position.
+     * @return Whether gapped ordering is used
+     */
+    public boolean isGappedOrdering()
+    {
+        return gappedOrdering;
+    }
+
     // -------------------------- List Method implementations ------------------
 
     /**
@@ -168,7 +236,18 @@ public abstract class AbstractListStore<E> extends AbstractCollectionStore<E> im
      */
     public E get(ObjectProvider op, int index)
     {
-        ListIterator<E> iter = listIterator(op, index, index);
+        int startIdx = index;
+        if (gappedOrdering)
+        {
+            // The index column doesn't hold the position, so find the index value of the element at this position
+            int[] keys = getOrderKeysForPositions(op, index + 1);
+            if (index < 0 || index >= keys.length)
+            {
+                return null;
+            }
+            startIdx = keys[index];
+        }
+        ListIterator<E> iter = listIterator(op, startIdx, startIdx);
         if (iter == null || !iter.hasNext())
         {
             return null;
@@ -201,7 +280,8 @@ public abstract class AbstractListStore<E> extends AbstractCollectionStore<E> im
     public int indexOf(ObjectProvider op, Object element)
     {
         validateElementForReading(op, element);
-        return internalIndexOf(op, element, getIndexOfStmt(element));
+        int index = internalIndexOf(op, element, getIndexOfStmt(element));
+        return (gappedOrdering && index >= 0) ? getPositionForOrderKey(op, index) : index;
     }
 
     /**
@@ -213,7 +293,8 @@ public abstract class AbstractListStore<E> extends AbstractCollectionStore<E> im
     public int lastIndexOf(ObjectProvider op, Object element)
     {
         validateElementForReading(op, element);
-        return internalIndexOf(op, element, getLastIndexOfStmt(element));
+        int index = internalIndexOf(op, element, getLastIndexOfStmt(element));
+        return (gappedOrdering && index >= 0) ? getPositionForOrderKey(op, index) : index;
     }
 
     /**
@@ -273,7 +354,7 @@ public abstract class AbstractListStore<E> extends AbstractCollectionStore<E> im
         if (indexedList)
         {
             // Remove the element at this position
-            internalRemoveAt(op, index, size);
+            internalRemoveAt(op, gappedOrdering ? getOrderKeyForPosition(op, index) : index, size);
         }
         else
         {
@@ -326,7 +407,21 @@ public abstract class AbstractListStore<E> extends AbstractCollectionStore<E> im
      */
     public java.util.List<E> subList(ObjectProvider op, int startIdx, int endIdx)
     {
-        ListIterator iter = listIterator(op, startIdx, endIdx);
+        int startKey = startIdx;
+        int endKey = endIdx;
+        if (gappedOrdering)
+        {
+            // The index column doesn't hold the position, so find the index values of the elements at the ends of the range
+            int[] keys = getOrderKeysForPositions(op, endIdx);
+            if (startIdx < 0 || startIdx >= keys.length || endIdx <= startIdx)
+            {
+                return new ArrayList();
+            }
+            startKey = keys[startIdx];
+            endKey = keys[keys.length-1] + 1;
+        }
+
+        ListIterator iter = listIterator(op, startKey, endKey);
         java.util.List list = new ArrayList();
         while (iter.hasNext())
         {
@@ -496,6 +591,7 @@ public abstract class AbstractListStore<E> extends AbstractCollectionStore<E> im
 
     /**
      * Internal method to remove an object at a location in the List.
+     * With gapped ordering the location is the value of the index column, and no other elements are shifted.
      * @param op ObjectProvider
      * @param index The location
      * @param stmt The statement to remove the element from the List
@@ -504,7 +600,11 @@ public abstract class AbstractListStore<E> extends AbstractCollectionStore<E> im
     protected void internalRemoveAt(ObjectProvider op, int index, String stmt, int size)
     {
         int currentListSize = 0;
-        if (size < 0)
+        if (gappedOrdering)
+        {
+            // No shifting of other elements, so no need for the size
+        }
+        else if (size < 0)
         {
             // Get the current size from the datastore
             currentListSize = size(op);
@@ -544,13 +644,10 @@ public abstract class AbstractListStore<E> extends AbstractCollectionStore<E> im
                 }
 
                 // shift down
-                if (index != currentListSize - 1)
+                if (!gappedOrdering && index != currentListSize - 1)
                 {
-                    for (int i = index + 1; i < currentListSize; i++)
-                    {
-                        // Shift this index down 1
-                        internalShift(op, mconn, false, i, -1, true);
-                    }
+                    // Shift all indexes above this down 1
+                    internalShiftRange(op, mconn, index + 1, currentListSize, -1);
                 }
             }
             finally
@@ -613,6 +710,496 @@ public abstract class AbstractListStore<E> extends AbstractCollectionStore<E> im
         }
     }
 
+    /**
+     * Method to shift the index of all elements in a range of the list by the same amount, using set-based UPDATE(s)
+     * rather than one statement per element.
+     * Where the index column is part of the primary key (or unique), and so the datastore may check uniqueness as each 
+     * row is updated, the rows are moved in two phases; firstly index "i" is moved to the (negative, and so unused) 
+     * position "-1-(i+amount)", and then all of these are moved to their final position "i+amount".
+     * @param op ObjectProvider
+     * @param conn The connection
+     * @param fromIndex Index of the first element to shift
+     * @param toIndex Index after the last element to shift
+     * @param amount Amount to shift by (negative means shift down)
+     * @throws MappedDatastoreException Thrown if an error occurs
+     */
+    protected void internalShiftRange(ObjectProvider op, ManagedConnection conn, int fromIndex, int toIndex, int amount)
+    throws MappedDatastoreException
+    {
+        if (fromIndex >= toIndex || amount == 0)
+        {
+            return;
+        }
+
+        if (isOrderColumnUnique(op, conn))
+        {
+            executeShiftRangeStmt(op, conn, getShiftRangeStmt(true), -1 - amount, fromIndex, toIndex);
+            executeShiftRangeStmt(op, conn, getShiftRangeStmt(true), -1, -(toIndex + amount), -(fromIndex + amount));
+        }
+        else
+        {
+            executeShiftRangeStmt(op, conn, getShiftRangeStmt(false), amount, fromIndex, toIndex);
+        }
+    }
+
+    /**
+     * Method to execute a "shift range" statement for elements with index in the specified range.
+     * @param op ObjectProvider
+     * @param conn The connection
+     * @param stmt The statement
+     * @param value Value to add to (or subtract the index from)
+     * @param fromIndex Lowest index to update
+     * @param toIndex Index above the highest index to update
+     * @throws MappedDatastoreException Thrown if an error occurs
+     */
+    private void executeShiftRangeStmt(ObjectProvider op, ManagedConnection conn, String stmt, int value, int fromIndex, int toIndex)
+    throws MappedDatastoreException
+    {
+        ExecutionContext ec = op.getExecutionContext();
+        SQLController sqlControl = storeMgr.getSQLController();
+        try
+        {
+            PreparedStatement ps = sqlControl.getStatementForUpdate(conn, stmt, false);
+            try
+            {
+                int jdbcPosition = 1;
+                jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps, value, jdbcPosition, orderMapping);
+                jdbcPosition = BackingStoreHelper.populateOwnerInStatement(op, ec, ps, jdbcPosition, this);
+                jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps, fromIndex, jdbcPosition, orderMapping);
+                jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps, toIndex, jdbcPosition, orderMapping);
+                if (relationDiscriminatorMapping != null)
+                {
+                    jdbcPosition = BackingStoreHelper.populateRelationDiscriminatorInStatement(ec, ps, jdbcPosition, this);
+                }
+
+                sqlControl.executeStatementUpdate(ec, conn, stmt, ps, true);
+            }
+            finally
+            {
+                sqlControl.closeStatement(conn, ps);
+            }
+        }
+        catch (SQLException sqle)
+        {
+            throw new MappedDatastoreException(stmt, sqle);
+        }
+    }
+
+    /**
+     * Convenience method to return whether the index column is part of the primary key, or of a candidate key or unique index
+     * (e.g a composite key of owner and index), and so the datastore may reject an intermediate state of a set-based shift.
+     * Considers the keys defined for the container table as well as those existing in the datastore. The result is cached.
+     * @param op ObjectProvider
+     * @param conn The connection
+     * @return Whether the index column is unique
+     */
+    protected boolean isOrderColumnUnique(ObjectProvider op, ManagedConnection conn)
+    {
+        Boolean unique = orderColumnUnique;
+        if (unique == null)
+        {
+            unique = Boolean.FALSE;
+            ClassLoaderResolver clr = op.getExecutionContext().getClassLoaderResolver();
+            for (int i=0;i<orderMapping.getNumberOfDatastoreMappings();i++)
+            {
+                Column col = orderMapping.getDatastoreMapping(i).getColumn();
+                if (col.isPrimaryKey() || col.isUnique())
+                {
+                    unique = Boolean.TRUE;
+                    break;
+                }
+                if (containerTable instanceof TableImpl)
+                {
+                    try
+                    {
+                        if (((TableImpl)containerTable).isColumnInUniqueKey((Connection)conn.getConnection(), col, clr))
+                        {
+                            unique = Boolean.TRUE;
+                            break;
+                        }
+                    }
+                    catch (SQLException sqle)
+                    {
+                        // Can't tell, so assume unique since the two-phase shift is always safe
+                        NucleusLogger.DATASTORE_RETRIEVE.warn("Unable to read the keys of " + containerTable + " : " + sqle.getMessage());
+                        unique = Boolean.TRUE;
+                        break;
+                    }
+                }
+            }
+            orderColumnUnique = unique;
+        }
+        return unique.booleanValue();
+    }
+
+    /**
+     * Method to return the values of the index column for the elements of the list, in list order.
+     * Elements with a negative value (disassociated from the list) are omitted.
+     * @param op ObjectProvider
+     * @param conn The connection
+     * @return The index values
+     * @throws MappedDatastoreException Thrown if an error occurs
+     */
+    protected int[] getOrderKeys(ObjectProvider op, ManagedConnection conn)
+    throws MappedDatastoreException
+    {
+        return getOrderKeys(op, conn, 0);
+    }
+
+    /**
+     * Method to return the values of the index column for the first elements of the list, in list order.
+     * Elements with a negative value (disassociated from the list) are omitted.
+     * @param op ObjectProvider
+     * @param conn The connection
+     * @param maxKeys The maximum number of values to return (0 for all)
+     * @return The index values
+     * @throws MappedDatastoreException Thrown if an error occurs
+     */
+    protected int[] getOrderKeys(ObjectProvider op, ManagedConnection conn, int maxKeys)
+    throws MappedDatastoreException
+    {
+        ExecutionContext ec = op.getExecutionContext();
+        SQLController sqlControl = storeMgr.getSQLController();
+        String stmt = getOrderKeysStmt();
+        try
+        {
+            PreparedStatement ps = sqlControl.getStatementForQuery(conn, stmt);
+            try
+            {
+                if (maxKeys > 0)
+                {
+                    ps.setMaxRows(maxKeys);
+                }
+                int jdbcPosition = 1;
+                jdbcPosition = BackingStoreHelper.populateOwnerInStatement(op, ec, ps, jdbcPosition, this);
+                if (relationDiscriminatorMapping != null)
+                {
+                    jdbcPosition = BackingStoreHelper.populateRelationDiscriminatorInStatement(ec, ps, jdbcPosition, this);
+                }
+
+                List<Integer> keys = new ArrayList();
+                ResultSet rs = sqlControl.executeStatementQuery(ec, conn, stmt, ps);
+                try
+                {
+                    while (rs.next() && (maxKeys <= 0 || keys.size() < maxKeys))
+                    {
+                        keys.add(rs.getInt(1));
+                    }
+                    JDBCUtils.logWarnings(rs);
+                }
+                finally
+                {
+                    rs.close();
+                }
+
+                int i = 0;
+                int[] keysReturn = new int[keys.size()];
+                for (Integer key : keys)
+                {
+                    keysReturn[i++] = key;
+                }
+                return keysReturn;
+            }
+            finally
+            {
+                sqlControl.closeStatement(conn, ps);
+            }
+        }
+        catch (SQLException sqle)
+        {
+            throw new MappedDatastoreException(stmt, sqle);
+        }
+    }
+
+    /**
+     * Method to return the values of the index column for the elements up to a position in a list using gapped ordering.
+     * Only the index values are read, and only as far as the required position.
+     * @param op ObjectProvider
+     * @param number Number of elements (from the start of the list) to return the values for
+     * @return The index values (fewer than requested if the list is shorter)
+     */
+    protected int[] getOrderKeysForPositions(ObjectProvider op, int number)
+    {
+        if (number <= 0)
+        {
+            return new int[0];
+        }
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(op.getExecutionContext());
+            try
+            {
+                return getOrderKeys(op, mconn, number);
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (MappedDatastoreException e)
+        {
+            throw new NucleusDataStoreException(Localiser.msg("056017", e.getMessage()), e.getCause());
+        }
+    }
+
+    /**
+     * Method to return the value of the index column for the element at a position in a list using gapped ordering.
+     * @param op ObjectProvider
+     * @param position The position in the list
+     * @return The index value
+     * @throws IndexOutOfBoundsException if there is no element at this position
+     */
+    protected int getOrderKeyForPosition(ObjectProvider op, int position)
+    {
+        int[] keys = getOrderKeysForPositions(op, position + 1);
+        if (position < 0 || position >= keys.length)
+        {
+            throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + keys.length);
+        }
+        return keys[position];
+    }
+
+    /**
+     * Method to return the position in the list of the element with the specified value of the index column, for a list
+     * using gapped ordering. This is the number of elements with a lower index value.
+     * @param op ObjectProvider
+     * @param key The index value
+     * @return The position in the list
+     */
+    protected int getPositionForOrderKey(ObjectProvider op, int key)
+    {
+        String stmt = getOrderKeyPositionStmt();
+        try
+        {
+            ExecutionContext ec = op.getExecutionContext();
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            SQLController sqlControl = storeMgr.getSQLController();
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForQuery(mconn, stmt);
+                try
+                {
+                    int jdbcPosition = 1;
+                    jdbcPosition = BackingStoreHelper.populateOwnerInStatement(op, ec, ps, jdbcPosition, this);
+                    jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps, key, jdbcPosition, orderMapping);
+                    if (relationDiscriminatorMapping != null)
+                    {
+                        jdbcPosition = BackingStoreHelper.populateRelationDiscriminatorInStatement(ec, ps, jdbcPosition, this);
+                    }
+
+                    ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, stmt, ps);
+                    try
+                    {
+                        int position = rs.next() ? rs.getInt(1) : -1;
+                        JDBCUtils.logWarnings(rs);
+                        return position;
+                    }
+                    finally
+                    {
+                        rs.close();
+                    }
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException(Localiser.msg("056017", stmt), e);
+        }
+    }
+
+    /**
+     * Method to allocate the values of the index column for elements being inserted into a list using gapped ordering.
+     * When appending, the values continue from the last element using the gap (so only the last index value is read).
+     * When inserting, the values are spread evenly between the neighbouring elements (so only the index values up to the
+     * position are read). Only when there is no space left are all index values read, and the list renumbered.
+     * @param op ObjectProvider
+     * @param conn The connection
+     * @param position Position in the list to insert at
+     * @param atEnd Whether to add at the end of the list
+     * @param number Number of elements being inserted
+     * @return The index values for the new elements
+     * @throws MappedDatastoreException Thrown if an error occurs
+     */
+    protected int[] getOrderKeysForInsert(ObjectProvider op, ManagedConnection conn, int position, boolean atEnd, int number)
+    throws MappedDatastoreException
+    {
+        int[] newKeys = new int[number];
+        int[] keys = (atEnd ? null : getOrderKeys(op, conn, Math.max(position, 0) + 1));
+        if (keys == null || position >= keys.length)
+        {
+            // Append after the last element
+            long lastKey = (keys == null ? getLastOrderKey(op, conn) : (keys.length == 0 ? -1 : keys[keys.length-1]));
+            long start = (lastKey < 0 ? 0 : lastKey + orderGap);
+            if (start + (long)(number-1) * orderGap < Integer.MAX_VALUE)
+            {
+                for (int i=0;i<number;i++)
+                {
+                    newKeys[i] = (int)(start + (long)i * orderGap);
+                }
+                return newKeys;
+            }
+
+            keys = getOrderKeys(op, conn, 0);
+            position = keys.length;
+        }
+        else
+        {
+            // Insert between the previous element (if any) and the element currently at this position
+            long low = (position > 0 ? keys[position-1] : -1);
+            long step = (keys[position] - low) / (number + 1);
+            if (step >= 1)
+            {
+                for (int i=0;i<number;i++)
+                {
+                    newKeys[i] = (int)(low + (i+1) * step);
+                }
+                return newKeys;
+            }
+
+            keys = getOrderKeys(op, conn, 0);
+        }
+
+        // No space left between the neighbouring elements, so renumber the list
+        return renumberOrderKeys(op, conn, keys, position, number);
+    }
+
+    /**
+     * Method to return the highest value of the index column for the elements of a list using gapped ordering.
+     * @param op ObjectProvider
+     * @param conn The connection
+     * @return The highest index value, or -1 if the list is empty
+     * @throws MappedDatastoreException Thrown if an error occurs
+     */
+    protected int getLastOrderKey(ObjectProvider op, ManagedConnection conn)
+    throws MappedDatastoreException
+    {
+        ExecutionContext ec = op.getExecutionContext();
+        SQLController sqlControl = storeMgr.getSQLController();
+        String stmt = getLastOrderKeyStmt();
+        try
+        {
+            PreparedStatement ps = sqlControl.getStatementForQuery(conn, stmt);
+            try
+            {
+                int jdbcPosition = 1;
+                jdbcPosition = BackingStoreHelper.populateOwnerInStatement(op, ec, ps, jdbcPosition, this);
+                if (relationDiscriminatorMapping != null)
+                {
+                    jdbcPosition = BackingStoreHelper.populateRelationDiscriminatorInStatement(ec, ps, jdbcPosition, this);
+                }
+
+                ResultSet rs = sqlControl.executeStatementQuery(ec, conn, stmt, ps);
+                try
+                {
+                    int lastKey = -1;
+                    if (rs.next())
+                    {
+                        lastKey = rs.getInt(1);
+                        if (rs.wasNull())
+                        {
+                            lastKey = -1;
+                        }
+                    }
+                    JDBCUtils.logWarnings(rs);
+                    return lastKey;
+                }
+                finally
+                {
+                    rs.close();
+                }
+            }
+            finally
+            {
+                sqlControl.closeStatement(conn, ps);
+            }
+        }
+        catch (SQLException sqle)
+        {
+            throw new MappedDatastoreException(stmt, sqle);
+        }
+    }
+
+    /**
+     * Method to renumber the index column of all elements of a list using gapped ordering, leaving space for
+     * new elements at the specified position.
+     * The existing elements are firstly moved to negative values "-2-value" with a single statement (so clear of
+     * the -1 used for disassociated elements), and then each is given its new value, so the index values remain
+     * unique throughout.
+     * @param op ObjectProvider
+     * @param conn The connection
+     * @param keys The current index values of the elements, in list order
+     * @param position Position in the list that the new elements will be inserted at
+     * @param number Number of elements being inserted
+     * @return The index values for the new elements
+     * @throws MappedDatastoreException Thrown if an error occurs
+     */
+    protected int[] renumberOrderKeys(ObjectProvider op, ManagedConnection conn, int[] keys, int position, int number)
+    throws MappedDatastoreException
+    {
+        long total = (long)keys.length + number;
+        int gap = (int)Math.min(orderGap, (Integer.MAX_VALUE - 1) / total);
+        if (gap < 1)
+        {
+            throw new NucleusDataStoreException(Localiser.msg("062002", ownerMemberMetaData.getFullFieldName(), op.getObjectAsPrintable(), "" + total));
+        }
+        if (NucleusLogger.DATASTORE_PERSIST.isDebugEnabled())
+        {
+            NucleusLogger.DATASTORE_PERSIST.debug(Localiser.msg("062003", ownerMemberMetaData.getFullFieldName(), op.getObjectAsPrintable(), "" + keys.length, "" + gap));
+        }
+
+        if (keys.length > 0)
+        {
+            executeShiftRangeStmt(op, conn, getShiftRangeStmt(true), -2, 0, Integer.MAX_VALUE);
+
+            ExecutionContext ec = op.getExecutionContext();
+            SQLController sqlControl = storeMgr.getSQLController();
+            String stmt = getSetOrderKeyStmt();
+            try
+            {
+                for (int i=0;i<keys.length;i++)
+                {
+                    PreparedStatement ps = sqlControl.getStatementForUpdate(conn, stmt, true);
+                    try
+                    {
+                        int jdbcPosition = 1;
+                        jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps, (i < position ? i : i + number) * gap, jdbcPosition, orderMapping);
+                        jdbcPosition = BackingStoreHelper.populateOwnerInStatement(op, ec, ps, jdbcPosition, this);
+                        jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps, -2 - keys[i], jdbcPosition, orderMapping);
+                        if (relationDiscriminatorMapping != null)
+                        {
+                            jdbcPosition = BackingStoreHelper.populateRelationDiscriminatorInStatement(ec, ps, jdbcPosition, this);
+                        }
+
+                        sqlControl.executeStatementUpdate(ec, conn, stmt, ps, i == keys.length - 1);
+                    }
+                    finally
+                    {
+                        sqlControl.closeStatement(conn, ps);
+                    }
+                }
+            }
+            catch (SQLException sqle)
+            {
+                throw new MappedDatastoreException(stmt, sqle);
+            }
+        }
+
+        int[] newKeys = new int[number];
+        for (int i=0;i<number;i++)
+        {
+            newKeys[i] = (position + i) * gap;
+        }
+        return newKeys;
+    }
+
     /**
      * Generate statement for getting the index of an item.
      * <PRE>
@@ -874,4 +1461,181 @@ public abstract class AbstractListStore<E> extends AbstractCollectionStore<E> im
         }
         return shiftStmt;
     }
+
+    /**
+     * Generates the statement for shifting the items with index in a range.
+     * <PRE>
+     * UPDATE LISTTABLE SET INDEXCOL = ? + INDEXCOL
+     * WHERE OWNERCOL = ?
+     * AND INDEXCOL &gt;= ?
+     * AND INDEXCOL &lt; ?
+     * [AND DISTINGUISHER=?]
+     * </PRE>
+     * When negated the index is set using "? - INDEXCOL".
+     * @param negated Whether to subtract the index from the value (rather than add it)
+     * @return The Statement for shifting elements in a range
+     */
+    protected String getShiftRangeStmt(boolean negated)
+    {
+        if ((negated ? shiftRangeNegatedStmt : shiftRangeStmt) == null)
+        {
+            synchronized (this)
+            {
+                StringBuilder stmt = new StringBuilder("UPDATE ").append(containerTable.toString()).append(" SET ");
+                String orderColumn = orderMapping.getDatastoreMapping(0).getColumn().getIdentifier().toString();
+                stmt.append(orderColumn);
+                stmt.append(" = ");
+                stmt.append(orderMapping.getDatastoreMapping(0).getUpdateInputParameter());
+                stmt.append(negated ? " - " : " + ");
+                stmt.append(orderColumn);
+
+                stmt.append(" WHERE ");
+                BackingStoreHelper.appendWhereClauseForMapping(stmt, ownerMapping, null, true);
+                stmt.append(" AND ").append(orderColumn).append(">=").append(orderMapping.getDatastoreMapping(0).getInsertionInputParameter());
+                stmt.append(" AND ").append(orderColumn).append("<").append(orderMapping.getDatastoreMapping(0).getInsertionInputParameter());
+                if (relationDiscriminatorMapping != null)
+                {
+                    BackingStoreHelper.appendWhereClauseForMapping(stmt, relationDiscriminatorMapping, null, false);
+                }
+                if (negated)
+                {
+                    shiftRangeNegatedStmt = stmt.toString();
+                }
+                else
+                {
+                    shiftRangeStmt = stmt.toString();
+                }
+            }
+        }
+        return negated ? shiftRangeNegatedStmt : shiftRangeStmt;
+    }
+
+    /**
+     * Generates the statement for getting the index values of all elements, in list order.
+     * <PRE>
+     * SELECT INDEXCOL FROM LISTTABLE
+     * WHERE OWNERCOL = ?
+     * AND INDEXCOL &gt;= 0
+     * [AND DISTINGUISHER=?]
+     * ORDER BY INDEXCOL
+     * </PRE>
+     * @return The Statement for getting the index values
+     */
+    protected String getOrderKeysStmt()
+    {
+        if (orderKeysStmt == null)
+        {
+            synchronized (this)
+            {
+                String orderColumn = orderMapping.getDatastoreMapping(0).getColumn().getIdentifier().toString();
+                StringBuilder stmt = new StringBuilder("SELECT ").append(orderColumn);
+                stmt.append(" FROM ").append(containerTable.toString()).append(" WHERE ");
+                BackingStoreHelper.appendWhereClauseForMapping(stmt, ownerMapping, null, true);
+                stmt.append(" AND ").append(orderColumn).append(">=0");
+                if (relationDiscriminatorMapping != null)
+                {
+                    BackingStoreHelper.appendWhereClauseForMapping(stmt, relationDiscriminatorMapping, null, false);
+                }
+                stmt.append(" ORDER BY ").append(orderColumn);
+                orderKeysStmt = stmt.toString();
+            }
+        }
+        return orderKeysStmt;
+    }
+
+    /**
+     * Generates the statement for getting the highest index value of the elements.
+     * <PRE>
+     * SELECT MAX(INDEXCOL) FROM LISTTABLE
+     * WHERE OWNERCOL = ?
+     * AND INDEXCOL &gt;= 0
+     * [AND DISTINGUISHER=?]
+     * </PRE>
+     * @return The Statement for getting the highest index value
+     */
+    protected String getLastOrderKeyStmt()
+    {
+        if (lastOrderKeyStmt == null)
+        {
+            synchronized (this)
+            {
+                String orderColumn = orderMapping.getDatastoreMapping(0).getColumn().getIdentifier().toString();
+                StringBuilder stmt = new StringBuilder("SELECT MAX(").append(orderColumn).append(")");
+                stmt.append(" FROM ").append(containerTable.toString()).append(" WHERE ");
+                BackingStoreHelper.appendWhereClauseForMapping(stmt, ownerMapping, null, true);
+                stmt.append(" AND ").append(orderColumn).append(">=0");
+                if (relationDiscriminatorMapping != null)
+                {
+                    BackingStoreHelper.appendWhereClauseForMapping(stmt, relationDiscriminatorMapping, null, false);
+                }
+                lastOrderKeyStmt = stmt.toString();
+            }
+        }
+        return lastOrderKeyStmt;
+    }
+
+    /**
+     * Generates the statement for getting the position in the list of an index value.
+     * <PRE>
+     * SELECT COUNT(*) FROM LISTTABLE
+     * WHERE OWNERCOL = ?
+     * AND INDEXCOL &gt;= 0
+     * AND INDEXCOL &lt; ?
+     * [AND DISTINGUISHER=?]
+     * </PRE>
+     * @return The Statement for getting the position of an index value
+     */
+    protected String getOrderKeyPositionStmt()
+    {
+        if (orderKeyPositionStmt == null)
+        {
+            synchronized (this)
+            {
+                String orderColumn = orderMapping.getDatastoreMapping(0).getColumn().getIdentifier().toString();
+                StringBuilder stmt = new StringBuilder("SELECT COUNT(*) FROM ").append(containerTable.toString()).append(" WHERE ");
+                BackingStoreHelper.appendWhereClauseForMapping(stmt, ownerMapping, null, true);
+                stmt.append(" AND ").append(orderColumn).append(">=0");
+                stmt.append(" AND ").append(orderColumn).append("<").append(orderMapping.getDatastoreMapping(0).getInsertionInputParameter());
+                if (relationDiscriminatorMapping != null)
+                {
+                    BackingStoreHelper.appendWhereClauseForMapping(stmt, relationDiscriminatorMapping, null, false);
+                }
+                orderKeyPositionStmt = stmt.toString();
+            }
+        }
+        return orderKeyPositionStmt;
+    }
+
+    /**
+     * Generates the statement for setting the index value of an element.
+     * <PRE>
+     * UPDATE LISTTABLE SET INDEXCOL = ?
+     * WHERE OWNERCOL = ?
+     * AND INDEXCOL = ?
+     * [AND DISTINGUISHER=?]
+     * </PRE>
+     * @return The Statement for setting the index value
+     */
+    protected String getSetOrderKeyStmt()
+    {
+        if (setOrderKeyStmt == null)
+        {
+            synchronized (this)
+            {
+                StringBuilder stmt = new StringBuilder("UPDATE ").append(containerTable.toString()).append(" SET ");
+                stmt.append(orderMapping.getDatastoreMapping(0).getColumn().getIdentifier().toString());
+                stmt.append(" = ");
+                stmt.append(orderMapping.getDatastoreMapping(0).getUpdateInputParameter());
+                stmt.append(" WHERE ");
+                BackingStoreHelper.appendWhereClauseForMapping(stmt, ownerMapping, null, true);
+                BackingStoreHelper.appendWhereClauseForMapping(stmt, orderMapping, null, false);
+                if (relationDiscriminatorMapping != null)
+                {
+                    BackingStoreHelper.appendWhereClauseForMapping(stmt, relationDiscriminatorMapping, null, false);
+                }
+                setOrderKeyStmt = stmt.toString();
+            }
+        }
+        return setOrderKeyStmt;
+    }
 }
\ No newline at end of file
@@ -27,9 +27,15 @@ package org.datanucleus.store.rdbms.scostore;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.ExecutionContext;
@@ -41,6 +47,8 @@ import org.datanucleus.store.rdbms.mapping.MappingHelper;
 import org.datanucleus.store.rdbms.mapping.java.EmbeddedKeyPCMapping;
 import org.datanucleus.store.rdbms.mapping.java.EmbeddedValuePCMapping;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.mapping.java.ReferenceMapping;
+import org.datanucleus.store.rdbms.mapping.java.SerialisedMapping;
 import org.datanucleus.store.rdbms.JDBCUtils;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
 import org.datanucleus.store.rdbms.SQLController;
@@ -245,6 +253,217 @@ public abstract class AbstractMapStore<K, V> extends BaseContainerStore implemen
         return exists;
     }
 
+    /**
+     * Accessor for whether this store supports finding which of a set of keys exist using a single query
+     * (see {@link #getExistingKeys(ObjectProvider, Collection)}). This requires the keys to be non-persistable, stored in a single
+     * column of the map table that has the owner, and comparable in the datastore using equality.
+     * @return Whether bulk key lookup is supported
+     */
+    public boolean allowsBulkKeyLookup()
+    {
+        return keyCmd == null && !keysAreEmbedded && !keysAreSerialised && keyMapping != null &&
+            keyMapping.getNumberOfDatastoreMappings() == 1 && !(keyMapping instanceof ReferenceMapping) &&
+            !(keyMapping instanceof SerialisedMapping) && keyMapping.getTable() == mapTable && getOwnerMapping().getTable() == mapTable;
+    }
+
+    /**
+     * Method to find which of the specified keys exist in the Map, using a query per chunk of keys
+     * (see {@link #getExistingKeys(ObjectProvider, Collection, JavaTypeMapping)}).
+     * Only to be used where {@link #allowsBulkKeyLookup()}.
+     * @param op ObjectProvider for the map
+     * @param keys The keys to check for
+     * @return The keys (of those specified) that exist in the Map
+     */
+    public Set<Object> getExistingKeys(ObjectProvider op, Collection keys)
+    {
+        return getExistingKeys(op, keys, null).keySet();
+    }
+
+    /**
+     * Method to find which of the specified keys exist in the Map, optionally retrieving a mapping of the map table for each.
+     * Rather than a query per key, the keys are checked using a query per chunk of keys (as many as the datastore allows
+     * parameters in a statement), of the form
+     * <PRE>
+     * SELECT KEYCOL[,COLS] FROM MAPTABLE WHERE OWNERCOL=? AND KEYCOL IN (?,?,...)
+     * </PRE>
+     * A row is matched to the key equal to the key value read back. Where a row matches none of the keys (since the datastore
+     * compares differently, for example with a case-insensitive collation or padding of CHAR columns) the keys of the chunk that
+     * weren't matched are checked individually, so that the datastore comparison is always the one that is followed.
+     * Only to be used where {@link #allowsBulkKeyLookup()}.
+     * @param op ObjectProvider for the map
+     * @param keys The keys to check for
+     * @param selectMapping Mapping in the map table to retrieve for each existing key (optional)
+     * @return Map of the keys (of those specified) that exist in the Map, to the value of the select mapping for it (null if not selected)
+     */
+    protected Map<Object, Object> getExistingKeys(ObjectProvider op, Collection keys, JavaTypeMapping selectMapping)
+    {
+        List<Object> keysToCheck = new ArrayList<>(keys.size());
+        for (Object key : keys)
+        {
+            if (key != null && validateKeyForReading(op, key))
+            {
+                keysToCheck.add(key);
+            }
+        }
+
+        Map<Object, Object> existingKeys = new HashMap<>();
+        int maxParams = storeMgr.getDatastoreAdapter().getMaxParametersPerStatement() - getOwnerMapping().getNumberOfDatastoreMappings();
+        int chunkSize = Math.max(1, maxParams / keyMapping.getNumberOfDatastoreMappings());
+        for (int chunkStart=0;chunkStart<keysToCheck.size();chunkStart+=chunkSize)
+        {
+            List<Object> chunkKeys = keysToCheck.subList(chunkStart, Math.min(chunkStart + chunkSize, keysToCheck.size()));
+            if (!getExistingKeysForChunk(op, chunkKeys, selectMapping, existingKeys) && chunkKeys.size() > 1)
+            {
+                for (Object key : chunkKeys)
+                {
+                    if (!existingKeys.containsKey(key))
+                    {
+                        getExistingKeysForChunk(op, Collections.singletonList(key), selectMapping, existingKeys);
+                    }
+                }
+            }
+        }
+
+        return existingKeys;
+    }
+
+    /**
+     * Method to find which of a chunk of keys exist in the Map, adding those found to the supplied map.
+     * @param op ObjectProvider for the map
+     * @param chunkKeys The keys to check for
+     * @param selectMapping Mapping in the map table to retrieve for each existing key (optional)
+     * @param existingKeys Map of the existing keys, to the value of the select mapping for it, to add to
+     * @return Whether all rows returned were matched to one of the keys
+     */
+    private boolean getExistingKeysForChunk(ObjectProvider op, List<Object> chunkKeys, JavaTypeMapping selectMapping,
+            Map<Object, Object> existingKeys)
+    {
+        ExecutionContext ec = op.getExecutionContext();
+        SQLController sqlControl = storeMgr.getSQLController();
+        int[] keyPositions = new int[keyMapping.getNumberOfDatastoreMappings()];
+        for (int i=0;i<keyPositions.length;i++)
+        {
+            keyPositions[i] = i + 1;
+        }
+        int[] selectPositions = null;
+        if (selectMapping != null)
+        {
+            selectPositions = new int[selectMapping.getNumberOfDatastoreMappings()];
+            for (int i=0;i<selectPositions.length;i++)
+            {
+                selectPositions[i] = keyPositions.length + i + 1;
+            }
+        }
+
+        Map<Object, Object> keysByValue = new HashMap<>();
+        for (Object key : chunkKeys)
+        {
+            keysByValue.put(key, key);
+        }
+
+        boolean allMatched = true;
+        String stmt = getExistingKeysStmt(chunkKeys.size(), selectMapping);
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+            try
+            {
+                PreparedStatement ps = sqlControl.getStatementForQuery(mconn, stmt);
+                try
+                {
+                    int jdbcPosition = 1;
+                    jdbcPosition = BackingStoreHelper.populateOwnerInStatement(op, ec, ps, jdbcPosition, this);
+                    for (Object key : chunkKeys)
+                    {
+                        jdbcPosition = BackingStoreHelper.populateKeyInStatement(ec, ps, key, jdbcPosition, keyMapping);
+                    }
+
+                    ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, stmt, ps);
+                    try
+                    {
+                        while (rs.next())
+                        {
+                            Object key = chunkKeys.size() == 1 ? chunkKeys.get(0) : keysByValue.get(keyMapping.getObject(ec, rs, keyPositions));
+                            if (key != null)
+                            {
+                                existingKeys.put(key, selectMapping != null ? selectMapping.getObject(ec, rs, selectPositions) : null);
+                            }
+                            else
+                            {
+                                allMatched = false;
+                            }
+                        }
+
+                        JDBCUtils.logWarnings(rs);
+                    }
+                    finally
+                    {
+                        rs.close();
+                    }
+                }
+                finally
+                {
+                    sqlControl.closeStatement(mconn, ps);
+                }
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new NucleusDataStoreException(Localiser.msg("056014", stmt), e);
+        }
+
+        return allMatched;
+    }
+
+    /**
+     * Generate statement to find which of a number of keys exist in the Map.
+     * <PRE>
+     * SELECT KEYCOL[,COLS] FROM MAPTABLE WHERE OWNERCOL=? AND KEYCOL IN (?,?,...)
+     * </PRE>
+     * @param numberOfKeys Number of keys
+     * @param selectMapping Mapping whose columns are to be selected (optional)
+     * @return Statement to find the existing keys
+     */
+    protected String getExistingKeysStmt(int numberOfKeys, JavaTypeMapping selectMapping)
+    {
+        StringBuilder stmt = new StringBuilder("SELECT ");
+        for (int i=0;i<keyMapping.getNumberOfDatastoreMappings();i++)
+        {
+            if (i > 0)
+            {
+                stmt.append(",");
+            }
+            stmt.append(keyMapping.getDatastoreMapping(i).getColumn().getIdentifier().toString());
+        }
+        if (selectMapping != null)
+        {
+            for (int i=0;i<selectMapping.getNumberOfDatastoreMappings();i++)
+            {
+                stmt.append(",").append(selectMapping.getDatastoreMapping(i).getColumn().getIdentifier().toString());
+            }
+        }
+        stmt.append(" FROM ").append(mapTable.toString()).append(" WHERE ");
+        BackingStoreHelper.appendWhereClauseForMapping(stmt, getOwnerMapping(), null, true);
+
+        // Key is a single column (see allowsBulkKeyLookup)
+        stmt.append(" AND ").append(keyMapping.getDatastoreMapping(0).getColumn().getIdentifier().toString()).append(" IN (");
+        for (int i=0;i<numberOfKeys;i++)
+        {
+            if (i > 0)
+            {
+                stmt.append(",");
+            }
+            stmt.append(keyMapping.getDatastoreMapping(0).getInsertionInputParameter());
+        }
+        stmt.append(")");
+
+        return stmt.toString();
+    }
+
     /**
      * Method to return the value for a key.
      * @param op ObjectProvider for the Map.
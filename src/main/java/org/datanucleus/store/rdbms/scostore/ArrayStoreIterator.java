@@ -21,6 +21,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.datanucleus.ExecutionContext;
 import org.datanucleus.metadata.AbstractMemberMetaData;
@@ -47,6 +48,9 @@ public class ArrayStoreIterator implements Iterator
 
     private Object lastElement = null;
 
+    /** Lock for removal, consistent with the other backing store iterators. */
+    private final ReentrantLock removeLock = new ReentrantLock();
+
     ArrayStoreIterator(ObjectProvider op, ResultSet rs, ResultObjectFactory rof, ElementContainerStore backingStore) 
     throws MappedDatastoreException
     {
@@ -121,9 +125,17 @@ public class ArrayStoreIterator implements Iterator
         return lastElement;
     }
 
-    public synchronized void remove()
+    public void remove()
     {
-        // Do nothing
+        removeLock.lock();
+        try
+        {
+            // Do nothing
+        }
+        finally
+        {
+            removeLock.unlock();
+        }
     }
 
     protected boolean next(Object rs) throws MappedDatastoreException
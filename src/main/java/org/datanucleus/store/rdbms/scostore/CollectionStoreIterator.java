@@ -21,6 +21,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.datanucleus.ExecutionContext;
 import org.datanucleus.metadata.AbstractMemberMetaData;
@@ -46,6 +47,9 @@ class CollectionStoreIterator<E> implements Iterator<E>
     private final Iterator<E> delegate;
     private E lastElement = null;
 
+    /** Lock for removal. Not a monitor since the removal is from the datastore. */
+    private final ReentrantLock removeLock = new ReentrantLock();
+
     CollectionStoreIterator(ObjectProvider op, ResultSet rs, ResultObjectFactory rof, AbstractCollectionStore<E> store)
     throws MappedDatastoreException
     {
@@ -118,17 +122,25 @@ class CollectionStoreIterator<E> implements Iterator<E>
         return lastElement;
     }
 
-    public synchronized void remove()
+    public void remove()
     {
-        if (lastElement == null)
+        removeLock.lock();
+        try
         {
-            throw new IllegalStateException("No entry to remove");
-        }
+            if (lastElement == null)
+            {
+                throw new IllegalStateException("No entry to remove");
+            }
 
-        collStore.remove(op, lastElement, -1, true);
-        delegate.remove();
+            collStore.remove(op, lastElement, -1, true);
+            delegate.remove();
 
-        lastElement = null;
+            lastElement = null;
+        }
+        finally
+        {
+            removeLock.unlock();
+        }
     }
 
     protected boolean next(Object rs) throws MappedDatastoreException
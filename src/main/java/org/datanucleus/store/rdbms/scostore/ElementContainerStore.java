@@ -118,6 +118,9 @@ public abstract class ElementContainerStore extends BaseContainerStore
     /** Value to use to discriminate between elements of this collection from others using the same join table. */
     protected String relationDiscriminatorValue;
 
+    /** Maximum number of elements to include in the IN list of a single statement when operating on a set of elements. */
+    protected static final int BULK_ELEMENT_OPERATION_SIZE = 500;
+
     /**
      * Constructor.
      * @param storeMgr Manager for the store
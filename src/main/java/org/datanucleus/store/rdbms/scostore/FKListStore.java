@@ -248,6 +248,7 @@ public class FKListStore<E> extends AbstractListStore<E>
                 throw new NucleusUserException(Localiser.msg("056041", mmd.getAbstractClassMetaData().getFullClassName(), mmd.getName(), elementType));
             }
         }
+        initialiseListOrdering();
 
         relationDiscriminatorMapping = elementInfo[0].getDatastoreClass().getExternalMapping(mmd, MappingType.EXTERNAL_FK_DISCRIMINATOR);
         if (relationDiscriminatorMapping != null)
@@ -295,6 +296,9 @@ public class FKListStore<E> extends AbstractListStore<E>
             oldElement = get(ownerOP, index);
         }
 
+        // With gapped ordering the element is found, and the new element stored, using the index value rather than the position
+        int orderIndex = gappedOrdering ? getOrderKeyForPosition(ownerOP, index) : index;
+
         ManagedConnection mconn = null;
         try
         {
@@ -313,7 +317,7 @@ public class FKListStore<E> extends AbstractListStore<E>
                     jdbcPosition = BackingStoreHelper.populateOwnerInStatement(ownerOP, ec, ps, jdbcPosition, this);
                     if (orderMapping != null)
                     {
-                        jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps, index, jdbcPosition, orderMapping);
+                        jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps, orderIndex, jdbcPosition, orderMapping);
                     }
                     if (relationDiscriminatorMapping != null)
                     {
@@ -355,7 +359,7 @@ public class FKListStore<E> extends AbstractListStore<E>
                     jdbcPosition = BackingStoreHelper.populateOwnerInStatement(ownerOP, ec, ps2, jdbcPosition, this);
                     if (orderMapping != null)
                     {
-                        jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps2, index, jdbcPosition, orderMapping);
+                        jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps2, orderIndex, jdbcPosition, orderMapping);
                     }
                     if (relationDiscriminatorMapping != null)
                     {
@@ -537,6 +541,11 @@ public class FKListStore<E> extends AbstractListStore<E>
             return true;
         }
 
+        if (gappedOrdering)
+        {
+            return internalAddGapped(ownerOP, startAt, atEnd, c);
+        }
+
         // Check what we have persistent already
         int currentListSize = (size < 0 ? size(ownerOP) : size);
 
@@ -574,9 +583,6 @@ public class FKListStore<E> extends AbstractListStore<E>
         if (shiftingElements)
         {
             // We need to shift existing elements before positioning the new ones
-            // TODO Consider doing all of this in smaller number of statements
-            // e.g if insert at start then do "UPDATE IDX=IDX+1 WHERE ID={...}" or similar, where the ID values are
-            // all ids after the position we insert at
             try
             {
                 // Calculate the amount we need to shift any existing elements by
@@ -588,11 +594,7 @@ public class FKListStore<E> extends AbstractListStore<E>
                 try
                 {
                     // shift up existing elements after start position by "shift"
-                    for (int i=currentListSize-1; i>=startAt; i--)
-                    {
-                        // Shift the index of this row by "shift"
-                        internalShift(ownerOP, mconn, true, i, shift, false);
-                    }
+                    internalShiftRange(ownerOP, mconn, startAt, currentListSize, shift);
                 }
                 finally
                 {
@@ -622,6 +624,51 @@ public class FKListStore<E> extends AbstractListStore<E>
         return true;
     }
 
+    /**
+     * Internal method for adding items to a List using gapped ordering.
+     * The elements take index values between those of their neighbouring elements, so no existing elements are shifted.
+     * @param ownerOP ObjectProvider for the owner
+     * @param startAt The start position
+     * @param atEnd Whether to add at the end
+     * @param c The Collection of elements to add.
+     * @return Whether it was successful
+     */
+    protected boolean internalAddGapped(ObjectProvider ownerOP, int startAt, boolean atEnd, Collection<E> c)
+    {
+        int[] orderKeys = null;
+        try
+        {
+            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ownerOP.getExecutionContext());
+            try
+            {
+                orderKeys = getOrderKeysForInsert(ownerOP, mconn, startAt, atEnd, c.size());
+            }
+            finally
+            {
+                mconn.release();
+            }
+        }
+        catch (MappedDatastoreException e)
+        {
+            throw new NucleusDataStoreException(Localiser.msg("056009", e.getMessage()), e.getCause());
+        }
+
+        int i = 0;
+        Iterator elementIter = c.iterator();
+        while (elementIter.hasNext())
+        {
+            // Persist any non-persistent objects at their list position (persistence-by-reachability), else position them now
+            Object element = elementIter.next();
+            if (!validateElementForWriting(ownerOP, element, orderKeys[i]))
+            {
+                updateElementFk(ownerOP, element, ownerOP.getObject(), orderKeys[i]);
+            }
+            i++;
+        }
+
+        return true;
+    }
+
     /**
      * Remove all elements from a collection from the association owner vs elements.
      * TODO : Change the query to do all in one go for efficiency. Currently removes an element and shuffles the indexes, then removes an element
@@ -694,7 +741,9 @@ public class FKListStore<E> extends AbstractListStore<E>
         {
             // Indexed List
             // The element can be at one position only (no duplicates allowed in FK list)
-            int index = indexOf(ownerOP, element);
+            // Use the index value rather than indexOf, since with gapped ordering that is not the position
+            validateElementForReading(ownerOP, element);
+            int index = internalIndexOf(ownerOP, element, getIndexOfStmt(element));
             if (index == -1)
             {
                 return false;
@@ -21,6 +21,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import org.datanucleus.ClassLoaderResolver;
@@ -451,6 +452,54 @@ public class FKMapStore<K, V> extends AbstractMapStore<K, V>
 
         // Check if there is an existing value for this key
         V oldValue = get(op, newKey);
+        return internalPut(op, newKey, newValue, oldValue);
+    }
+
+    /**
+     * Method to put all elements from a Map into our Map.
+     * Where supported, the keys that already exist are found using a query per chunk of keys, which also retrieves the
+     * current value for each of those keys (the key being a field of the value, in the value table).
+     * @param op ObjectProvider for the Map
+     * @param m The Map to add
+     */
+    public void putAll(ObjectProvider op, Map<? extends K, ? extends V> m)
+    {
+        if (m == null || m.size() == 0)
+        {
+            return;
+        }
+        if (keyFieldNumber < 0 || valueTable != mapTable || !allowsBulkKeyLookup())
+        {
+            super.putAll(op, m);
+            return;
+        }
+
+        ExecutionContext ec = op.getExecutionContext();
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+        {
+            validateKeyForWriting(op, e.getKey());
+            validateValueType(ec.getClassLoaderResolver(), e.getValue());
+        }
+
+        Map<Object, Object> existingValues = getExistingKeys(op, m.keySet(), valueTable.getIdMapping());
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+        {
+            internalPut(op, e.getKey(), e.getValue(), (V)existingValues.get(e.getKey()));
+        }
+    }
+
+    /**
+     * Method to put an item in the Map, where the current value for the key is known.
+     * @param op ObjectProvider for the map.
+     * @param newKey The key to store the value against
+     * @param newValue The value to store.
+     * @param currentValue The value currently stored against this key (or null if none)
+     * @return The value stored.
+     */
+    protected V internalPut(final ObjectProvider op, final K newKey, V newValue, V currentValue)
+    {
+        ExecutionContext ec = op.getExecutionContext();
+        V oldValue = currentValue;
         if (oldValue != newValue)
         {
             if (valueCmd != null)
@@ -20,9 +20,11 @@ package org.datanucleus.store.rdbms.scostore;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 
 import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.ExecutionContext;
@@ -338,6 +340,186 @@ public class FKSetStore<E> extends AbstractSetStore<E>
         return retval;
     }
 
+    /**
+     * Accessor for whether the FK of a set of elements can be updated using statements with an IN list of the element
+     * id column (see {@link #updateElementFks(ObjectProvider, List, boolean)}). This requires a 1-N unidirectional relation
+     * with a single element table, and the element id stored in a single column.
+     * @return Whether bulk FK update is supported
+     */
+    protected boolean allowsBulkFkUpdate()
+    {
+        return ownerMemberMetaData.getMappedBy() == null && elementInfo != null && elementInfo.length == 1 &&
+            elementMapping.getNumberOfDatastoreMappings() == 1;
+    }
+
+    /**
+     * Utility to update the foreign-key (and distinguisher) of a set of elements in the case of a unidirectional 1-N relationship.
+     * Rather than a statement per element, uses a statement per {@link #BULK_ELEMENT_OPERATION_SIZE} elements.
+     * When setting the FK it only updates the elements not already with this owner, so the update count is the number of
+     * elements added
+     * <PRE>
+     * UPDATE ELEMENTTABLE SET FK_COL_1=?, FK_COL_2=?, [DISTINGUISHER=?]
+     * WHERE (FK_COL_1 IS NULL OR FK_COL_1&lt;&gt;? OR FK_COL_2 IS NULL OR FK_COL_2&lt;&gt;? [OR DISTINGUISHER IS NULL OR DISTINGUISHER&lt;&gt;?])
+     * AND ELEMENT_ID IN (?,?,...)
+     * </PRE>
+     * and when nulling the FK (and distinguisher) it only updates the elements currently with this owner
+     * <PRE>
+     * UPDATE ELEMENTTABLE SET FK_COL_1=?, FK_COL_2=?, [DISTINGUISHER=?] WHERE FK_COL_1=? AND FK_COL_2=? [AND DISTINGUISHER=?] AND ELEMENT_ID IN (?,?,...)
+     * </PRE>
+     * Only to be used where {@link #allowsBulkFkUpdate()}.
+     * @param ownerOP ObjectProvider for the owner
+     * @param elements The (persistent) elements to update
+     * @param set Whether to set the FK to the owner (otherwise nulls it)
+     * @return Whether any element was added to (or removed from) the set
+     */
+    protected boolean updateElementFks(ObjectProvider ownerOP, List<Object> elements, boolean set)
+    {
+        boolean modified = false;
+        ExecutionContext ec = ownerOP.getExecutionContext();
+        SQLController sqlControl = storeMgr.getSQLController();
+        for (int chunkStart=0;chunkStart<elements.size();chunkStart+=BULK_ELEMENT_OPERATION_SIZE)
+        {
+            List<Object> chunkElements = elements.subList(chunkStart, Math.min(chunkStart + BULK_ELEMENT_OPERATION_SIZE, elements.size()));
+            String stmt = getUpdateFksStmt(chunkElements.size(), set);
+            try
+            {
+                ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+                try
+                {
+                    PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, stmt, false);
+                    try
+                    {
+                        int jdbcPosition = 1;
+                        ownerMapping.setObject(ec, ps, MappingHelper.getMappingIndices(jdbcPosition, ownerMapping), set ? ownerOP.getObject() : null,
+                            ownerOP, ownerMemberMetaData.getAbsoluteFieldNumber());
+                        jdbcPosition += ownerMapping.getNumberOfDatastoreMappings();
+                        if (relationDiscriminatorMapping != null)
+                        {
+                            if (set)
+                            {
+                                jdbcPosition = BackingStoreHelper.populateRelationDiscriminatorInStatement(ec, ps, jdbcPosition, this);
+                            }
+                            else
+                            {
+                                // Reset the distinguisher, so the element is no longer in this relation
+                                relationDiscriminatorMapping.setObject(ec, ps, MappingHelper.getMappingIndices(jdbcPosition, relationDiscriminatorMapping), null);
+                                jdbcPosition += relationDiscriminatorMapping.getNumberOfDatastoreMappings();
+                            }
+                        }
+                        jdbcPosition = BackingStoreHelper.populateOwnerInStatement(ownerOP, ec, ps, jdbcPosition, this);
+                        if (relationDiscriminatorMapping != null)
+                        {
+                            jdbcPosition = BackingStoreHelper.populateRelationDiscriminatorInStatement(ec, ps, jdbcPosition, this);
+                        }
+                        for (Object element : chunkElements)
+                        {
+                            jdbcPosition = BackingStoreHelper.populateElementForWhereClauseInStatement(ec, ps, element, jdbcPosition, elementMapping);
+                        }
+
+                        int[] number = sqlControl.executeStatementUpdate(ec, mconn, stmt, ps, true);
+                        if (number[0] > 0)
+                        {
+                            modified = true;
+                        }
+                    }
+                    finally
+                    {
+                        sqlControl.closeStatement(mconn, ps);
+                    }
+                }
+                finally
+                {
+                    mconn.release();
+                }
+            }
+            catch (SQLException e)
+            {
+                throw new NucleusDataStoreException(Localiser.msg("056027", stmt), e);
+            }
+        }
+
+        return modified;
+    }
+
+    private String getUpdateFksStmt(int numberOfElements, boolean set)
+    {
+        StringBuilder stmt = new StringBuilder("UPDATE ").append(containerTable.toString()).append(" SET ");
+        for (int i=0; i<ownerMapping.getNumberOfDatastoreMappings(); i++)
+        {
+            if (i > 0)
+            {
+                stmt.append(",");
+            }
+            stmt.append(ownerMapping.getDatastoreMapping(i).getColumn().getIdentifier().toString());
+            stmt.append("=");
+            stmt.append(ownerMapping.getDatastoreMapping(i).getUpdateInputParameter());
+        }
+        if (relationDiscriminatorMapping != null)
+        {
+            for (int i=0; i<relationDiscriminatorMapping.getNumberOfDatastoreMappings(); i++)
+            {
+                stmt.append(",");
+                stmt.append(relationDiscriminatorMapping.getDatastoreMapping(i).getColumn().getIdentifier().toString());
+                stmt.append("=");
+                stmt.append(relationDiscriminatorMapping.getDatastoreMapping(i).getUpdateInputParameter());
+            }
+        }
+        if (set)
+        {
+            // Exclude the elements already with this owner
+            stmt.append(" WHERE (");
+            appendNotEqualClauseForMapping(stmt, ownerMapping, true);
+            if (relationDiscriminatorMapping != null)
+            {
+                appendNotEqualClauseForMapping(stmt, relationDiscriminatorMapping, false);
+            }
+            stmt.append(") AND ");
+        }
+        else
+        {
+            stmt.append(" WHERE ");
+            BackingStoreHelper.appendWhereClauseForMapping(stmt, ownerMapping, null, true);
+            if (relationDiscriminatorMapping != null)
+            {
+                BackingStoreHelper.appendWhereClauseForMapping(stmt, relationDiscriminatorMapping, null, false);
+            }
+            stmt.append(" AND ");
+        }
+
+        stmt.append(elementMapping.getDatastoreMapping(0).getColumn().getIdentifier().toString()).append(" IN (");
+        for (int i=0;i<numberOfElements;i++)
+        {
+            if (i > 0)
+            {
+                stmt.append(",");
+            }
+            stmt.append(elementMapping.getDatastoreMapping(0).getInsertionInputParameter());
+        }
+        stmt.append(")");
+
+        return stmt.toString();
+    }
+
+    /**
+     * Convenience method to append a condition that is true when any column of the mapping is null or differs from its parameter,
+     * of the form "COL_1 IS NULL OR COL_1&lt;&gt;? OR COL_2 IS NULL OR COL_2&lt;&gt;?".
+     * @param stmt The statement to append to
+     * @param mapping The mapping
+     * @param firstClause Whether this is the first clause of the condition
+     */
+    private static void appendNotEqualClauseForMapping(StringBuilder stmt, JavaTypeMapping mapping, boolean firstClause)
+    {
+        for (int i=0; i<mapping.getNumberOfDatastoreMappings(); i++)
+        {
+            if (!firstClause || i > 0)
+            {
+                stmt.append(" OR ");
+            }
+            String columnName = mapping.getDatastoreMapping(i).getColumn().getIdentifier().toString();
+            stmt.append(columnName).append(" IS NULL OR ").append(columnName).append("<>").append(mapping.getDatastoreMapping(i).getUpdateInputParameter());
+        }
+    }
+
     /**
      * Method to update the collection to be the supplied collection of elements.
      * @param ownerOP ObjectProvider for the owner.
@@ -352,34 +534,40 @@ public class FKSetStore<E> extends AbstractSetStore<E>
         }
 
         // Find existing elements, and remove any that are no longer present
-        // TODO Create set of elements to remove and remove in one call, and add new ones in one call
         Iterator elemIter = iterator(ownerOP);
         Collection existing = new HashSet();
+        Collection elementsToRemove = new ArrayList();
         while (elemIter.hasNext())
         {
             Object elem = elemIter.next();
             if (!coll.contains(elem))
             {
-                remove(ownerOP, elem, -1, true);
+                elementsToRemove.add(elem);
             }
             else
             {
                 existing.add(elem);
             }
         }
+        if (!elementsToRemove.isEmpty())
+        {
+            removeAll(ownerOP, elementsToRemove, -1);
+        }
 
         if (existing.size() != coll.size())
         {
             // Add any elements that aren't already present
+            Collection<E> elementsToAdd = new ArrayList<>();
             Iterator<E> iter = coll.iterator();
             while (iter.hasNext())
             {
                 E elem = iter.next();
                 if (!existing.contains(elem))
                 {
-                    add(ownerOP, elem, 0);
+                    elementsToAdd.add(elem);
                 }
             }
+            addAll(ownerOP, elementsToAdd, 0);
         }
     }
 
@@ -583,15 +771,42 @@ public class FKSetStore<E> extends AbstractSetStore<E>
         }
 
         boolean success = false;
+        if (!allowsBulkFkUpdate())
+        {
+            Iterator<E> iter = elements.iterator();
+            while (iter.hasNext())
+            {
+                if (add(ownerOP, iter.next(), -1))
+                {
+                    success = true;
+                }
+            }
+            return success;
+        }
+
+        // 1-N unidir : new elements are persisted with the FK set, whereas persistent elements have the FK updated in bulk
+        ExecutionContext ec = ownerOP.getExecutionContext();
+        List<Object> elementsToUpdate = new ArrayList<>();
         Iterator<E> iter = elements.iterator();
         while (iter.hasNext())
         {
-            if (add(ownerOP, iter.next(), -1))
+            E element = iter.next();
+            if (element != null && ec.getApiAdapter().isPersistent(element) && !ec.getApiAdapter().isDetached(element) &&
+                !ec.getApiAdapter().isDeleted(element))
+            {
+                validateElementForWriting(ec, element, null);
+                elementsToUpdate.add(element);
+            }
+            else if (add(ownerOP, element, -1))
             {
                 success = true;
             }
         }
 
+        if (updateElementFks(ownerOP, elementsToUpdate, true))
+        {
+            success = true;
+        }
         return success;
     }
 
@@ -717,6 +932,28 @@ public class FKSetStore<E> extends AbstractSetStore<E>
             return false;
         }
 
+        if (allowsBulkFkUpdate() && !checkRemovalOfElementShouldDelete(ownerOP))
+        {
+            // 1-N unidir where we null the FK, so null it for all elements in bulk
+            ExecutionContext ec = ownerOP.getExecutionContext();
+            List<Object> elementsToUpdate = new ArrayList<>(elements.size());
+            Iterator iter = elements.iterator();
+            while (iter.hasNext())
+            {
+                Object element = iter.next();
+                if (element != null && validateElementForReading(ownerOP, element))
+                {
+                    if (ec.getApiAdapter().isDetached(element))
+                    {
+                        // Find an attached equivalent of this detached object (DON'T attach the object itself)
+                        element = ec.findObject(ec.getApiAdapter().getIdForObject(element), true, false, element.getClass().getName());
+                    }
+                    elementsToUpdate.add(element);
+                }
+            }
+            return updateElementFks(ownerOP, elementsToUpdate, false);
+        }
+
         // Check the first element for whether we can null the column or
         // whether we have to delete
         boolean success = true;
@@ -21,6 +21,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -109,6 +110,7 @@ public class JoinListStore<E> extends AbstractListStore<E>
             // If they then instantiate it as a List type it will come through here, so we need to ensure the order column exists
             throw new NucleusUserException(Localiser.msg("056044", ownerMemberMetaData.getFullFieldName(), joinTable.toString()));
         }
+        initialiseListOrdering();
 
         if (elementsAreSerialised)
         {
@@ -229,7 +231,11 @@ public class JoinListStore<E> extends AbstractListStore<E>
 
         // Check what we have persistent already
         int currentListSize = 0;
-        if (size < 0)
+        if (gappedOrdering)
+        {
+            // Positions are allocated from the current index values, so no need for the size
+        }
+        else if (size < 0)
         {
             // Get the current size from the datastore
             currentListSize = size(op);
@@ -257,16 +263,17 @@ public class JoinListStore<E> extends AbstractListStore<E>
             SQLController sqlControl = storeMgr.getSQLController();
             try
             {
+                int[] orderKeys = null;
+                if (gappedOrdering)
+                {
+                    // Take index values between those of the neighbouring elements, so no existing elements are shifted
+                    orderKeys = getOrderKeysForInsert(op, mconn, start, atEnd, c.size());
+                }
                 // Shift any existing elements so that we can insert the new element(s) at their position
-                if (!atEnd && start != currentListSize)
+                else if (!atEnd && start != currentListSize)
                 {
-                    boolean batched = currentListSize - start > 0;
-
-                    for (int i = currentListSize - 1; i >= start; i--)
-                    {
-                        // Shift the index for this row by "shift"
-                        internalShift(op, mconn, batched, i, shift, (i == start));
-                    }
+                    // Shift the index for all rows from "start" by "shift"
+                    internalShiftRange(op, mconn, start, currentListSize, shift);
                 }
                 else
                 {
@@ -276,6 +283,7 @@ public class JoinListStore<E> extends AbstractListStore<E>
                 // Insert the elements at their required location
                 int jdbcPosition = 1;
                 boolean batched = (c.size() > 1);
+                int elementNumber = 0;
 
                 Iterator elemIter = c.iterator();
                 while (elemIter.hasNext())
@@ -289,13 +297,15 @@ public class JoinListStore<E> extends AbstractListStore<E>
                         jdbcPosition = BackingStoreHelper.populateElementInStatement(ec, ps, element, jdbcPosition, elementMapping);
                         if (orderMapping != null)
                         {
-                            jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps, start, jdbcPosition, orderMapping);
+                            jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps, 
+                                orderKeys != null ? orderKeys[elementNumber] : start, jdbcPosition, orderMapping);
                         }
                         if (relationDiscriminatorMapping != null)
                         {
                             jdbcPosition = BackingStoreHelper.populateRelationDiscriminatorInStatement(ec, ps, jdbcPosition, this);
                         }
                         start++;
+                        elementNumber++;
 
                         // Execute the statement
                         sqlControl.executeStatementUpdate(ec, mconn, addStmt, ps, !iter.hasNext());
@@ -344,6 +354,9 @@ public class JoinListStore<E> extends AbstractListStore<E>
             oldElement = get(op, index);
         }
 
+        // With gapped ordering the element is found using its index value rather than the position
+        int orderIndex = gappedOrdering ? getOrderKeyForPosition(op, index) : index;
+
         // Check for dynamic schema updates prior to update
         if (storeMgr.getBooleanObjectProperty(RDBMSPropertyNames.PROPERTY_RDBMS_DYNAMIC_SCHEMA_UPDATES).booleanValue())
         {
@@ -377,7 +390,7 @@ public class JoinListStore<E> extends AbstractListStore<E>
                     }
                     else
                     {
-                        jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps, index, jdbcPosition, orderMapping);
+                        jdbcPosition = BackingStoreHelper.populateOrderInStatement(ec, ps, orderIndex, jdbcPosition, orderMapping);
                     }
                     if (relationDiscriminatorMapping != null)
                     {
@@ -581,8 +594,8 @@ public class JoinListStore<E> extends AbstractListStore<E>
             return false;
         }
 
-        // Get the current size of the list (and hence maximum index size)
-        int currentListSize = size(op);
+        // Get the current size of the list (and hence maximum index size), not needed when no shifting is required
+        int currentListSize = gappedOrdering ? 0 : size(op);
 
         // Get the indices of the elements we are going to remove (highest first)
         int[] indices = getIndicesOf(op, elements);
@@ -640,46 +653,48 @@ public class JoinListStore<E> extends AbstractListStore<E>
             throw new NucleusDataStoreException(Localiser.msg("056012", removeAllStmt), e);
         }
 
-        // Shift the remaining indices to remove the holes in ordering
-        try
+        // Shift the remaining indices to remove the holes in ordering (gapped ordering just leaves the holes)
+        if (!gappedOrdering)
         {
-            boolean batched = storeMgr.allowsBatching();
-            ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
             try
             {
-                for (int i = 0; i < currentListSize; i++)
+                ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+                try
                 {
-                    // Find the number of deleted indexes above this index
-                    int shift = 0;
-                    boolean removed = false;
-                    for (int j = 0; j < indices.length; j++)
+                    // Each block of rows between two removed indices is shifted down by the number of removed indices below it
+                    int[] removedIndices = indices.clone();
+                    Arrays.sort(removedIndices);
+                    int numRemoved = 0;
+                    for (int j = 0; j < removedIndices.length; j++)
                     {
-                        if (indices[j] == i)
+                        if (j > 0 && removedIndices[j] == removedIndices[j-1])
                         {
-                            removed = true;
-                            break;
+                            continue;
                         }
-                        if (indices[j] < i)
+                        numRemoved++;
+                        int blockEnd = currentListSize;
+                        for (int k = j + 1; k < removedIndices.length; k++)
                         {
-                            shift++;
+                            if (removedIndices[k] != removedIndices[j])
+                            {
+                                blockEnd = removedIndices[k];
+                                break;
+                            }
                         }
+                        internalShiftRange(op, mconn, removedIndices[j] + 1, blockEnd, -1 * numRemoved);
                     }
-                    if (!removed && shift > 0)
-                    {
-                        internalShift(op, mconn, batched, i, -1 * shift, (i == currentListSize - 1));
-                    }
+                }
+                finally
+                {
+                    mconn.release();
                 }
             }
-            finally
+            catch (MappedDatastoreException e)
             {
-                mconn.release();
+                NucleusLogger.DATASTORE.error(e);
+                throw new NucleusDataStoreException(Localiser.msg("056012", removeAllStmt), e);
             }
         }
-        catch (MappedDatastoreException e)
-        {
-            NucleusLogger.DATASTORE.error(e);
-            throw new NucleusDataStoreException(Localiser.msg("056012", removeAllStmt), e);
-        }
 
         // Dependent field
         boolean dependent = getOwnerMemberMetaData().getCollection().isDependentElement();
@@ -183,25 +183,52 @@ public class JoinMapStore<K, V> extends AbstractMapStore<K, V>
         while (i.hasNext())
         {
             Map.Entry e = (Map.Entry)i.next();
-            Object key = e.getKey();
-            Object value = e.getValue();
 
             // Make sure the related objects are persisted (persistence-by-reachability)
-            validateKeyForWriting(op, key);
-            validateValueForWriting(op, value);
+            validateKeyForWriting(op, e.getKey());
+            validateValueForWriting(op, e.getValue());
+        }
 
-            // Check if this is a new entry, or an update
-            try
+        if (allowsBulkKeyLookup())
+        {
+            // Find the keys already present (with their values) using a query per chunk of keys (matched by the datastore), and
+            // update those whose value has changed. The values of embedded persistables can't be read without their owner, so are always updated
+            boolean readValues = valueCmd == null || !valuesAreEmbedded;
+            Map<Object, Object> existingValues = getExistingKeys(op, m.keySet(), readValues ? valueMapping : null);
+            i = m.entrySet().iterator();
+            while (i.hasNext())
             {
-                Object oldValue = getValue(op, key);
-                if (oldValue != value)
+                Map.Entry e = (Map.Entry)i.next();
+                if (!existingValues.containsKey(e.getKey()))
+                {
+                    puts.add(e);
+                }
+                else if (!readValues || existingValues.get(e.getKey()) != e.getValue())
                 {
                     updates.add(e);
                 }
             }
-            catch (NoSuchElementException nsee)
+        }
+        else
+        {
+            i = m.entrySet().iterator();
+            while (i.hasNext())
             {
-                puts.add(e);
+                Map.Entry e = (Map.Entry)i.next();
+
+                // Check if this is a new entry, or an update
+                try
+                {
+                    Object oldValue = getValue(op, e.getKey());
+                    if (oldValue != e.getValue())
+                    {
+                        updates.add(e);
+                    }
+                }
+                catch (NoSuchElementException nsee)
+                {
+                    puts.add(e);
+                }
             }
         }
 
@@ -216,13 +243,14 @@ public class JoinMapStore<K, V> extends AbstractMapStore<K, V>
                 ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
                 try
                 {
-                    // Loop through all entries
+                    // Loop through all entries. Can't batch when using an adapter column since each needs the current max value
+                    boolean batchPuts = batched && adapterMapping == null && puts.size() > 1;
                     Iterator<Map.Entry> iter = puts.iterator();
                     while (iter.hasNext())
                     {
                         // Add the row to the join table
                         Map.Entry entry = iter.next();
-                        internalPut(op, mconn, batched, entry.getKey(), entry.getValue(), (!iter.hasNext()));
+                        internalPut(op, mconn, batchPuts, entry.getKey(), entry.getValue(), (!iter.hasNext()));
                     }
                 }
                 finally
@@ -246,12 +274,13 @@ public class JoinMapStore<K, V> extends AbstractMapStore<K, V>
                 try
                 {
                     // Loop through all entries
+                    boolean batchUpdates = batched && updates.size() > 1;
                     Iterator<Map.Entry> iter = updates.iterator();
                     while (iter.hasNext())
                     {
                         // Update the row in the join table
                         Map.Entry entry = iter.next();
-                        internalUpdate(op, mconn, batched, entry.getKey(), entry.getValue(), !iter.hasNext());
+                        internalUpdate(op, mconn, batchUpdates, entry.getKey(), entry.getValue(), !iter.hasNext());
                     }
                 }
                 finally
@@ -989,7 +1018,7 @@ public class JoinMapStore<K, V> extends AbstractMapStore<K, V>
         SQLController sqlControl = storeMgr.getSQLController();
         try 
         {
-            PreparedStatement ps = sqlControl.getStatementForUpdate(conn, updateStmt, false);
+            PreparedStatement ps = sqlControl.getStatementForUpdate(conn, updateStmt, batched);
             try
             {
                 int jdbcPosition = 1;
@@ -1004,14 +1033,7 @@ public class JoinMapStore<K, V> extends AbstractMapStore<K, V>
                 jdbcPosition = BackingStoreHelper.populateOwnerInStatement(ownerOP, ec, ps, jdbcPosition, this);
                 jdbcPosition = BackingStoreHelper.populateKeyInStatement(ec, ps, key, jdbcPosition, keyMapping);
 
-                if (batched)
-                {
-                    ps.addBatch();
-                }
-                else
-                {
-                    sqlControl.executeStatementUpdate(ec, conn, updateStmt, ps, true);
-                }
+                sqlControl.executeStatementUpdate(ec, conn, updateStmt, ps, executeNow || !batched);
             }
             finally
             {
@@ -1042,7 +1064,7 @@ public class JoinMapStore<K, V> extends AbstractMapStore<K, V>
         SQLController sqlControl = storeMgr.getSQLController();
         try
         {
-            PreparedStatement ps = sqlControl.getStatementForUpdate(conn, putStmt, false);
+            PreparedStatement ps = sqlControl.getStatementForUpdate(conn, putStmt, batched);
             try
             {
                 int jdbcPosition = 1;
@@ -1065,7 +1087,7 @@ public class JoinMapStore<K, V> extends AbstractMapStore<K, V>
                 jdbcPosition = BackingStoreHelper.populateKeyInStatement(ec, ps, key, jdbcPosition, keyMapping);
 
                 // Execute the statement
-                return sqlControl.executeStatementUpdate(ec, conn, putStmt, ps, true);
+                return sqlControl.executeStatementUpdate(ec, conn, putStmt, ps, executeNow || !batched);
             }
             finally
             {
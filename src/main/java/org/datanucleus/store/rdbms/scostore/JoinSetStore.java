@@ -17,14 +17,18 @@ Contributors:
 **********************************************************************/
 package org.datanucleus.store.rdbms.scostore;
 
+import java.math.BigDecimal;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.ExecutionContext;
@@ -33,6 +37,7 @@ import org.datanucleus.exceptions.NotYetFlushedException;
 import org.datanucleus.exceptions.NucleusDataStoreException;
 import org.datanucleus.exceptions.NucleusException;
 import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.identity.IdentityUtils;
 import org.datanucleus.metadata.AbstractClassMetaData;
 import org.datanucleus.metadata.AbstractMemberMetaData;
 import org.datanucleus.metadata.DiscriminatorStrategy;
@@ -328,7 +333,6 @@ public class JoinSetStore<E> extends AbstractSetStore<E>
         }
 
         List exceptions = new ArrayList();
-        boolean batched = (elements.size() > 1);
 
         // Validate all elements for writing
         ExecutionContext ec = op.getExecutionContext();
@@ -365,6 +369,38 @@ public class JoinSetStore<E> extends AbstractSetStore<E>
             }
         }
 
+        // Find the elements that need a row in the join table. Where possible this is determined for all elements
+        // with a query per BULK_ELEMENT_OPERATION_SIZE elements, otherwise only M-N bidir is checked (per element, using
+        // the collection of the element where loaded, so that additions from the other side not yet flushed are seen)
+        List<E> elementsToInsert = new ArrayList<>(elements.size());
+        if (allowsBulkElementOperations() && relationType != RelationType.MANY_TO_MANY_BI)
+        {
+            Set<Object> existingIds = getExistingElementIds(op, elements);
+            for (E element : elements)
+            {
+                Object elementId = element != null ? ec.getApiAdapter().getIdForObject(element) : null;
+                if (elementId == null || existingIds.add(elementId))
+                {
+                    elementsToInsert.add(element);
+                }
+            }
+        }
+        else
+        {
+            for (E element : elements)
+            {
+                if (relationType != RelationType.MANY_TO_MANY_BI || !elementAlreadyContainsOwnerInMtoN(op, element))
+                {
+                    elementsToInsert.add(element);
+                }
+            }
+        }
+        if (elementsToInsert.isEmpty())
+        {
+            return false;
+        }
+        boolean batched = (elementsToInsert.size() > 1);
+
         boolean modified = false;
         try
         {
@@ -385,7 +421,7 @@ public class JoinSetStore<E> extends AbstractSetStore<E>
                 int nextOrderID = orderMapping != null ? getNextIDForOrderColumn(op) : 0;
 
                 // Loop through all elements to be added
-                iter = elements.iterator();
+                iter = elementsToInsert.iterator();
                 E element = null;
                 while (iter.hasNext())
                 {
@@ -394,28 +430,19 @@ public class JoinSetStore<E> extends AbstractSetStore<E>
                     try
                     {
                         // Add the row to the join table
-                        boolean toBeInserted = true;
-                        if (relationType == RelationType.MANY_TO_MANY_BI)
-                        {
-                            toBeInserted = !elementAlreadyContainsOwnerInMtoN(op, element);
-                        }
-
-                        if (toBeInserted)
+                        int[] rc = doInternalAdd(op, element, mconn, batched, nextOrderID, !batched || (batched && !iter.hasNext()));
+                        if (rc != null)
                         {
-                            int[] rc = doInternalAdd(op, element, mconn, batched, nextOrderID, !batched || (batched && !iter.hasNext()));
-                            if (rc != null)
+                            for (int i = 0; i < rc.length; i++)
                             {
-                                for (int i = 0; i < rc.length; i++)
+                                if (rc[i] > 0)
                                 {
-                                    if (rc[i] > 0)
-                                    {
-                                        // At least one record was inserted
-                                        modified = true;
-                                    }
+                                    // At least one record was inserted
+                                    modified = true;
                                 }
                             }
-                            nextOrderID++;
                         }
+                        nextOrderID++;
                     }
                     catch (MappedDatastoreException mde)
                     {
@@ -477,6 +504,11 @@ public class JoinSetStore<E> extends AbstractSetStore<E>
 
     protected boolean removeAllInternal(ObjectProvider op, Collection elements, int size)
     {
+        if (allowsBulkElementOperations())
+        {
+            return removeAllInternalUsingInList(op, elements);
+        }
+
         boolean modified = false;
 
         String removeAllStmt = getRemoveAllStmt(op, elements);
@@ -527,6 +559,315 @@ public class JoinSetStore<E> extends AbstractSetStore<E>
         return modified;
     }
 
+    /**
+     * Method to remove a collection of elements from the Set, using a statement per {@link #BULK_ELEMENT_OPERATION_SIZE} elements
+     * of the form
+     * <PRE>
+     * DELETE FROM SETTABLE WHERE OWNERCOL=? AND ELEMENTCOL IN (?,?,...) [AND RELATION_DISCRIM=?]
+     * </PRE>
+     * Only to be used where {@link #allowsBulkElementOperations()}.
+     * @param op ObjectProvider for the owner
+     * @param elements Collection of elements to remove
+     * @return Whether the database was updated
+     */
+    protected boolean removeAllInternalUsingInList(ObjectProvider op, Collection elements)
+    {
+        List<Object> elementsToRemove = new ArrayList<>(elements.size());
+        for (Object element : elements)
+        {
+            if (element != null)
+            {
+                elementsToRemove.add(element);
+            }
+        }
+
+        boolean modified = false;
+        ExecutionContext ec = op.getExecutionContext();
+        SQLController sqlControl = storeMgr.getSQLController();
+        for (int chunkStart=0;chunkStart<elementsToRemove.size();chunkStart+=BULK_ELEMENT_OPERATION_SIZE)
+        {
+            List<Object> chunkElements = elementsToRemove.subList(chunkStart, Math.min(chunkStart + BULK_ELEMENT_OPERATION_SIZE, elementsToRemove.size()));
+            String stmt = getRemoveAllUsingInListStmt(chunkElements.size());
+            try
+            {
+                ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+                try
+                {
+                    PreparedStatement ps = sqlControl.getStatementForUpdate(mconn, stmt, false);
+                    try
+                    {
+                        int jdbcPosition = 1;
+                        jdbcPosition = BackingStoreHelper.populateOwnerInStatement(op, ec, ps, jdbcPosition, this);
+                        for (Object element : chunkElements)
+                        {
+                            jdbcPosition = BackingStoreHelper.populateElementForWhereClauseInStatement(ec, ps, element, jdbcPosition, elementMapping);
+                        }
+                        if (relationDiscriminatorMapping != null)
+                        {
+                            jdbcPosition = BackingStoreHelper.populateRelationDiscriminatorInStatement(ec, ps, jdbcPosition, this);
+                        }
+
+                        int[] number = sqlControl.executeStatementUpdate(ec, mconn, stmt, ps, true);
+                        if (number[0] > 0)
+                        {
+                            modified = true;
+                        }
+                    }
+                    finally
+                    {
+                        sqlControl.closeStatement(mconn, ps);
+                    }
+                }
+                finally
+                {
+                    mconn.release();
+                }
+            }
+            catch (SQLException e)
+            {
+                NucleusLogger.DATASTORE.error("Exception on removeAll", e);
+                throw new NucleusDataStoreException(Localiser.msg("056012", stmt), e);
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Accessor for whether this store supports finding, and removing, a set of elements using statements with an IN list
+     * of the element column. This requires the elements to be persistable (not embedded/serialised) and stored in a single column.
+     * @return Whether bulk element operations are supported
+     */
+    public boolean allowsBulkElementOperations()
+    {
+        return elementCmd != null && !elementsAreEmbedded && !elementsAreSerialised &&
+            elementMapping.getNumberOfDatastoreMappings() == 1 && !(elementMapping instanceof ReferenceMapping);
+    }
+
+    /**
+     * Method to find which of the specified elements are already present in the Set. Rather than a query per element,
+     * the elements are checked using a query per {@link #BULK_ELEMENT_OPERATION_SIZE} elements, of the form
+     * <PRE>
+     * SELECT ELEMENTCOL FROM SETTABLE WHERE OWNERCOL=? AND ELEMENTCOL IN (?,?,...) [AND RELATION_DISCRIM=?]
+     * </PRE>
+     * The element column values are compared with the keys of the element identities, so the elements are not instantiated.
+     * This is only done for identities with an integral, character or String key; elements with any other identity (e.g. a
+     * user-defined id class, or a key whose value may not read back equal such as a date or decimal) are checked individually.
+     * Where a row read back matches none of the keys (e.g. a String key stored in a padded CHAR column) the elements of that
+     * chunk that weren't matched are also checked individually.
+     * Only to be used where {@link #allowsBulkElementOperations()}.
+     * @param op ObjectProvider for the owner
+     * @param elements The elements to check for (must be persistent)
+     * @return The identities of the elements (of those specified) that are present in the Set
+     */
+    public Set<Object> getExistingElementIds(ObjectProvider op, Collection elements)
+    {
+        ExecutionContext ec = op.getExecutionContext();
+        Set<Object> existingIds = new HashSet<>();
+        List<Object> elementsToCheck = new ArrayList<>(elements.size());
+        Map<Object, Object> elementIdByKey = new HashMap<>();
+        for (Object element : elements)
+        {
+            Object elementId = element != null ? ec.getApiAdapter().getIdForObject(element) : null;
+            if (elementId != null)
+            {
+                Object key = getKeyForElementId(elementId);
+                if (key != null)
+                {
+                    elementsToCheck.add(element);
+                    elementIdByKey.put(key, elementId);
+                }
+                else if (contains(op, element))
+                {
+                    existingIds.add(elementId);
+                }
+            }
+        }
+
+        SQLController sqlControl = storeMgr.getSQLController();
+        for (int chunkStart=0;chunkStart<elementsToCheck.size();chunkStart+=BULK_ELEMENT_OPERATION_SIZE)
+        {
+            List<Object> chunkElements = elementsToCheck.subList(chunkStart, Math.min(chunkStart + BULK_ELEMENT_OPERATION_SIZE, elementsToCheck.size()));
+            boolean allMatched = true;
+            String stmt = getExistingElementsStmt(chunkElements.size());
+            try
+            {
+                ManagedConnection mconn = storeMgr.getConnectionManager().getConnection(ec);
+                try
+                {
+                    PreparedStatement ps = sqlControl.getStatementForQuery(mconn, stmt);
+                    try
+                    {
+                        int jdbcPosition = 1;
+                        jdbcPosition = BackingStoreHelper.populateOwnerInStatement(op, ec, ps, jdbcPosition, this);
+                        for (Object element : chunkElements)
+                        {
+                            jdbcPosition = BackingStoreHelper.populateElementForWhereClauseInStatement(ec, ps, element, jdbcPosition, elementMapping);
+                        }
+                        if (relationDiscriminatorMapping != null)
+                        {
+                            jdbcPosition = BackingStoreHelper.populateRelationDiscriminatorInStatement(ec, ps, jdbcPosition, this);
+                        }
+
+                        ResultSet rs = sqlControl.executeStatementQuery(ec, mconn, stmt, ps);
+                        try
+                        {
+                            while (rs.next())
+                            {
+                                Object elementId = elementIdByKey.get(getKeyForComparison(rs.getObject(1)));
+                                if (elementId != null)
+                                {
+                                    existingIds.add(elementId);
+                                }
+                                else
+                                {
+                                    allMatched = false;
+                                }
+                            }
+
+                            JDBCUtils.logWarnings(rs);
+                        }
+                        finally
+                        {
+                            rs.close();
+                        }
+                    }
+                    finally
+                    {
+                        sqlControl.closeStatement(mconn, ps);
+                    }
+                }
+                finally
+                {
+                    mconn.release();
+                }
+            }
+            catch (SQLException e)
+            {
+                throw new NucleusDataStoreException(Localiser.msg("056008", stmt), e);
+            }
+
+            if (!allMatched)
+            {
+                // A row didn't compare equal with any of the keys, so check the elements not found using the datastore comparison
+                for (Object element : chunkElements)
+                {
+                    Object elementId = ec.getApiAdapter().getIdForObject(element);
+                    if (!existingIds.contains(elementId) && contains(op, element))
+                    {
+                        existingIds.add(elementId);
+                    }
+                }
+            }
+        }
+
+        return existingIds;
+    }
+
+    /**
+     * Convenience method to return the key of an element identity, being the value of its (single) column in the join table,
+     * in a form for comparison with the value read from the column. Only identities with a key of type Long, Integer, Short,
+     * Byte, Character or String have a key, since these read back with a value that is equal.
+     * @param elementId The element identity
+     * @return The key, or null if the identity has no key that can be compared
+     */
+    private static Object getKeyForElementId(Object elementId)
+    {
+        Object key = null;
+        if (IdentityUtils.isDatastoreIdentity(elementId))
+        {
+            key = IdentityUtils.getTargetKeyForDatastoreIdentity(elementId);
+        }
+        else if (IdentityUtils.isSingleFieldIdentity(elementId))
+        {
+            key = IdentityUtils.getTargetKeyForSingleFieldIdentity(elementId);
+        }
+
+        if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte ||
+            key instanceof Character || key instanceof String)
+        {
+            return getKeyForComparison(key);
+        }
+        return null;
+    }
+
+    /**
+     * Convenience method to return a key value in a form that is comparable whatever type the JDBC driver returns it as
+     * (e.g a long key may be returned as Integer, Long or BigDecimal, and a character key as a String).
+     * @param value The value
+     * @return The value for comparison
+     */
+    private static Object getKeyForComparison(Object value)
+    {
+        if (value instanceof Number)
+        {
+            BigDecimal decimal = new BigDecimal(value.toString());
+            if (decimal.signum() == 0 || decimal.stripTrailingZeros().scale() <= 0)
+            {
+                return Long.valueOf(decimal.longValue());
+            }
+        }
+        else if (value instanceof Character)
+        {
+            return value.toString();
+        }
+        return value;
+    }
+
+    /**
+     * Generate statement to find which of a number of elements are present in the Set.
+     * <PRE>
+     * SELECT ELEMENTCOL
+     * FROM SETTABLE
+     * WHERE OWNERCOL=? AND ELEMENTCOL IN (?,?,...)
+     * [AND RELATION_DISCRIM=?]
+     * </PRE>
+     * @param numberOfElements Number of elements in the IN list
+     * @return Statement to find the existing elements
+     */
+    protected String getExistingElementsStmt(int numberOfElements)
+    {
+        StringBuilder stmt = new StringBuilder("SELECT ").append(elementMapping.getDatastoreMapping(0).getColumn().getIdentifier().toString());
+        stmt.append(" FROM ").append(containerTable.toString()).append(" WHERE ");
+        appendOwnerAndElementInListWhereClause(stmt, numberOfElements);
+        return stmt.toString();
+    }
+
+    /**
+     * Generate statement for removing a number of elements from the Set.
+     * <PRE>
+     * DELETE FROM SETTABLE
+     * WHERE OWNERCOL=? AND ELEMENTCOL IN (?,?,...)
+     * [AND RELATION_DISCRIM=?]
+     * </PRE>
+     * @param numberOfElements Number of elements in the IN list
+     * @return Statement for deleting the elements from the Set
+     */
+    protected String getRemoveAllUsingInListStmt(int numberOfElements)
+    {
+        StringBuilder stmt = new StringBuilder("DELETE FROM ").append(containerTable.toString()).append(" WHERE ");
+        appendOwnerAndElementInListWhereClause(stmt, numberOfElements);
+        return stmt.toString();
+    }
+
+    private void appendOwnerAndElementInListWhereClause(StringBuilder stmt, int numberOfElements)
+    {
+        BackingStoreHelper.appendWhereClauseForMapping(stmt, ownerMapping, null, true);
+        stmt.append(" AND ").append(elementMapping.getDatastoreMapping(0).getColumn().getIdentifier().toString()).append(" IN (");
+        for (int i=0;i<numberOfElements;i++)
+        {
+            if (i > 0)
+            {
+                stmt.append(",");
+            }
+            stmt.append(elementMapping.getDatastoreMapping(0).getInsertionInputParameter());
+        }
+        stmt.append(")");
+        if (relationDiscriminatorMapping != null)
+        {
+            BackingStoreHelper.appendWhereClauseForMapping(stmt, relationDiscriminatorMapping, null, false);
+        }
+    }
+
     /**
      * Generate statement for deleting items from the Set.
      * The EMBEDDEDFIELDX is only present when the elements are PC(embedded).
@@ -21,6 +21,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.ListIterator;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.datanucleus.ExecutionContext;
 import org.datanucleus.metadata.AbstractMemberMetaData;
@@ -51,6 +52,9 @@ public class ListStoreIterator<E> implements ListIterator<E>
 
     private final AbstractListStore<E> abstractListStore;
 
+    /** Lock for remove/set. Not a monitor since these update the datastore. */
+    private final ReentrantLock updateLock = new ReentrantLock();
+
     ListStoreIterator(ObjectProvider op, ResultSet resultSet, ResultObjectFactory rof, AbstractListStore<E> als)
     throws MappedDatastoreException
     {
@@ -160,30 +164,46 @@ public class ListStoreIterator<E> implements ListIterator<E>
         return delegate.previousIndex();
     }
 
-    public synchronized void remove()
+    public void remove()
     {
-        if (lastElement == null)
+        updateLock.lock();
+        try
         {
-            throw new IllegalStateException("No entry to remove");
-        }
+            if (lastElement == null)
+            {
+                throw new IllegalStateException("No entry to remove");
+            }
 
-        abstractListStore.remove(op, currentIndex, -1);
-        delegate.remove();
+            abstractListStore.remove(op, currentIndex, -1);
+            delegate.remove();
 
-        lastElement = null;
-        currentIndex = -1;
+            lastElement = null;
+            currentIndex = -1;
+        }
+        finally
+        {
+            updateLock.unlock();
+        }
     }
 
-    public synchronized void set(E elem)
+    public void set(E elem)
     {
-        if (lastElement == null)
+        updateLock.lock();
+        try
         {
-            throw new IllegalStateException("No entry to replace");
-        }
+            if (lastElement == null)
+            {
+                throw new IllegalStateException("No entry to replace");
+            }
 
-        abstractListStore.set(op, currentIndex, elem, true);
-        delegate.set(elem);
-        lastElement = elem;
+            abstractListStore.set(op, currentIndex, elem, true);
+            delegate.set(elem);
+            lastElement = elem;
+        }
+        finally
+        {
+            updateLock.unlock();
+        }
     }
 
     protected AbstractMemberMetaData getOwnerMemberMetaData(Table containerTable)
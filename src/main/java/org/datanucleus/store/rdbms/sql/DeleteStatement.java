@@ -21,6 +21,7 @@ import java.util.Iterator;
 import java.util.Map;
 
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.adapter.DatastoreAdapter;
 import org.datanucleus.store.rdbms.identifier.DatastoreIdentifier;
 import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
 import org.datanucleus.store.rdbms.sql.expression.BooleanSubqueryExpression;
@@ -95,4 +96,33 @@ public class DeleteStatement extends SQLStatement
 
         return sql;
     }
-}
\ No newline at end of file
+
+    /**
+     * Method to return the SQL of a SELECT of the specified columns of the rows that this statement will affect,
+     * using the same table and WHERE clause as this statement.
+     * @param columnsSQL The SQL of the columns to select (e.g "A0.ID")
+     * @param lock Whether to lock the selected rows (where the datastore supports it)
+     * @return The SQL text of the SELECT
+     */
+    public synchronized SQLText getSelectAffectedRowsSQLText(String columnsSQL, boolean lock)
+    {
+        // Make sure the WHERE clause is finalised (joins are converted to EXISTS when generating the SQL)
+        getSQLText();
+
+        DatastoreAdapter dba = getDatastoreAdapter();
+        SQLText selectSQL = new SQLText("SELECT ").append(columnsSQL).append(" FROM ").append(primaryTable.toString());
+        if (lock && dba.supportsOption(DatastoreAdapter.LOCK_OPTION_PLACED_AFTER_FROM))
+        {
+            selectSQL.append(" WITH ").append(dba.getSelectWithLockOption());
+        }
+        if (where != null)
+        {
+            selectSQL.append(" WHERE ").append(where.toSQLText());
+        }
+        if (lock && dba.supportsOption(DatastoreAdapter.LOCK_WITH_SELECT_FOR_UPDATE))
+        {
+            selectSQL.append(" ").append(dba.getSelectForUpdateText());
+        }
+        return selectSQL;
+    }
+}
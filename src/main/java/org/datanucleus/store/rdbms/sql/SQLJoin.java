@@ -154,6 +154,18 @@ public class SQLJoin
     }
 
     public SQLText toSQLText(DatastoreAdapter dba, boolean lock)
+    {
+        return toSQLText(dba, lock, false);
+    }
+
+    /**
+     * Method to return the SQL for this join.
+     * @param dba Datastore adapter
+     * @param lock Whether to add locking on the join clause (only for some RDBMS)
+     * @param skipLocked Whether the locking should skip rows locked by other transactions
+     * @return The SQL for the join
+     */
+    public SQLText toSQLText(DatastoreAdapter dba, boolean lock, boolean skipLocked)
     {
         SQLText st = new SQLText();
 
@@ -187,7 +199,7 @@ public class SQLJoin
                 // ON T0.ID = T1.T0_ID
                 st.append("(");
                 st.append(targetTable.toString()).append(" ");
-                st.append(subJoin.toSQLText(dba, lock));
+                st.append(subJoin.toSQLText(dba, lock, skipLocked));
                 st.append(")");
             }
             else
@@ -213,7 +225,8 @@ public class SQLJoin
 
             if (lock && dba.supportsOption(DatastoreAdapter.LOCK_OPTION_PLACED_WITHIN_JOIN))
             {
-                st.append(" WITH ").append(dba.getSelectWithLockOption());
+                String lockOption = skipLocked ? dba.getSelectWithLockSkipLockedOption() : null;
+                st.append(" WITH ").append(lockOption != null ? lockOption : dba.getSelectWithLockOption());
             }
         }
         else
@@ -74,6 +74,7 @@ public abstract class SQLStatement
     public static final String EXTENSION_SQL_TABLE_NAMING_STRATEGY = "table-naming-strategy";
     public static final String EXTENSION_LOCK_FOR_UPDATE = "lock-for-update";
     public static final String EXTENSION_LOCK_FOR_UPDATE_NOWAIT = "for-update-nowait";
+    public static final String EXTENSION_LOCK_FOR_UPDATE_SKIP_LOCKED = "for-update-skip-locked";
 
     /** Map of SQLTable naming instance keyed by the name of the naming scheme. */
     protected static final Map<String, SQLTableNamer> tableNamerByName = new ConcurrentHashMap<>();
@@ -81,6 +82,9 @@ public abstract class SQLStatement
     /** Cached SQL statement, generated by getSQLText(). */
     protected SQLText sql = null;
 
+    /** Cached frozen form of the SQL statement, generated by getSQLTextTemplate(). Reset when the statement is changed. */
+    private volatile SQLTextTemplate sqlTemplate = null;
+
     /** Manager for the RDBMS datastore. */
     protected RDBMSStoreManager rdbmsMgr;
 
@@ -951,12 +955,37 @@ public abstract class SQLStatement
         return sql;
     }
 
+    /**
+     * Accessor for the frozen form of the SQL of this statement, with its parameters as a flat array of slots.
+     * This is generated once and cached until the statement is changed, so repeated executions of the statement
+     * can use the SQL and bind the parameter values without regenerating the SQL or taking the monitor of the statement.
+     * @return The template for the SQL
+     */
+    public SQLTextTemplate getSQLTextTemplate()
+    {
+        SQLTextTemplate template = sqlTemplate;
+        if (template == null)
+        {
+            synchronized (this)
+            {
+                template = sqlTemplate;
+                if (template == null)
+                {
+                    template = getSQLText().toTemplate();
+                    sqlTemplate = template;
+                }
+            }
+        }
+        return template;
+    }
+
     /**
      * Method to uncache the generated SQL (because some condition has changed).
      */
     protected void invalidateStatement()
     {
         sql = null;
+        sqlTemplate = null;
     }
 
     /**
@@ -19,6 +19,7 @@ package org.datanucleus.store.rdbms.sql;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -32,6 +33,7 @@ import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.ExecutionContext;
 import org.datanucleus.FetchPlan;
 import org.datanucleus.NucleusContext;
+import org.datanucleus.exceptions.NucleusDataStoreException;
 import org.datanucleus.exceptions.NucleusException;
 import org.datanucleus.exceptions.NucleusUserException;
 import org.datanucleus.metadata.AbstractClassMetaData;
@@ -53,6 +55,7 @@ import org.datanucleus.store.rdbms.mapping.java.PersistableMapping;
 import org.datanucleus.store.rdbms.mapping.java.ReferenceMapping;
 import org.datanucleus.store.rdbms.query.StatementClassMapping;
 import org.datanucleus.store.rdbms.query.StatementMappingIndex;
+import org.datanucleus.store.rdbms.LazyLobManager;
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
 import org.datanucleus.store.rdbms.SQLController;
 import org.datanucleus.store.rdbms.adapter.DatastoreAdapter;
@@ -67,6 +70,7 @@ import org.datanucleus.store.rdbms.table.SecondaryDatastoreClass;
 import org.datanucleus.store.rdbms.table.Table;
 import org.datanucleus.store.schema.table.SurrogateColumnType;
 import org.datanucleus.util.ClassUtils;
+import org.datanucleus.util.Localiser;
 import org.datanucleus.util.NucleusLogger;
 
 /**
@@ -90,17 +94,17 @@ public class SQLStatementHelper
             ExecutionContext ec, ManagedConnection mconn, String resultSetType, String resultSetConcurrency)
     throws SQLException
     {
-        SQLText sqlText = sqlStmt.getSQLText();
+        SQLTextTemplate sqlTemplate = sqlStmt.getSQLTextTemplate();
         SQLController sqlControl = sqlStmt.getRDBMSManager().getSQLController();
 
         // Generate the statement using the statement text
-        PreparedStatement ps = sqlControl.getStatementForQuery(mconn, sqlText.toString(), resultSetType, resultSetConcurrency);
+        PreparedStatement ps = sqlControl.getStatementForQuery(mconn, sqlTemplate.getSQL(), resultSetType, resultSetConcurrency);
 
         boolean done = false;
         try
         {
             // Apply any parameter values for the statement
-            sqlText.applyParametersToStatement(ec, ps);
+            sqlTemplate.applyParametersToStatement(ec, ps);
             done = true;
         }
         finally
@@ -203,6 +207,13 @@ public class SQLStatementHelper
                     }
                 }
 
+                if (param.getArrayElementTypeName() != null)
+                {
+                    // Collection value bound as a single SQL ARRAY
+                    setArrayParameter(ps, num++, param.getArrayElementTypeName(), value);
+                    continue;
+                }
+
                 AbstractClassMetaData cmd = ec.getMetaDataManager().getMetaDataForClass(mapping.getType(), ec.getClassLoaderResolver());
                 if (param.getColumnNumber() >= 0 && cmd != null)
                 {
@@ -321,6 +332,33 @@ public class SQLStatementHelper
         }
     }
 
+    /**
+     * Convenience method to set a collection (or array) value as a single SQL ARRAY parameter in the statement.
+     * @param ps The PreparedStatement
+     * @param num Number of the parameter
+     * @param elementTypeName SQL type name of the elements
+     * @param value The collection (or array) value
+     * @throws NucleusDataStoreException if an error occurs setting the parameter
+     */
+    public static void setArrayParameter(PreparedStatement ps, int num, String elementTypeName, Object value)
+    {
+        try
+        {
+            if (value == null)
+            {
+                ps.setNull(num, Types.ARRAY);
+                return;
+            }
+
+            Object[] elements = (value instanceof Collection) ? ((Collection)value).toArray() : (Object[])value;
+            ps.setArray(num, ps.getConnection().createArrayOf(elementTypeName, elements));
+        }
+        catch (SQLException sqle)
+        {
+            throw new NucleusDataStoreException(Localiser.msg("055001", "Array", "" + value, elementTypeName, sqle.getMessage()), sqle);
+        }
+    }
+
     /**
      * Convenience method to use reflection to extract the value of a PK field of the provided object.
      * @param value The value of the overall object
@@ -636,9 +674,23 @@ public class SQLStatementHelper
         }
 
         ClassLoaderResolver clr = stmt.getRDBMSManager().getNucleusContext().getClassLoaderResolver(null);
+        LazyLobManager lazyLobMgr = stmt.getRDBMSManager().getComponent(LazyLobManager.class);
+        int[] explicitFieldNumbers = null;
         for (int i=0;i<fieldNumbers.length;i++)
         {
             AbstractMemberMetaData mmd = sourceCmd.getMetaDataForManagedMemberAtAbsolutePosition(fieldNumbers[i]);
+            if (lazyLobMgr.isLazyLob(mmd, sourceTbl.getMemberMapping(mmd)))
+            {
+                // LOB member loaded lazily, so leave unloaded, unless the fetch plan includes it other than via the DFG
+                if (explicitFieldNumbers == null)
+                {
+                    explicitFieldNumbers = getFetchPlanMembersExcludingDefaultGroup(fetchPlan, sourceCmd);
+                }
+                if (!containsMemberNumber(explicitFieldNumbers, fieldNumbers[i]))
+                {
+                    continue;
+                }
+            }
             selectMemberOfSourceInStatement(stmt, mappingDefinition, fetchPlan, sourceSqlTbl, mmd, clr, maxFetchDepth, inputJoinType);
         }
 
@@ -684,6 +736,47 @@ public class SQLStatementHelper
         }
     }
 
+    /**
+     * Convenience method to return the numbers of the members of the class that the fetch plan includes through a group
+     * other than the default fetch group, so members that the user has explicitly asked for.
+     * @param fetchPlan The fetch plan (null implies just the default fetch group)
+     * @param cmd Metadata for the class
+     * @return The member numbers
+     */
+    private static int[] getFetchPlanMembersExcludingDefaultGroup(FetchPlan fetchPlan, AbstractClassMetaData cmd)
+    {
+        if (fetchPlan == null)
+        {
+            return new int[0];
+        }
+
+        FetchPlan nonDefaultFetchPlan = fetchPlan.getCopy();
+        nonDefaultFetchPlan.removeGroup(FetchPlan.DEFAULT);
+        if (nonDefaultFetchPlan.getGroups().isEmpty())
+        {
+            return new int[0];
+        }
+        return nonDefaultFetchPlan.getFetchPlanForClass(cmd).getMemberNumbers();
+    }
+
+    /**
+     * Convenience method to return whether the array of member numbers contains the specified member number.
+     * @param memberNumbers The member numbers
+     * @param memberNumber The member number to look for
+     * @return Whether it is contained
+     */
+    private static boolean containsMemberNumber(int[] memberNumbers, int memberNumber)
+    {
+        for (int i=0;i<memberNumbers.length;i++)
+        {
+            if (memberNumbers[i] == memberNumber)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Method to select the specified member (field/property) of the source table in the passed SQL 
      * statement. This populates the mappingDefinition with the column details for this member.
@@ -37,6 +37,9 @@ public class SQLStatementParameter
     /** Value to use for the parameter. */
     final Object value;
 
+    /** SQL type name of the elements when the (collection) value is bound as a single SQL ARRAY. */
+    String arrayElementTypeName = null;
+
     /**
      * Constructor for a parameter using the mapping where there are multiple columns and
      * we are representing a particular column here.
@@ -53,11 +56,29 @@ public class SQLStatementParameter
         this.columnNumber = columnNumber;
     }
 
+    /**
+     * Constructor for a parameter whose (collection) value is bound as a single SQL ARRAY.
+     * @param name Name of the parameter
+     * @param elementMapping Mapping for the elements of the collection
+     * @param value The value of the parameter
+     * @param arrayElementTypeName SQL type name of the elements (for Connection.createArrayOf)
+     */
+    public SQLStatementParameter(String name, JavaTypeMapping elementMapping, Object value, String arrayElementTypeName)
+    {
+        this(name, elementMapping, value, -1);
+        this.arrayElementTypeName = arrayElementTypeName;
+    }
+
     public String getName()
     {
         return name;
     }
 
+    public String getArrayElementTypeName()
+    {
+        return arrayElementTypeName;
+    }
+
     public JavaTypeMapping getMapping()
     {
         return mapping;
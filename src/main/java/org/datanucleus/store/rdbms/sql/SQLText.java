@@ -22,12 +22,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
-import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.ExecutionContext;
-import org.datanucleus.metadata.AbstractClassMetaData;
-import org.datanucleus.metadata.IdentityType;
-import org.datanucleus.store.rdbms.RDBMSStoreManager;
-import org.datanucleus.store.rdbms.mapping.MappingHelper;
 import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpression.ColumnExpressionList;
@@ -37,12 +32,17 @@ import org.datanucleus.store.rdbms.sql.expression.SQLExpression.ColumnExpression
  * A 'parameter' in this context is an input parameter to the query (which will map on to a JDBC '?'
  * in the resultant SQL).
  * Call "applyParametersToStatement()" to set the parameter values in the PreparedStatement.
+ * Once the SQL is complete, "toTemplate()" provides the frozen form of the SQL and its parameters, which is cached
+ * until the SQL is next changed.
  */
 public class SQLText
 {
     /** Cached SQL if already generated. */
     private String sql;
 
+    /** Cached template for the SQL, if already generated. Only valid while its SQL is the cached SQL. */
+    private SQLTextTemplate template;
+
     private List<SQLStatementParameter> parameters = null;
 
     private boolean encloseInParentheses = false;
@@ -167,15 +167,7 @@ public class SQLText
     public SQLText append(SQLText st)
     {
         sql = null;
-        appended.add(st.toSQL());
-        if (st.parameters != null)
-        {
-            if (parameters == null)
-            {
-                parameters = new ArrayList();
-            }
-            parameters.addAll(st.parameters);
-        }
+        appended.add(st.toTemplate());
         return this;
     }
 
@@ -218,6 +210,21 @@ public class SQLText
         return this;
     }
 
+    /**
+     * Append a parameter whose (collection) value is bound as a single SQL ARRAY.
+     * @param name The parameter name
+     * @param elementMapping Mapping for the elements of the collection
+     * @param value the parameter value
+     * @param arrayElementTypeName SQL type name of the elements
+     * @return the SQLText
+     */
+    public SQLText appendArrayParameter(String name, JavaTypeMapping elementMapping, Object value, String arrayElementTypeName)
+    {
+        sql = null;
+        appended.add(new SQLStatementParameter(name, elementMapping, value, arrayElementTypeName));
+        return this;
+    }
+
     /**
      * Convenience method to change the mapping used for a parameter, if it is referenced by this
      * SQL text object.
@@ -236,6 +243,7 @@ public class SQLText
                 if (param.getName().equalsIgnoreCase(parameterName))
                 {
                     param.setMapping(mapping);
+                    sql = null;
                 }
             }
         }
@@ -249,58 +257,22 @@ public class SQLText
      */
     public void applyParametersToStatement(ExecutionContext ec, PreparedStatement ps)
     {
-        if (parameters != null)
-        {
-            int num = 1;
+        toTemplate().applyParametersToStatement(ec, ps);
+    }
 
-            Iterator<SQLStatementParameter> i = parameters.iterator();
-            while (i.hasNext())
-            {
-                SQLStatementParameter param = i.next();
-                JavaTypeMapping mapping = param.getMapping();
-                if (mapping != null)
-                {
-                    Object value = param.getValue();
-                    if (param.getColumnNumber() >= 0)
-                    {
-                        Object colValue = null;
-                        if (value != null)
-                        {
-                            // Parameter is for a particular column of the overall object/mapping
-                            // so assume that the object is persistable (or id of persistable)
-                            ClassLoaderResolver clr = ec.getClassLoaderResolver();
-                            AbstractClassMetaData cmd =
-                                ec.getMetaDataManager().getMetaDataForClass(mapping.getType(), clr);
-                            RDBMSStoreManager storeMgr = mapping.getStoreManager();
-                            if (cmd.getIdentityType() == IdentityType.DATASTORE)
-                            {
-                                colValue = mapping.getValueForDatastoreMapping(ec.getNucleusContext(), 
-                                    param.getColumnNumber(), value);
-                            }
-                            else if (cmd.getIdentityType() == IdentityType.APPLICATION)
-                            {
-                                colValue = SQLStatementHelper.getValueForPrimaryKeyIndexOfObjectUsingReflection(
-                                    value, param.getColumnNumber(), cmd, storeMgr, clr);
-                            }
-                        }
-                        mapping.getDatastoreMapping(param.getColumnNumber()).setObject(ps, num, colValue);
-                        num++;
-                    }
-                    else
-                    {
-                        mapping.setObject(ec, ps, MappingHelper.getMappingIndices(num, mapping), value);
-                        if (mapping.getNumberOfDatastoreMappings() > 0)
-                        {
-                            num += mapping.getNumberOfDatastoreMappings();
-                        }
-                        else
-                        {
-                            num += 1;
-                        }
-                    }
-                }
-            }
+    /**
+     * Accessor for the frozen form of this SQL text, with its SQL rendered and its parameters as a flat array of slots.
+     * The template is cached, and only regenerated when this SQL text is changed.
+     * @return The template
+     */
+    public SQLTextTemplate toTemplate()
+    {
+        String currentSql = toSQL();
+        if (template == null || template.getSQL() != currentSql)
+        {
+            template = new SQLTextTemplate(currentSql, parameters);
         }
+        return template;
     }
 
     /**
@@ -324,6 +296,9 @@ public class SQLText
             return sql;
         }
 
+        // Parameters are collected again as the SQL is rendered
+        parameters = null;
+
         StringBuilder sql = new StringBuilder();
         if (encloseInParentheses)
         {
@@ -372,6 +347,19 @@ public class SQLText
                     parameters.addAll(st.parameters);
                 }
             }
+            else if (item instanceof SQLTextTemplate)
+            {
+                SQLTextTemplate template = (SQLTextTemplate) item;
+                sql.append(template.getSQL());
+                if (template.getNumberOfParameters() > 0)
+                {
+                    if (parameters == null)
+                    {
+                        parameters = new ArrayList();
+                    }
+                    parameters.addAll(template.getParameters());
+                }
+            }
             else if (item instanceof SQLText)
             {
                 SQLText st = (SQLText) item;
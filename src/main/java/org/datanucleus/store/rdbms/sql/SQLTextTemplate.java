@@ -0,0 +1,195 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.sql;
+
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.IdentityType;
+import org.datanucleus.store.rdbms.mapping.MappingHelper;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+
+/**
+ * Frozen form of an SQLText, being the rendered SQL together with its parameters as a flat array of slots.
+ * The JDBC position of the first '?' of each slot is calculated when the template is created, so applying the parameter
+ * values to a PreparedStatement is a single pass over the slots, with no walking of the SQL expressions and no counting
+ * of positions. A template is immutable once created, so can be shared by threads using the same statement.
+ * Obtain it using {@link SQLText#toTemplate()} or {@link SQLStatement#getSQLTextTemplate()}.
+ */
+public class SQLTextTemplate
+{
+    /** The rendered SQL. */
+    private final String sql;
+
+    /** The parameters, in the order they appear in the SQL. */
+    private final SQLStatementParameter[] parameters;
+
+    /** JDBC position of the (first) '?' of each parameter. */
+    private final int[] positions;
+
+    /** Indices for mapping.setObject of each parameter bound as a whole, otherwise null. */
+    private final int[][] mappingIndices;
+
+    /** Total number of JDBC parameters. */
+    private final int numberOfPositions;
+
+    /**
+     * Constructor.
+     * @param sql The rendered SQL
+     * @param params The parameters, in the order they appear in the SQL (or null if none)
+     */
+    public SQLTextTemplate(String sql, List<SQLStatementParameter> params)
+    {
+        this.sql = sql;
+        this.parameters = (params != null) ? params.toArray(new SQLStatementParameter[params.size()]) : new SQLStatementParameter[0];
+        this.positions = new int[parameters.length];
+        this.mappingIndices = new int[parameters.length][];
+
+        int num = 1;
+        for (int i=0;i<parameters.length;i++)
+        {
+            SQLStatementParameter param = parameters[i];
+            JavaTypeMapping mapping = param.getMapping();
+            positions[i] = num;
+            if (param.getArrayElementTypeName() != null)
+            {
+                num++;
+            }
+            else if (mapping != null)
+            {
+                if (param.getColumnNumber() >= 0)
+                {
+                    num++;
+                }
+                else
+                {
+                    mappingIndices[i] = MappingHelper.getMappingIndices(num, mapping);
+                    num += (mapping.getNumberOfDatastoreMappings() > 0) ? mapping.getNumberOfDatastoreMappings() : 1;
+                }
+            }
+        }
+        this.numberOfPositions = num - 1;
+    }
+
+    /**
+     * Accessor for the rendered SQL.
+     * @return The SQL
+     */
+    public String getSQL()
+    {
+        return sql;
+    }
+
+    /**
+     * Accessor for the parameters of the SQL.
+     * @return The parameters (in the order they appear in the SQL)
+     */
+    public List<SQLStatementParameter> getParameters()
+    {
+        return Collections.unmodifiableList(Arrays.asList(parameters));
+    }
+
+    /**
+     * Accessor for the number of parameter slots.
+     * @return Number of parameters
+     */
+    public int getNumberOfParameters()
+    {
+        return parameters.length;
+    }
+
+    /**
+     * Accessor for the JDBC position of the (first) '?' of the specified parameter slot.
+     * @param slot The slot (0-based, in the order the parameters appear in the SQL)
+     * @return The JDBC position (1-based)
+     */
+    public int getPositionForParameter(int slot)
+    {
+        return positions[slot];
+    }
+
+    /**
+     * Accessor for the total number of JDBC parameters ('?') in the SQL.
+     * @return Number of JDBC parameters
+     */
+    public int getNumberOfPositions()
+    {
+        return numberOfPositions;
+    }
+
+    /**
+     * Method to set the parameters in the supplied PreparedStatement using their mappings and the values
+     * held by the parameters.
+     * @param ec execution context
+     * @param ps The PreparedStatement
+     */
+    public void applyParametersToStatement(ExecutionContext ec, PreparedStatement ps)
+    {
+        for (int i=0;i<parameters.length;i++)
+        {
+            SQLStatementParameter param = parameters[i];
+            JavaTypeMapping mapping = param.getMapping();
+            if (param.getArrayElementTypeName() != null)
+            {
+                SQLStatementHelper.setArrayParameter(ps, positions[i], param.getArrayElementTypeName(), param.getValue());
+            }
+            else if (mapping != null)
+            {
+                Object value = param.getValue();
+                if (param.getColumnNumber() >= 0)
+                {
+                    Object colValue = null;
+                    if (value != null)
+                    {
+                        // Parameter is for a particular column of the overall object/mapping
+                        // so assume that the object is persistable (or id of persistable)
+                        ClassLoaderResolver clr = ec.getClassLoaderResolver();
+                        AbstractClassMetaData cmd = ec.getMetaDataManager().getMetaDataForClass(mapping.getType(), clr);
+                        if (cmd.getIdentityType() == IdentityType.DATASTORE)
+                        {
+                            colValue = mapping.getValueForDatastoreMapping(ec.getNucleusContext(), param.getColumnNumber(), value);
+                        }
+                        else if (cmd.getIdentityType() == IdentityType.APPLICATION)
+                        {
+                            colValue = SQLStatementHelper.getValueForPrimaryKeyIndexOfObjectUsingReflection(
+                                value, param.getColumnNumber(), cmd, mapping.getStoreManager(), clr);
+                        }
+                    }
+                    mapping.getDatastoreMapping(param.getColumnNumber()).setObject(ps, positions[i], colValue);
+                }
+                else
+                {
+                    mapping.setObject(ec, ps, mappingIndices[i], value);
+                }
+            }
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    public String toString()
+    {
+        return sql;
+    }
+}
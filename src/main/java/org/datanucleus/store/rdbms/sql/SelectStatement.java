@@ -574,6 +574,13 @@ public class SelectStatement extends SQLStatement
         {
             lock = val.booleanValue();
         }
+        boolean skipLocked = false;
+        if (lock && dba.supportsOption(DatastoreAdapter.SELECT_FOR_UPDATE_SKIP_LOCKED))
+        {
+            // Skip any rows locked by other transactions (e.g for use of a table as a work queue)
+            Boolean skipLockedVal = (Boolean)getValueForExtension(EXTENSION_LOCK_FOR_UPDATE_SKIP_LOCKED);
+            skipLocked = (skipLockedVal != null && skipLockedVal.booleanValue());
+        }
 
         boolean addAliasToAllSelects = false;
         if (rangeOffset > 0 || rangeCount > -1)
@@ -641,11 +648,12 @@ public class SelectStatement extends SQLStatement
         sql.append(primaryTable.toString());
         if (lock && dba.supportsOption(DatastoreAdapter.LOCK_OPTION_PLACED_AFTER_FROM))
         {
-            sql.append(" WITH ").append(dba.getSelectWithLockOption());
+            String lockOption = skipLocked ? dba.getSelectWithLockSkipLockedOption() : null;
+            sql.append(" WITH ").append(lockOption != null ? lockOption : dba.getSelectWithLockOption());
         }
         if (joins != null)
         {
-            sql.append(getSqlForJoins(lock));
+            sql.append(skipLocked ? getSqlForJoins(lock, true) : getSqlForJoins(lock));
         }
 
         // WHERE ...
@@ -795,7 +803,11 @@ public class SelectStatement extends SQLStatement
             else
             {
                 sql.append(" " + dba.getSelectForUpdateText());
-                if (dba.supportsOption(DatastoreAdapter.SELECT_FOR_UPDATE_NOWAIT))
+                if (skipLocked)
+                {
+                    sql.append(" SKIP LOCKED");
+                }
+                else if (dba.supportsOption(DatastoreAdapter.SELECT_FOR_UPDATE_NOWAIT))
                 {
                     Boolean nowait = (Boolean) getValueForExtension(EXTENSION_LOCK_FOR_UPDATE_NOWAIT);
                     if (nowait != null)
@@ -984,6 +996,17 @@ public class SelectStatement extends SQLStatement
      * @return The SQL for the join clause
      */
     protected SQLText getSqlForJoins(boolean lock)
+    {
+        return getSqlForJoins(lock, false);
+    }
+
+    /**
+     * Convenience method to return the JOIN clause implied by the "joins" List.
+     * @param lock Whether to add locking on the join clause (only for some RDBMS)
+     * @param skipLocked Whether the locking should skip rows locked by other transactions
+     * @return The SQL for the join clause
+     */
+    protected SQLText getSqlForJoins(boolean lock, boolean skipLocked)
     {
         // TODO Consider performing a reorder in more situations to cater for use of implicit joins potentially not being in optimum order
         if (requiresJoinReorder)
@@ -1003,7 +1026,7 @@ public class SelectStatement extends SQLStatement
                 if (dba.supportsOption(DatastoreAdapter.ANSI_CROSSJOIN_SYNTAX))
                 {
                     // ANSI-92 style joins, separate joins by space
-                    sql.append(" ").append(join.toSQLText(dba, lock));
+                    sql.append(" ").append(join.toSQLText(dba, lock, skipLocked));
                 }
                 else if (dba.supportsOption(DatastoreAdapter.CROSSJOIN_ASINNER11_SYNTAX))
                 {
@@ -1020,12 +1043,12 @@ public class SelectStatement extends SQLStatement
                 if (dba.supportsOption(DatastoreAdapter.ANSI_JOIN_SYNTAX))
                 {
                     // ANSI-92 style joins, separate joins by space
-                    sql.append(" ").append(join.toSQLText(dba, lock));
+                    sql.append(" ").append(join.toSQLText(dba, lock, skipLocked));
                 }
                 else
                 {
                     // "ANSI-86" style joins, separate joins by comma
-                    sql.append(",").append(join.toSQLText(dba, lock));
+                    sql.append(",").append(join.toSQLText(dba, lock, skipLocked));
                 }
             }
         }
@@ -36,6 +36,12 @@ public interface SelectStatementGenerator
     /** Option to omit a WHERE clause restricting to non-soft-deleted objects (only relevant if the candidate has soft-delete enabled. */
     static final String OPTION_INCLUDE_SOFT_DELETES = "includeSoftDeletes";
 
+    /**
+     * Option to select candidates with subclasses in "new-table" without discriminator using a single statement selecting only their type
+     * (see TypeIndicatorStatementGenerator), with the subclass members fetched afterwards, rather than a UNION per subclass.
+     */
+    static final String OPTION_TWO_PHASE_POLYMORPHIC = "twoPhasePolymorphic";
+
     /**
      * Accessor for the statement.
      * @param ec ExecutionContext
@@ -0,0 +1,260 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.sql;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.exceptions.NucleusException;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.identifier.DatastoreIdentifier;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
+import org.datanucleus.store.rdbms.sql.expression.BooleanSubqueryExpression;
+import org.datanucleus.store.rdbms.sql.expression.CaseStringExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpressionFactory;
+import org.datanucleus.store.rdbms.sql.expression.StringLiteral;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.schema.table.SurrogateColumnType;
+import org.datanucleus.util.Localiser;
+import org.datanucleus.util.StringUtils;
+
+/**
+ * Class to generate a SelectStatement for iterating through instances of a particular type and its subclasses,
+ * where the subclasses are each stored in their own table ("new-table") and there is no discriminator.
+ * Rather than the UNION of one statement per concrete class (see UnionStatementGenerator), this generates a single
+ * statement of the candidate table only, selecting a computed "DN_TYPE" column with the class name. The type is found by
+ * correlated EXISTS subqueries of the subclass tables, so the subclass tables are not joined (which would multiply the work
+ * of the join by the number of subclasses for every row); the subqueries are evaluated in order only until one is true.
+ * If we are querying objects of type A with subclasses A1, A2 (and A2 has subclass A21) the query will be of the form :-
+ * <PRE>
+ * SELECT (CASE WHEN EXISTS (SELECT 1 FROM A21 WHERE A21.A21_ID = THIS.A_ID) THEN 'mydomain.A21'
+ *              WHEN EXISTS (SELECT 1 FROM A1 WHERE A1.A1_ID = THIS.A_ID) THEN 'mydomain.A1'
+ *              WHEN EXISTS (SELECT 1 FROM A2 WHERE A2.A2_ID = THIS.A_ID) THEN 'mydomain.A2' ELSE 'mydomain.A' END) AS DN_TYPE
+ * FROM A THIS
+ * </PRE>
+ * When A is abstract the rows are restricted to those with a row in the table of a direct subclass (A1 or A2).
+ * Only the columns of the candidate table (and its supertables) can be selected by this statement, so the members of
+ * the subclasses have to be retrieved separately, in bulk per table; see
+ * {@link org.datanucleus.store.rdbms.SubclassMemberFetchManager}.
+ * <h3>Supported options</h3>
+ * This generator supports
+ * <ul>
+ * <li><b>includeSoftDeletes</b> : whether to include soft-deleted objects.</li>
+ * </ul>
+ */
+public class TypeIndicatorStatementGenerator extends AbstractSelectStatementGenerator
+{
+    /**
+     * Constructor using the candidateTable as the primary table.
+     * @param storeMgr the store manager
+     * @param clr ClassLoader resolver
+     * @param candidateType the candidate that we are looking for
+     * @param candidateTableAlias Alias to use for the candidate table (optional)
+     * @param candidateTableGroupName Name of the table group for the candidate(s) (optional)
+     */
+    public TypeIndicatorStatementGenerator(RDBMSStoreManager storeMgr, ClassLoaderResolver clr, Class candidateType,
+            DatastoreIdentifier candidateTableAlias, String candidateTableGroupName)
+    {
+        super(storeMgr, clr, candidateType, true, candidateTableAlias, candidateTableGroupName);
+    }
+
+    /**
+     * Convenience method to return whether this generator can be used for the specified candidate (with subclasses).
+     * Requires that the candidate and all of its subclasses have a table of their own, and that the candidate has subclasses.
+     * @param storeMgr the store manager
+     * @param clr ClassLoader resolver
+     * @param candidateType the candidate that we are looking for
+     * @return Whether the statement for the candidate can be generated by this generator
+     */
+    public static boolean supportsCandidate(RDBMSStoreManager storeMgr, ClassLoaderResolver clr, Class candidateType)
+    {
+        DatastoreClass candidateTable = storeMgr.getDatastoreClass(candidateType.getName(), clr);
+        if (candidateTable == null || !candidateType.getName().equals(candidateTable.getType()))
+        {
+            return false;
+        }
+
+        Collection<String> subclassNames = storeMgr.getSubClassesForClass(candidateType.getName(), true, clr);
+        if (subclassNames == null || subclassNames.isEmpty())
+        {
+            return false;
+        }
+        for (String subclassName : subclassNames)
+        {
+            DatastoreClass subclassTable = storeMgr.getDatastoreClass(subclassName, clr);
+            if (subclassTable == null || !subclassName.equals(subclassTable.getType()))
+            {
+                // Subclass has no table of its own, or shares a table
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see org.datanucleus.store.rdbms.sql.StatementGenerator#setParentStatement(org.datanucleus.store.rdbms.sql.SQLStatement)
+     */
+    public void setParentStatement(SQLStatement stmt)
+    {
+        this.parentStmt = stmt;
+    }
+
+    /**
+     * Accessor for the SelectStatement for the candidate and subclasses.
+     * @param ec ExecutionContext
+     * @return The SelectStatement returning objects with the "DN_TYPE" column
+     */
+    public SelectStatement getStatement(ExecutionContext ec)
+    {
+        // Find the concrete subclasses, with the most derived classes first so they take precedence in the CASE
+        List<AbstractClassMetaData> subclassCmds = new ArrayList<>();
+        for (String subclassName : storeMgr.getSubClassesForClass(candidateType.getName(), true, clr))
+        {
+            try
+            {
+                Class cls = clr.classForName(subclassName);
+                if (!Modifier.isAbstract(cls.getModifiers()))
+                {
+                    subclassCmds.add(storeMgr.getMetaDataManager().getMetaDataForClass(cls, clr));
+                }
+            }
+            catch (Exception e)
+            {
+                // Ignore since class not found
+            }
+        }
+        Collections.sort(subclassCmds, new Comparator<AbstractClassMetaData>()
+        {
+            public int compare(AbstractClassMetaData cmd1, AbstractClassMetaData cmd2)
+            {
+                return getInheritanceDepth(cmd2) - getInheritanceDepth(cmd1);
+            }
+        });
+
+        boolean candidateConcrete = !Modifier.isAbstract(candidateType.getModifiers());
+        if (subclassCmds.isEmpty() && !candidateConcrete)
+        {
+            throw new NucleusException(Localiser.msg("052521", candidateType.getName()));
+        }
+
+        // Get the length of the longest class name
+        int maxClassNameLength = candidateType.getName().length();
+        for (AbstractClassMetaData subclassCmd : subclassCmds)
+        {
+            maxClassNameLength = Math.max(maxClassNameLength, subclassCmd.getFullClassName().length());
+        }
+
+        // Start from an SQL SELECT of the candidate table
+        SelectStatement stmt = new SelectStatement(parentStmt, storeMgr, candidateTable, candidateTableAlias, candidateTableGroupName);
+        stmt.setClassLoaderResolver(clr);
+        stmt.setCandidateClassName(candidateType.getName());
+        String tblGroupName = stmt.getPrimaryTable().getGroupName();
+
+        JavaTypeMapping multitenancyMapping = candidateTable.getSurrogateMapping(SurrogateColumnType.MULTITENANCY, false);
+        if (multitenancyMapping != null)
+        {
+            // Multi-tenancy restriction
+            AbstractClassMetaData cmd = candidateTable.getClassMetaData();
+            SQLTable tenantSqlTbl = stmt.getTable(multitenancyMapping.getTable(), tblGroupName);
+            SQLExpression tenantExpr = stmt.getSQLExpressionFactory().newExpression(stmt, tenantSqlTbl, multitenancyMapping);
+            SQLExpression tenantVal = stmt.getSQLExpressionFactory().newLiteral(stmt, multitenancyMapping, ec.getNucleusContext().getMultiTenancyId(ec, cmd));
+            stmt.whereAnd(tenantExpr.eq(tenantVal), true);
+        }
+
+        JavaTypeMapping softDeleteMapping = candidateTable.getSurrogateMapping(SurrogateColumnType.SOFTDELETE, false);
+        if (softDeleteMapping != null && !hasOption(OPTION_INCLUDE_SOFT_DELETES))
+        {
+            // Soft-delete restriction
+            SQLTable softDeleteSqlTbl = stmt.getTable(softDeleteMapping.getTable(), tblGroupName);
+            SQLExpression softDeleteExpr = stmt.getSQLExpressionFactory().newExpression(stmt, softDeleteSqlTbl, softDeleteMapping);
+            SQLExpression softDeleteVal = stmt.getSQLExpressionFactory().newLiteral(stmt, softDeleteMapping, Boolean.FALSE);
+            stmt.whereAnd(softDeleteExpr.eq(softDeleteVal), true);
+        }
+
+        // Use the presence of a row in the table of each concrete subclass as the type
+        JavaTypeMapping stringMapping = storeMgr.getMappingManager().getMapping(String.class);
+        SQLExpression[] whenExprs = new SQLExpression[subclassCmds.size()];
+        SQLExpression[] actionExprs = new SQLExpression[subclassCmds.size()];
+        for (int i=0;i<subclassCmds.size();i++)
+        {
+            String subclassName = subclassCmds.get(i).getFullClassName();
+            whenExprs[i] = getExistsExpression(stmt, storeMgr.getDatastoreClass(subclassName, clr));
+            actionExprs[i] = new StringLiteral(stmt, stringMapping, StringUtils.leftAlignedPaddedString(subclassName, maxClassNameLength), null);
+        }
+
+        SQLExpression candidateTypeExpr = new StringLiteral(stmt, stringMapping, StringUtils.leftAlignedPaddedString(candidateType.getName(), maxClassNameLength), null);
+        if (!candidateConcrete)
+        {
+            // Candidate is not instantiable, so only return rows of the subclasses. Every row of a subclass has a row in the table of a direct subclass
+            BooleanExpression anySubclassExpr = null;
+            for (String subclassName : storeMgr.getSubClassesForClass(candidateType.getName(), false, clr))
+            {
+                BooleanExpression existsExpr = getExistsExpression(stmt, storeMgr.getDatastoreClass(subclassName, clr));
+                anySubclassExpr = (anySubclassExpr == null) ? existsExpr : anySubclassExpr.ior(existsExpr);
+            }
+            stmt.whereAnd(anySubclassExpr, false);
+        }
+
+        // Add SELECT of computed column accessible as "DN_TYPE" containing the classname
+        SQLExpression typeExpr = subclassCmds.isEmpty() ? candidateTypeExpr : new CaseStringExpression(whenExprs, actionExprs, candidateTypeExpr);
+        stmt.select(typeExpr, UnionStatementGenerator.DN_TYPE_COLUMN);
+
+        return stmt;
+    }
+
+    /**
+     * Convenience method to return an EXISTS expression for whether the candidate row of the statement has a row in the specified subclass table.
+     * @param stmt The statement
+     * @param subclassTable Table of the subclass
+     * @return The EXISTS expression
+     */
+    private BooleanExpression getExistsExpression(SelectStatement stmt, DatastoreClass subclassTable)
+    {
+        SQLExpressionFactory factory = storeMgr.getSQLExpressionFactory();
+        SelectStatement subStmt = new SelectStatement(stmt, storeMgr, subclassTable, null, null);
+        subStmt.setClassLoaderResolver(clr);
+        JavaTypeMapping oneMapping = storeMgr.getMappingManager().getMapping(Integer.class);
+        subStmt.select(factory.newLiteral(subStmt, oneMapping, 1), null);
+
+        SQLExpression subclassIdExpr = factory.newExpression(subStmt, subStmt.getPrimaryTable(), subclassTable.getIdMapping());
+        SQLExpression candidateIdExpr = factory.newExpression(stmt, stmt.getPrimaryTable(), candidateTable.getIdMapping());
+        subStmt.whereAnd(subclassIdExpr.eq(candidateIdExpr), true);
+        return new BooleanSubqueryExpression(stmt, "EXISTS", subStmt);
+    }
+
+    private static int getInheritanceDepth(AbstractClassMetaData cmd)
+    {
+        int depth = 0;
+        AbstractClassMetaData superCmd = cmd.getSuperAbstractClassMetaData();
+        while (superCmd != null)
+        {
+            depth++;
+            superCmd = superCmd.getSuperAbstractClassMetaData();
+        }
+        return depth;
+    }
+}
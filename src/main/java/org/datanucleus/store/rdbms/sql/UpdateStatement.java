@@ -21,7 +21,9 @@ import java.util.Iterator;
 import java.util.Map;
 
 import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.adapter.DatastoreAdapter;
 import org.datanucleus.store.rdbms.identifier.DatastoreIdentifier;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
 import org.datanucleus.store.rdbms.sql.expression.BooleanExpression;
 import org.datanucleus.store.rdbms.sql.expression.BooleanSubqueryExpression;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
@@ -45,6 +47,9 @@ public class UpdateStatement extends SQLStatement
     /** Array of update expressions when the statement is an UPDATE. */
     protected SQLExpression[] updates = null;
 
+    /** Mapping that each update expression sets (when known), in the same order as the update expressions. */
+    protected JavaTypeMapping[] updateMappings = null;
+
     /**
      * Constructor for an UPDATE statement.
      * @param rdbmsMgr Store Manager
@@ -63,10 +68,53 @@ public class UpdateStatement extends SQLStatement
      * @param exprs The update clause expression
      */
     public void setUpdates(SQLExpression[] exprs)
+    {
+        setUpdates(exprs, null);
+    }
+
+    /**
+     * Method to set the UPDATE clause of the statement, together with the mapping that each update expression sets.
+     * @param exprs The update clause expression
+     * @param mappings The mapping that each update expression sets (or null if not known)
+     */
+    public void setUpdates(SQLExpression[] exprs, JavaTypeMapping[] mappings)
     {
         invalidateStatement();
 
         updates = exprs;
+        updateMappings = mappings;
+    }
+
+    /**
+     * Accessor for whether the UPDATE clause sets any primary key column. Where the mapping that an update expression sets
+     * is not known, this assumes that it may set a primary key column.
+     * @return Whether a primary key column is updated
+     */
+    public boolean updatesPrimaryKey()
+    {
+        if (updates == null)
+        {
+            return false;
+        }
+
+        for (int i=0;i<updates.length;i++)
+        {
+            if (updates[i] != null)
+            {
+                if (updateMappings == null || i >= updateMappings.length || updateMappings[i] == null)
+                {
+                    return true;
+                }
+                for (int j=0;j<updateMappings[i].getNumberOfDatastoreMappings();j++)
+                {
+                    if (updateMappings[i].getDatastoreMapping(j).getColumn().isPrimaryKey())
+                    {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
     }
 
     public boolean hasUpdates()
@@ -145,4 +193,33 @@ public class UpdateStatement extends SQLStatement
 
         return sql;
     }
+
+    /**
+     * Method to return the SQL of a SELECT of the specified columns of the rows that this statement will affect,
+     * using the same table and WHERE clause as this statement.
+     * @param columnsSQL The SQL of the columns to select (e.g "A0.ID")
+     * @param lock Whether to lock the selected rows (where the datastore supports it)
+     * @return The SQL text of the SELECT
+     */
+    public synchronized SQLText getSelectAffectedRowsSQLText(String columnsSQL, boolean lock)
+    {
+        // Make sure the WHERE clause is finalised (joins are converted to EXISTS when generating the SQL)
+        getSQLText();
+
+        DatastoreAdapter dba = getDatastoreAdapter();
+        SQLText selectSQL = new SQLText("SELECT ").append(columnsSQL).append(" FROM ").append(primaryTable.toString());
+        if (lock && dba.supportsOption(DatastoreAdapter.LOCK_OPTION_PLACED_AFTER_FROM))
+        {
+            selectSQL.append(" WITH ").append(dba.getSelectWithLockOption());
+        }
+        if (where != null)
+        {
+            selectSQL.append(" WHERE ").append(where.toSQLText());
+        }
+        if (lock && dba.supportsOption(DatastoreAdapter.LOCK_WITH_SELECT_FOR_UPDATE))
+        {
+            selectSQL.append(" ").append(dba.getSelectForUpdateText());
+        }
+        return selectSQL;
+    }
 }
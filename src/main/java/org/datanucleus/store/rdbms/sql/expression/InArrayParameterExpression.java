@@ -0,0 +1,145 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.sql.expression;
+
+import org.datanucleus.store.rdbms.RDBMSPropertyNames;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+import org.datanucleus.store.rdbms.mapping.datastore.AbstractDatastoreMapping;
+import org.datanucleus.store.rdbms.mapping.datastore.DatastoreMapping;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+
+/**
+ * Expression representing an "IN" of a value in a collection parameter, where the collection is bound as a single
+ * SQL ARRAY parameter rather than as one parameter per element. The SQL is provided by the datastore adapter,
+ * for example "expr = ANY(?)" on PostgreSQL. Since the SQL doesn't depend on the number of elements it can be
+ * reused for any value of the parameter.
+ */
+public class InArrayParameterExpression extends BooleanExpression
+{
+    boolean negated = false;
+    SQLExpression expr;
+    String parameterName;
+    Object value;
+    String elementTypeName;
+
+    /**
+     * Constructor for an IN of an array parameter.
+     * @param expr The expression that is contained
+     * @param parameterName Name of the (collection) parameter
+     * @param value Value of the parameter
+     */
+    public InArrayParameterExpression(SQLExpression expr, String parameterName, Object value)
+    {
+        super(expr.getSQLStatement(), expr.getSQLStatement().getSQLExpressionFactory().getMappingForType(boolean.class, false));
+
+        this.expr = expr;
+        this.parameterName = parameterName;
+        this.value = value;
+        this.elementTypeName = getElementTypeName(expr);
+        setStatement();
+    }
+
+    /**
+     * Convenience method to return the name of the SQL type of the elements of the array, as known by the datastore
+     * (e.g "varchar" or "float8" on PostgreSQL). This is the type of the column of the expression, otherwise the
+     * SQL type that the datastore mapping of the expression would use.
+     * @param expr The expression that is contained
+     * @return The SQL type name
+     */
+    private static String getElementTypeName(SQLExpression expr)
+    {
+        DatastoreMapping datastoreMapping = expr.getJavaTypeMapping().getDatastoreMapping(0);
+        if (datastoreMapping.getColumn() != null && datastoreMapping.getColumn().getTypeInfo() != null)
+        {
+            return datastoreMapping.getColumn().getTypeInfo().getTypeName();
+        }
+        return ((AbstractDatastoreMapping)datastoreMapping).getTypeInfo().getTypeName();
+    }
+
+    /**
+     * Convenience method to return whether a collection parameter can be bound as a single ARRAY when testing if it
+     * contains the specified expression. This requires support from the datastore adapter, and an expression for a single
+     * String or numeric column.
+     * @param expr The expression that is contained
+     * @return Whether an InArrayParameterExpression can be used
+     */
+    public static boolean isSupported(SQLExpression expr)
+    {
+        RDBMSStoreManager storeMgr = expr.getSQLStatement().getRDBMSManager();
+        if (storeMgr.getDatastoreAdapter().getArrayContainsPattern() == null ||
+            !storeMgr.getBooleanProperty(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_COLLECTION_PARAMETER_AS_ARRAY, false))
+        {
+            return false;
+        }
+        if (expr instanceof SQLLiteral || !(expr instanceof StringExpression || expr instanceof NumericExpression))
+        {
+            return false;
+        }
+        JavaTypeMapping m = expr.getJavaTypeMapping();
+        return m != null && m.getNumberOfDatastoreMappings() == 1;
+    }
+
+    public BooleanExpression not()
+    {
+        negated = !negated;
+        setStatement();
+        return this;
+    }
+
+    protected void setStatement()
+    {
+        st.clearStatement();
+        if (negated)
+        {
+            st.append("NOT (");
+        }
+
+        String pattern = stmt.getRDBMSManager().getDatastoreAdapter().getArrayContainsPattern();
+        int pos = 0;
+        while (pos < pattern.length())
+        {
+            int exprPos = pattern.indexOf("{0}", pos);
+            int paramPos = pattern.indexOf("{1}", pos);
+            int next = (exprPos < 0) ? paramPos : (paramPos < 0 ? exprPos : Math.min(exprPos, paramPos));
+            if (next < 0)
+            {
+                st.append(pattern.substring(pos));
+                break;
+            }
+
+            if (next > pos)
+            {
+                st.append(pattern.substring(pos, next));
+            }
+            if (next == exprPos)
+            {
+                st.append(expr);
+            }
+            else
+            {
+                st.appendArrayParameter(parameterName, expr.getJavaTypeMapping(), value, elementTypeName);
+            }
+            pos = next + 3;
+        }
+
+        if (negated)
+        {
+            st.append(")");
+        }
+    }
+}
@@ -44,6 +44,7 @@ import org.datanucleus.store.rdbms.sql.expression.CollectionExpression;
 import org.datanucleus.store.rdbms.sql.expression.CollectionLiteral;
 import org.datanucleus.store.rdbms.sql.expression.EnumExpression;
 import org.datanucleus.store.rdbms.sql.expression.IllegalExpressionOperationException;
+import org.datanucleus.store.rdbms.sql.expression.InArrayParameterExpression;
 import org.datanucleus.store.rdbms.sql.expression.InExpression;
 import org.datanucleus.store.rdbms.sql.expression.NumericExpression;
 import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
@@ -93,6 +94,12 @@ public class CollectionContainsMethod implements SQLMethod
             // Literal collection
             CollectionLiteral lit = (CollectionLiteral)collExpr;
             Collection coll = (Collection)lit.getValue();
+            if (collExpr.isParameter() && InArrayParameterExpression.isSupported(elemExpr))
+            {
+                // Return "elem = ANY(?)" (or datastore equivalent), with the collection bound as a single ARRAY parameter
+                return new InArrayParameterExpression(elemExpr, collExpr.getParameterName(), coll);
+            }
+
             JavaTypeMapping m = exprFactory.getMappingForType(boolean.class, true);
             if (coll == null || coll.isEmpty())
             {
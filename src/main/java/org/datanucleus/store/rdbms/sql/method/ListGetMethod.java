@@ -21,6 +21,7 @@ import java.util.List;
 
 import org.datanucleus.ClassLoaderResolver;
 import org.datanucleus.exceptions.NucleusException;
+import org.datanucleus.exceptions.NucleusUserException;
 import org.datanucleus.metadata.AbstractMemberMetaData;
 import org.datanucleus.query.compiler.CompilationComponent;
 import org.datanucleus.store.rdbms.mapping.MappingType;
@@ -68,6 +69,11 @@ public class ListGetMethod implements SQLMethod
         {
             throw new UnsupportedOperationException("Query contains " + expr + ".get(int) yet the field is not an 'indexed' List!");
         }
+        else if ("gapped".equalsIgnoreCase(mmd.getValueForExtension("list-ordering")))
+        {
+            // The index column holds gapped values rather than the position, so a comparison with the index would be wrong
+            throw new NucleusUserException(Localiser.msg("060020", expr, mmd.getFullFieldName()));
+        }
 
         SQLExpression idxExpr = args.get(0);
         if (idxExpr instanceof SQLLiteral)
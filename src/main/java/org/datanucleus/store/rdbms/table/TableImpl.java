@@ -114,6 +114,60 @@ public abstract class TableImpl extends AbstractTable
         assertIsInitialized();
     }    
 
+    /**
+     * Accessor for whether the specified column is part of a key that makes its values unique (in combination with any other
+     * columns of the key), namely the primary key, or a candidate key or unique index. Considers the keys expected for this
+     * table, and (when a connection is provided) the keys that exist in the datastore.
+     * @param conn Connection to use for reading the existing keys (optional)
+     * @param col The column
+     * @param clr The ClassLoaderResolver
+     * @return Whether the column is part of a unique key
+     * @throws SQLException Thrown when an error occurs reading the existing keys
+     */
+    public boolean isColumnInUniqueKey(Connection conn, Column col, ClassLoaderResolver clr)
+    throws SQLException
+    {
+        assertIsInitialized();
+
+        if (col.isPrimaryKey() || col.isUnique() || getPrimaryKey().getColumns().contains(col))
+        {
+            return true;
+        }
+        for (CandidateKey ck : getExpectedCandidateKeys())
+        {
+            if (ck.getColumns().contains(col))
+            {
+                return true;
+            }
+        }
+        for (Index idx : getExpectedIndices(clr))
+        {
+            if (idx.getUnique() && idx.getColumns().contains(col))
+            {
+                return true;
+            }
+        }
+
+        if (conn != null)
+        {
+            for (PrimaryKey pk : getExistingPrimaryKeys(conn).values())
+            {
+                if (pk.getColumns().contains(col))
+                {
+                    return true;
+                }
+            }
+            for (CandidateKey ck : getExistingCandidateKeys(conn).values())
+            {
+                if (ck.getColumns().contains(col))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Accessor for the primary key for this table. 
      * Will always return a PrimaryKey but if we have defined no columns,
@@ -24,6 +24,8 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.datanucleus.store.StoreManager;
 import org.datanucleus.store.connection.ManagedConnection;
@@ -41,6 +43,9 @@ import org.datanucleus.util.Localiser;
  */
 public final class DatastoreUUIDHexGenerator extends AbstractConnectedGenerator<String>
 {
+    /** Lock held while reserving a block (rather than a monitor, since this is held during the JDBC call). */
+    private final Lock reserveLock = new ReentrantLock();
+
     /**
      * Constructor.
      * @param storeMgr StoreManager
@@ -81,67 +86,75 @@ public final class DatastoreUUIDHexGenerator extends AbstractConnectedGenerator<
      * @param size Block size
      * @return The reserved block
      */
-    protected synchronized ValueGenerationBlock<String> reserveBlock(long size)
+    protected ValueGenerationBlock<String> reserveBlock(long size)
     {
-        if (size < 1)
-        {
-            return null;
-        }
-
-        List<String> oids = new ArrayList<>();
+        reserveLock.lock();
         try
         {
-            ManagedConnection mconn = connectionProvider.retrieveConnection();
+            if (size < 1)
+            {
+                return null;
+            }
 
-            PreparedStatement ps = null;
-            ResultSet rs = null;
-            RDBMSStoreManager rdbmsMgr = (RDBMSStoreManager)storeMgr;
-            SQLController sqlControl = rdbmsMgr.getSQLController();
+            List<String> oids = new ArrayList<>();
             try
             {
-                // Find the next ID from the database
-                DatastoreAdapter dba = rdbmsMgr.getDatastoreAdapter();
-
-                String stmt = dba.getSelectNewUUIDStmt();
+                ManagedConnection mconn = connectionProvider.retrieveConnection();
 
-                ps = sqlControl.getStatementForQuery(mconn, stmt);
-                for (int i=1; i<size; i++)
+                PreparedStatement ps = null;
+                ResultSet rs = null;
+                RDBMSStoreManager rdbmsMgr = (RDBMSStoreManager)storeMgr;
+                SQLController sqlControl = rdbmsMgr.getSQLController();
+                try
                 {
-                    rs = sqlControl.executeStatementQuery(null, mconn, stmt, ps);
-                    if (rs.next())
+                    // Find the next ID from the database
+                    DatastoreAdapter dba = rdbmsMgr.getDatastoreAdapter();
+
+                    String stmt = dba.getSelectNewUUIDStmt();
+
+                    ps = sqlControl.getStatementForQuery(mconn, stmt);
+                    for (int i=1; i<size; i++)
                     {
-                        oids.add(rs.getString(1));
+                        rs = sqlControl.executeStatementQuery(null, mconn, stmt, ps);
+                        if (rs.next())
+                        {
+                            oids.add(rs.getString(1));
+                        }
                     }
                 }
-            }
-            catch (SQLException e)
-            {
-                throw new ValueGenerationException(Localiser.msg("040008",e.getMessage()));
-            }
-            finally
-            {
-                try
+                catch (SQLException e)
                 {
-                    if (rs != null)
+                    throw new ValueGenerationException(Localiser.msg("040008",e.getMessage()));
+                }
+                finally
+                {
+                    try
                     {
-                        rs.close();
+                        if (rs != null)
+                        {
+                            rs.close();
+                        }
+                        if (ps != null)
+                        {
+                            sqlControl.closeStatement(mconn, ps);
+                        }
                     }
-                    if (ps != null)
+                    catch (SQLException e)
                     {
-                        sqlControl.closeStatement(mconn, ps);
+                        // non-recoverable error
                     }
                 }
-                catch (SQLException e)
-                {
-                    // non-recoverable error
-                }
             }
+            finally
+            {
+                connectionProvider.releaseConnection();
+            }
+
+            return new ValueGenerationBlock(oids);
         }
         finally
         {
-            connectionProvider.releaseConnection();
+            reserveLock.unlock();
         }
-
-        return new ValueGenerationBlock(oids);
     }
 }
\ No newline at end of file
@@ -28,6 +28,8 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.datanucleus.exceptions.NucleusUserException;
 import org.datanucleus.store.rdbms.adapter.DatastoreAdapter;
@@ -74,6 +76,9 @@ public final class SequenceGenerator extends AbstractConnectedGenerator<Long>
     /** Name of the sequence that we are creating values for */
     protected String sequenceName = null;
 
+    /** Lock held while reserving a block (rather than a monitor, since this is held during the JDBC call). */
+    private final Lock reserveLock = new ReentrantLock();
+
     /**
      * Constructor.
      * @param storeMgr StoreManager
@@ -152,67 +157,75 @@ public final class SequenceGenerator extends AbstractConnectedGenerator<Long>
      * @param size Block size
      * @return The reserved block
      */
-    protected synchronized ValueGenerationBlock<Long> reserveBlock(long size)
+    protected ValueGenerationBlock<Long> reserveBlock(long size)
     {
-        if (size < 1)
-        {
-            return null;
-        }
-
-        PreparedStatement ps = null;
-        ResultSet rs = null;
-        List oid = new ArrayList();
-        RDBMSStoreManager srm = (RDBMSStoreManager)storeMgr;
-        SQLController sqlControl = srm.getSQLController();
+        reserveLock.lock();
         try
         {
-            // Get next available id
-            DatastoreAdapter dba = srm.getDatastoreAdapter();
-
-            String stmt = dba.getSequenceNextStmt(sequenceName);
-            ps = sqlControl.getStatementForQuery(connection, stmt);
-            rs = sqlControl.executeStatementQuery(null, connection, stmt, ps);
- 
-            Long nextId = Long.valueOf(0);
-            if (rs.next())
-            {
-                nextId = Long.valueOf(rs.getLong(1));
-                oid.add(nextId);
-            }
-            for (int i=1; i<size; i++)
-            {
-                // size must match key-increment-by otherwise it will
-                // cause duplicates keys
-                nextId = Long.valueOf(nextId.longValue()+1);
-                oid.add(nextId);
-            }
-            if (NucleusLogger.VALUEGENERATION.isDebugEnabled())
+            if (size < 1)
             {
-                NucleusLogger.VALUEGENERATION.debug(Localiser.msg("040004", "" + size));
+                return null;
             }
-            return new ValueGenerationBlock<>(oid);
-        }
-        catch (SQLException e)
-        {
-            throw new ValueGenerationException(Localiser.msg("061001", e.getMessage()), e);
-        }
-        finally
-        {
+
+            PreparedStatement ps = null;
+            ResultSet rs = null;
+            List oid = new ArrayList();
+            RDBMSStoreManager srm = (RDBMSStoreManager)storeMgr;
+            SQLController sqlControl = srm.getSQLController();
             try
             {
-                if (rs != null)
+                // Get next available id
+                DatastoreAdapter dba = srm.getDatastoreAdapter();
+
+                String stmt = dba.getSequenceNextStmt(sequenceName);
+                ps = sqlControl.getStatementForQuery(connection, stmt);
+                rs = sqlControl.executeStatementQuery(null, connection, stmt, ps);
+ 
+                Long nextId = Long.valueOf(0);
+                if (rs.next())
                 {
-                    rs.close();
+                    nextId = Long.valueOf(rs.getLong(1));
+                    oid.add(nextId);
                 }
-                if (ps != null)
+                for (int i=1; i<size; i++)
                 {
-                    sqlControl.closeStatement(connection, ps);
+                    // size must match key-increment-by otherwise it will
+                    // cause duplicates keys
+                    nextId = Long.valueOf(nextId.longValue()+1);
+                    oid.add(nextId);
+                }
+                if (NucleusLogger.VALUEGENERATION.isDebugEnabled())
+                {
+                    NucleusLogger.VALUEGENERATION.debug(Localiser.msg("040004", "" + size));
                 }
+                return new ValueGenerationBlock<>(oid);
             }
             catch (SQLException e)
             {
-                // non-recoverable error
+                throw new ValueGenerationException(Localiser.msg("061001", e.getMessage()), e);
             }
+            finally
+            {
+                try
+                {
+                    if (rs != null)
+                    {
+                        rs.close();
+                    }
+                    if (ps != null)
+                    {
+                        sqlControl.closeStatement(connection, ps);
+                    }
+                }
+                catch (SQLException e)
+                {
+                    // non-recoverable error
+                }
+            }
+        }
+        finally
+        {
+            reserveLock.unlock();
         }
     }
 
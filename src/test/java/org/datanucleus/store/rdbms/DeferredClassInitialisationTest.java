@@ -0,0 +1,144 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.store.rdbms.identifier.DatastoreIdentifier;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.rdbms.test.Circle;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Shape;
+import org.datanucleus.store.rdbms.test.Square;
+
+/**
+ * Tests for deferred initialisation of classes ("datanucleus.rdbms.schema.deferClassInitialisation"), where a request to
+ * manage several classes only registers them, and each is initialised on its first use.
+ */
+public class DeferredClassInitialisationTest extends H2TestCase
+{
+    private ClassLoaderResolver clr;
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put(RDBMSPropertyNames.PROPERTY_RDBMS_SCHEMA_DEFER_CLASS_INITIALISATION, "true");
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+
+        // Load the metadata of the hierarchy, as would happen at startup
+        getStoreManager().getMetaDataManager().getMetaDataForClass(Shape.class, clr);
+        getStoreManager().getMetaDataManager().getMetaDataForClass(Circle.class, clr);
+        getStoreManager().getMetaDataManager().getMetaDataForClass(Square.class, clr);
+    }
+
+    public void testClassesAreDeferred()
+    {
+        RDBMSStoreManager storeMgr = getStoreManager();
+        storeMgr.manageClasses(clr, Shape.class.getName(), Circle.class.getName(), Square.class.getName());
+        assertFalse(storeMgr.managesClass(Shape.class.getName()));
+        assertFalse(storeMgr.managesClass(Circle.class.getName()));
+
+        // First use of the superclass initialises the deferred subclasses with it
+        assertNotNull(storeMgr.getDatastoreClass(Shape.class.getName(), clr));
+        assertTrue(storeMgr.managesClass(Circle.class.getName()));
+        assertTrue(storeMgr.managesClass(Square.class.getName()));
+    }
+
+    public void testDeferredClassLookupByIdentifier()
+    {
+        RDBMSStoreManager storeMgr = getStoreManager();
+        storeMgr.manageClasses(clr, Shape.class.getName(), Circle.class.getName(), Square.class.getName());
+        assertFalse(storeMgr.managesClass(Shape.class.getName()));
+
+        // Lookup of the table by its identifier initialises the deferred classes
+        DatastoreIdentifier tableId = storeMgr.getIdentifierFactory().newTableIdentifier(
+            storeMgr.getMetaDataManager().getMetaDataForClass(Shape.class, clr));
+        DatastoreClass table = storeMgr.getDatastoreClass(tableId);
+        assertNotNull(table);
+        assertEquals(tableId, table.getIdentifier());
+        assertTrue(storeMgr.managesClass(Shape.class.getName()));
+    }
+
+    public void testSubclassDeferredAfterSuperclassManaged()
+    {
+        RDBMSStoreManager storeMgr = getStoreManager();
+        persistAll(new Shape("shape"));
+        assertTrue(storeMgr.managesClass(Shape.class.getName()));
+
+        storeMgr.manageClasses(clr, Circle.class.getName(), Square.class.getName());
+        assertFalse(storeMgr.managesClass(Circle.class.getName()));
+        assertFalse(storeMgr.managesClass(Square.class.getName()));
+
+        // Lookup of the subclass itself initialises it
+        assertNotNull(storeMgr.getDatastoreClass(Circle.class.getName(), clr));
+        assertTrue(storeMgr.managesClass(Circle.class.getName()));
+        assertFalse(storeMgr.managesClass(Square.class.getName()));
+
+        // Lookup of the (already managed) superclass initialises its remaining deferred subclasses
+        assertNotNull(storeMgr.getDatastoreClass(Shape.class.getName(), clr));
+        assertTrue(storeMgr.managesClass(Square.class.getName()));
+
+        persistAll(new Circle("circle", 1.0), new Square("square", 2.0));
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Shape> q = pm.newQuery(Shape.class);
+            q.setOrdering("name ascending");
+            List<Shape> results = q.executeList();
+            assertEquals(3, results.size());
+            assertTrue(results.get(0) instanceof Circle);
+            assertEquals("shape", results.get(1).getName());
+            assertTrue(results.get(2) instanceof Square);
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testSubclassDeferredAfterSuperclassManagedUsedFirst()
+    {
+        RDBMSStoreManager storeMgr = getStoreManager();
+        persistAll(new Shape("shape"));
+        storeMgr.manageClasses(clr, Circle.class.getName(), Square.class.getName());
+
+        // Persisting the deferred subclass is its first use
+        persistAll(new Circle("circle", 1.0));
+        assertTrue(storeMgr.managesClass(Circle.class.getName()));
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            assertEquals(2, pm.newQuery(Shape.class).executeList().size());
+            assertEquals(1, pm.newQuery(Circle.class).executeList().size());
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+}
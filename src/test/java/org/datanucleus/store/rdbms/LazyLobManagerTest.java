@@ -0,0 +1,127 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.util.List;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.api.jdo.JDOPersistenceManager;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.store.rdbms.test.Article;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+
+/**
+ * Tests for the lazy loading of LOB members (see Article), where the LOB is left out of the SELECT of a query and loaded
+ * for all of the query results on first access, unless the fetch plan includes it explicitly.
+ */
+public class LazyLobManagerTest extends H2TestCase
+{
+    private static final int NUMBER_OF_ARTICLES = 5;
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        Article[] articles = new Article[NUMBER_OF_ARTICLES];
+        for (int i=0;i<articles.length;i++)
+        {
+            articles[i] = new Article("title" + i, "body" + i);
+        }
+        persistAll((Object[])articles);
+    }
+
+    public void testBodyIsLazyLob()
+    {
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        AbstractClassMetaData cmd = getStoreManager().getMetaDataManager().getMetaDataForClass(Article.class, clr);
+        int[] lazyMembers = getStoreManager().getComponent(LazyLobManager.class).getLazyLobMemberNumbers(cmd, clr);
+        assertEquals(1, lazyMembers.length);
+        assertEquals(getBodyMemberNumber(), lazyMembers[0]);
+    }
+
+    public void testQueryDefersLob()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            List<Article> articles = queryArticles(pm);
+            assertEquals(NUMBER_OF_ARTICLES, articles.size());
+            for (Article article : articles)
+            {
+                assertFalse(isBodyLoaded(pm, article));
+            }
+
+            // Accessing the body of one loads the body of all of the others in the same SELECT
+            assertEquals("body0", articles.get(0).getBody());
+            for (Article article : articles)
+            {
+                assertTrue(isBodyLoaded(pm, article));
+            }
+            for (int i=0;i<articles.size();i++)
+            {
+                assertEquals("body" + i, articles.get(i).getBody());
+            }
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testExplicitFetchGroupLoadsLob()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            pm.getFetchPlan().addGroup("withBody");
+            List<Article> articles = queryArticles(pm);
+            assertEquals(NUMBER_OF_ARTICLES, articles.size());
+            for (Article article : articles)
+            {
+                assertTrue(isBodyLoaded(pm, article));
+            }
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    private static List<Article> queryArticles(PersistenceManager pm)
+    {
+        Query<Article> q = pm.newQuery(Article.class);
+        q.setOrdering("title ascending");
+        return q.executeList();
+    }
+
+    private boolean isBodyLoaded(PersistenceManager pm, Article article)
+    {
+        ExecutionContext ec = ((JDOPersistenceManager)pm).getExecutionContext();
+        return ec.findObjectProvider(article).isLoaded(getBodyMemberNumber());
+    }
+
+    private int getBodyMemberNumber()
+    {
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        AbstractClassMetaData cmd = getStoreManager().getMetaDataManager().getMetaDataForClass(Article.class, clr);
+        return cmd.getAbsolutePositionOfMember("body");
+    }
+}
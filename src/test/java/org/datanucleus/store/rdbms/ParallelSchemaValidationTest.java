@@ -0,0 +1,154 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.api.jdo.JDOPersistenceManagerFactory;
+import org.datanucleus.store.rdbms.test.Company;
+import org.datanucleus.store.rdbms.test.Department;
+import org.datanucleus.store.rdbms.test.Employee;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+import org.datanucleus.store.rdbms.test.SetHolder;
+
+/**
+ * Tests for validation of an existing schema using several threads ("datanucleus.rdbms.schema.validationThreads"),
+ * for classes with join tables and foreign keys, so that the constraints of the tables are validated too.
+ */
+public class ParallelSchemaValidationTest extends H2TestCase
+{
+    private static final AtomicInteger DATABASE_NUMBER = new AtomicInteger();
+
+    private String databaseURL;
+
+    protected void setUp() throws Exception
+    {
+        databaseURL = "jdbc:h2:mem:dnvalidation" + DATABASE_NUMBER.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+
+        // Create the schema using its own PMF
+        Map<String, Object> props = new HashMap<>();
+        props.put("javax.jdo.PersistenceManagerFactoryClass", JDOPersistenceManagerFactory.class.getName());
+        props.put("javax.jdo.option.ConnectionDriverName", "org.h2.Driver");
+        props.put("javax.jdo.option.ConnectionURL", databaseURL);
+        props.put("javax.jdo.option.ConnectionUserName", "sa");
+        props.put("javax.jdo.option.ConnectionPassword", "");
+        props.put("datanucleus.schema.autoCreateAll", "true");
+        PersistenceManagerFactory schemaPmf = JDOHelper.getPersistenceManagerFactory(props);
+        try
+        {
+            PersistenceManager pm = schemaPmf.getPersistenceManager();
+            Transaction tx = pm.currentTransaction();
+            try
+            {
+                tx.begin();
+                SetHolder holder = new SetHolder("holder");
+                holder.getItems().add(new Item("item", 1, 1.0));
+                pm.makePersistent(holder);
+                pm.makePersistent(new Employee("employee", new Department("department", new Company("company"))));
+                tx.commit();
+            }
+            finally
+            {
+                if (tx.isActive())
+                {
+                    tx.rollback();
+                }
+                pm.close();
+            }
+        }
+        finally
+        {
+            schemaPmf.close();
+        }
+
+        super.setUp();
+    }
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put("javax.jdo.option.ConnectionURL", databaseURL);
+        props.put("datanucleus.schema.autoCreateAll", "false");
+        props.put("datanucleus.schema.validateAll", "true");
+        props.put(RDBMSPropertyNames.PROPERTY_RDBMS_SCHEMA_VALIDATION_THREADS, "4");
+    }
+
+    public void testValidateTablesWithForeignKeys() throws Exception
+    {
+        final RDBMSStoreManager storeMgr = getStoreManager();
+        final ClassLoaderResolver clr = storeMgr.getNucleusContext().getClassLoaderResolver(null);
+        final String[] classNames = new String[] {SetHolder.class.getName(), Item.class.getName(), Employee.class.getName(),
+            Department.class.getName(), Company.class.getName()};
+
+        // Validating the constraints looks up the tables of related classes, so must not wait on the validating threads
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Future<?> future = executor.submit(new Runnable()
+            {
+                public void run()
+                {
+                    storeMgr.manageClasses(clr, classNames);
+                }
+            });
+            try
+            {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            catch (TimeoutException te)
+            {
+                fail("Validation of the schema did not complete");
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        for (int i=0;i<classNames.length;i++)
+        {
+            assertTrue(classNames[i], storeMgr.managesClass(classNames[i]));
+        }
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            SetHolder holder = pm.newQuery(SetHolder.class).executeList().get(0);
+            assertEquals(1, holder.getItems().size());
+            Employee employee = pm.newQuery(Employee.class).executeList().get(0);
+            assertEquals("company", employee.getDepartment().getCompany().getName());
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.api.jdo.JDOPersistenceManager;
+import org.datanucleus.state.ObjectProvider;
+import org.datanucleus.store.rdbms.test.Company;
+import org.datanucleus.store.rdbms.test.Department;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+
+/**
+ * Tests for the bulk resolution of the hollow objects referenced by query results (the Company of each Department).
+ */
+public class ReferenceFetchManagerTest extends H2TestCase
+{
+    private static final int NUMBER_OF_DEPARTMENTS = 5;
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        Object[] depts = new Object[NUMBER_OF_DEPARTMENTS];
+        for (int i=0;i<depts.length;i++)
+        {
+            depts[i] = new Department("dept" + i, new Company("company" + i));
+        }
+        persistAll(depts);
+    }
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put("datanucleus.enableStatistics", "true");
+        if (!getName().endsWith("ByDefault"))
+        {
+            props.put(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_RESOLVE_REFERENCES_IN_BULK, "true");
+        }
+    }
+
+    public void testReferencesResolvedInOneSelect()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            List<Department> results = getDepartments(pm);
+            ExecutionContext ec = ((JDOPersistenceManager)pm).getExecutionContext();
+            int numReads = ec.getStatistics().getNumberOfDatastoreReads();
+
+            // Accessing the first Company resolves all of them in one SELECT
+            assertEquals("company0", results.get(0).getCompany().getName());
+            assertEquals(numReads + 1, ec.getStatistics().getNumberOfDatastoreReads());
+            for (int i=0;i<results.size();i++)
+            {
+                Company company = results.get(i).getCompany();
+                assertTrue(isLoaded(pm, company, "name"));
+                assertEquals("company" + i, company.getName());
+            }
+            assertEquals(numReads + 1, ec.getStatistics().getNumberOfDatastoreReads());
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testReferencesResolvedIndividuallyByDefault()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            List<Department> results = getDepartments(pm);
+            ExecutionContext ec = ((JDOPersistenceManager)pm).getExecutionContext();
+            int numReads = ec.getStatistics().getNumberOfDatastoreReads();
+
+            assertEquals("company0", results.get(0).getCompany().getName());
+            assertFalse(isLoaded(pm, results.get(1).getCompany(), "name"));
+            for (int i=0;i<results.size();i++)
+            {
+                assertEquals("company" + i, results.get(i).getCompany().getName());
+            }
+            assertEquals(numReads + NUMBER_OF_DEPARTMENTS, ec.getStatistics().getNumberOfDatastoreReads());
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    private static List<Department> getDepartments(PersistenceManager pm)
+    {
+        Query<Department> q = pm.newQuery(Department.class);
+        q.setOrdering("name ascending");
+        List<Department> results = q.executeList();
+        assertEquals(NUMBER_OF_DEPARTMENTS, results.size());
+        for (int i=0;i<results.size();i++)
+        {
+            assertFalse(isLoaded(pm, results.get(i).getCompany(), "name"));
+        }
+        return results;
+    }
+
+    private static boolean isLoaded(PersistenceManager pm, Object obj, String memberName)
+    {
+        ObjectProvider op = ((JDOPersistenceManager)pm).getExecutionContext().findObjectProvider(obj);
+        return op.isLoaded(op.getClassMetaData().getAbsolutePositionOfMember(memberName));
+    }
+}
@@ -0,0 +1,132 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.api.jdo.JDOPersistenceManager;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.state.ObjectProvider;
+import org.datanucleus.store.rdbms.request.RequestCache;
+import org.datanucleus.store.rdbms.test.Company;
+import org.datanucleus.store.rdbms.test.Department;
+import org.datanucleus.store.rdbms.test.Employee;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+
+/**
+ * Tests for adaptive prefetch of chains of N-1 relations (Employee - Department - Company), and the bounding of the use
+ * counts of the candidate paths.
+ */
+public class RelationPrefetchManagerTest extends H2TestCase
+{
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        persistAll(new Employee("a", new Department("sales", new Company("acme"))),
+            new Employee("b", new Department("support", new Company("globex"))));
+    }
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put(RDBMSPropertyNames.PROPERTY_RDBMS_RELATION_PREFETCH, "true");
+        props.put(RDBMSPropertyNames.PROPERTY_RDBMS_RELATION_PREFETCH_THRESHOLD, "1");
+    }
+
+    public void testPathIsPrefetchedOnceNavigated()
+    {
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        AbstractClassMetaData cmd = getStoreManager().getMetaDataManager().getMetaDataForClass(Employee.class, clr);
+        RelationPrefetchManager prefetchMgr = getStoreManager().getComponent(RelationPrefetchManager.class);
+        RequestCache requestCache = ((RDBMSPersistenceHandler)getStoreManager().getPersistenceHandler()).getRequestCache();
+        assertTrue(prefetchMgr.getPrefetchPaths(cmd).isEmpty());
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Employee> q = pm.newQuery(Employee.class);
+            q.setOrdering("name ascending");
+            List<Employee> results = q.executeList();
+            assertEquals(2, results.size());
+
+            // Navigating from the first Employee to its Company leaves the path "department.company" to be prefetched
+            Company company1 = results.get(0).getDepartment().getCompany();
+            assertFalse(isLoaded(pm, company1, "name"));
+            assertEquals("acme", company1.getName());
+            List<String[]> paths = prefetchMgr.getPrefetchPaths(cmd);
+            assertEquals(1, paths.size());
+            assertEquals("department.company", String.join(".", paths.get(0)));
+
+            // The cached fetch of Employee.department was removed, so the fetch for the second Employee is regenerated and loads the Company too
+            long missCount = requestCache.getMissCount();
+            Department dept2 = results.get(1).getDepartment();
+            assertEquals(missCount + 1, requestCache.getMissCount());
+            assertTrue(isLoaded(pm, dept2.getCompany(), "name"));
+            assertEquals("globex", dept2.getCompany().getName());
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testUseCountsAreBounded()
+    {
+        RelationPrefetchManager.PathUseCounts useCounts = new RelationPrefetchManager.PathUseCounts(RelationPrefetchManager.DECAY_INTERVAL);
+        for (int i=0;i<RelationPrefetchManager.MAX_COUNTED_PATHS_PER_CLASS + 5;i++)
+        {
+            assertFalse(useCounts.recordUse("path" + i, 100));
+        }
+        assertEquals(RelationPrefetchManager.MAX_COUNTED_PATHS_PER_CLASS, useCounts.getNumberOfPaths());
+    }
+
+    public void testUseCountsDecay()
+    {
+        RelationPrefetchManager.PathUseCounts useCounts = new RelationPrefetchManager.PathUseCounts(10);
+        for (int i=0;i<4;i++)
+        {
+            useCounts.recordUse("frequent", 100);
+        }
+        useCounts.recordUse("rare", 100);
+        for (int i=0;i<4;i++)
+        {
+            useCounts.recordUse("frequent", 100);
+        }
+        assertEquals(8, useCounts.getUseCount("frequent"));
+
+        // The 10th use halves the counts, dropping the path used once
+        useCounts.recordUse("frequent", 100);
+        assertEquals(5, useCounts.getUseCount("frequent"));
+        assertEquals(0, useCounts.getUseCount("rare"));
+        assertEquals(1, useCounts.getNumberOfPaths());
+
+        // A path is no longer counted once it reaches the threshold
+        assertTrue(useCounts.recordUse("frequent", 6));
+        assertEquals(0, useCounts.getNumberOfPaths());
+    }
+
+    private static boolean isLoaded(PersistenceManager pm, Object obj, String memberName)
+    {
+        ObjectProvider op = ((JDOPersistenceManager)pm).getExecutionContext().findObjectProvider(obj);
+        return op.isLoaded(op.getClassMetaData().getAbsolutePositionOfMember(memberName));
+    }
+}
@@ -0,0 +1,204 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Query;
+import javax.jdo.Transaction;
+
+import org.datanucleus.api.jdo.JDOPersistenceManagerFactory;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+
+/**
+ * Tests for routing of read-only work to a replica, where the "replica" is a separate H2 database holding different data
+ * to the primary, so that we can tell from the results which database a query was run against.
+ */
+public class ReplicaRoutingTest extends H2TestCase
+{
+    private static final AtomicInteger REPLICA_NUMBER = new AtomicInteger();
+
+    private String replicaURL;
+
+    protected void setUp() throws Exception
+    {
+        replicaURL = "jdbc:h2:mem:dnreplica" + REPLICA_NUMBER.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+
+        // Create the schema and data of the replica using its own PMF
+        Map<String, Object> props = new HashMap<>();
+        props.put("javax.jdo.PersistenceManagerFactoryClass", JDOPersistenceManagerFactory.class.getName());
+        props.put("javax.jdo.option.ConnectionDriverName", "org.h2.Driver");
+        props.put("javax.jdo.option.ConnectionURL", replicaURL);
+        props.put("javax.jdo.option.ConnectionUserName", "sa");
+        props.put("javax.jdo.option.ConnectionPassword", "");
+        props.put("datanucleus.schema.autoCreateAll", "true");
+        PersistenceManagerFactory replicaPmf = JDOHelper.getPersistenceManagerFactory(props);
+        try
+        {
+            PersistenceManager pm = replicaPmf.getPersistenceManager();
+            Transaction tx = pm.currentTransaction();
+            try
+            {
+                tx.begin();
+                pm.makePersistent(new Item("replica", 1, 1.0));
+                tx.commit();
+            }
+            finally
+            {
+                if (tx.isActive())
+                {
+                    tx.rollback();
+                }
+                pm.close();
+            }
+        }
+        finally
+        {
+            replicaPmf.close();
+        }
+
+        super.setUp();
+        persistAll(new Item("primary", 1, 1.0));
+    }
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        if (getName().endsWith("UnusableReplica"))
+        {
+            props.put(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_CONNECTION_URLS, "jdbc:h2:tcp://localhost:1/dnreplica");
+        }
+        else
+        {
+            props.put(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_CONNECTION_URLS, replicaURL);
+        }
+        if (getName().endsWith("NontransactionalReads"))
+        {
+            props.put(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_NONTRANSACTIONAL_READS, "true");
+            props.put("datanucleus.NontransactionalWrite", "false");
+        }
+        if (getName().endsWith("AfterReadOnlyQuery"))
+        {
+            // Keep the non-transactional connection of the PM open, so it is reused
+            props.put("datanucleus.connection.nontx.releaseAfterUse", "false");
+            props.put("datanucleus.NontransactionalWrite", "true");
+        }
+    }
+
+    public void testQueryUsesPrimaryByDefault()
+    {
+        assertEquals(Collections.singletonList("primary"), getNames(false, false));
+    }
+
+    public void testReadOnlyQueryUsesReplica()
+    {
+        assertEquals(Collections.singletonList("replica"), getNames(true, false));
+    }
+
+    public void testReadOnlyQueryInTransactionUsesPrimary()
+    {
+        // A transaction may have flushed changes that the replica can't see
+        assertEquals(Collections.singletonList("primary"), getNames(true, true));
+    }
+
+    public void testReadOnlyQueryWithUnusableReplica()
+    {
+        // No usable replica, so falls back to the primary
+        assertEquals(Collections.singletonList("primary"), getNames(true, false));
+    }
+
+    public void testNontransactionalReads()
+    {
+        assertEquals(Collections.singletonList("replica"), getNames(false, false));
+        assertEquals(Collections.singletonList("primary"), getNames(false, true));
+    }
+
+    public void testNontransactionalWriteAfterReadOnlyQuery()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Item> q = pm.newQuery(Item.class);
+            q.extension(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_READ_ONLY, "true");
+            assertEquals("replica", q.executeList().get(0).getName());
+
+            // The write uses the connection of the PM, which must not be the replica connection of the query
+            pm.makePersistent(new Item("added", 2, 2.0));
+        }
+        finally
+        {
+            pm.close();
+        }
+
+        List<String> names = getNames(false, false);
+        Collections.sort(names);
+        assertEquals(Arrays.asList("added", "primary"), names);
+        assertEquals(Collections.singletonList("replica"), getNames(true, false));
+    }
+
+    /**
+     * Method to query the names of all Items.
+     * @param readOnly Whether to mark the query as read-only
+     * @param transactional Whether to run the query in a transaction
+     * @return The names of the Items
+     */
+    private List<String> getNames(boolean readOnly, boolean transactional)
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            if (transactional)
+            {
+                tx.begin();
+            }
+            Query<Item> q = pm.newQuery(Item.class);
+            if (readOnly)
+            {
+                q.extension(RDBMSPropertyNames.PROPERTY_RDBMS_REPLICA_READ_ONLY, "true");
+            }
+            List<String> names = new ArrayList<>();
+            for (Item item : q.executeList())
+            {
+                names.add(item.getName());
+            }
+            if (transactional)
+            {
+                tx.commit();
+            }
+            return names;
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+import javax.jdo.Transaction;
+
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+import org.datanucleus.util.NucleusLogger;
+
+/**
+ * Stress test of many ExecutionContexts each on its own virtual thread, with few carrier threads and fewer pooled connections
+ * than threads. A monitor held across a blocking JDBC call (or while waiting for a connection) pins the carrier thread, so with
+ * this few carriers would starve the other threads and the test would time out.
+ * Only run by the "virtual-threads" profile, which is active with a JVM that supports virtual threads and sets the number of carrier
+ * threads. If run on a JVM without virtual threads the test is skipped, logging a warning.
+ */
+public class VirtualThreadStressTest extends H2TestCase
+{
+    private static final int NUMBER_OF_THREADS = 2000;
+
+    private static final long TIMEOUT_SECONDS = 120;
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put("datanucleus.connectionPool.maxTotal", "4");
+        props.put(RDBMSPropertyNames.PROPERTY_RDBMS_VIRTUAL_THREADS_AUDIT_PINNING, "true");
+    }
+
+    public void testManyExecutionContextsOnVirtualThreads() throws Exception
+    {
+        ExecutorService executor;
+        try
+        {
+            executor = (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (NoSuchMethodException nsme)
+        {
+            NucleusLogger.GENERAL.warn("VirtualThreadStressTest skipped since virtual threads are not supported by this JVM (" +
+                System.getProperty("java.version") + ")");
+            return;
+        }
+
+        // Create the schema and id generator table before starting the threads
+        persistAll(new Item("initial", 0, 0.0));
+
+        final ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        try
+        {
+            for (int i=0;i<NUMBER_OF_THREADS;i++)
+            {
+                final int threadNumber = i;
+                executor.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            persistAndQuery(threadNumber);
+                        }
+                        catch (Throwable thr)
+                        {
+                            failures.add(thr);
+                        }
+                    }
+                });
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        assertTrue("Virtual threads did not complete within " + TIMEOUT_SECONDS + " seconds, so carrier threads were starved",
+            executor.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        if (!failures.isEmpty())
+        {
+            AssertionError err = new AssertionError(failures.size() + " of the threads failed");
+            err.initCause(failures.peek());
+            throw err;
+        }
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query q = pm.newQuery(Item.class);
+            q.setResult("count(this)");
+            assertEquals(Long.valueOf(NUMBER_OF_THREADS + 1), q.execute());
+        }
+        finally
+        {
+            pm.close();
+        }
+
+        VirtualThreadPinningAudit audit = getStoreManager().getVirtualThreadPinningAudit();
+        if (audit != null)
+        {
+            // Pinning can also come from monitors in the JDBC driver, so is logged rather than asserted here
+            NucleusLogger.GENERAL.info("VirtualThreadStressTest : " + audit.getNumberOfPinnedEvents() + " pinned events with DataNucleus frames");
+        }
+    }
+
+    private void persistAndQuery(int threadNumber)
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            Item item = new Item("Item " + threadNumber, threadNumber, threadNumber * 1.5);
+            pm.makePersistent(item);
+            pm.flush();
+
+            Query<Item> q = pm.newQuery(Item.class, "name == :name");
+            List<Item> results = q.setParameters("Item " + threadNumber).executeList();
+            assertEquals(1, results.size());
+            assertEquals(threadNumber, results.get(0).getQuantity());
+            tx.commit();
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+}
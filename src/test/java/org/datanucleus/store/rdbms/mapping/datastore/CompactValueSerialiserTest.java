@@ -0,0 +1,170 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.mapping.datastore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.datanucleus.ClassLoaderResolverImpl;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for CompactValueSerialiser, for round trips of values, reading values stored with plain Java serialisation, and
+ * reading values stored with an earlier version of their class.
+ */
+public class CompactValueSerialiserTest extends TestCase
+{
+    public void testRoundTrip() throws Exception
+    {
+        Object value = createValue();
+        assertEquals(value, roundTrip(new CompactValueSerialiser(false), value));
+    }
+
+    public void testRoundTripCompressed() throws Exception
+    {
+        Object value = createValue();
+        CompactValueSerialiser serialiser = new CompactValueSerialiser(true);
+        assertEquals(value, roundTrip(serialiser, value));
+
+        // The list repeats the same strings, so compresses well
+        assertTrue(serialise(serialiser, value).length < serialise(new CompactValueSerialiser(false), value).length);
+    }
+
+    public void testReadJavaSerialisedValue() throws Exception
+    {
+        Object value = createValue();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        JavaValueSerialiser.INSTANCE.serialise(value, baos);
+        Object read = new CompactValueSerialiser(true).deserialise(new ByteArrayInputStream(baos.toByteArray()), new ClassLoaderResolverImpl());
+        assertEquals(value, read);
+    }
+
+    public void testReadEvolvedClass() throws Exception
+    {
+        // Store a ValueV1, and read it back as the next version of the class, ValueV2, which has an added field and has
+        // dropped a field. The class descriptor is stored so the fields in common are matched by name
+        ValueV1 v1 = new ValueV1();
+        v1.name = "first";
+        v1.count = 7;
+        v1.obsolete = "dropped";
+        byte[] bytes = serialise(new CompactValueSerialiser(false), v1);
+        bytes = replace(bytes, ValueV1.class.getName(), ValueV2.class.getName());
+
+        Object read = new CompactValueSerialiser(false).deserialise(new ByteArrayInputStream(bytes), new ClassLoaderResolverImpl());
+        assertTrue(read instanceof ValueV2);
+        ValueV2 v2 = (ValueV2)read;
+        assertEquals("first", v2.name);
+        assertEquals(7, v2.count);
+        assertNull(v2.description);
+    }
+
+    public void testReadInvalidHeader() throws Exception
+    {
+        try
+        {
+            new CompactValueSerialiser(false).deserialise(new ByteArrayInputStream(new byte[] {1, 2, 3}), null);
+            fail("Expected invalid header to be rejected");
+        }
+        catch (IOException ioe)
+        {
+            // Expected
+        }
+    }
+
+    private static Object createValue()
+    {
+        Map<String, Object> value = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        for (int i=0;i<200;i++)
+        {
+            values.add("value" + (i % 10));
+        }
+        value.put("list", values);
+        value.put("number", Long.valueOf(17));
+        return value;
+    }
+
+    private static Object roundTrip(ValueSerialiser serialiser, Object value) throws Exception
+    {
+        byte[] bytes = serialise(serialiser, value);
+        return serialiser.deserialise(new ByteArrayInputStream(bytes), new ClassLoaderResolverImpl());
+    }
+
+    private static byte[] serialise(ValueSerialiser serialiser, Object value) throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serialiser.serialise(value, baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Method to replace the (single) occurrence of a class name in a serialised value, with another name of the same length.
+     */
+    private static byte[] replace(byte[] bytes, String from, String to)
+    {
+        byte[] fromBytes = from.getBytes(StandardCharsets.UTF_8);
+        byte[] toBytes = to.getBytes(StandardCharsets.UTF_8);
+        assertEquals(fromBytes.length, toBytes.length);
+        for (int i=0;i<=bytes.length-fromBytes.length;i++)
+        {
+            boolean match = true;
+            for (int j=0;j<fromBytes.length && match;j++)
+            {
+                match = bytes[i+j] == fromBytes[j];
+            }
+            if (match)
+            {
+                byte[] result = bytes.clone();
+                System.arraycopy(toBytes, 0, result, i, toBytes.length);
+                return result;
+            }
+        }
+        fail("Class name " + from + " not found in serialised value");
+        return null;
+    }
+
+    public static class ValueV1 implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        String name;
+
+        int count;
+
+        String obsolete;
+    }
+
+    public static class ValueV2 implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        String name;
+
+        int count;
+
+        String description;
+    }
+}
@@ -0,0 +1,162 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.mapping.datastore;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.jdo.PersistenceManager;
+
+import org.datanucleus.store.rdbms.test.Document;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+
+/**
+ * Tests for streaming of serialised and File values to/from BLOB columns (see Document).
+ */
+public class LargeBinaryStreamingTest extends H2TestCase
+{
+    public void testSerialisedValueRoundTrip()
+    {
+        List<String> expected = getLines(100);
+        persistDocument(expected, null);
+        assertEquals(expected, readDocumentLines());
+    }
+
+    public void testLargeSerialisedValueRoundTrip()
+    {
+        // More than is held in memory when serialising, so is spooled to a file that is deleted once the INSERT has executed
+        int spoolFiles = countSpoolFiles("datanucleus.serialised-");
+        List<String> expected = getLines(5000);
+        persistDocument(expected, null);
+        assertEquals(spoolFiles, countSpoolFiles("datanucleus.serialised-"));
+        assertEquals(expected, readDocumentLines());
+    }
+
+    public void testFileRoundTrip() throws IOException
+    {
+        byte[] bytes = new byte[200000];
+        for (int i=0;i<bytes.length;i++)
+        {
+            bytes[i] = (byte)(i % 251);
+        }
+        File file = File.createTempFile("dntest", ".bin");
+        try
+        {
+            OutputStream os = new FileOutputStream(file);
+            try
+            {
+                os.write(bytes);
+            }
+            finally
+            {
+                os.close();
+            }
+            long id = persistDocument(getLines(1), file);
+
+            PersistenceManager pm = pmf.getPersistenceManager();
+            try
+            {
+                File content = pm.getObjectById(Document.class, id).getContent();
+                assertNotNull(content);
+                assertFalse(file.equals(content));
+                assertTrue(Arrays.equals(bytes, readFile(content)));
+            }
+            finally
+            {
+                pm.close();
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    private long persistDocument(List<String> lines, File content)
+    {
+        Document doc = new Document("doc");
+        doc.getLines().addAll(lines);
+        doc.setContent(content);
+        persistAll(doc);
+        return doc.getId();
+    }
+
+    private static List<String> getLines(int numberOfLines)
+    {
+        List<String> lines = new ArrayList<>();
+        for (int i=0;i<numberOfLines;i++)
+        {
+            lines.add("Line number " + i + " of the document");
+        }
+        return lines;
+    }
+
+    private List<String> readDocumentLines()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Document doc = pm.getExtent(Document.class).iterator().next();
+            return new ArrayList<>(doc.getLines());
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    private static int countSpoolFiles(final String prefix)
+    {
+        String[] names = StreamableSpooler.instance().getSpoolDirectory().list(new FilenameFilter()
+        {
+            public boolean accept(File dir, String name)
+            {
+                return name.startsWith(prefix);
+            }
+        });
+        return names != null ? names.length : 0;
+    }
+
+    private static byte[] readFile(File file) throws IOException
+    {
+        byte[] bytes = new byte[(int)file.length()];
+        InputStream is = new FileInputStream(file);
+        try
+        {
+            int pos = 0;
+            int numRead;
+            while (pos < bytes.length && (numRead = is.read(bytes, pos, bytes.length - pos)) != -1)
+            {
+                pos += numRead;
+            }
+        }
+        finally
+        {
+            is.close();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,224 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.query;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+import javax.jdo.datastore.JDOConnection;
+
+import org.datanucleus.api.jdo.JDOQuery;
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.rdbms.RDBMSPropertyNames;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+
+/**
+ * Tests for asynchronous execution of queries. Queries that need to be held executing use the H2 function PAUSE, which
+ * blocks until the test releases it.
+ */
+public class AsyncQueryExecutorTest extends H2TestCase
+{
+    private static volatile CountDownLatch pauseStarted;
+
+    private static volatile CountDownLatch pauseReleased;
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        persistAll(new Item("a", 1, 1.0));
+        pauseStarted = new CountDownLatch(1);
+        pauseReleased = new CountDownLatch(1);
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            JDOConnection jdoConn = pm.getDataStoreConnection();
+            try
+            {
+                Statement stmt = ((Connection)jdoConn.getNativeConnection()).createStatement();
+                stmt.execute("CREATE ALIAS PAUSE FOR \"" + AsyncQueryExecutorTest.class.getName() + ".pause\"");
+                stmt.close();
+            }
+            finally
+            {
+                jdoConn.close();
+            }
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    protected void tearDown() throws Exception
+    {
+        pauseReleased.countDown();
+        super.tearDown();
+    }
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        if (!getName().endsWith("NotMultithreaded"))
+        {
+            props.put("datanucleus.Multithreaded", "true");
+        }
+        props.put(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_ASYNC_THREADS, "1");
+        props.put(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_ASYNC_QUEUE_SIZE, "1");
+    }
+
+    /**
+     * H2 function (PAUSE) that blocks the executing query until released by the test.
+     * @return true
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static boolean pause() throws InterruptedException
+    {
+        pauseStarted.countDown();
+        pauseReleased.await(30, TimeUnit.SECONDS);
+        return true;
+    }
+
+    public void testExecute() throws Exception
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            CompletableFuture<Object> future = executeAsync(pm.newQuery(Item.class));
+            List results = (List)future.get(30, TimeUnit.SECONDS);
+            assertEquals(1, results.size());
+            assertEquals("a", ((Item)results.get(0)).getName());
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testRejectedWhenNotMultithreaded()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            executeAsync(pm.newQuery(Item.class));
+            fail("Should have rejected asynchronous execution with an ExecutionContext that is not multithreaded");
+        }
+        catch (NucleusUserException nue)
+        {
+            // Expected
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testRejectedInActiveTransaction()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            pm.currentTransaction().begin();
+            executeAsync(pm.newQuery(Item.class));
+            fail("Should have rejected asynchronous execution in an active transaction");
+        }
+        catch (NucleusUserException nue)
+        {
+            // Expected
+        }
+        finally
+        {
+            pm.currentTransaction().rollback();
+            pm.close();
+        }
+    }
+
+    public void testCancellationAndQueueRejection() throws Exception
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            // Occupy the only thread with a query held executing
+            CompletableFuture<Object> running = executeAsync(pm.newQuery(Item.class, "SQL_boolean('PAUSE()')"));
+            assertTrue(pauseStarted.await(30, TimeUnit.SECONDS));
+
+            // Fill the queue, then cancel the queued query
+            CompletableFuture<Object> queued = executeAsync(pm.newQuery(Item.class));
+            assertTrue(queued.cancel(false));
+            assertTrue(queued.isCancelled());
+
+            // The cancelled query still occupies the queue until a thread takes it, so another query is rejected
+            try
+            {
+                executeAsync(pm.newQuery(Item.class));
+                fail("Should have rejected a query when the queue is full");
+            }
+            catch (NucleusUserException nue)
+            {
+                // Expected
+            }
+
+            // Cancel the executing query
+            assertTrue(running.cancel(true));
+            try
+            {
+                running.get(30, TimeUnit.SECONDS);
+                fail("Should have thrown CancellationException for the cancelled query");
+            }
+            catch (CancellationException ce)
+            {
+                // Expected
+            }
+            pauseReleased.countDown();
+
+            // The pool accepts queries again once the cancelled ones are done
+            long timeout = System.currentTimeMillis() + 30000;
+            CompletableFuture<Object> future = null;
+            while (future == null)
+            {
+                try
+                {
+                    future = executeAsync(pm.newQuery(Item.class));
+                }
+                catch (NucleusUserException nue)
+                {
+                    assertTrue("Queue of asynchronous queries is still full", System.currentTimeMillis() < timeout);
+                    Thread.sleep(10);
+                }
+            }
+            assertEquals(1, ((List)future.get(30, TimeUnit.SECONDS)).size());
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    private static CompletableFuture<Object> executeAsync(Query q)
+    {
+        return RDBMSQueryUtils.executeAsync(((JDOQuery)q).getInternalQuery(), null);
+    }
+}
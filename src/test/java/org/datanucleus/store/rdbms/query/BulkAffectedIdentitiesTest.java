@@ -0,0 +1,179 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.query;
+
+import java.sql.DatabaseMetaData;
+import java.util.Map;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+import javax.jdo.Transaction;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.api.jdo.JDOPersistenceManager;
+import org.datanucleus.state.ObjectProvider;
+import org.datanucleus.store.rdbms.RDBMSPropertyNames;
+import org.datanucleus.store.rdbms.adapter.H2Adapter;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.sql.UpdateStatement;
+import org.datanucleus.store.rdbms.sql.expression.NumericExpression;
+import org.datanucleus.store.rdbms.sql.expression.SQLExpression;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+
+/**
+ * Tests for evicting only the objects affected by bulk UPDATEs (see BulkAffectedIdentities). H2 has no RETURNING clause, so
+ * the affected rows are found using a locking SELECT, unless the test uses an adapter claiming RETURNING support, in which
+ * case only an UPDATE of the primary key will work (since it has to use the SELECT instead).
+ */
+public class BulkAffectedIdentitiesTest extends H2TestCase
+{
+    /**
+     * Adapter for H2 that claims to support RETURNING, so a statement using it fails.
+     */
+    public static class ReturningH2Adapter extends H2Adapter
+    {
+        public ReturningH2Adapter(DatabaseMetaData metadata)
+        {
+            super(metadata);
+            supportedOptions.add(UPDATE_DELETE_STATEMENT_RETURNING);
+        }
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        persistAll(new Item("a", 1, 1.0), new Item("b", 2, 2.0));
+    }
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_BULK_EVICT_AFFECTED_ONLY, "true");
+        props.put("datanucleus.query.jdoql.allowAll", "true");
+        if (getName().endsWith("WithReturning"))
+        {
+            props.put(RDBMSPropertyNames.PROPERTY_RDBMS_DATASTORE_ADAPTER_CLASS_NAME, ReturningH2Adapter.class.getName());
+        }
+    }
+
+    public void testUpdateEvictsAffectedObjects()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            Item a = getItem(pm, "a");
+            Item b = getItem(pm, "b");
+            Query q = pm.newQuery("UPDATE " + Item.class.getName() + " SET quantity = 10 WHERE name == 'a'");
+            assertEquals(1, ((Number)q.execute()).longValue());
+
+            assertFalse(isLoaded(pm, a, "quantity"));
+            assertTrue(isLoaded(pm, b, "quantity"));
+            assertEquals(10, a.getQuantity());
+            assertEquals(2, b.getQuantity());
+            tx.commit();
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+
+    public void testUpdatePrimaryKeyWithReturning()
+    {
+        // RETURNING would give the updated identity, so the old identity is found using a SELECT instead
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            Item a = getItem(pm, "a");
+            Item b = getItem(pm, "b");
+            long id = a.getId();
+            Query q = pm.newQuery("UPDATE " + Item.class.getName() + " SET id = id + 100 WHERE name == 'a'");
+            assertEquals(1, ((Number)q.execute()).longValue());
+
+            assertFalse(isLoaded(pm, a, "name"));
+            assertTrue(isLoaded(pm, b, "name"));
+            tx.commit();
+
+            assertEquals(id + 100, getItem(pm, "a").getId());
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+
+    public void testUpdatesPrimaryKey()
+    {
+        assertTrue(updatesPrimaryKey("id", true));
+        assertFalse(updatesPrimaryKey("quantity", true));
+
+        // Where the member set isn't known it may be part of the primary key
+        assertTrue(updatesPrimaryKey("quantity", false));
+    }
+
+    /**
+     * Method to return whether an UPDATE of Item setting the specified member is treated as updating the primary key.
+     * @param memberName Name of the member to set
+     * @param mappingKnown Whether to tell the statement which mapping is set
+     * @return Whether the statement updates the primary key
+     */
+    private boolean updatesPrimaryKey(String memberName, boolean mappingKnown)
+    {
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        DatastoreClass table = getStoreManager().getDatastoreClass(Item.class.getName(), clr);
+        JavaTypeMapping mapping = table.getMemberMapping(
+            getStoreManager().getMetaDataManager().getMetaDataForClass(Item.class, clr).getMetaDataForMember(memberName));
+        UpdateStatement stmt = new UpdateStatement(getStoreManager(), table, null, null, null);
+        SQLExpression expr = new NumericExpression(stmt, stmt.getPrimaryTable(), mapping);
+        SQLExpression[] updates = new SQLExpression[] {expr.eq(expr)};
+        if (mappingKnown)
+        {
+            stmt.setUpdates(updates, new JavaTypeMapping[] {mapping});
+        }
+        else
+        {
+            stmt.setUpdates(updates);
+        }
+        return stmt.updatesPrimaryKey();
+    }
+
+    private static Item getItem(PersistenceManager pm, String name)
+    {
+        Query<Item> q = pm.newQuery(Item.class, "name == :name");
+        return q.setParameters(name).executeUnique();
+    }
+
+    private static boolean isLoaded(PersistenceManager pm, Object obj, String memberName)
+    {
+        ObjectProvider op = ((JDOPersistenceManager)pm).getExecutionContext().findObjectProvider(obj);
+        return op.isLoaded(op.getClassMetaData().getAbsolutePositionOfMember(memberName));
+    }
+}
@@ -0,0 +1,281 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+import javax.jdo.Transaction;
+
+import org.datanucleus.api.jdo.JDOQuery;
+import org.datanucleus.exceptions.NucleusUserException;
+import org.datanucleus.store.rdbms.query.ColumnBatch.ColumnType;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+
+/**
+ * Tests for reading query results by column, in batches, using RDBMSQueryUtils.executeColumnar. The query is executed as
+ * normal, so also flushes changes and applies its range.
+ */
+public class ColumnarQueryResultTest extends H2TestCase
+{
+    private static final int NUMBER_OF_ITEMS = 10;
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        // Names alternate between two values, with a null for the last
+        Object[] items = new Object[NUMBER_OF_ITEMS];
+        for (int i=0;i<NUMBER_OF_ITEMS;i++)
+        {
+            items[i] = new Item(i == NUMBER_OF_ITEMS-1 ? null : (i % 2 == 0 ? "even" : "odd"), i, i * 0.5);
+        }
+        persistAll(items);
+    }
+
+    public void testJDOQLBatches()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Item> q = pm.newQuery(Item.class);
+            q.setResult("name, quantity, price");
+            q.setOrdering("quantity ascending");
+
+            List<Integer> batchSizes = new ArrayList<>();
+            int row = 0;
+            try (ColumnarQueryResult result = RDBMSQueryUtils.executeColumnar(((JDOQuery)q).getInternalQuery(), null, 4))
+            {
+                while (result.hasNext())
+                {
+                    ColumnBatch batch = result.next();
+                    batchSizes.add(batch.getNumberOfRows());
+                    assertEquals(3, batch.getNumberOfColumns());
+                    assertEquals(ColumnType.STRING, batch.getColumnType(0));
+                    assertEquals(ColumnType.INT, batch.getColumnType(1));
+                    assertEquals(ColumnType.DOUBLE, batch.getColumnType(2));
+
+                    int[] quantities = batch.getIntColumn(1);
+                    double[] prices = batch.getDoubleColumn(2);
+                    int nonNullNames = 0;
+                    for (int i=0;i<batch.getNumberOfRows();i++,row++)
+                    {
+                        assertEquals(row, quantities[i]);
+                        assertEquals(row * 0.5, prices[i], 0.0);
+                        if (row == NUMBER_OF_ITEMS-1)
+                        {
+                            assertTrue(batch.isNull(0, i));
+                            assertNull(batch.getString(0, i));
+                        }
+                        else
+                        {
+                            assertFalse(batch.isNull(0, i));
+                            assertEquals(row % 2 == 0 ? "even" : "odd", batch.getString(0, i));
+                            nonNullNames++;
+                        }
+                    }
+                    assertEquals(Math.min(nonNullNames, 2), batch.getStringDictionarySize(0));
+                }
+            }
+            assertEquals(NUMBER_OF_ITEMS, row);
+            assertEquals(Arrays.asList(4, 4, 2), batchSizes);
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testJDOQLParameters()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Item> q = pm.newQuery(Item.class, "quantity >= :min");
+            q.setResult("quantity");
+            Map<String, Object> params = Collections.<String, Object>singletonMap("min", Integer.valueOf(3));
+
+            int rows = 0;
+            try (ColumnarQueryResult result = RDBMSQueryUtils.executeColumnar(((JDOQuery)q).getInternalQuery(), params, 100))
+            {
+                while (result.hasNext())
+                {
+                    ColumnBatch batch = result.next();
+                    int[] quantities = batch.getIntColumn(0);
+                    for (int i=0;i<batch.getNumberOfRows();i++)
+                    {
+                        assertTrue(quantities[i] >= 3);
+                    }
+                    rows += batch.getNumberOfRows();
+                }
+            }
+            assertEquals(NUMBER_OF_ITEMS - 3, rows);
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testRange()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Item> q = pm.newQuery(Item.class);
+            q.setResult("quantity");
+            q.setOrdering("quantity ascending");
+            q.setRange(2, 5);
+            assertEquals(Arrays.asList(2, 3, 4), getQuantities(q));
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testFlushesChangesInTransaction()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.setOptimistic(true);
+            tx.begin();
+            pm.makePersistent(new Item("new", 100, 1.0));
+
+            // The new Item is flushed before executing, as for query.execute()
+            Query<Item> q = pm.newQuery(Item.class, "quantity >= 100");
+            q.setResult("quantity");
+            assertEquals(Collections.singletonList(100), getQuantities(q));
+
+            // Unless ignoring the cache
+            pm.makePersistent(new Item("new2", 101, 1.0));
+            q = pm.newQuery(Item.class, "quantity == 101");
+            q.setResult("quantity");
+            q.setIgnoreCache(true);
+            assertEquals(Collections.emptyList(), getQuantities(q));
+            tx.rollback();
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+
+    public void testSQLQuery()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query q = pm.newQuery("javax.jdo.query.SQL", "SELECT NAME, QUANTITY FROM ITEM ORDER BY QUANTITY");
+            int rows = 0;
+            try (ColumnarQueryResult result = RDBMSQueryUtils.executeColumnar(((JDOQuery)q).getInternalQuery(), null, 3))
+            {
+                while (result.hasNext())
+                {
+                    ColumnBatch batch = result.next();
+                    assertEquals(ColumnType.STRING, batch.getColumnType(0));
+                    assertEquals(ColumnType.INT, batch.getColumnType(1));
+                    int[] quantities = batch.getIntColumn(1);
+                    for (int i=0;i<batch.getNumberOfRows();i++,rows++)
+                    {
+                        assertEquals(rows, quantities[i]);
+                    }
+                }
+            }
+            assertEquals(NUMBER_OF_ITEMS, rows);
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testCloseBeforeExhausted()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Item> q = pm.newQuery(Item.class);
+            q.setResult("quantity");
+            ColumnarQueryResult result = RDBMSQueryUtils.executeColumnar(((JDOQuery)q).getInternalQuery(), null, 2);
+            assertTrue(result.hasNext());
+            assertEquals(2, result.next().getNumberOfRows());
+            result.close();
+            assertFalse(result.hasNext());
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testCandidateQueryIsRejected()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Item> q = pm.newQuery(Item.class);
+            try
+            {
+                RDBMSQueryUtils.executeColumnar(((JDOQuery)q).getInternalQuery(), null, 10).close();
+                fail("Columnar results of a query without a result clause should be rejected");
+            }
+            catch (NucleusUserException nue)
+            {
+                // Expected
+            }
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    /**
+     * Method to execute a query of the quantity of Items for columnar results, returning the quantities.
+     */
+    private static List<Integer> getQuantities(Query q)
+    {
+        List<Integer> quantities = new ArrayList<>();
+        try (ColumnarQueryResult result = RDBMSQueryUtils.executeColumnar(((JDOQuery)q).getInternalQuery(), null, 100))
+        {
+            while (result.hasNext())
+            {
+                ColumnBatch batch = result.next();
+                int[] values = batch.getIntColumn(0);
+                for (int i=0;i<batch.getNumberOfRows();i++)
+                {
+                    quantities.add(values[i]);
+                }
+            }
+        }
+        return quantities;
+    }
+}
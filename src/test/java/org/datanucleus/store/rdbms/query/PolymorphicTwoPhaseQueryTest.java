@@ -0,0 +1,113 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.query;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+
+import org.datanucleus.api.jdo.JDOPersistenceManager;
+import org.datanucleus.api.jdo.JDOQuery;
+import org.datanucleus.state.ObjectProvider;
+import org.datanucleus.store.rdbms.RDBMSPropertyNames;
+import org.datanucleus.store.rdbms.test.Circle;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Shape;
+import org.datanucleus.store.rdbms.test.Square;
+
+/**
+ * Tests for two-phase polymorphic queries of a "new-table" hierarchy without a discriminator (Shape, Circle, Square).
+ * The query selects the type of each candidate using EXISTS subqueries instead of a UNION per class, and the members of the
+ * subclasses are then fetched in bulk, for all objects of a type, when first accessed.
+ */
+public class PolymorphicTwoPhaseQueryTest extends H2TestCase
+{
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        persistAll(new Shape("a"), new Circle("b", 1.0), new Square("c", 2.0), new Circle("d", 3.0));
+    }
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_POLYMORPHIC_TWO_PHASE, "true");
+    }
+
+    public void testQueryOfHierarchy()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Shape> q = pm.newQuery(Shape.class);
+            q.setOrdering("name ascending");
+            List<Shape> results = q.executeList();
+
+            String sql = ((JDOQLQuery)((JDOQuery)q).getInternalQuery()).getSQL();
+            assertFalse(sql, sql.contains("UNION"));
+            assertTrue(sql, sql.contains("EXISTS"));
+
+            assertEquals(4, results.size());
+            assertEquals(Shape.class, results.get(0).getClass());
+            assertEquals(Circle.class, results.get(1).getClass());
+            assertEquals(Square.class, results.get(2).getClass());
+            assertEquals(Circle.class, results.get(3).getClass());
+            for (int i=0;i<results.size();i++)
+            {
+                assertEquals("" + (char)('a' + i), results.get(i).getName());
+            }
+
+            // Accessing the radius of one Circle fetches it for both
+            Circle circle1 = (Circle)results.get(1);
+            Circle circle2 = (Circle)results.get(3);
+            assertFalse(isLoaded(pm, circle2, "radius"));
+            assertEquals(1.0, circle1.getRadius(), 0.0);
+            assertTrue(isLoaded(pm, circle2, "radius"));
+            assertEquals(3.0, circle2.getRadius(), 0.0);
+            assertEquals(2.0, ((Square)results.get(2)).getSide(), 0.0);
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testQueryOfSubclass()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Circle> q = pm.newQuery(Circle.class, "radius > 2.0");
+            List<Circle> results = q.executeList();
+            assertEquals(1, results.size());
+            assertEquals("d", results.get(0).getName());
+            assertEquals(3.0, results.get(0).getRadius(), 0.0);
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    private static boolean isLoaded(PersistenceManager pm, Object obj, String memberName)
+    {
+        ObjectProvider op = ((JDOPersistenceManager)pm).getExecutionContext().findObjectProvider(obj);
+        return op.isLoaded(op.getClassMetaData().getAbsolutePositionOfMember(memberName));
+    }
+}
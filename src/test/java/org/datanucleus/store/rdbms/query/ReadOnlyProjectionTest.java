@@ -0,0 +1,92 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.query;
+
+import java.util.List;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+
+import org.datanucleus.store.rdbms.RDBMSPropertyNames;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+import org.datanucleus.store.rdbms.test.ItemSummary;
+
+/**
+ * Tests for queries using "datanucleus.rdbms.query.readOnlyProjection", returning unmanaged objects.
+ */
+public class ReadOnlyProjectionTest extends H2TestCase
+{
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        persistAll(new Item("a", 1, 1.5), new Item("b", 2, 2.5), new Item("c", 3, 3.5));
+    }
+
+    public void testResultClass()
+    {
+        for (boolean readOnly : new boolean[] {true, false})
+        {
+            PersistenceManager pm = pmf.getPersistenceManager();
+            try
+            {
+                Query<Item> q = pm.newQuery(Item.class);
+                q.setResult("name, quantity");
+                q.setResultClass(ItemSummary.class);
+                q.setOrdering("name ascending");
+                q.addExtension(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_READ_ONLY_PROJECTION, "" + readOnly);
+                List<ItemSummary> results = q.executeResultList(ItemSummary.class);
+                assertEquals(3, results.size());
+                for (int i=0;i<3;i++)
+                {
+                    assertEquals(String.valueOf((char)('a' + i)), results.get(i).getName());
+                    assertEquals(i + 1, results.get(i).getQuantity());
+                }
+            }
+            finally
+            {
+                pm.close();
+            }
+        }
+    }
+
+    public void testCandidateProjectionIsUnmanaged()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Item> q = pm.newQuery(Item.class, "quantity > 1");
+            q.setOrdering("quantity ascending");
+            q.addExtension(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_READ_ONLY_PROJECTION, "true");
+            List<Item> results = q.executeList();
+            assertEquals(2, results.size());
+
+            Item item = results.get(0);
+            assertFalse("Read-only projection should not be managed", JDOHelper.isPersistent(item));
+            assertEquals("b", item.getName());
+            assertEquals(2, item.getQuantity());
+            assertEquals(2.5, item.getPrice(), 0.0);
+            assertEquals("c", results.get(1).getName());
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.query;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.api.jdo.JDOPersistenceManager;
+import org.datanucleus.store.rdbms.sql.SQLStatementHelper;
+import org.datanucleus.store.rdbms.sql.SQLStatementParameter;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+import org.datanucleus.store.rdbms.test.ParameterRecorder;
+
+/**
+ * Tests that the StatementParameterBinder sets the same values on the statement as the generic
+ * SQLStatementHelper.applyParametersToStatement, for each way of supplying the parameter values.
+ */
+public class StatementParameterBinderTest extends H2TestCase
+{
+    private JDOPersistenceManager pm;
+
+    private ExecutionContext ec;
+
+    private DatastoreClass table;
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        // Create the table of Item
+        persistAll(new Item("initial", 0, 0.0));
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        table = getStoreManager().getDatastoreClass(Item.class.getName(), clr);
+        pm = (JDOPersistenceManager)pmf.getPersistenceManager();
+        ec = pm.getExecutionContext();
+    }
+
+    protected void tearDown() throws Exception
+    {
+        if (pm != null)
+        {
+            pm.close();
+            pm = null;
+        }
+        super.tearDown();
+    }
+
+    public void testNamedValues()
+    {
+        List<SQLStatementParameter> params = Arrays.asList(param("qty", "quantity"), param("price", "price"),
+            param("qty", "quantity"), param("name", "name"), param("id", "id"));
+        Map<Integer, String> paramNameByPosition = getParameterNameByPosition("qty", "price", "name", "id");
+        Map values = new HashMap();
+        values.put("qty", Integer.valueOf(5));
+        values.put("price", Double.valueOf(1.5));
+        values.put("name", "Widget");
+        values.put("id", Long.valueOf(7));
+
+        Map<Integer, String> bound = assertSameBinding(params, paramNameByPosition, values);
+        assertEquals("5", bound.get(1));
+        assertEquals("1.5", bound.get(2));
+        assertEquals("5", bound.get(3));
+        assertEquals("Widget", bound.get(4));
+        assertEquals("7", bound.get(5));
+    }
+
+    public void testNumberedValuesOfNamedParameters()
+    {
+        List<SQLStatementParameter> params = Arrays.asList(param("qty", "quantity"), param("price", "price"),
+            param("qty", "quantity"), param("name", "name"), param("id", "id"));
+        Map<Integer, String> paramNameByPosition = getParameterNameByPosition("qty", "price", "name", "id");
+        Map values = new HashMap();
+        values.put(Integer.valueOf(0), Integer.valueOf(5));
+        values.put(Integer.valueOf(1), Double.valueOf(1.5));
+        values.put(Integer.valueOf(2), "Widget");
+        values.put(Integer.valueOf(3), Long.valueOf(7));
+
+        Map<Integer, String> bound = assertSameBinding(params, paramNameByPosition, values);
+        assertEquals("5", bound.get(3));
+        assertEquals("Widget", bound.get(4));
+    }
+
+    public void testNumberedParameters()
+    {
+        List<SQLStatementParameter> params = Arrays.asList(param("0", "quantity"), param("1", "price"), param("2", "name"), param("3", "id"));
+        Map values = new HashMap();
+        values.put(Integer.valueOf(0), Integer.valueOf(5));
+        values.put(Integer.valueOf(1), Double.valueOf(1.5));
+        values.put(Integer.valueOf(2), "Widget");
+        values.put(Integer.valueOf(3), Long.valueOf(7));
+
+        Map<Integer, String> bound = assertSameBinding(params, null, values);
+        assertEquals("1.5", bound.get(2));
+    }
+
+    public void testNumberedValuesWithoutPositions()
+    {
+        // Numbering of the values depends on the order the parameters are first used
+        List<SQLStatementParameter> params = Arrays.asList(param("qty", "quantity"), param("price", "price"), param("qty", "quantity"), param("name", "name"));
+        Map values = new HashMap();
+        values.put(Integer.valueOf(0), Integer.valueOf(5));
+        values.put(Integer.valueOf(1), Double.valueOf(1.5));
+        values.put(Integer.valueOf(2), "Widget");
+
+        Map<Integer, String> bound = assertSameBinding(params, null, values);
+        assertEquals("5", bound.get(3));
+        assertEquals("Widget", bound.get(4));
+    }
+
+    public void testOtherValueTypesAndNulls()
+    {
+        List<SQLStatementParameter> params = Arrays.asList(param("qty", "quantity"), param("price", "price"), param("name", "name"), param("id", "id"));
+        Map values = new HashMap();
+        values.put("qty", Long.valueOf(9));
+        values.put("price", Float.valueOf(2.5f));
+        values.put("name", null);
+        values.put("id", Integer.valueOf(3));
+
+        Map<Integer, String> bound = assertSameBinding(params, null, values);
+        assertEquals("null", bound.get(3));
+    }
+
+    /**
+     * Method to bind the values using the binder and using the generic method, asserting that they set the same values.
+     * @return The values bound, keyed by the position
+     */
+    private Map<Integer, String> assertSameBinding(List<SQLStatementParameter> params, Map<Integer, String> paramNameByPosition, Map values)
+    {
+        ParameterRecorder generic = new ParameterRecorder();
+        SQLStatementHelper.applyParametersToStatement(generic.getPreparedStatement(), ec, params, paramNameByPosition, values);
+
+        ParameterRecorder binder = new ParameterRecorder();
+        new StatementParameterBinder(params, paramNameByPosition).applyParametersToStatement(binder.getPreparedStatement(), ec, values);
+
+        assertEquals(params.size(), generic.getValues().size());
+        assertEquals(generic.getValues(), binder.getValues());
+        return binder.getValues();
+    }
+
+    /**
+     * Method to return a parameter with the mapping of the specified member of Item.
+     */
+    private SQLStatementParameter param(String name, String memberName)
+    {
+        return new SQLStatementParameter(name, table.getMemberMapping(memberName), null, -1);
+    }
+
+    private Map<Integer, String> getParameterNameByPosition(String... names)
+    {
+        Map<Integer, String> paramNameByPosition = new HashMap<>();
+        for (int i=0;i<names.length;i++)
+        {
+            paramNameByPosition.put(Integer.valueOf(i), names[i]);
+        }
+        return paramNameByPosition;
+    }
+}
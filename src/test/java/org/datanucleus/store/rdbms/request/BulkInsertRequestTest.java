@@ -0,0 +1,212 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.request;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.store.rdbms.RDBMSPropertyNames;
+import org.datanucleus.store.rdbms.SQLController;
+import org.datanucleus.store.rdbms.test.Document;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+import org.datanucleus.store.rdbms.test.ListHolder;
+import org.datanucleus.store.rdbms.test.SingleRowInsertH2Adapter;
+
+/**
+ * Tests for inserting objects with bulk loading enabled. Inserts are delayed to the flush (manual flush mode), and with the
+ * referential flush the objects of a type are inserted as a group, using a BulkInsertRequest (multi-row INSERT on H2) when
+ * there are enough of them.
+ */
+public class BulkInsertRequestTest extends H2TestCase
+{
+    private static final int BULK_LOAD_THRESHOLD = 10;
+
+    private static final int STATEMENT_BATCH_LIMIT = 100;
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put(RDBMSPropertyNames.PROPERTY_RDBMS_BULK_LOAD_THRESHOLD, "" + BULK_LOAD_THRESHOLD);
+        props.put(RDBMSPropertyNames.PROPERTY_RDBMS_FLUSH_REFERENTIAL, "true");
+        props.put("datanucleus.flush.mode", "MANUAL");
+        if (getName().endsWith("BatchedInsert"))
+        {
+            props.put(RDBMSPropertyNames.PROPERTY_RDBMS_DATASTORE_ADAPTER_CLASS_NAME, SingleRowInsertH2Adapter.class.getName());
+            props.put(RDBMSPropertyNames.PROPERTY_RDBMS_STATEMENT_BATCH_LIMIT, "" + STATEMENT_BATCH_LIMIT);
+        }
+    }
+
+    public void testBulkInsert()
+    {
+        assertInserted(250);
+    }
+
+    public void testBulkBatchedInsert()
+    {
+        // Without multi-row INSERTs the rows are inserted in JDBC batches of at most the statement batch limit
+        SQLController sqlControl = getStoreManager().getSQLController();
+        long numBatchesStart = sqlControl.getNumberOfBatches();
+        long numBatchedStmtsStart = sqlControl.getNumberOfBatchedStatements();
+        assertInserted(250);
+        assertEquals(3, sqlControl.getNumberOfBatches() - numBatchesStart);
+        assertEquals(250, sqlControl.getNumberOfBatchedStatements() - numBatchedStmtsStart);
+    }
+
+    public void testInsertBelowThreshold()
+    {
+        assertInserted(BULK_LOAD_THRESHOLD - 1);
+    }
+
+    public void testInsertWithObjectsThatCannotBeBulkLoaded()
+    {
+        // ListHolder has a join table, so is inserted one at a time alongside the bulk load of the Items
+        Object[] objs = new Object[BULK_LOAD_THRESHOLD * 2 + 2];
+        for (int i=0;i<BULK_LOAD_THRESHOLD * 2;i++)
+        {
+            objs[i] = newItem(i);
+        }
+        ListHolder holder1 = new ListHolder("holder1");
+        holder1.getValues().addAll(Arrays.asList("a", "b"));
+        objs[BULK_LOAD_THRESHOLD * 2] = holder1;
+        ListHolder holder2 = new ListHolder("holder2");
+        holder2.getValues().add("c");
+        objs[BULK_LOAD_THRESHOLD * 2 + 1] = holder2;
+        persistAll(objs);
+
+        assertItems(BULK_LOAD_THRESHOLD * 2);
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<ListHolder> q = pm.newQuery(ListHolder.class);
+            q.setOrdering("name ascending");
+            List<ListHolder> holders = q.executeList();
+            assertEquals(2, holders.size());
+            assertEquals(Arrays.asList("a", "b"), new ArrayList<>(holders.get(0).getValues()));
+            assertEquals(Arrays.asList("c"), new ArrayList<>(holders.get(1).getValues()));
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testBulkLoadColumns()
+    {
+        assertNotNull(getInsertRequest(Item.class).getBulkLoadColumnNames());
+    }
+
+    public void testNoBulkLoadOfStreamedColumns()
+    {
+        // Document has serialised and File values streamed to BLOB columns, so can't be bulk loaded
+        assertNull(getInsertRequest(Document.class).getBulkLoadColumnNames());
+
+        Object[] docs = new Object[BULK_LOAD_THRESHOLD * 2];
+        for (int i=0;i<docs.length;i++)
+        {
+            Document doc = new Document("doc" + i);
+            doc.getLines().add("line" + i);
+            docs[i] = doc;
+        }
+        persistAll(docs);
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Document> q = pm.newQuery(Document.class);
+            q.setOrdering("id ascending");
+            List<Document> results = q.executeList();
+            assertEquals(docs.length, results.size());
+            for (int i=0;i<docs.length;i++)
+            {
+                assertEquals("doc" + i, results.get(i).getTitle());
+                assertEquals(Arrays.asList("line" + i), results.get(i).getLines());
+            }
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    private InsertRequest getInsertRequest(Class cls)
+    {
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        return new InsertRequest(getStoreManager().getDatastoreClass(cls.getName(), clr),
+            getStoreManager().getMetaDataManager().getMetaDataForClass(cls, clr), clr);
+    }
+
+    private void assertInserted(int number)
+    {
+        Object[] items = new Object[number];
+        for (int i=0;i<number;i++)
+        {
+            items[i] = newItem(i);
+        }
+        persistAll(items);
+
+        Set<Long> ids = new HashSet<>();
+        for (Object item : items)
+        {
+            ids.add(((Item)item).getId());
+        }
+        assertEquals("Each object should have its own id", number, ids.size());
+        assertItems(number);
+    }
+
+    /**
+     * Method to create the Item with the specified number, with some null names so that nulls are bulk loaded.
+     */
+    private static Item newItem(int i)
+    {
+        return new Item(i % 7 == 0 ? null : "Item " + i, i, i * 1.5);
+    }
+
+    /**
+     * Method to check that the datastore holds the specified number of Items, with the values they were created with.
+     */
+    private void assertItems(int number)
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Item> q = pm.newQuery(Item.class);
+            q.setOrdering("quantity ascending");
+            List<Item> results = q.executeList();
+            assertEquals(number, results.size());
+            for (int i=0;i<number;i++)
+            {
+                Item item = results.get(i);
+                assertEquals(i, item.getQuantity());
+                assertEquals(i * 1.5, item.getPrice(), 0.0);
+                assertEquals(newItem(i).getName(), item.getName());
+            }
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.request;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.state.ObjectProvider;
+import org.datanucleus.store.rdbms.RDBMSPersistenceHandler;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+
+/**
+ * Tests for the eviction and accounting of the RequestCache. The requests use a real table, but are never executed.
+ */
+public class RequestCacheTest extends H2TestCase
+{
+    private DatastoreClass table;
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        // Create the table of Item
+        persistAll(new Item("initial", 0, 0.0));
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        table = getStoreManager().getDatastoreClass(Item.class.getName(), clr);
+    }
+
+    public void testUnboundedByDefault()
+    {
+        RequestCache storeCache = ((RDBMSPersistenceHandler)getStoreManager().getPersistenceHandler()).getRequestCache();
+        assertEquals(0, storeCache.getMaxSize());
+        assertEquals(0, storeCache.getMaxMemory());
+
+        RequestCache cache = new RequestCache(storeCache.getMaxSize(), RequestCache.EVICTION_POLICY_LRU);
+        for (int i=0;i<2000;i++)
+        {
+            cache.put(id("a" + i), request(100));
+        }
+        assertEquals(2000, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    public void testLRUEvictsRequestNotUsedSinceClockPassed()
+    {
+        RequestCache cache = new RequestCache(3, RequestCache.EVICTION_POLICY_LRU);
+        cache.put(id("a"), request(100));
+        cache.put(id("b"), request(100));
+        cache.put(id("c"), request(100));
+        assertNotNull(cache.get(id("a")));
+
+        cache.put(id("d"), request(100));
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull("Unused request should have been evicted", cache.get(id("b")));
+        assertNotNull(cache.get(id("a")));
+        assertNotNull(cache.get(id("c")));
+        assertNotNull(cache.get(id("d")));
+        assertEquals(300, cache.getMemory());
+    }
+
+    public void testLFURetainsFrequentlyUsedRequest()
+    {
+        RequestCache lfuCache = new RequestCache(2, RequestCache.EVICTION_POLICY_LFU);
+        RequestCache lruCache = new RequestCache(2, RequestCache.EVICTION_POLICY_LRU);
+        for (RequestCache cache : new RequestCache[] {lfuCache, lruCache})
+        {
+            cache.put(id("a"), request(100));
+            for (int i=0;i<3;i++)
+            {
+                cache.get(id("a"));
+            }
+            cache.put(id("b"), request(100));
+            cache.put(id("c"), request(100));
+            cache.put(id("d"), request(100));
+            cache.put(id("e"), request(100));
+            assertEquals(2, cache.size());
+            assertEquals(3, cache.getEvictionCount());
+        }
+
+        assertNotNull("Frequently used request should be retained with LFU", lfuCache.get(id("a")));
+        assertNull("Request should age out with LRU", lruCache.get(id("a")));
+    }
+
+    public void testMemoryBound()
+    {
+        RequestCache cache = new RequestCache(0, 2500, RequestCache.EVICTION_POLICY_LRU);
+        cache.put(id("a"), request(1000));
+        cache.put(id("b"), request(1000));
+        assertEquals(0, cache.getEvictionCount());
+
+        cache.put(id("c"), request(1000));
+        assertEquals(2, cache.size());
+        assertEquals(2000, cache.getMemory());
+        assertEquals(1, cache.getEvictionCount());
+
+        // Replacing a request accounts for the difference in size
+        cache.put(id("c"), request(400));
+        assertEquals(1400, cache.getMemory());
+
+        // A request larger than the bound is not retained either
+        cache.put(id("d"), request(3000));
+        assertTrue(cache.getMemory() <= 2500);
+    }
+
+    public void testCountersAndRebuilds()
+    {
+        RequestCache cache = new RequestCache(1, RequestCache.EVICTION_POLICY_LRU);
+        assertNull(cache.get(id("a")));
+        cache.put(id("a"), request(100));
+        cache.put(id("b"), request(100));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(0, cache.getRebuildCount());
+
+        assertNull(cache.get(id("a")));
+        cache.put(id("a"), request(100));
+        assertEquals(1, cache.getRebuildCount());
+        assertNotNull(cache.get(id("a")));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    public void testRemoveAndClear()
+    {
+        RequestCache cache = new RequestCache(10, RequestCache.EVICTION_POLICY_LRU);
+        cache.put(id("a"), request(100));
+        cache.put(id("b"), request(200));
+        cache.put(new RequestIdentifier(table, null, RequestType.UPDATE, "b"), request(300));
+
+        cache.removeRequestsForClass("b");
+        assertEquals(1, cache.size());
+        assertEquals(100, cache.getMemory());
+
+        cache.put(id("c"), request(100));
+        cache.removeRequestsForTable(table);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMemory());
+
+        cache.put(id("d"), request(100));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMemory());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    private RequestIdentifier id(String className)
+    {
+        return new RequestIdentifier(table, null, RequestType.INSERT, className);
+    }
+
+    private Request request(int size)
+    {
+        return new TestRequest(table, size);
+    }
+
+    /**
+     * Request with a specified estimated size.
+     */
+    private static class TestRequest extends Request
+    {
+        private final int size;
+
+        TestRequest(DatastoreClass table, int size)
+        {
+            super(table);
+            this.size = size;
+        }
+
+        public int getEstimatedSize()
+        {
+            return size;
+        }
+
+        public void execute(ObjectProvider op)
+        {
+        }
+    }
+}
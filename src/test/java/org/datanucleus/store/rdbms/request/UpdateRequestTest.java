@@ -0,0 +1,186 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.request;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+import javax.jdo.Transaction;
+
+import org.datanucleus.store.rdbms.RDBMSPersistenceHandler;
+import org.datanucleus.store.rdbms.RDBMSPropertyNames;
+import org.datanucleus.store.rdbms.SQLController;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+
+/**
+ * Tests for updates using "full-row" update mode with batching of the UPDATE statements, checking that objects with
+ * different dirty members have their UPDATEs batched together, and that members that were not loaded when the object was
+ * changed keep their values.
+ */
+public class UpdateRequestTest extends H2TestCase
+{
+    private static final int NUMBER_OF_ITEMS = 20;
+
+    private long[] ids;
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put(RDBMSPropertyNames.PROPERTY_RDBMS_UPDATE_MODE,
+            getName().endsWith("DirtyFields") ? RDBMSPersistenceHandler.UPDATE_MODE_DIRTY_FIELDS : RDBMSPersistenceHandler.UPDATE_MODE_FULL_ROW);
+        props.put(RDBMSPropertyNames.PROPERTY_RDBMS_BATCH_UPDATES, "true");
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        Item[] items = new Item[NUMBER_OF_ITEMS];
+        for (int i=0;i<NUMBER_OF_ITEMS;i++)
+        {
+            items[i] = new Item("Item " + i, i, i * 1.5);
+        }
+        persistAll((Object[])items);
+        ids = new long[NUMBER_OF_ITEMS];
+        for (int i=0;i<NUMBER_OF_ITEMS;i++)
+        {
+            ids[i] = items[i].getId();
+        }
+    }
+
+    public void testUpdateOfDifferentMembers()
+    {
+        // Every object has the same UPDATE statement whichever member is dirty, executed as one batch
+        long[] counts = updateDifferentMembers();
+        assertEquals(1, counts[0]);
+        assertEquals(NUMBER_OF_ITEMS, counts[1]);
+    }
+
+    public void testUpdateOfDifferentMembersDirtyFields()
+    {
+        // The UPDATE statement of each object differs from that of the previous object, so nothing is batched
+        long[] counts = updateDifferentMembers();
+        assertEquals(NUMBER_OF_ITEMS, counts[0]);
+        assertEquals(NUMBER_OF_ITEMS, counts[1]);
+    }
+
+    public void testUpdateOfHollowObjects()
+    {
+        SQLController sqlControl = getStoreManager().getSQLController();
+        long numBatchesStart = sqlControl.getNumberOfBatches();
+        long numBatchedStmtsStart = sqlControl.getNumberOfBatchedStatements();
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            for (int i=0;i<NUMBER_OF_ITEMS;i++)
+            {
+                // Object is hollow, so only the dirty member is updated (the other members are not fetched)
+                Item item = (Item)pm.getObjectById(pm.newObjectIdInstance(Item.class, ids[i]), false);
+                item.setQuantity(i + 10);
+            }
+            tx.commit();
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        assertItems(10, 0);
+        assertEquals(1, sqlControl.getNumberOfBatches() - numBatchesStart);
+        assertEquals(NUMBER_OF_ITEMS, sqlControl.getNumberOfBatchedStatements() - numBatchedStmtsStart);
+    }
+
+    /**
+     * Method to query all Items and change the quantity of each Item, and also the price of each odd Item, in one transaction.
+     * @return The number of batches, and the number of batched statements, executed for the UPDATEs
+     */
+    private long[] updateDifferentMembers()
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        SQLController sqlControl = getStoreManager().getSQLController();
+        long numBatchesStart;
+        long numBatchedStmtsStart;
+        try
+        {
+            tx.begin();
+            Query<Item> q = pm.newQuery(Item.class);
+            q.setOrdering("quantity ascending");
+            List<Item> items = q.executeList();
+            numBatchesStart = sqlControl.getNumberOfBatches();
+            numBatchedStmtsStart = sqlControl.getNumberOfBatchedStatements();
+            for (int i=0;i<items.size();i++)
+            {
+                Item item = items.get(i);
+                item.setQuantity(i + 50);
+                if (i % 2 == 1)
+                {
+                    item.setPrice(i * 1.5 + 1.0);
+                }
+            }
+            tx.commit();
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        assertItems(50, 1.0);
+        return new long[] {sqlControl.getNumberOfBatches() - numBatchesStart, sqlControl.getNumberOfBatchedStatements() - numBatchedStmtsStart};
+    }
+
+    /**
+     * Method to check that each Item has its quantity increased by the specified amount, the price of each odd Item increased
+     * by the specified amount, and its other members unchanged.
+     */
+    private void assertItems(int quantityIncrease, double oddPriceIncrease)
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Item> q = pm.newQuery(Item.class);
+            q.setOrdering("quantity ascending");
+            List<Item> results = q.executeList();
+            assertEquals(NUMBER_OF_ITEMS, results.size());
+            for (int i=0;i<NUMBER_OF_ITEMS;i++)
+            {
+                Item item = results.get(i);
+                assertEquals(ids[i], item.getId());
+                assertEquals(i + quantityIncrease, item.getQuantity());
+                assertEquals("Item " + i, item.getName());
+                assertEquals(i * 1.5 + (i % 2 == 0 ? 0.0 : oddPriceIncrease), item.getPrice(), 0.0);
+            }
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.schema;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for saving and loading a snapshot of schema information, including that a file holding classes other than those
+ * of a snapshot is rejected.
+ */
+public class RDBMSSchemaSnapshotTest extends TestCase
+{
+    private File file;
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        file = File.createTempFile("dnsnapshot", ".ser");
+        file.delete();
+    }
+
+    protected void tearDown() throws Exception
+    {
+        file.delete();
+        super.tearDown();
+    }
+
+    public void testSaveAndLoad() throws Exception
+    {
+        RDBMSSchemaSnapshot snapshot = new RDBMSSchemaSnapshot("key1");
+        snapshot.setTableType("PUBLIC.ITEM", "TABLE");
+        snapshot.setColumnInfo("PUBLIC.ITEM", getTableInfo());
+        RDBMSTablePKInfo pkInfo = new RDBMSTablePKInfo(null, "PUBLIC", "ITEM");
+        snapshot.setPKInfo("PUBLIC.ITEM", pkInfo);
+        assertTrue(snapshot.isDirty());
+
+        snapshot.save(file);
+        assertFalse(snapshot.isDirty());
+        assertTrue(file.exists());
+
+        RDBMSSchemaSnapshot loaded = RDBMSSchemaSnapshot.load(file, "key1");
+        assertNotNull(loaded);
+        assertFalse(loaded.isDirty());
+        assertEquals("key1", loaded.getKey());
+        assertEquals("TABLE", loaded.getTableType("PUBLIC.ITEM"));
+        assertEquals("ITEM", loaded.getPKInfo("PUBLIC.ITEM").getProperty("table_name"));
+
+        RDBMSTableInfo tableInfo = loaded.getColumnInfo("PUBLIC.ITEM");
+        assertEquals(2, tableInfo.getNumberOfChildren());
+        RDBMSColumnInfo nameCol = (RDBMSColumnInfo)tableInfo.getChild("NAME");
+        assertNotNull(nameCol);
+        assertEquals(java.sql.Types.VARCHAR, nameCol.getDataType());
+        assertEquals(100, nameCol.getColumnSize());
+        assertEquals(Long.valueOf(1234L), tableInfo.getProperty("time"));
+    }
+
+    public void testLoadWithDifferentKey()
+    {
+        new RDBMSSchemaSnapshot("key1").save(file);
+        assertNull(RDBMSSchemaSnapshot.load(file, "key2"));
+    }
+
+    public void testLoadMissingFile()
+    {
+        assertNull(RDBMSSchemaSnapshot.load(file, "key1"));
+    }
+
+    public void testLoadRejectsOtherClasses() throws IOException
+    {
+        // A file with the snapshot marker and version, but holding some other object
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file)))
+        {
+            out.writeUTF("DataNucleus RDBMS schema snapshot");
+            out.writeInt(RDBMSSchemaSnapshot.FORMAT_VERSION);
+            out.writeObject(new ArrayList<>(java.util.Collections.singletonList(new StringBuilder("x"))));
+        }
+        assertNull(RDBMSSchemaSnapshot.load(file, "key1"));
+    }
+
+    public void testLoadRejectsOtherClassesInSnapshot()
+    {
+        // A snapshot with a value of a class that isn't part of a snapshot
+        RDBMSSchemaSnapshot snapshot = new RDBMSSchemaSnapshot("key1");
+        RDBMSTableInfo tableInfo = new RDBMSTableInfo(null, "PUBLIC", "ITEM");
+        tableInfo.addProperty("time", new java.util.Date());
+        snapshot.setColumnInfo("PUBLIC.ITEM", tableInfo);
+        snapshot.save(file);
+        assertNull(RDBMSSchemaSnapshot.load(file, "key1"));
+    }
+
+    /**
+     * Method to return the column info of a table, read from the DatabaseMetaData of an H2 database.
+     */
+    private RDBMSTableInfo getTableInfo() throws Exception
+    {
+        RDBMSTableInfo tableInfo = new RDBMSTableInfo(null, "PUBLIC", "ITEM");
+        tableInfo.addProperty("time", Long.valueOf(1234L));
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:dnsnapshot", "sa", ""))
+        {
+            try (Statement stmt = conn.createStatement())
+            {
+                stmt.execute("CREATE TABLE ITEM (ID BIGINT NOT NULL PRIMARY KEY, NAME VARCHAR(100))");
+            }
+            try (ResultSet rs = conn.getMetaData().getColumns(null, "PUBLIC", "ITEM", null))
+            {
+                while (rs.next())
+                {
+                    tableInfo.addChild(new RDBMSColumnInfo(rs));
+                }
+            }
+        }
+        return tableInfo;
+    }
+}
@@ -0,0 +1,177 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.scostore;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Transaction;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.store.rdbms.test.FKSetHolder;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+
+/**
+ * Tests for addAll and removeAll of a unidirectional FK set, where the FK (and relation discriminator) of persistent elements
+ * is updated with an IN list. The two sets of the holder share the FK column, so an element of one set has a relation
+ * discriminator value that differs from that of the other set, and an element of neither set has a null discriminator.
+ * Caching of collections is disabled so that the operations and reads go to the datastore.
+ */
+public class FKSetBulkTest extends H2TestCase
+{
+    private long holderId;
+
+    private List<Long> itemIds = new ArrayList<>();
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put("datanucleus.cache.collections", "false");
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        FKSetHolder holder = new FKSetHolder("holder");
+        Item[] items = new Item[6];
+        Object[] objs = new Object[items.length + 1];
+        for (int i=0;i<items.length;i++)
+        {
+            items[i] = new Item("item" + i, i, 1.0);
+            objs[i] = items[i];
+        }
+        holder.getItems().add(items[0]);
+        holder.getItems().add(items[1]);
+        holder.getSpareItems().add(items[5]);
+        objs[items.length] = holder;
+        persistAll(objs);
+        holderId = holder.getId();
+        for (Item item : items)
+        {
+            itemIds.add(item.getId());
+        }
+    }
+
+    public void testSetAllowsBulkFkUpdate()
+    {
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        AbstractClassMetaData cmd = getStoreManager().getMetaDataManager().getMetaDataForClass(FKSetHolder.class, clr);
+        AbstractMemberMetaData mmd = cmd.getMetaDataForMember("items");
+        FKSetStore setStore = (FKSetStore)getStoreManager().getBackingStoreForField(clr, mmd, Set.class);
+        assertTrue(setStore.allowsBulkFkUpdate());
+    }
+
+    public void testAddAllOfNewAndExistingElements()
+    {
+        assertTrue(updateItems(true, 0, 1, 2, 3));
+        assertItemsInDatastore(false, 0, 1, 2, 3);
+        assertItemsInDatastore(true, 5);
+    }
+
+    public void testAddAllOfOnlyExistingElements()
+    {
+        assertFalse(updateItems(true, 0, 1));
+        assertItemsInDatastore(false, 0, 1);
+    }
+
+    public void testAddAllOfElementOfOtherSet()
+    {
+        assertTrue(updateItems(true, 1, 5));
+        assertItemsInDatastore(false, 0, 1, 5);
+        assertItemsInDatastore(true);
+    }
+
+    public void testRemoveAllAndAddAllAgain()
+    {
+        assertTrue(updateItems(false, 1, 3));
+        assertItemsInDatastore(false, 0);
+        assertFalse(updateItems(false, 1, 3));
+
+        // The removed element has a null FK and discriminator, so is added again
+        assertTrue(updateItems(true, 1));
+        assertItemsInDatastore(false, 0, 1);
+        assertItemsInDatastore(true, 5);
+    }
+
+    /**
+     * Method to add or remove the Items at the specified positions to/from the set "items", in a transaction.
+     * @return Whether the set was changed
+     */
+    private boolean updateItems(boolean add, int... positions)
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            FKSetHolder holder = pm.getObjectById(FKSetHolder.class, holderId);
+            List<Item> items = new ArrayList<>();
+            for (int position : positions)
+            {
+                items.add(pm.getObjectById(Item.class, itemIds.get(position)));
+            }
+            boolean modified = add ? holder.getItems().addAll(items) : holder.getItems().removeAll(items);
+            tx.commit();
+            return modified;
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+
+    /**
+     * Method to read a set of the holder in a new PM and check that it holds the Items at the specified positions.
+     */
+    private void assertItemsInDatastore(boolean spareItems, int... positions)
+    {
+        Set<Long> expected = new HashSet<>();
+        for (int position : positions)
+        {
+            expected.add(itemIds.get(position));
+        }
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            FKSetHolder holder = pm.getObjectById(FKSetHolder.class, holderId);
+            Set<Item> items = spareItems ? holder.getSpareItems() : holder.getItems();
+            Set<Long> ids = new HashSet<>();
+            for (Item item : items)
+            {
+                ids.add(item.getId());
+            }
+            assertEquals(expected, ids);
+            assertEquals(expected.size(), items.size());
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.scostore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Transaction;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.ListHolder;
+
+/**
+ * Tests for an indexed list using gapped ordering (see ListHolder), comparing the list read back from the datastore with
+ * a java.util.ArrayList having the same operations applied. Caching of collections is disabled so that the operations
+ * and reads go to the datastore.
+ */
+public class GappedListTest extends H2TestCase
+{
+    private long holderId;
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put("datanucleus.cache.collections", "false");
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        ListHolder holder = new ListHolder("holder");
+        persistAll(holder);
+        holderId = holder.getId();
+    }
+
+    public void testListUsesGappedOrdering()
+    {
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        AbstractClassMetaData cmd = getStoreManager().getMetaDataManager().getMetaDataForClass(ListHolder.class, clr);
+        AbstractMemberMetaData mmd = cmd.getMetaDataForMember("values");
+        AbstractListStore listStore = (AbstractListStore)getStoreManager().getBackingStoreForField(clr, mmd, List.class);
+        assertTrue(listStore.isGappedOrdering());
+    }
+
+    public void testInsertsRenumberWhenNoGapLeft()
+    {
+        List<String> expected = new ArrayList<>(Arrays.asList("a", "b", "c"));
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            List<String> values = pm.getObjectById(ListHolder.class, holderId).getValues();
+            values.addAll(expected);
+
+            // Repeated inserts at the same position use up the gap between the first two elements
+            for (int i=0;i<6;i++)
+            {
+                values.add(1, "x" + i);
+                expected.add(1, "x" + i);
+                assertEquals(expected.get(1), values.get(1));
+            }
+            tx.commit();
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        assertListInDatastore(expected);
+    }
+
+    public void testOperationsMatchArrayList()
+    {
+        Random rnd = new Random(17);
+        List<String> expected = new ArrayList<>();
+        int valueNumber = 0;
+        for (int round=0;round<5;round++)
+        {
+            PersistenceManager pm = pmf.getPersistenceManager();
+            Transaction tx = pm.currentTransaction();
+            try
+            {
+                tx.begin();
+                List<String> values = pm.getObjectById(ListHolder.class, holderId).getValues();
+                for (int i=0;i<30;i++)
+                {
+                    int op = expected.isEmpty() ? 0 : rnd.nextInt(10);
+                    if (op < 3)
+                    {
+                        // Insert, mostly near the start so the gaps there are used up
+                        int index = rnd.nextBoolean() ? Math.min(1, expected.size()) : rnd.nextInt(expected.size() + 1);
+                        String value = "v" + (valueNumber++);
+                        values.add(index, value);
+                        expected.add(index, value);
+                    }
+                    else if (op < 5)
+                    {
+                        String value = "v" + (valueNumber++);
+                        values.add(value);
+                        expected.add(value);
+                    }
+                    else if (op < 7)
+                    {
+                        int index = rnd.nextInt(expected.size());
+                        assertEquals(expected.remove(index), values.remove(index));
+                    }
+                    else if (op < 8)
+                    {
+                        String value = expected.get(rnd.nextInt(expected.size()));
+                        assertEquals(expected.remove(value), values.remove(value));
+                    }
+                    else if (op < 9)
+                    {
+                        int index = rnd.nextInt(expected.size());
+                        String value = "v" + (valueNumber++);
+                        assertEquals(expected.set(index, value), values.set(index, value));
+                    }
+                    else
+                    {
+                        int index = rnd.nextInt(expected.size());
+                        assertEquals(expected.get(index), values.get(index));
+                        assertEquals(index, values.indexOf(expected.get(index)));
+                    }
+                }
+                tx.commit();
+            }
+            finally
+            {
+                if (tx.isActive())
+                {
+                    tx.rollback();
+                }
+                pm.close();
+            }
+
+            assertListInDatastore(expected);
+        }
+    }
+
+    /**
+     * Method to read the list in a new PM and compare it with the expected list, also by position.
+     */
+    private void assertListInDatastore(List<String> expected)
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            List<String> values = pm.getObjectById(ListHolder.class, holderId).getValues();
+            assertEquals(expected, new ArrayList<>(values));
+            assertEquals(expected.size(), values.size());
+            for (int i=0;i<expected.size();i++)
+            {
+                assertEquals(expected.get(i), values.get(i));
+            }
+            if (!expected.isEmpty())
+            {
+                String last = expected.get(expected.size()-1);
+                assertEquals(expected.size()-1, values.lastIndexOf(last));
+                assertEquals(expected.subList(1, expected.size()), new ArrayList<>(values.subList(1, values.size())));
+            }
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+}
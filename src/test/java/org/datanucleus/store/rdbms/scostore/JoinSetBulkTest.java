@@ -0,0 +1,166 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.scostore;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Transaction;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+import org.datanucleus.store.rdbms.test.SetHolder;
+
+/**
+ * Tests for addAll and removeAll of a join set, where the elements already present are found with a bulk lookup, and
+ * elements removed with an IN list. Caching of collections is disabled so that the operations and reads go to the datastore.
+ */
+public class JoinSetBulkTest extends H2TestCase
+{
+    private long holderId;
+
+    private List<Long> itemIds = new ArrayList<>();
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put("datanucleus.cache.collections", "false");
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        SetHolder holder = new SetHolder("holder");
+        Item[] items = new Item[6];
+        Object[] objs = new Object[items.length + 1];
+        for (int i=0;i<items.length;i++)
+        {
+            items[i] = new Item("item" + i, i, 1.0);
+            objs[i] = items[i];
+        }
+        holder.getItems().add(items[0]);
+        holder.getItems().add(items[1]);
+        objs[items.length] = holder;
+        persistAll(objs);
+        holderId = holder.getId();
+        for (Item item : items)
+        {
+            itemIds.add(item.getId());
+        }
+    }
+
+    public void testSetAllowsBulkElementOperations()
+    {
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        AbstractClassMetaData cmd = getStoreManager().getMetaDataManager().getMetaDataForClass(SetHolder.class, clr);
+        AbstractMemberMetaData mmd = cmd.getMetaDataForMember("items");
+        JoinSetStore setStore = (JoinSetStore)getStoreManager().getBackingStoreForField(clr, mmd, Set.class);
+        assertTrue(setStore.allowsBulkElementOperations());
+    }
+
+    public void testAddAllOfNewAndExistingElements()
+    {
+        assertTrue(updateItems(true, 0, 1, 2, 3));
+        assertItemsInDatastore(0, 1, 2, 3);
+    }
+
+    public void testAddAllOfOnlyExistingElements()
+    {
+        assertFalse(updateItems(true, 0, 1));
+        assertItemsInDatastore(0, 1);
+    }
+
+    public void testRemoveAllOfPresentAndAbsentElements()
+    {
+        assertTrue(updateItems(true, 2, 3, 4));
+        assertTrue(updateItems(false, 1, 3, 5));
+        assertItemsInDatastore(0, 2, 4);
+    }
+
+    public void testRemoveAllOfOnlyAbsentElements()
+    {
+        assertFalse(updateItems(false, 4, 5));
+        assertItemsInDatastore(0, 1);
+    }
+
+    /**
+     * Method to add or remove the Items at the specified positions to/from the set, in a transaction.
+     * @return Whether the set was changed
+     */
+    private boolean updateItems(boolean add, int... positions)
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            SetHolder holder = pm.getObjectById(SetHolder.class, holderId);
+            List<Item> items = new ArrayList<>();
+            for (int position : positions)
+            {
+                items.add(pm.getObjectById(Item.class, itemIds.get(position)));
+            }
+            boolean modified = add ? holder.getItems().addAll(items) : holder.getItems().removeAll(items);
+            tx.commit();
+            return modified;
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+
+    /**
+     * Method to read the set in a new PM and check that it holds the Items at the specified positions.
+     */
+    private void assertItemsInDatastore(int... positions)
+    {
+        Set<Long> expected = new HashSet<>();
+        for (int position : positions)
+        {
+            expected.add(itemIds.get(position));
+        }
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Set<Item> items = pm.getObjectById(SetHolder.class, holderId).getItems();
+            Set<Long> ids = new HashSet<>();
+            for (Item item : items)
+            {
+                ids.add(item.getId());
+            }
+            assertEquals(expected, ids);
+            assertEquals(expected.size(), items.size());
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.scostore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Transaction;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.store.rdbms.table.Column;
+import org.datanucleus.store.rdbms.table.TableImpl;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.IndexedListHolder;
+
+/**
+ * Tests for shifting the elements of an indexed join list, where the index column is part of the (owner, index) primary key
+ * of the join table, and so the shift has to avoid duplicate keys at each row updated. Caching of collections is disabled
+ * so that the operations and reads go to the datastore.
+ */
+public class ListShiftTest extends H2TestCase
+{
+    private long holderId;
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put("datanucleus.cache.collections", "false");
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        IndexedListHolder holder = new IndexedListHolder("holder");
+        holder.getValues().addAll(Arrays.asList("a", "b", "c", "d", "e", "f"));
+        persistAll(holder);
+        holderId = holder.getId();
+    }
+
+    public void testOrderColumnIsInUniqueKey() throws Exception
+    {
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        AbstractClassMetaData cmd = getStoreManager().getMetaDataManager().getMetaDataForClass(IndexedListHolder.class, clr);
+        AbstractMemberMetaData mmd = cmd.getMetaDataForMember("values");
+        AbstractListStore listStore = (AbstractListStore)getStoreManager().getBackingStoreForField(clr, mmd, List.class);
+        Column orderCol = listStore.orderMapping.getDatastoreMapping(0).getColumn();
+        assertTrue(((TableImpl)listStore.containerTable).isColumnInUniqueKey(null, orderCol, clr));
+    }
+
+    public void testInsertAllInMiddleShiftsElements()
+    {
+        List<String> expected = new ArrayList<>(Arrays.asList("a", "b", "c", "d", "e", "f"));
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            List<String> values = pm.getObjectById(IndexedListHolder.class, holderId).getValues();
+            values.addAll(2, Arrays.asList("x", "y"));
+            expected.addAll(2, Arrays.asList("x", "y"));
+            tx.commit();
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        assertListInDatastore(expected);
+    }
+
+    public void testRemoveShiftsElements()
+    {
+        List<String> expected = new ArrayList<>(Arrays.asList("a", "b", "c", "d", "e", "f"));
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            List<String> values = pm.getObjectById(IndexedListHolder.class, holderId).getValues();
+            assertEquals("b", values.remove(1));
+            expected.remove(1);
+            assertTrue(values.removeAll(Arrays.asList("a", "d")));
+            expected.removeAll(Arrays.asList("a", "d"));
+            tx.commit();
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+
+        assertListInDatastore(expected);
+    }
+
+    /**
+     * Method to read the list in a new PM and compare it with the expected list, also by position.
+     */
+    private void assertListInDatastore(List<String> expected)
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            List<String> values = pm.getObjectById(IndexedListHolder.class, holderId).getValues();
+            assertEquals(expected, new ArrayList<>(values));
+            for (int i=0;i<expected.size();i++)
+            {
+                assertEquals(expected.get(i), values.get(i));
+            }
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+}
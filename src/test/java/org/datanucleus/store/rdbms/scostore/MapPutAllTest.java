@@ -0,0 +1,215 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.scostore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Transaction;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.ExecutionContext;
+import org.datanucleus.api.jdo.JDOPersistenceManager;
+import org.datanucleus.metadata.AbstractClassMetaData;
+import org.datanucleus.metadata.AbstractMemberMetaData;
+import org.datanucleus.state.ObjectProvider;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.MapHolder;
+
+/**
+ * Tests for putAll of a join map, where the keys already present are found with a bulk lookup. Caching of collections is
+ * disabled so that the putAll and reads go to the datastore.
+ */
+public class MapPutAllTest extends H2TestCase
+{
+    private long holderId;
+
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        props.put("datanucleus.cache.collections", "false");
+        props.put("datanucleus.enableStatistics", "true");
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        MapHolder holder = new MapHolder("holder");
+        holder.getCounts().put("a", 1);
+        holder.getCounts().put("b", 2);
+        persistAll(holder);
+        holderId = holder.getId();
+    }
+
+    public void testMapAllowsBulkKeyLookup()
+    {
+        AbstractMapStore mapStore = getMapStore();
+        assertTrue(mapStore.allowsBulkKeyLookup());
+
+        String stmt = mapStore.getExistingKeysStmt(3, null);
+        assertTrue(stmt, stmt.endsWith(" IN (?,?,?)"));
+        assertFalse(stmt, stmt.contains("UNION"));
+    }
+
+    public void testGetExistingKeysInChunks()
+    {
+        // More keys than the datastore allows parameters in one statement, so needs several queries
+        int numberOfKeys = getStoreManager().getDatastoreAdapter().getMaxParametersPerStatement() * 2 + 10;
+        List<String> keys = new ArrayList<>();
+        for (int i=0;i<numberOfKeys;i++)
+        {
+            keys.add("key" + i);
+        }
+        keys.add(600, "a");
+        keys.add("b");
+
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            MapHolder holder = pm.getObjectById(MapHolder.class, holderId);
+            ObjectProvider op = ((JDOPersistenceManager)pm).getExecutionContext().findObjectProvider(holder);
+            Set<String> expected = new HashSet<>();
+            expected.add("a");
+            expected.add("b");
+            assertEquals(expected, getMapStore().getExistingKeys(op, keys));
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testPutAllOfNewAndExistingKeys()
+    {
+        Map<String, Integer> entries = new HashMap<>();
+        entries.put("b", 20);
+        entries.put("c", 3);
+        entries.put("d", 4);
+        putAll(entries);
+
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("a", 1);
+        expected.put("b", 20);
+        expected.put("c", 3);
+        expected.put("d", 4);
+        assertMapInDatastore(expected);
+    }
+
+    public void testPutAllOfOnlyExistingKeys()
+    {
+        Map<String, Integer> entries = new HashMap<>();
+        entries.put("a", 10);
+        entries.put("b", 20);
+        putAll(entries);
+        assertMapInDatastore(entries);
+    }
+
+    public void testPutAllOfUnchangedValues()
+    {
+        // Only the key whose value changed is updated
+        Map<String, Integer> entries = new HashMap<>();
+        entries.put("a", 1);
+        entries.put("b", 2);
+        assertEquals(0, putAll(entries));
+        assertMapInDatastore(entries);
+
+        entries.put("b", 20);
+        assertEquals(1, putAll(entries));
+        assertMapInDatastore(entries);
+    }
+
+    public void testPutAllOfManyKeys()
+    {
+        // More keys than are looked up in one query, half of them present
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("a", 1);
+        expected.put("b", 2);
+        Map<String, Integer> entries = new HashMap<>();
+        for (int i=0;i<250;i++)
+        {
+            entries.put("key" + i, i);
+        }
+        putAll(entries);
+        expected.putAll(entries);
+        assertMapInDatastore(expected);
+
+        entries.clear();
+        for (int i=125;i<375;i++)
+        {
+            entries.put("key" + i, i * 2);
+        }
+        putAll(entries);
+        expected.putAll(entries);
+        assertMapInDatastore(expected);
+    }
+
+    private AbstractMapStore getMapStore()
+    {
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        AbstractClassMetaData cmd = getStoreManager().getMetaDataManager().getMetaDataForClass(MapHolder.class, clr);
+        AbstractMemberMetaData mmd = cmd.getMetaDataForMember("counts");
+        return (AbstractMapStore)getStoreManager().getBackingStoreForField(clr, mmd, Map.class);
+    }
+
+    /**
+     * Method to put the entries into the map, in a transaction.
+     * @return The number of datastore writes of the putAll
+     */
+    private int putAll(Map<String, Integer> entries)
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            Map<String, Integer> counts = pm.getObjectById(MapHolder.class, holderId).getCounts();
+            ExecutionContext ec = ((JDOPersistenceManager)pm).getExecutionContext();
+            int numWrites = ec.getStatistics().getNumberOfDatastoreWrites();
+            counts.putAll(entries);
+            tx.commit();
+            return ec.getStatistics().getNumberOfDatastoreWrites() - numWrites;
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+
+    private void assertMapInDatastore(Map<String, Integer> expected)
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Map<String, Integer> counts = pm.getObjectById(MapHolder.class, holderId).getCounts();
+            assertEquals(expected.size(), counts.size());
+            assertEquals(expected, new HashMap<>(counts));
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+}
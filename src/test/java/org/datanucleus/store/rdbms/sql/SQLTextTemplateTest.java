@@ -0,0 +1,115 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.sql;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.api.jdo.JDOPersistenceManager;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+import org.datanucleus.store.rdbms.test.ParameterRecorder;
+
+/**
+ * Tests for the frozen SQLTextTemplate of an SQLText or SQLStatement.
+ */
+public class SQLTextTemplateTest extends H2TestCase
+{
+    private DatastoreClass table;
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        // Create the table of Item
+        persistAll(new Item("initial", 0, 0.0));
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        table = getStoreManager().getDatastoreClass(Item.class.getName(), clr);
+    }
+
+    public void testParameterSlotsOfNestedText()
+    {
+        SQLText inner = new SQLText("A = ");
+        inner.appendParameter("p1", table.getMemberMapping("quantity"), Integer.valueOf(5));
+        SQLText text = new SQLText("SELECT * FROM T WHERE ");
+        text.append(inner).append(" AND B = ").appendParameter("p2", table.getMemberMapping("price"), Double.valueOf(1.5));
+
+        SQLTextTemplate template = text.toTemplate();
+        assertEquals("SELECT * FROM T WHERE A = ? AND B = ?", template.getSQL());
+        assertEquals(text.toSQL(), template.getSQL());
+        assertEquals(2, template.getNumberOfParameters());
+        assertEquals(2, template.getNumberOfPositions());
+        assertEquals(1, template.getPositionForParameter(0));
+        assertEquals(2, template.getPositionForParameter(1));
+        assertSame("Template should be cached until the text is changed", template, text.toTemplate());
+
+        // Rendering again after a further append must not duplicate the parameters of the nested text
+        text.append(" AND C = ").appendParameter("p3", table.getMemberMapping("name"), "Widget");
+        SQLTextTemplate template2 = text.toTemplate();
+        assertNotSame(template, template2);
+        assertEquals("SELECT * FROM T WHERE A = ? AND B = ? AND C = ?", template2.getSQL());
+        assertEquals(3, template2.getNumberOfParameters());
+        assertEquals(3, template2.getPositionForParameter(2));
+        assertEquals(2, template.getNumberOfParameters());
+
+        JDOPersistenceManager pm = (JDOPersistenceManager)pmf.getPersistenceManager();
+        try
+        {
+            ParameterRecorder recorder = new ParameterRecorder();
+            text.applyParametersToStatement(pm.getExecutionContext(), recorder.getPreparedStatement());
+            Map<Integer, String> values = recorder.getValues();
+            assertEquals(3, values.size());
+            assertEquals("5", values.get(1));
+            assertEquals("1.5", values.get(2));
+            assertEquals("Widget", values.get(3));
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+
+    public void testArrayParameterTakesOnePosition()
+    {
+        SQLText text = new SQLText("SELECT * FROM T WHERE ARRAY_CONTAINS(");
+        text.appendArrayParameter("p1", table.getMemberMapping("quantity"), Arrays.asList(1, 2, 3), "INTEGER");
+        text.append(", A) AND B = ").appendParameter("p2", table.getMemberMapping("price"), Double.valueOf(1.5));
+
+        SQLTextTemplate template = text.toTemplate();
+        assertEquals(2, template.getNumberOfParameters());
+        assertEquals(2, template.getNumberOfPositions());
+        assertEquals(2, template.getPositionForParameter(1));
+    }
+
+    public void testStatementTemplateIsResetWhenChanged()
+    {
+        SelectStatement stmt = new SelectStatement(getStoreManager(), table, null, null);
+        stmt.select(stmt.getPrimaryTable(), table.getIdMapping(), null);
+
+        SQLTextTemplate template = stmt.getSQLTextTemplate();
+        assertEquals(stmt.getSQLText().toSQL(), template.getSQL());
+        assertSame(template, stmt.getSQLTextTemplate());
+
+        stmt.setDistinct(true);
+        SQLTextTemplate template2 = stmt.getSQLTextTemplate();
+        assertNotSame(template, template2);
+        assertTrue(template2.getSQL().startsWith("SELECT DISTINCT"));
+    }
+}
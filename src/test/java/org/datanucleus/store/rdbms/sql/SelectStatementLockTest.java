@@ -0,0 +1,178 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.DatabaseMetaData;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.store.rdbms.adapter.DatastoreAdapter;
+import org.datanucleus.store.rdbms.adapter.MySQLAdapter;
+import org.datanucleus.store.rdbms.adapter.OracleAdapter;
+import org.datanucleus.store.rdbms.adapter.PostgreSQLAdapter;
+import org.datanucleus.store.rdbms.adapter.SQLServerAdapter;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.sql.SQLJoin.JoinType;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+
+/**
+ * Tests for the SQL generated for a locking SELECT that skips locked rows ("for-update-skip-locked"), for the syntax of each
+ * adapter. The statements are for the table of Item, generated with the adapter of the RDBMS being tested.
+ */
+public class SelectStatementLockTest extends H2TestCase
+{
+    public void testPostgreSQLSkipLocked()
+    {
+        String sql = getLockingSQL(new PostgreSQLAdapter(getMetaData("PostgreSQL", 9, 6)), true, false);
+        assertTrue(sql, sql.endsWith("FOR UPDATE SKIP LOCKED"));
+    }
+
+    public void testPostgreSQLSkipLockedNotSupported()
+    {
+        // PostgreSQL before 9.5 has no SKIP LOCKED, so just locks the rows
+        String sql = getLockingSQL(new PostgreSQLAdapter(getMetaData("PostgreSQL", 9, 4)), true, false);
+        assertTrue(sql, sql.endsWith("FOR UPDATE"));
+    }
+
+    public void testOracleSkipLocked()
+    {
+        String sql = getLockingSQL(new OracleAdapter(getMetaData("Oracle", 11, 2)), true, false);
+        assertTrue(sql, sql.endsWith("FOR UPDATE SKIP LOCKED"));
+    }
+
+    public void testMySQLSkipLocked()
+    {
+        String sql = getLockingSQL(new MySQLAdapter(getMetaData("MySQL", 8, 0)), true, false);
+        assertTrue(sql, sql.endsWith("FOR UPDATE SKIP LOCKED"));
+    }
+
+    public void testMySQLNoWait()
+    {
+        String sql = getLockingSQL(new MySQLAdapter(getMetaData("MySQL", 8, 0)), false, false);
+        assertTrue(sql, sql.endsWith("FOR UPDATE NOWAIT"));
+    }
+
+    public void testSQLServerSkipLocked()
+    {
+        String sql = getLockingSQL(new SQLServerAdapter(getMetaData("Microsoft SQL Server", 12, 0)), true, false);
+        assertTrue(sql, sql.contains(" WITH (UPDLOCK, ROWLOCK, READPAST)"));
+        assertFalse(sql, sql.contains("FOR UPDATE"));
+    }
+
+    public void testSQLServerSkipLockedWithJoin()
+    {
+        // The joined table needs the READPAST hint too, otherwise the SELECT blocks on its locked rows
+        String sql = getLockingSQL(new SQLServerAdapter(getMetaData("Microsoft SQL Server", 12, 0)), true, true);
+        assertTrue(sql, sql.contains("INNER JOIN"));
+        assertEquals(sql, 2, sql.split("WITH \\(UPDLOCK, ROWLOCK, READPAST\\)", -1).length - 1);
+        assertFalse(sql, sql.contains("WITH (UPDLOCK, ROWLOCK)"));
+    }
+
+    public void testSQLServerLockWithJoin()
+    {
+        String sql = getLockingSQL(new SQLServerAdapter(getMetaData("Microsoft SQL Server", 12, 0)), false, true);
+        assertEquals(sql, 2, sql.split("WITH \\(UPDLOCK, ROWLOCK\\)", -1).length - 1);
+        assertFalse(sql, sql.contains("READPAST"));
+    }
+
+    /**
+     * Method to generate the SQL for a locking SELECT of Item, using the specified adapter.
+     * @param dba The adapter
+     * @param skipLocked Whether to skip locked rows (otherwise uses NOWAIT)
+     * @param join Whether to join to a second table
+     * @return The SQL
+     */
+    private String getLockingSQL(final DatastoreAdapter dba, boolean skipLocked, boolean join)
+    {
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        DatastoreClass table = getStoreManager().getDatastoreClass(Item.class.getName(), clr);
+        SelectStatement stmt = new SelectStatement(getStoreManager(), table, null, null)
+        {
+            public DatastoreAdapter getDatastoreAdapter()
+            {
+                return dba;
+            }
+        };
+        JavaTypeMapping idMapping = table.getIdMapping();
+        stmt.select(stmt.getPrimaryTable(), idMapping, null);
+        if (join)
+        {
+            stmt.join(JoinType.INNER_JOIN, null, idMapping, table, null, idMapping, null, null);
+        }
+        stmt.addExtension(SQLStatement.EXTENSION_LOCK_FOR_UPDATE, Boolean.TRUE);
+        if (skipLocked)
+        {
+            stmt.addExtension(SQLStatement.EXTENSION_LOCK_FOR_UPDATE_SKIP_LOCKED, Boolean.TRUE);
+        }
+        else
+        {
+            stmt.addExtension(SQLStatement.EXTENSION_LOCK_FOR_UPDATE_NOWAIT, Boolean.TRUE);
+        }
+        return stmt.getSQLText().toSQL();
+    }
+
+    /**
+     * Method to return JDBC metadata for an RDBMS of the specified name and version, for constructing its adapter.
+     */
+    private static DatabaseMetaData getMetaData(final String productName, final int majorVersion, final int minorVersion)
+    {
+        return (DatabaseMetaData)Proxy.newProxyInstance(DatabaseMetaData.class.getClassLoader(), new Class[] {DatabaseMetaData.class},
+            new InvocationHandler()
+            {
+                public Object invoke(Object proxy, Method method, Object[] args)
+                {
+                    String name = method.getName();
+                    if (name.equals("getDatabaseProductName"))
+                    {
+                        return productName;
+                    }
+                    else if (name.equals("getDatabaseProductVersion"))
+                    {
+                        return majorVersion + "." + minorVersion;
+                    }
+                    else if (name.equals("getDatabaseMajorVersion"))
+                    {
+                        return Integer.valueOf(majorVersion);
+                    }
+                    else if (name.equals("getDatabaseMinorVersion"))
+                    {
+                        return Integer.valueOf(minorVersion);
+                    }
+
+                    Class returnType = method.getReturnType();
+                    if (returnType == boolean.class)
+                    {
+                        return Boolean.FALSE;
+                    }
+                    else if (returnType == int.class)
+                    {
+                        return Integer.valueOf(0);
+                    }
+                    else if (returnType == String.class)
+                    {
+                        return "";
+                    }
+                    return null;
+                }
+            });
+    }
+}
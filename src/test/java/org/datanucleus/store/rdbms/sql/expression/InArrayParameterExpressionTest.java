@@ -0,0 +1,135 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.sql.expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.jdo.PersistenceManager;
+import javax.jdo.Query;
+
+import org.datanucleus.ClassLoaderResolver;
+import org.datanucleus.api.jdo.JDOQuery;
+import org.datanucleus.store.rdbms.RDBMSPropertyNames;
+import org.datanucleus.store.rdbms.mapping.java.JavaTypeMapping;
+import org.datanucleus.store.rdbms.query.JDOQLQuery;
+import org.datanucleus.store.rdbms.sql.SelectStatement;
+import org.datanucleus.store.rdbms.table.DatastoreClass;
+import org.datanucleus.store.rdbms.test.H2TestCase;
+import org.datanucleus.store.rdbms.test.Item;
+
+/**
+ * Tests for binding a collection parameter of contains() as a single SQL ARRAY (on H2, using ARRAY_CONTAINS), and that the
+ * results are the same as when the collection is expanded into an IN list (the default).
+ */
+public class InArrayParameterExpressionTest extends H2TestCase
+{
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+        if (getName().endsWith("AsArray"))
+        {
+            props.put(RDBMSPropertyNames.PROPERTY_RDBMS_QUERY_COLLECTION_PARAMETER_AS_ARRAY, "true");
+        }
+    }
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        persistAll(new Item("a", 1, 1.0), new Item("b", 2, 2.0), new Item("c", 3, 3.0), new Item("d", 4, 4.0), new Item("e", 5, 5.0));
+    }
+
+    public void testStringCollectionAsArray()
+    {
+        String sql1 = assertContains("names.contains(name)", Arrays.asList("a", "c", "x"), "a", "c");
+        String sql2 = assertContains("names.contains(name)", Arrays.asList("b", "c", "d", "e", "y"), "b", "c", "d", "e");
+        assertTrue(sql1, sql1.contains("ARRAY_CONTAINS"));
+        assertEquals("SQL should not depend on the size of the collection", sql1, sql2);
+    }
+
+    public void testNumericCollectionAsArray()
+    {
+        String sql = assertContains("names.contains(quantity)", Arrays.asList(2, 4, 6), "b", "d");
+        assertTrue(sql, sql.contains("ARRAY_CONTAINS"));
+    }
+
+    public void testNegatedCollectionAsArray()
+    {
+        String sql = assertContains("!names.contains(name)", Arrays.asList("a", "c"), "b", "d", "e");
+        assertTrue(sql, sql.contains("NOT"));
+    }
+
+    public void testEmptyCollectionAsArray()
+    {
+        assertContains("names.contains(name)", Collections.emptyList());
+    }
+
+    public void testElementTypeNameAsArray()
+    {
+        // The element type of the array is the SQL type of the column, as named by the datastore
+        ClassLoaderResolver clr = getStoreManager().getNucleusContext().getClassLoaderResolver(null);
+        DatastoreClass table = getStoreManager().getDatastoreClass(Item.class.getName(), clr);
+        SelectStatement stmt = new SelectStatement(getStoreManager(), table, null, null);
+        for (String memberName : new String[] {"name", "quantity", "price"})
+        {
+            JavaTypeMapping mapping = table.getMemberMapping(memberName);
+            SQLExpression memberExpr = stmt.getSQLExpressionFactory().newExpression(stmt, stmt.getPrimaryTable(), mapping);
+            InArrayParameterExpression inExpr = new InArrayParameterExpression(memberExpr, "names", Collections.emptyList());
+            assertEquals(mapping.getDatastoreMapping(0).getColumn().getTypeInfo().getTypeName(), inExpr.elementTypeName);
+        }
+    }
+
+    public void testStringCollectionExpanded()
+    {
+        String sql = assertContains("names.contains(name)", Arrays.asList("a", "c", "x"), "a", "c");
+        assertFalse(sql, sql.contains("ARRAY_CONTAINS"));
+        assertContains("names.contains(quantity)", Arrays.asList(2, 4, 6), "b", "d");
+        assertContains("!names.contains(name)", Arrays.asList("a", "c"), "b", "d", "e");
+    }
+
+    /**
+     * Method to run a query of Item with a filter using the collection parameter "names", asserting the names of the results.
+     * @return The SQL of the query
+     */
+    private String assertContains(String filter, Collection values, String... expectedNames)
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        try
+        {
+            Query<Item> q = pm.newQuery(Item.class, filter);
+            q.declareParameters("java.util.Collection names");
+            q.setOrdering("name ascending");
+            List<Item> results = q.setParameters(values).executeList();
+
+            List<String> names = new ArrayList<>();
+            for (Item item : results)
+            {
+                names.add(item.getName());
+            }
+            assertEquals(Arrays.asList(expectedNames), names);
+            return ((JDOQLQuery)((JDOQuery)q).getInternalQuery()).getSQL();
+        }
+        finally
+        {
+            pm.close();
+        }
+    }
+}
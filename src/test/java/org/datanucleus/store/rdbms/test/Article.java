@@ -0,0 +1,70 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.test;
+
+import javax.jdo.annotations.Column;
+import javax.jdo.annotations.Extension;
+import javax.jdo.annotations.FetchGroup;
+import javax.jdo.annotations.IdGeneratorStrategy;
+import javax.jdo.annotations.PersistenceCapable;
+import javax.jdo.annotations.Persistent;
+import javax.jdo.annotations.PrimaryKey;
+
+/**
+ * Persistable class with a CLOB member in the default fetch group that is loaded lazily, and a fetch group "withBody"
+ * that includes it explicitly.
+ */
+@PersistenceCapable(detachable="true")
+@FetchGroup(name="withBody", members={@Persistent(name="body")})
+public class Article
+{
+    @PrimaryKey
+    @Persistent(valueStrategy=IdGeneratorStrategy.INCREMENT)
+    long id;
+
+    String title;
+
+    @Persistent(defaultFetchGroup="true", extensions={@Extension(vendorName="datanucleus", key="lazy-load", value="true")})
+    @Column(jdbcType="CLOB")
+    String body;
+
+    public Article()
+    {
+    }
+
+    public Article(String title, String body)
+    {
+        this.title = title;
+        this.body = body;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public String getTitle()
+    {
+        return title;
+    }
+
+    public String getBody()
+    {
+        return body;
+    }
+}
@@ -0,0 +1,82 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.jdo.annotations.Column;
+import javax.jdo.annotations.IdGeneratorStrategy;
+import javax.jdo.annotations.PersistenceCapable;
+import javax.jdo.annotations.Persistent;
+import javax.jdo.annotations.PrimaryKey;
+
+/**
+ * Persistable class with large binary members, a serialised list of lines and the contents of a File, both stored as BLOBs.
+ */
+@PersistenceCapable(detachable="true")
+public class Document
+{
+    @PrimaryKey
+    @Persistent(valueStrategy=IdGeneratorStrategy.INCREMENT)
+    long id;
+
+    String title;
+
+    @Persistent(serialized="true")
+    @Column(jdbcType="BLOB")
+    ArrayList<String> lines = new ArrayList<>();
+
+    @Column(jdbcType="BLOB")
+    File content;
+
+    public Document()
+    {
+    }
+
+    public Document(String title)
+    {
+        this.title = title;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public String getTitle()
+    {
+        return title;
+    }
+
+    public List<String> getLines()
+    {
+        return lines;
+    }
+
+    public File getContent()
+    {
+        return content;
+    }
+
+    public void setContent(File content)
+    {
+        this.content = content;
+    }
+}
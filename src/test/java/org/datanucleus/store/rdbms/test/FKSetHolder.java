@@ -0,0 +1,81 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.jdo.annotations.Element;
+import javax.jdo.annotations.Extension;
+import javax.jdo.annotations.IdGeneratorStrategy;
+import javax.jdo.annotations.PersistenceCapable;
+import javax.jdo.annotations.Persistent;
+import javax.jdo.annotations.PrimaryKey;
+
+/**
+ * Persistable class with two unidirectional FK sets of Items, sharing the FK column of the Item table and distinguished
+ * by a relation discriminator column.
+ */
+@PersistenceCapable(detachable="true")
+public class FKSetHolder
+{
+    @PrimaryKey
+    @Persistent(valueStrategy=IdGeneratorStrategy.INCREMENT)
+    long id;
+
+    String name;
+
+    @Persistent(extensions={@Extension(vendorName="datanucleus", key="relation-discriminator-column", value="HOLDER_RELATION"),
+        @Extension(vendorName="datanucleus", key="relation-discriminator-value", value="items")})
+    @Element(column="HOLDER_ID")
+    Set<Item> items = new HashSet<>();
+
+    @Persistent(extensions={@Extension(vendorName="datanucleus", key="relation-discriminator-column", value="HOLDER_RELATION"),
+        @Extension(vendorName="datanucleus", key="relation-discriminator-value", value="spareItems")})
+    @Element(column="HOLDER_ID")
+    Set<Item> spareItems = new HashSet<>();
+
+    public FKSetHolder()
+    {
+    }
+
+    public FKSetHolder(String name)
+    {
+        this.name = name;
+    }
+
+    public long getId()
+    {
+        return id;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public Set<Item> getItems()
+    {
+        return items;
+    }
+
+    public Set<Item> getSpareItems()
+    {
+        return spareItems;
+    }
+}
@@ -0,0 +1,105 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jdo.JDOHelper;
+import javax.jdo.PersistenceManager;
+import javax.jdo.PersistenceManagerFactory;
+import javax.jdo.Transaction;
+
+import org.datanucleus.api.jdo.JDOPersistenceManagerFactory;
+import org.datanucleus.store.rdbms.RDBMSStoreManager;
+
+import junit.framework.TestCase;
+
+/**
+ * Base for tests persisting to an in-memory H2 database, with a PMF created for each test. Persistable classes of the tests are
+ * in this package, and are enhanced when loaded (see the enhancer agent of the surefire configuration).
+ */
+public abstract class H2TestCase extends TestCase
+{
+    private static final AtomicInteger DATABASE_NUMBER = new AtomicInteger();
+
+    protected PersistenceManagerFactory pmf;
+
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        Map<String, Object> props = new HashMap<>();
+        props.put("javax.jdo.PersistenceManagerFactoryClass", JDOPersistenceManagerFactory.class.getName());
+        props.put("javax.jdo.option.ConnectionDriverName", "org.h2.Driver");
+        props.put("javax.jdo.option.ConnectionURL", "jdbc:h2:mem:dntest" + DATABASE_NUMBER.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        props.put("javax.jdo.option.ConnectionUserName", "sa");
+        props.put("javax.jdo.option.ConnectionPassword", "");
+        props.put("datanucleus.schema.autoCreateAll", "true");
+        props.put("datanucleus.schema.validateAll", "false");
+        addPersistenceProperties(props);
+        pmf = JDOHelper.getPersistenceManagerFactory(props);
+    }
+
+    protected void tearDown() throws Exception
+    {
+        if (pmf != null)
+        {
+            pmf.close();
+            pmf = null;
+        }
+        super.tearDown();
+    }
+
+    /**
+     * Method for a test to add to (or override) the persistence properties of the PMF.
+     * @param props The persistence properties
+     */
+    protected void addPersistenceProperties(Map<String, Object> props)
+    {
+    }
+
+    protected RDBMSStoreManager getStoreManager()
+    {
+        return (RDBMSStoreManager)((JDOPersistenceManagerFactory)pmf).getNucleusContext().getStoreManager();
+    }
+
+    /**
+     * Convenience method to persist objects in their own transaction.
+     * @param objs The objects
+     */
+    protected void persistAll(Object... objs)
+    {
+        PersistenceManager pm = pmf.getPersistenceManager();
+        Transaction tx = pm.currentTransaction();
+        try
+        {
+            tx.begin();
+            pm.makePersistentAll(objs);
+            tx.commit();
+        }
+        finally
+        {
+            if (tx.isActive())
+            {
+                tx.rollback();
+            }
+            pm.close();
+        }
+    }
+}
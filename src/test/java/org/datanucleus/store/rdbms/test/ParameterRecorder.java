@@ -0,0 +1,92 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the values set on a PreparedStatement, as the String form of the value keyed by the JDBC position, so that different
+ * ways of binding parameters can be compared. A value set using setNull is recorded as "null".
+ */
+public class ParameterRecorder implements InvocationHandler
+{
+    private final Map<Integer, String> values = new TreeMap<>();
+
+    private final PreparedStatement ps;
+
+    public ParameterRecorder()
+    {
+        ps = (PreparedStatement)Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class[] {PreparedStatement.class}, this);
+    }
+
+    public PreparedStatement getPreparedStatement()
+    {
+        return ps;
+    }
+
+    /**
+     * Accessor for the values set on the statement.
+     * @return The values keyed by the JDBC position
+     */
+    public Map<Integer, String> getValues()
+    {
+        return values;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args)
+    {
+        String name = method.getName();
+        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer)
+        {
+            values.put((Integer)args[0], name.equals("setNull") ? "null" : String.valueOf(args[1]));
+            return null;
+        }
+        else if (name.equals("hashCode"))
+        {
+            return System.identityHashCode(proxy);
+        }
+        else if (name.equals("equals"))
+        {
+            return proxy == args[0];
+        }
+        else if (name.equals("toString"))
+        {
+            return "ParameterRecorder" + values;
+        }
+
+        Class returnType = method.getReturnType();
+        if (returnType == boolean.class)
+        {
+            return Boolean.FALSE;
+        }
+        else if (returnType == int.class)
+        {
+            return Integer.valueOf(0);
+        }
+        else if (returnType == long.class)
+        {
+            return Long.valueOf(0);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,35 @@
+/**********************************************************************
+Copyright (c) 2017 Andy Jefferson and others. All rights reserved.
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+
+Contributors:
+    ...
+**********************************************************************/
+package org.datanucleus.store.rdbms.test;
+
+import java.sql.DatabaseMetaData;
+
+import org.datanucleus.store.rdbms.adapter.H2Adapter;
+
+/**
+ * Adapter for H2 that doesn't support INSERT statements of multiple rows, so that tests can use the paths taken for other
+ * datastores.
+ */
+public class SingleRowInsertH2Adapter extends H2Adapter
+{
+    public SingleRowInsertH2Adapter(DatabaseMetaData metadata)
+    {
+        super(metadata);
+        supportedOptions.remove(MULTI_ROW_INSERT);
+    }
+}